@@ -0,0 +1,28 @@
+#!/bin/sh
+#
+# File:     appcds.sh
+# Author:   Taylor Ecton
+# Purpose:  Builds build/maze.jar and a class data sharing archive, build/maze.jsa, holding every class the
+#           program loads before its first frame already parsed and verified. Starting with the archive
+#           skips that work, which is most of the time to the first frame. Needs JDK 13 or later and a
+#           display, since the archive is made by starting the program once. Run the program with:
+#           java -XX:SharedArchiveFile=build/maze.jsa -jar build/maze.jar
+#
+
+set -e
+cd "$(dirname "$0")"
+
+# compile into a jar; classes are only archived from jars, not from directories
+rm -rf build/classes
+mkdir -p build/classes
+javac -d build/classes src/*.java
+jar cfe build/maze.jar Maze -C build/classes .
+
+# start the program once; it exits after its first frame and the JVM writes the classes it loaded
+java -XX:ArchiveClassesAtExit=build/maze.jsa -jar build/maze.jar --startup-time
+
+# show the difference the archive makes
+echo "Without the archive:"
+java -jar build/maze.jar --startup-time
+echo "With the archive:"
+java -XX:SharedArchiveFile=build/maze.jsa -jar build/maze.jar --startup-time
@@ -0,0 +1,19 @@
+/*
+ * File:     AStarSolver.java
+ * Author:   Taylor Ecton
+ * Purpose:  Finds the cheapest path through a weighted maze with A*, guided towards the end by the
+ *           topology's estimate of the number of steps left (the Manhattan distance on a square grid).
+ *           Every cell costs at least 1 to enter, so the estimate never overestimates.
+ */
+
+public class AStarSolver extends ShortestPathSolver {
+    /**
+     * Estimates the remaining cost as the fewest steps it could take to reach the end.
+     * @param cell The cell index.
+     * @return A lower bound on the number of steps between the cell and the end.
+     */
+    @Override
+    protected int estimate(int cell) {
+        return grid.getTopology().distanceEstimate(cell, end);
+    }
+}
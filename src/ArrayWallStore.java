@@ -0,0 +1,74 @@
+/*
+ * File:     ArrayWallStore.java
+ * Author:   Taylor Ecton
+ * Purpose:  Wall bits kept in a byte array on the Java heap. This is the default storage and the fastest
+ *           one for mazes that fit comfortably in the heap.
+ */
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+public class ArrayWallStore implements WallStore {
+    // wall bits of each cell, followed by any unused room
+    private final byte[] walls;
+
+    // the same array read eight cells at a time
+    private final ByteBuffer words;
+
+    // number of cells
+    private final int cells;
+
+    /**
+     * Constructor for ArrayWallStore class. Every cell starts with no walls.
+     * @param cells The number of cells.
+     */
+    public ArrayWallStore(int cells) {
+        this(new byte[cells], cells);
+    }
+
+    /**
+     * Constructor for ArrayWallStore class that keeps the walls at the start of an existing array, such as
+     * one reused from an earlier maze. The walls are whatever the array holds.
+     * @param walls The array.
+     * @param cells The number of cells, no more than the length of the array.
+     */
+    public ArrayWallStore(byte[] walls, int cells) {
+        if (cells > walls.length) {
+            throw new IllegalArgumentException("Array too short for " + cells + " cells");
+        }
+        this.walls = walls;
+        this.cells = cells;
+        words = PackedBytes.wrap(walls);
+    }
+
+    @Override
+    public int getCellCount() { return cells; }
+
+    @Override
+    public int get(int cell) { return walls[cell] & 0xFF; }
+
+    @Override
+    public void set(int cell, int walls) { this.walls[cell] = (byte) walls; }
+
+    @Override
+    public void fill(int walls) { Arrays.fill(this.walls, 0, cells, (byte) walls); }
+
+    @Override
+    public void copyTo(int firstCell, byte[] dst, int offset, int count) {
+        System.arraycopy(walls, firstCell, dst, offset, count);
+    }
+
+    @Override
+    public void copyFrom(int firstCell, byte[] src, int offset, int count) {
+        System.arraycopy(src, offset, walls, firstCell, count);
+    }
+
+    @Override
+    public int find(int fromCell, int minWalls) { return PackedBytes.findBitCount(words, fromCell, cells, minWalls); }
+
+    @Override
+    public int mismatch(int firstCell, byte[] other, int offset, int count) {
+        int i = PackedBytes.mismatch(words, firstCell, PackedBytes.wrap(other), offset, count);
+        return i < 0 ? -1 : firstCell + i;
+    }
+}
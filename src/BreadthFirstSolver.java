@@ -0,0 +1,101 @@
+/*
+ * File:     BreadthFirstSolver.java
+ * Author:   Taylor Ecton
+ * Purpose:  Solves the maze with a breadth first search, which always finds a shortest path and handles
+ *           mazes with loops. Cells waiting in the queue are shown as visited, cells that have been
+ *           expanded as backtracked, and the path is recolored as visited once the end is found.
+ */
+
+import java.util.Arrays;
+
+public class BreadthFirstSolver implements MazeSolver {
+    // the maze being solved and the cells the solver starts and ends at
+    private MazeGrid grid;
+    private int start, end;
+
+    // cells waiting to be expanded
+    private int[] queue;
+    private int head, tail;
+
+    // the cell each cell was reached from, or -1 if it hasn't been reached
+    private int[] parent;
+
+    // whether the solver has run out of cells or found the end
+    private boolean finished;
+
+    /**
+     * Initializes variables when solving the maze.
+     * @param grid The maze to solve.
+     * @param start The cell to start from.
+     * @param end The cell to find.
+     */
+    @Override
+    public void init(MazeGrid grid, int start, int end) {
+        this.grid = grid;
+        this.start = start;
+        this.end = end;
+
+        queue = new int[grid.getCellCount()];
+        parent = new int[grid.getCellCount()];
+        Arrays.fill(parent, -1);
+
+        // the search begins at the start
+        parent[start] = start;
+        queue[0] = start;
+        head = 0;
+        tail = 1;
+        finished = start == end;
+    }
+
+    /**
+     * Expands the cell at the front of the queue.
+     */
+    @Override
+    public void step() {
+        if (finished)
+            return;
+
+        int cell = queue[head++];
+        if (cell != start)
+            grid.setState(cell, MazeCell.BACKTRACKED);
+
+        // add every open neighbour that hasn't been reached yet
+        for (int wall = 0; wall < grid.getSides(); wall++) {
+            int next = grid.passage(cell, wall);
+            if (next >= 0 && parent[next] < 0) {
+                parent[next] = cell;
+                queue[tail++] = next;
+                if (next == end) {
+                    finish();
+                    return;
+                }
+                grid.setState(next, MazeCell.VISITED);
+            }
+        }
+
+        if (head == tail)
+            finish();
+    }
+
+    @Override
+    public boolean isFinished() { return finished; }
+
+    @Override
+    public int getCellsVisited() { return tail; }
+
+    /**
+     * Stops the search, clearing the cells still in the queue and coloring the path if it was found.
+     */
+    private void finish() {
+        finished = true;
+        for (int i = head; i < tail; i++) {
+            if (queue[i] != end)
+                grid.setState(queue[i], MazeCell.BACKTRACKED);
+        }
+        if (parent[end] >= 0) {
+            for (int cell = parent[end]; cell != start; cell = parent[cell]) {
+                grid.setState(cell, MazeCell.VISITED);
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * File:     BufferWallStore.java
+ * Author:   Taylor Ecton
+ * Purpose:  Wall bits kept outside the Java heap in a ByteBuffer, either allocated directly or mapped from
+ *           a file. The garbage collector never scans or moves the bytes, so a huge maze doesn't need a
+ *           huge heap, and a mapped file lets the operating system page the walls to disk when the maze is
+ *           larger than memory.
+ */
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public class BufferWallStore implements WallStore {
+    // wall bits of each cell, at the cell's index in the buffer
+    private final ByteBuffer walls;
+
+    // the same buffer read eight cells at a time
+    private final ByteBuffer words;
+
+    /**
+     * Constructor for BufferWallStore class.
+     * @param walls The buffer to store the walls in; it needs one byte for every cell.
+     */
+    public BufferWallStore(ByteBuffer walls) {
+        this.walls = walls;
+        words = walls.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Creates storage in a direct buffer allocated outside the Java heap. Every cell starts with no walls.
+     * @param cells The number of cells.
+     * @return The new storage.
+     */
+    public static BufferWallStore allocateDirect(int cells) {
+        return new BufferWallStore(ByteBuffer.allocateDirect(cells));
+    }
+
+    /**
+     * Creates storage mapped from a file, which is created or resized to one byte per cell. Any walls
+     * already in the file are kept. The file can be deleted once it is mapped on systems that allow it.
+     * @param file The file to map.
+     * @param cells The number of cells.
+     * @return The new storage.
+     * @throws IOException If the file can't be opened or mapped.
+     */
+    public static BufferWallStore map(Path file, int cells) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                                    StandardOpenOption.WRITE)) {
+            // the mapping stays valid after the channel is closed
+            return new BufferWallStore(channel.map(FileChannel.MapMode.READ_WRITE, 0, cells));
+        }
+    }
+
+    @Override
+    public int getCellCount() { return walls.capacity(); }
+
+    @Override
+    public int get(int cell) { return walls.get(cell) & 0xFF; }
+
+    @Override
+    public void set(int cell, int walls) { this.walls.put(cell, (byte) walls); }
+
+    @Override
+    public void fill(int walls) { PackedBytes.fill(words, 0, words.capacity(), walls); }
+
+    @Override
+    public void copyTo(int firstCell, byte[] dst, int offset, int count) {
+        // a duplicate has its own position, so copies on different threads don't interfere
+        ByteBuffer view = walls.duplicate();
+        view.position(firstCell);
+        view.get(dst, offset, count);
+    }
+
+    @Override
+    public void copyFrom(int firstCell, byte[] src, int offset, int count) {
+        ByteBuffer view = walls.duplicate();
+        view.position(firstCell);
+        view.put(src, offset, count);
+    }
+
+    @Override
+    public int find(int fromCell, int minWalls) {
+        return PackedBytes.findBitCount(words, fromCell, words.capacity(), minWalls);
+    }
+
+    @Override
+    public int mismatch(int firstCell, byte[] other, int offset, int count) {
+        int i = PackedBytes.mismatch(words, firstCell, PackedBytes.wrap(other), offset, count);
+        return i < 0 ? -1 : firstCell + i;
+    }
+}
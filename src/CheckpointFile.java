@@ -0,0 +1,325 @@
+/*
+ * File:     CheckpointFile.java
+ * Author:   Taylor Ecton
+ * Purpose:  Buffered reading and writing of the numbers and arrays in a checkpoint through a FileChannel.
+ *           A checkpoint is written to a temporary file next to the real one and only moved over it once
+ *           everything is on disk, so a run killed while saving still leaves the previous checkpoint.
+ */
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+public class CheckpointFile implements Closeable {
+    // size of the buffer between the arrays and the channel
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    // the file being read or written
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    // where a written checkpoint ends up and the temporary file it is written to; null when reading
+    private final Path target, temp;
+
+    /**
+     * Constructor for CheckpointFile class.
+     * @param channel The open file.
+     * @param target Where the checkpoint goes once it is committed, or null when reading.
+     * @param temp The file being written, or null when reading.
+     */
+    private CheckpointFile(FileChannel channel, Path target, Path temp) {
+        this.channel = channel;
+        this.target = target;
+        this.temp = temp;
+        if (target == null) {
+            // nothing has been read yet
+            buffer.limit(0);
+        }
+    }
+
+    /**
+     * Starts writing a checkpoint. Nothing replaces the file until commit is called.
+     * @param file The checkpoint file.
+     * @return The checkpoint to write to.
+     * @throws IOException If the temporary file can't be created.
+     */
+    public static CheckpointFile create(Path file) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        return new CheckpointFile(FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                   StandardOpenOption.TRUNCATE_EXISTING), file, temp);
+    }
+
+    /**
+     * Opens a checkpoint for reading.
+     * @param file The checkpoint file.
+     * @return The checkpoint to read from.
+     * @throws IOException If the file can't be opened.
+     */
+    public static CheckpointFile open(Path file) throws IOException {
+        return new CheckpointFile(FileChannel.open(file, StandardOpenOption.READ), null, null);
+    }
+
+    /**
+     * Writes an int.
+     * @param value The value.
+     * @throws IOException If writing fails.
+     */
+    public void putInt(int value) throws IOException {
+        makeRoom(4);
+        buffer.putInt(value);
+    }
+
+    /**
+     * Writes a long.
+     * @param value The value.
+     * @throws IOException If writing fails.
+     */
+    public void putLong(long value) throws IOException {
+        makeRoom(8);
+        buffer.putLong(value);
+    }
+
+    /**
+     * Writes a double.
+     * @param value The value.
+     * @throws IOException If writing fails.
+     */
+    public void putDouble(double value) throws IOException {
+        makeRoom(8);
+        buffer.putDouble(value);
+    }
+
+    /**
+     * Writes a string as its length followed by its UTF-8 bytes.
+     * @param value The string.
+     * @throws IOException If writing fails.
+     */
+    public void putString(String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        putInt(bytes.length);
+        putBytes(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Writes part of a byte array.
+     * @param src The array.
+     * @param offset The first element to write.
+     * @param count The number of elements.
+     * @throws IOException If writing fails.
+     */
+    public void putBytes(byte[] src, int offset, int count) throws IOException {
+        while (count > 0) {
+            makeRoom(1);
+            int n = Math.min(count, buffer.remaining());
+            buffer.put(src, offset, n);
+            offset += n;
+            count -= n;
+        }
+    }
+
+    /**
+     * Writes part of an int array.
+     * @param src The array.
+     * @param offset The first element to write.
+     * @param count The number of elements.
+     * @throws IOException If writing fails.
+     */
+    public void putInts(int[] src, int offset, int count) throws IOException {
+        while (count > 0) {
+            makeRoom(4);
+            int n = Math.min(count, buffer.remaining() / 4);
+            buffer.asIntBuffer().put(src, offset, n);
+            buffer.position(buffer.position() + 4 * n);
+            offset += n;
+            count -= n;
+        }
+    }
+
+    /**
+     * Writes part of a long array.
+     * @param src The array.
+     * @param offset The first element to write.
+     * @param count The number of elements.
+     * @throws IOException If writing fails.
+     */
+    public void putLongs(long[] src, int offset, int count) throws IOException {
+        while (count > 0) {
+            makeRoom(8);
+            int n = Math.min(count, buffer.remaining() / 8);
+            buffer.asLongBuffer().put(src, offset, n);
+            buffer.position(buffer.position() + 8 * n);
+            offset += n;
+            count -= n;
+        }
+    }
+
+    /**
+     * Reads an int.
+     * @return The value.
+     * @throws IOException If reading fails or the file ends.
+     */
+    public int getInt() throws IOException {
+        fill(4);
+        return buffer.getInt();
+    }
+
+    /**
+     * Reads a long.
+     * @return The value.
+     * @throws IOException If reading fails or the file ends.
+     */
+    public long getLong() throws IOException {
+        fill(8);
+        return buffer.getLong();
+    }
+
+    /**
+     * Reads a double.
+     * @return The value.
+     * @throws IOException If reading fails or the file ends.
+     */
+    public double getDouble() throws IOException {
+        fill(8);
+        return buffer.getDouble();
+    }
+
+    /**
+     * Reads a string written by putString.
+     * @return The string.
+     * @throws IOException If reading fails or the file ends.
+     */
+    public String getString() throws IOException {
+        int length = getInt();
+        if (length < 0 || length > BUFFER_SIZE) {
+            throw new IOException("Invalid string length in checkpoint: " + length);
+        }
+        byte[] bytes = new byte[length];
+        getBytes(bytes, 0, length);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads into part of a byte array.
+     * @param dst The array.
+     * @param offset The first element to read into.
+     * @param count The number of elements.
+     * @throws IOException If reading fails or the file ends.
+     */
+    public void getBytes(byte[] dst, int offset, int count) throws IOException {
+        while (count > 0) {
+            fill(1);
+            int n = Math.min(count, buffer.remaining());
+            buffer.get(dst, offset, n);
+            offset += n;
+            count -= n;
+        }
+    }
+
+    /**
+     * Reads into part of an int array.
+     * @param dst The array.
+     * @param offset The first element to read into.
+     * @param count The number of elements.
+     * @throws IOException If reading fails or the file ends.
+     */
+    public void getInts(int[] dst, int offset, int count) throws IOException {
+        while (count > 0) {
+            fill(4);
+            int n = Math.min(count, buffer.remaining() / 4);
+            buffer.asIntBuffer().get(dst, offset, n);
+            buffer.position(buffer.position() + 4 * n);
+            offset += n;
+            count -= n;
+        }
+    }
+
+    /**
+     * Reads into part of a long array.
+     * @param dst The array.
+     * @param offset The first element to read into.
+     * @param count The number of elements.
+     * @throws IOException If reading fails or the file ends.
+     */
+    public void getLongs(long[] dst, int offset, int count) throws IOException {
+        while (count > 0) {
+            fill(8);
+            int n = Math.min(count, buffer.remaining() / 8);
+            buffer.asLongBuffer().get(dst, offset, n);
+            buffer.position(buffer.position() + 8 * n);
+            offset += n;
+            count -= n;
+        }
+    }
+
+    /**
+     * Writes out everything put so far, forces it to disk and moves it over the checkpoint file.
+     * @throws IOException If writing or moving fails.
+     */
+    public void commit() throws IOException {
+        flush();
+        channel.force(true);
+        channel.close();
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Closes the file. A checkpoint that was never committed is thrown away.
+     * @throws IOException If closing fails.
+     */
+    @Override
+    public void close() throws IOException {
+        if (channel.isOpen()) {
+            channel.close();
+            if (temp != null) {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    /**
+     * Writes the buffer to the file if it has less room than needed.
+     * @param bytes The number of bytes about to be put.
+     * @throws IOException If writing fails.
+     */
+    private void makeRoom(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    /**
+     * Writes the whole buffer to the file and empties it.
+     * @throws IOException If writing fails.
+     */
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Reads from the file until the buffer holds at least the number of bytes needed.
+     * @param bytes The number of bytes about to be got.
+     * @throws IOException If reading fails or the file ends first.
+     */
+    private void fill(int bytes) throws IOException {
+        if (buffer.remaining() >= bytes)
+            return;
+        buffer.compact();
+        while (buffer.position() < bytes) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException("Checkpoint ends too early");
+            }
+        }
+        buffer.flip();
+    }
+}
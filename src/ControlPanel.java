@@ -8,22 +8,51 @@ import javax.swing.*;
 import java.awt.*;
 
 public class ControlPanel extends JPanel {
+    // names of the available solvers
+    public static final String DFS_SOLVER = "Depth-First Search";
+    public static final String BFS_SOLVER = "Breadth-First Search";
+    public static final String DIJKSTRA_SOLVER = "Dijkstra";
+    public static final String ASTAR_SOLVER = "A*";
+    public static final String PARALLEL_BFS_SOLVER = "Parallel BFS";
+    public static final String LEFT_WALL_SOLVER = "Left-Hand Wall Follower";
+    public static final String RIGHT_WALL_SOLVER = "Right-Hand Wall Follower";
+    public static final String TREMAUX_SOLVER = "Tr\u00e9maux";
+
+    // names of the available generators
+    public static final String DFS_GENERATOR = "Depth-First Generator";
+    public static final String KRUSKAL_GENERATOR = "Kruskal Generator";
+
+    // names of the available cell shapes
+    public static final String SQUARE_SHAPE = "Square";
+    public static final String HEX_SHAPE = "Hexagonal";
+    public static final String TRIANGLE_SHAPE = "Triangular";
+    public static final String POLAR_SHAPE = "Polar";
+
+    // names of the available places to store the walls
+    public static final String HEAP_STORAGE = "Heap Storage";
+    public static final String DIRECT_STORAGE = "Off-Heap Storage";
+    public static final String MAPPED_STORAGE = "Memory-Mapped File";
 
     // Buttons
-    private JButton generateButton, solveButton, stopButton;
+    private JButton generateButton, resumeGenerationButton, solveButton, statisticsButton, playButton,
+                    recarveButton, replayButton, stopButton;
 
     // Checkboxes
-    private JCheckBox showGeneration, showSolver;
+    private JCheckBox showGeneration, showSolver, solveWhileGenerating, weightedTerrain, zOrderLayout,
+                      saveCheckpoints, recordTimeline;
+
+    // Drop-down lists
+    private JComboBox<String> generatorChoice, solverChoice, shapeChoice, storageChoice;
 
     // Sliders
-    private JSlider speedSlider, rowSlider, columnSlider;
+    private JSlider speedSlider, rowSlider, columnSlider, braidSlider, floorsSlider, floorSlider, timelineSlider;
 
     // Labels
-    private JLabel speedLabel, rowLabel, columnLabel;
+    private JLabel speedLabel, rowLabel, columnLabel, braidLabel, floorsLabel, floorLabel, timelineLabel;
 
     // Sub-Panels
     private JPanel generatePanel, solvePanel,
-                   speedPanel, rowPanel, columnPanel;
+                   speedPanel, rowPanel, columnPanel, braidPanel, floorPanel, timelinePanel;
 
     /**
      * Constructor for the controlPanel.
@@ -32,9 +61,9 @@ public class ControlPanel extends JPanel {
     public ControlPanel(MazeController controller) {
         super();
 
-        // set the size and layout for the ControlPanel
+        // set the size and layout for the ControlPanel; the sub-panels are stacked at their natural heights
         this.setPreferredSize(new Dimension(250, 900));
-        this.setLayout(new GridLayout(6, 1, 0, 5));
+        this.setLayout(new BorderLayout());
 
         // set up panel with generate button and show generation check box
         setUpGeneratePanel(controller);
@@ -51,18 +80,32 @@ public class ControlPanel extends JPanel {
         // set up panel with column slider bar
         setUpColumnPanel(controller);
 
+        // set up panel with braid slider bar
+        setUpBraidPanel(controller);
+
+        // set up panel with the floor slider bars
+        setUpFloorPanel(controller);
+
+        // set up panel with the timeline slider bar and replay button
+        setUpTimelinePanel(controller);
+
         // set up stop button
         stopButton = new JButton("Stop");
         stopButton.setActionCommand("stop");
         stopButton.addActionListener(controller);
 
         // add all the sub-panels to the ControlPanel
-        this.add(generatePanel);
-        this.add(solvePanel);
-        this.add(speedPanel);
-        this.add(rowPanel);
-        this.add(columnPanel);
-        this.add(stopButton);
+        JPanel stack = createStackPanel();
+        stack.add(generatePanel);
+        stack.add(solvePanel);
+        stack.add(speedPanel);
+        stack.add(rowPanel);
+        stack.add(columnPanel);
+        stack.add(braidPanel);
+        stack.add(floorPanel);
+        stack.add(timelinePanel);
+        addRow(stack, stopButton);
+        this.add(stack, BorderLayout.NORTH);
     }
 
     /**
@@ -77,6 +120,60 @@ public class ControlPanel extends JPanel {
      */
     public boolean getShowSolver() { return showSolver.isSelected(); }
 
+    /**
+     * Tells other classes if solve while generating check box is checked.
+     * @return A boolean that is true if the check box is checked.
+     */
+    public boolean getSolveWhileGenerating() { return solveWhileGenerating.isSelected(); }
+
+    /**
+     * Tells other classes if weighted terrain check box is checked.
+     * @return A boolean that is true if the check box is checked.
+     */
+    public boolean getWeightedTerrain() { return weightedTerrain.isSelected(); }
+
+    /**
+     * Tells other classes if Z-order layout check box is checked.
+     * @return A boolean that is true if the check box is checked.
+     */
+    public boolean getZOrderLayout() { return zOrderLayout.isSelected(); }
+
+    /**
+     * Tells other classes if save checkpoints check box is checked.
+     * @return A boolean that is true if the check box is checked.
+     */
+    public boolean getSaveCheckpoints() { return saveCheckpoints.isSelected(); }
+
+    /**
+     * Tells other classes if record timeline check box is checked.
+     * @return A boolean that is true if the check box is checked.
+     */
+    public boolean getRecordTimeline() { return recordTimeline.isSelected(); }
+
+    /**
+     * Tells other classes which solver is selected.
+     * @return The name of the selected solver (see constants at top).
+     */
+    public String getSolver() { return (String) solverChoice.getSelectedItem(); }
+
+    /**
+     * Tells other classes which cell shape is selected.
+     * @return The name of the selected shape (see constants at top).
+     */
+    public String getShape() { return (String) shapeChoice.getSelectedItem(); }
+
+    /**
+     * Gets the name of the generator selected in the drop-down list.
+     * @return The name of the generator (see constants at top).
+     */
+    public String getGenerator() { return (String) generatorChoice.getSelectedItem(); }
+
+    /**
+     * Tells other classes where the walls of new mazes should be stored.
+     * @return The name of the selected storage (see constants at top).
+     */
+    public String getStorage() { return (String) storageChoice.getSelectedItem(); }
+
     /**
      * Allows other classes to set the row label text.
      * @param text The new text to apply to the label.
@@ -89,6 +186,77 @@ public class ControlPanel extends JPanel {
      */
     public void setColumnLabelText(String text) { columnLabel.setText(text); }
 
+    /**
+     * Allows other classes to set the braid label text.
+     * @param text The new text to apply to the label.
+     */
+    public void setBraidLabelText(String text) { braidLabel.setText(text); }
+
+    /**
+     * Allows other classes to set the floor count label text.
+     * @param text The new text to apply to the label.
+     */
+    public void setFloorsLabelText(String text) { floorsLabel.setText(text); }
+
+    /**
+     * Allows other classes to set the shown floor label text.
+     * @param text The new text to apply to the label.
+     */
+    public void setFloorLabelText(String text) { floorLabel.setText(text); }
+
+    /**
+     * Moves the shape list and the dimension sliders to the settings of a maze that wasn't created from
+     * them, such as one resumed from a checkpoint.
+     * @param generator The name of the generator (see constants at top).
+     * @param shape The name of the shape (see constants at top).
+     * @param rows The number of rows.
+     * @param columns The number of columns.
+     * @param floors The number of floors.
+     */
+    public void setMazeSettings(String generator, String shape, int rows, int columns, int floors) {
+        generatorChoice.setSelectedItem(generator);
+        shapeChoice.setSelectedItem(shape);
+        rowSlider.setValue(rows);
+        columnSlider.setValue(columns);
+        floorsSlider.setValue(floors);
+    }
+
+    /**
+     * Sets how many floors can be chosen to show, and goes back to showing the bottom floor.
+     * @param floors The number of floors of the current maze.
+     */
+    public void setFloorRange(int floors) {
+        floorSlider.setMaximum(floors - 1);
+        floorSlider.setValue(0);
+        floorSlider.setEnabled(floors > 1);
+    }
+
+    /**
+     * Moves the shown floor slider, which shows that floor of the maze.
+     * @param floor The floor to show, where 0 is the bottom floor.
+     */
+    public void setShownFloor(int floor) { floorSlider.setValue(floor); }
+
+    /**
+     * Allows other classes to set the timeline label text.
+     * @param text The new text to apply to the label.
+     */
+    public void setTimelineLabelText(String text) { timelineLabel.setText(text); }
+
+    /**
+     * Sets the range of steps on the timeline and the step it points at. The timeline is disabled while
+     * there is nothing to seek through.
+     * @param firstStep The oldest recorded step.
+     * @param lastStep The latest recorded step.
+     * @param position The step being shown.
+     */
+    public void setTimeline(int firstStep, int lastStep, int position) {
+        timelineSlider.setMinimum(firstStep);
+        timelineSlider.setMaximum(lastStep);
+        timelineSlider.setValue(position);
+        timelineSlider.setEnabled(lastStep > firstStep);
+    }
+
     /**
      * Allows other classes to set the text on the stop/resume button.
      * @param text The new text to apply to the button.
@@ -107,25 +275,65 @@ public class ControlPanel extends JPanel {
      */
     public int getSpeed() { return speedSlider.getValue(); }
 
+    /**
+     * Gets the value of the braid slider bar.
+     * @return The percent of dead ends to remove after generating.
+     */
+    public int getBraidPercent() { return braidSlider.getValue(); }
+
     /**
      * Initializes the generate panel.
      * @param controller The controller class for the maze.
      */
     private void setUpGeneratePanel(MazeController controller) {
         // panel for the components
-        generatePanel = new JPanel();
+        generatePanel = createStackPanel();
 
         // generate button
         generateButton = new JButton("Generate");
         generateButton.setActionCommand("generate");
         generateButton.addActionListener(controller);
 
+        // resume from checkpoint button
+        resumeGenerationButton = new JButton("Resume Checkpoint");
+        resumeGenerationButton.setActionCommand("resumeGeneration");
+        resumeGenerationButton.addActionListener(controller);
+
         // show generation checkbox
         showGeneration = new JCheckBox("Show Generation");
 
+        // solve while generating checkbox
+        solveWhileGenerating = new JCheckBox("Solve While Generating");
+
+        // weighted terrain checkbox
+        weightedTerrain = new JCheckBox("Weighted Terrain");
+
+        // Z-order layout checkbox
+        zOrderLayout = new JCheckBox("Z-Order Layout");
+
+        // save checkpoints checkbox
+        saveCheckpoints = new JCheckBox("Save Checkpoints");
+
+        // the generator drop-down list
+        generatorChoice = new JComboBox<>(new String[]{ DFS_GENERATOR, KRUSKAL_GENERATOR });
+
+        // the cell shape drop-down list
+        shapeChoice = new JComboBox<>(new String[]{ SQUARE_SHAPE, HEX_SHAPE, TRIANGLE_SHAPE, POLAR_SHAPE });
+
+        // the wall storage drop-down list
+        storageChoice = new JComboBox<>(new String[]{ HEAP_STORAGE, DIRECT_STORAGE, MAPPED_STORAGE });
+
         // add these components to the panel
-        generatePanel.add(generateButton, BorderLayout.WEST);
-        generatePanel.add(showGeneration, BorderLayout.EAST);
+        addRow(generatePanel, generateButton);
+        addRow(generatePanel, generatorChoice);
+        addRow(generatePanel, showGeneration);
+        addRow(generatePanel, solveWhileGenerating);
+        addRow(generatePanel, weightedTerrain);
+        addRow(generatePanel, shapeChoice);
+        addRow(generatePanel, zOrderLayout);
+        addRow(generatePanel, storageChoice);
+        addRow(generatePanel, saveCheckpoints);
+        addRow(generatePanel, resumeGenerationButton);
     }
 
     /**
@@ -134,7 +342,7 @@ public class ControlPanel extends JPanel {
      */
     private void setUpSolvePanel(MazeController controller) {
         // panel for the components
-        solvePanel = new JPanel();
+        solvePanel = createStackPanel();
 
         // the solve button
         solveButton = new JButton ("Solve");
@@ -144,9 +352,31 @@ public class ControlPanel extends JPanel {
         // the solver check box
         showSolver = new JCheckBox("Show Solver");
 
+        // the solver drop-down list
+        solverChoice = new JComboBox<>(new String[]{ DFS_SOLVER, BFS_SOLVER, DIJKSTRA_SOLVER,
+                                                    ASTAR_SOLVER, PARALLEL_BFS_SOLVER, LEFT_WALL_SOLVER,
+                                                    RIGHT_WALL_SOLVER, TREMAUX_SOLVER });
+
+        // the statistics button
+        statisticsButton = new JButton("Statistics");
+        statisticsButton.setActionCommand("statistics");
+        statisticsButton.addActionListener(controller);
+
+        // the button for walking through the maze from the keyboard
+        playButton = new JButton("Play");
+        playButton.setActionCommand("play");
+        playButton.addActionListener(controller);
+
+        // the button for carving a region of the finished maze again
+        recarveButton = new JButton("Re-carve Region");
+        recarveButton.setActionCommand("recarve");
+        recarveButton.addActionListener(controller);
+
         // add these components to the panel
-        solvePanel.add(solveButton, BorderLayout.WEST);
-        solvePanel.add(showSolver, BorderLayout.EAST);
+        addRow(solvePanel, solveButton, showSolver);
+        addRow(solvePanel, solverChoice);
+        addRow(solvePanel, statisticsButton, playButton);
+        addRow(solvePanel, recarveButton);
     }
 
     /**
@@ -155,7 +385,7 @@ public class ControlPanel extends JPanel {
      */
     private void setUpSpeedPanel(MazeController controller) {
         // panel for speed components
-        speedPanel = new JPanel();
+        speedPanel = createStackPanel();
 
         // speed slider bar set up
         speedSlider = new JSlider(JSlider.HORIZONTAL, 1, 11, 6);
@@ -169,8 +399,8 @@ public class ControlPanel extends JPanel {
         speedLabel = new JLabel("Speed:");
 
         // add these components to the panel
-        speedPanel.add(speedLabel, BorderLayout.NORTH);
-        speedPanel.add(speedSlider, BorderLayout.SOUTH);
+        addRow(speedPanel, speedLabel);
+        addRow(speedPanel, speedSlider);
 
         speedSlider.addChangeListener(controller);
     }
@@ -181,12 +411,12 @@ public class ControlPanel extends JPanel {
      */
     private void setUpRowPanel(MazeController controller) {
         // panel for row components
-        rowPanel = new JPanel();
+        rowPanel = createStackPanel();
 
         // row slider setup
-        rowSlider = new JSlider(JSlider.HORIZONTAL, 10, 50, 50);
-        rowSlider.setMinorTickSpacing(5);
-        rowSlider.setMajorTickSpacing(10);
+        rowSlider = new JSlider(JSlider.HORIZONTAL, 10, MazePanel.MAX_ROWS, 50);
+        rowSlider.setMinorTickSpacing(100);
+        rowSlider.setMajorTickSpacing(500);
         rowSlider.setPaintTicks(true);
         rowSlider.setPreferredSize(new Dimension(225, 25));
         rowSlider.setName("row");
@@ -195,8 +425,8 @@ public class ControlPanel extends JPanel {
         rowLabel = new JLabel("Rows: " + rowSlider.getValue());
 
         // add these components to the panel
-        rowPanel.add(rowLabel, BorderLayout.NORTH);
-        rowPanel.add(rowSlider, BorderLayout.SOUTH);
+        addRow(rowPanel, rowLabel);
+        addRow(rowPanel, rowSlider);
 
         rowSlider.addChangeListener(controller);
     }
@@ -207,12 +437,12 @@ public class ControlPanel extends JPanel {
      */
     private void setUpColumnPanel(MazeController controller) {
         // panel for the column components
-        columnPanel = new JPanel();
+        columnPanel = createStackPanel();
 
         // column slider set up
-        columnSlider = new JSlider(JSlider.HORIZONTAL, 10, 50, 50);
-        columnSlider.setMinorTickSpacing(5);
-        columnSlider.setMajorTickSpacing(10);
+        columnSlider = new JSlider(JSlider.HORIZONTAL, 10, MazePanel.MAX_COLS, 50);
+        columnSlider.setMinorTickSpacing(100);
+        columnSlider.setMajorTickSpacing(500);
         columnSlider.setPaintTicks(true);
         columnSlider.setPreferredSize(new Dimension(225, 25));
         columnSlider.setName("column");
@@ -221,9 +451,129 @@ public class ControlPanel extends JPanel {
         columnLabel = new JLabel("Columns: " + columnSlider.getValue());
 
         // add these components to the panel
-        columnPanel.add(columnLabel, BorderLayout.NORTH);
-        columnPanel.add(columnSlider, BorderLayout.SOUTH);
+        addRow(columnPanel, columnLabel);
+        addRow(columnPanel, columnSlider);
 
         columnSlider.addChangeListener(controller);
     }
+
+    /**
+     * Set up for the braid slider bar.
+     * @param controller The controller class for the maze.
+     */
+    private void setUpBraidPanel(MazeController controller) {
+        // panel for the braid components
+        braidPanel = createStackPanel();
+
+        // braid slider set up
+        braidSlider = new JSlider(JSlider.HORIZONTAL, 0, 100, 0);
+        braidSlider.setMinorTickSpacing(5);
+        braidSlider.setMajorTickSpacing(25);
+        braidSlider.setPaintTicks(true);
+        braidSlider.setPreferredSize(new Dimension(225, 25));
+        braidSlider.setName("braid");
+
+        // label for the braid slider
+        braidLabel = new JLabel("Dead Ends Removed: " + braidSlider.getValue() + "%");
+
+        // add these components to the panel
+        addRow(braidPanel, braidLabel);
+        addRow(braidPanel, braidSlider);
+
+        braidSlider.addChangeListener(controller);
+    }
+
+    /**
+     * Set up for the slider bars for the number of floors and the floor shown.
+     * @param controller The controller class for the maze.
+     */
+    private void setUpFloorPanel(MazeController controller) {
+        // panel for the floor components
+        floorPanel = createStackPanel();
+
+        // floor count slider set up
+        floorsSlider = new JSlider(JSlider.HORIZONTAL, 1, MazePanel.MAX_FLOORS, 1);
+        floorsSlider.setMinorTickSpacing(1);
+        floorsSlider.setPaintTicks(true);
+        floorsSlider.setPreferredSize(new Dimension(225, 25));
+        floorsSlider.setName("floors");
+
+        // shown floor slider set up; its range is set whenever a maze is generated
+        floorSlider = new JSlider(JSlider.HORIZONTAL, 0, 0, 0);
+        floorSlider.setPreferredSize(new Dimension(225, 25));
+        floorSlider.setEnabled(false);
+        floorSlider.setName("floor");
+
+        // labels for the floor sliders
+        floorsLabel = new JLabel("Floors: " + floorsSlider.getValue());
+        floorLabel = new JLabel("Showing Floor: " + floorSlider.getValue());
+
+        // add these components to the panel
+        addRow(floorPanel, floorsLabel);
+        addRow(floorPanel, floorsSlider);
+        addRow(floorPanel, floorLabel);
+        addRow(floorPanel, floorSlider);
+
+        floorsSlider.addChangeListener(controller);
+        floorSlider.addChangeListener(controller);
+    }
+
+    /**
+     * Set up for the timeline slider bar used to replay a recorded run.
+     * @param controller The controller class for the maze.
+     */
+    private void setUpTimelinePanel(MazeController controller) {
+        // panel for the timeline components
+        timelinePanel = createStackPanel();
+
+        // record timeline checkbox
+        recordTimeline = new JCheckBox("Record Timeline");
+
+        // replay button
+        replayButton = new JButton("Replay");
+        replayButton.setActionCommand("replay");
+        replayButton.addActionListener(controller);
+
+        // timeline slider set up; its range is set whenever a step is recorded
+        timelineSlider = new JSlider(JSlider.HORIZONTAL, 0, 0, 0);
+        timelineSlider.setPreferredSize(new Dimension(225, 25));
+        timelineSlider.setEnabled(false);
+        timelineSlider.setName("timeline");
+
+        // label for the timeline slider
+        timelineLabel = new JLabel("Timeline: not recorded");
+
+        // add these components to the panel
+        addRow(timelinePanel, recordTimeline);
+        addRow(timelinePanel, replayButton);
+        addRow(timelinePanel, timelineLabel);
+        addRow(timelinePanel, timelineSlider);
+
+        timelineSlider.addChangeListener(controller);
+    }
+
+    /**
+     * Creates a panel whose rows are stacked from top to bottom at their natural heights.
+     * @return The new panel.
+     */
+    private static JPanel createStackPanel() {
+        JPanel panel = new JPanel();
+        panel.setLayout(new BoxLayout(panel, BoxLayout.Y_AXIS));
+        panel.setBorder(BorderFactory.createEmptyBorder(4, 0, 4, 0));
+        return panel;
+    }
+
+    /**
+     * Adds a row of components, centered side by side, to a panel made by createStackPanel.
+     * @param panel The panel to add the row to.
+     * @param components The components in the row.
+     */
+    private static void addRow(JPanel panel, JComponent... components) {
+        JPanel row = new JPanel(new FlowLayout(FlowLayout.CENTER, 5, 1));
+        for (JComponent component : components) {
+            row.add(component);
+        }
+        row.setMaximumSize(new Dimension(Integer.MAX_VALUE, row.getPreferredSize().height));
+        panel.add(row);
+    }
 }
@@ -0,0 +1,111 @@
+/*
+ * File:     DepthFirstSolver.java
+ * Author:   Taylor Ecton
+ * Purpose:  Solves the maze with a depth first search. The stack always holds the path from the start to
+ *           the current cell, so cells are only marked as backtracked once they are popped off for good.
+ *           Finds a path in mazes with loops too, but not necessarily the shortest one.
+ */
+
+public class DepthFirstSolver implements MazeSolver {
+    // the maze being solved and the cells the solver starts and ends at
+    private MazeGrid grid;
+    private int start, end;
+
+    // stack of cells holding the current path
+    private int[] stack;
+    private int stackSize;
+
+    // whether the cell with the corresponding index has been visited
+    private boolean[] visited;
+    private int cellsVisited;
+
+    // the current cell, or -1 if there is none
+    private int curr = -1;
+
+    /**
+     * Initializes variables when solving the maze.
+     * @param grid The maze to solve.
+     * @param start The cell to start from.
+     * @param end The cell to find.
+     */
+    @Override
+    public void init(MazeGrid grid, int start, int end) {
+        this.grid = grid;
+        this.start = start;
+        this.end = end;
+
+        // empty the stack and mark all cells as unvisited
+        visited = new boolean[grid.getCellCount()];
+        stack = new int[grid.getCellCount()];
+        stackSize = 0;
+        cellsVisited = 0;
+
+        // set current cell to the start
+        curr = start;
+    }
+
+    /**
+     * Choose the next cell to explore in the solver.
+     */
+    @Override
+    public void step() {
+        // the next cell to explore
+        int next;
+
+        // return if there is no current cell or the current cell is the end of the maze
+        if (isFinished())
+            return;
+
+        // push N onto the stack
+        stack[stackSize++] = curr;
+
+        // mark N as visited
+        visited[curr] = true;
+
+        // track the number of cells visited
+        cellsVisited++;
+
+        // mark each cell as visited when visited (leaving the start cell as it is)
+        if (curr != start)
+            grid.setState(curr, MazeCell.VISITED);
+
+        // select the first adjacent cell that isn't blocked by a wall or visited
+        next = findNeighbor();
+        while (next < 0) {
+            // N is a dead end, so pop it off the stack
+            stackSize--;
+            if (curr != start)
+                grid.setState(curr, MazeCell.BACKTRACKED);
+            if (stackSize == 0) {
+                curr = -1;
+                return;
+            }
+
+            // go back to the previous cell until one with a valid neighbor is found
+            curr = stack[stackSize - 1];
+            next = findNeighbor();
+        }
+
+        curr = next;
+    }
+
+    @Override
+    public boolean isFinished() { return curr < 0 || curr == end; }
+
+    @Override
+    public int getCellsVisited() { return cellsVisited; }
+
+    /**
+     * Finds the first cell adjacent to the current cell that isn't blocked by a wall or visited.
+     * @return The cell, or -1 if there isn't one.
+     */
+    private int findNeighbor() {
+        for (int wall = 0; wall < grid.getSides(); wall++) {
+            int next = grid.passage(curr, wall);
+            if (next >= 0 && !visited[next]) {
+                return next;
+            }
+        }
+        return -1;
+    }
+}
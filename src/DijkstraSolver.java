@@ -0,0 +1,17 @@
+/*
+ * File:     DijkstraSolver.java
+ * Author:   Taylor Ecton
+ * Purpose:  Finds the cheapest path through a weighted maze with Dijkstra's algorithm.
+ */
+
+public class DijkstraSolver extends ShortestPathSolver {
+    /**
+     * Dijkstra's algorithm makes no estimate of the remaining cost.
+     * @param cell The cell index.
+     * @return Always zero.
+     */
+    @Override
+    protected int estimate(int cell) {
+        return 0;
+    }
+}
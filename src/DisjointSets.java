@@ -0,0 +1,99 @@
+/*
+ * File:     DisjointSets.java
+ * Author:   Taylor Ecton
+ * Purpose:  Union-find over int cell indices, stored in primitive parent and rank arrays. Uses path
+ *           halving and union by rank, so any sequence of operations runs in nearly linear time.
+ */
+
+import java.util.Arrays;
+
+public class DisjointSets {
+    // parent of each element; an element is the root of its set when it is its own parent
+    private final int[] parent;
+
+    // upper bound on the height of the tree below each root
+    private final int[] rank;
+
+    // number of disjoint sets remaining
+    private int setCount;
+
+    /**
+     * Constructor for DisjointSets class. Every element starts in its own set.
+     * @param size The number of elements.
+     */
+    public DisjointSets(int size) {
+        this(size, new int[size], new int[size]);
+    }
+
+    /**
+     * Constructor for DisjointSets class that keeps the sets at the start of existing arrays, such as ones
+     * reused from an earlier maze. Every element starts in its own set.
+     * @param size The number of elements.
+     * @param parent Array for the parents, at least size long.
+     * @param rank Array for the ranks, at least size long.
+     */
+    public DisjointSets(int size, int[] parent, int[] rank) {
+        this.parent = parent;
+        this.rank = rank;
+        for (int i = 0; i < size; i++) {
+            parent[i] = i;
+        }
+        Arrays.fill(rank, 0, size, 0);
+        setCount = size;
+    }
+
+    /**
+     * Finds the representative of the set containing an element.
+     * @param element The element.
+     * @return The root of the element's set.
+     */
+    public int find(int element) {
+        while (parent[element] != element) {
+            // point every other node on the path at its grandparent
+            parent[element] = parent[parent[element]];
+            element = parent[element];
+        }
+        return element;
+    }
+
+    /**
+     * Merges the sets containing two elements.
+     * @param a The first element.
+     * @param b The second element.
+     * @return True if the elements were in different sets, false if they were already joined.
+     */
+    public boolean union(int a, int b) {
+        int rootA = find(a);
+        int rootB = find(b);
+        if (rootA == rootB)
+            return false;
+
+        // hang the shorter tree under the taller one
+        if (rank[rootA] < rank[rootB]) {
+            parent[rootA] = rootB;
+        } else if (rank[rootA] > rank[rootB]) {
+            parent[rootB] = rootA;
+        } else {
+            parent[rootB] = rootA;
+            rank[rootA]++;
+        }
+        setCount--;
+        return true;
+    }
+
+    /**
+     * Tells whether two elements are in the same set.
+     * @param a The first element.
+     * @param b The second element.
+     * @return True if the elements are joined.
+     */
+    public boolean connected(int a, int b) {
+        return find(a) == find(b);
+    }
+
+    /**
+     * Gets the number of disjoint sets remaining.
+     * @return The number of sets.
+     */
+    public int getSetCount() { return setCount; }
+}
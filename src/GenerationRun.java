@@ -0,0 +1,475 @@
+/*
+ * File:     GenerationRun.java
+ * Author:   Taylor Ecton
+ * Purpose:  Everything needed while one maze is being generated: the grid being carved, its random number
+ *           generator, the stack and visited cells of the depth first generator or the Kruskal generator,
+ *           and the pipelined solver. Each run has its own, so any number of runs can go on at once on
+ *           different threads, as long as each run and its grid are only used by one thread at a time.
+ *           Runs can be saved to a checkpoint file and carried on from it later.
+ */
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+public class GenerationRun {
+    // first values in a checkpoint file
+    private static final int CHECKPOINT_MAGIC = 0x4D5A434B;
+    private static final int CHECKPOINT_VERSION = 3;
+
+    // the settings the maze is generated with, which don't change during the run
+    private final MazeSettings settings;
+
+    // the maze being generated and the random number generator used to carve it
+    private final MazeGrid grid;
+    private final RestorableRandom RNG;
+
+    // the cells a solver starts and ends at
+    private final int start, end;
+
+    // stack of cells used for DFS generation
+    private int[] stack;
+    private int stackSize;
+
+    // bit set of the cells that have been visited, 64 cells to a word; the arrays can be longer than needed
+    private long[] visited;
+
+    // the Kruskal generator, or null if the maze is generated depth first
+    private KruskalGenerator kruskal;
+
+    // the current cell in the generation process, or -1 once the maze is finished
+    private int curr;
+
+    // number of cells visited so far
+    private int cellsVisited;
+
+    // solver connecting the start and end while the maze is generated, or null if it isn't used
+    private PipelinedSolver pipeline;
+
+    // percent generated when the pipelined solver found the path, or -1 if it hasn't yet
+    private double percentAtPathFound = -1;
+
+    // scratch space for the walls that lead to unexplored neighbours of a cell
+    private final int[] neighborWalls = new int[8];
+
+    /**
+     * Constructor for GenerationRun class. Puts up every wall of the grid, assigns the terrain and colors
+     * the start and end, ready for the first step.
+     * @param settings The settings to generate the maze with, which are copied.
+     * @param grid The grid to carve the maze in, made from the same settings.
+     * @param RNG Random number generator used to carve the maze, which belongs to the run until it ends.
+     */
+    public GenerationRun(MazeSettings settings, MazeGrid grid, RestorableRandom RNG) {
+        this(settings, grid, RNG, new MazeArena());
+    }
+
+    /**
+     * Constructor for GenerationRun class that keeps the generator's stack, visited cells or walls in an
+     * arena's storage, so generating one maze after another doesn't allocate them again.
+     * @param settings The settings to generate the maze with, which are copied.
+     * @param grid The grid to carve the maze in, made from the same settings.
+     * @param RNG Random number generator used to carve the maze, which belongs to the run until it ends.
+     * @param arena The arena to take the storage from, which no earlier run may still be using.
+     */
+    public GenerationRun(MazeSettings settings, MazeGrid grid, RestorableRandom RNG, MazeArena arena) {
+        this(new MazeSettings(settings), grid, RNG, -1);
+
+        // resets the maze walls
+        grid.fillWalls(true);
+
+        // set up the selected generator
+        switch (settings.getGenerator()) {
+            case ControlPanel.DFS_GENERATOR:
+                // set all cells as not visited
+                visited = arena.getVisited(grid.getCellCount());
+                stack = arena.getStack(grid.getCellCount());
+
+                // randomly select a cell to start the generation from; curr is cell N from pseudo-code
+                curr = RNG.nextInt(grid.getCellCount());
+                break;
+            case ControlPanel.KRUSKAL_GENERATOR:
+                // Kruskal's algorithm has no current cell, so curr is the last cell carved from
+                kruskal = new KruskalGenerator(grid, RNG, arena);
+                curr = 0;
+                break;
+            default:
+                System.err.println("Unexpected string in GenerationRun: " + settings.getGenerator());
+                System.exit(1);
+        }
+
+        // assigns the terrain
+        if (settings.isWeightedTerrain()) {
+            TerrainGenerator.assign(grid, RNG);
+        } else if (grid.isWeighted()) {
+            grid.clearWeights();
+        }
+
+        // sets the start to green and the end to red
+        grid.setState(start, MazeCell.START);
+        grid.setState(end, MazeCell.END);
+
+        // start listening for carved passages if the path should be found while generating
+        if (settings.isSolveWhileGenerating()) {
+            pipeline = new PipelinedSolver(grid, start, end);
+            grid.addGridListener(pipeline);
+        }
+    }
+
+    /**
+     * Constructor for GenerationRun class that sets up the parts every run has.
+     * @param settings The settings to generate the maze with, which belong to the run.
+     * @param grid The grid the maze is carved in.
+     * @param RNG Random number generator used to carve the maze.
+     * @param curr The current cell.
+     */
+    private GenerationRun(MazeSettings settings, MazeGrid grid, RestorableRandom RNG, int curr) {
+        this.settings = settings;
+        this.grid = grid;
+        this.RNG = RNG;
+        this.curr = curr;
+        start = grid.getTopology().getStartCell();
+        end = grid.getTopology().getEndCell();
+    }
+
+    /**
+     * Gets a copy of the settings the maze is being generated with.
+     * @return The settings.
+     */
+    public MazeSettings getSettings() { return new MazeSettings(settings); }
+
+    /**
+     * Gets the maze being generated.
+     * @return The grid.
+     */
+    public MazeGrid getGrid() { return grid; }
+
+    /**
+     * Gets the current cell in the generation process.
+     * @return The index of the current cell, or -1 once the maze is finished.
+     */
+    public int getCurr() { return curr; }
+
+    /**
+     * Tells whether the maze is finished, including the braiding.
+     * @return True if there is nothing left to do.
+     */
+    public boolean isFinished() { return curr < 0; }
+
+    /**
+     * Gets how much of the maze has been generated.
+     * @return The percent of the cells visited, from 0 to 100.
+     */
+    public double getPercentGenerated() { return cellsVisited * 100.0 / grid.getCellCount(); }
+
+    /**
+     * Tells whether the pipelined solver has found and colored the path.
+     * @return True if the path was found during generation.
+     */
+    public boolean isPathFound() { return percentAtPathFound >= 0; }
+
+    /**
+     * Gets how much of the maze had been generated when the pipelined solver found the path.
+     * @return The percent generated, or -1 if the path hasn't been found.
+     */
+    public double getPercentAtPathFound() { return percentAtPathFound; }
+
+    /**
+     * Generates the rest of the maze.
+     */
+    public void generate() {
+        // Continue looping as long as there are still nodes to explore
+        while (curr >= 0)
+            step();
+    }
+
+    /**
+     * Runs a single step of the generator: explores a single node of the maze depth first, or knocks down
+     * a single wall with Kruskal's algorithm. The maze is braided after the last step.
+     */
+    public void step() {
+        // return if curr is null; the maze is finished
+        if (curr < 0)
+            return;
+
+        if (kruskal != null) {
+            curr = kruskal.step();
+            cellsVisited = kruskal.getCellsJoined();
+        } else {
+            stepDepthFirst();
+        }
+
+        // show the path as soon as the start and end are connected
+        if (pipeline != null && !isPathFound() && pipeline.isConnected()) {
+            showPipelinedPath();
+            percentAtPathFound = getPercentGenerated();
+        }
+
+        if (curr < 0) {
+            finish();
+        }
+    }
+
+    /**
+     * Creates a snapshot of the finished maze that any number of threads can read at once.
+     * @return The snapshot.
+     * @throws IllegalStateException If the maze isn't finished.
+     */
+    public MazeSnapshot snapshot() {
+        if (curr >= 0) {
+            throw new IllegalStateException("The maze isn't finished");
+        }
+        return new MazeSnapshot(grid);
+    }
+
+    /**
+     * Explores a single node of the maze and finds the next node to explore.
+     */
+    private void stepDepthFirst() {
+        // number of unvisited cells adjacent to the current cell
+        int neighborCount;
+
+        // push N onto the stack
+        stack[stackSize++] = curr;
+
+        // mark N as visited
+        visited[curr >>> 6] |= 1L << curr;
+
+        // keep track of number of visited cells
+        cellsVisited++;
+
+        // Randomly select an adjacent cell A of N that has not been visited
+        neighborCount = findNeighbors();
+        while (neighborCount == 0) {
+            // N is a dead end, so pop it off the stack
+            stackSize--;
+            if (stackSize == 0) {
+                curr = -1;
+                break;
+            }
+
+            // go back to the previous cell until one with a valid neighbor is found
+            curr = stack[stackSize - 1];
+            neighborCount = findNeighbors();
+        }
+
+        // if there is a neighbor
+        if (neighborCount > 0) {
+            // choose one at random and break through the wall into it
+            int wall = neighborWalls[RNG.nextInt(neighborCount)];
+            int next = grid.neighbor(curr, wall);
+            grid.breakWall(curr, wall);
+            curr = next;
+        }
+    }
+
+    /**
+     * Finds the walls of the current cell that lead to unvisited cells and stores them in neighborWalls.
+     * @return The number of walls found.
+     */
+    private int findNeighbors() {
+        int count = 0;
+        for (int wall = 0; wall < grid.getSides(); wall++) {
+            int next = grid.neighbor(curr, wall);
+            if (next >= 0 && (visited[next >>> 6] & (1L << next)) == 0) {
+                neighborWalls[count++] = wall;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Stops the pipelined solver, lets go of the generator's memory and braids the finished maze.
+     */
+    private void finish() {
+        if (pipeline != null) {
+            grid.removeGridListener(pipeline);
+            pipeline = null;
+        }
+        kruskal = null;
+        visited = null;
+        stack = null;
+        MazeBraider.braid(grid, settings.getBraidFraction(), RNG);
+    }
+
+    /**
+     * Colors the path found by the pipelined solver. Passages are never removed while generating a perfect
+     * maze, so the path can't change once it exists.
+     */
+    private void showPipelinedPath() {
+        int[] path = pipeline.getPath();
+        for (int i = 1; i < path.length - 1; i++) {
+            grid.setState(path[i], MazeCell.VISITED);
+        }
+    }
+
+    /**
+     * Saves everything needed to carry on generating the maze: the settings it was created with, the walls
+     * and terrain, the visited cells and the stack or the order of the walls for Kruskal's algorithm, and
+     * the state of the random number generator.
+     * The previous checkpoint in the file is only replaced once the new one is complete.
+     * @param file The checkpoint file.
+     * @throws IOException If the checkpoint can't be written.
+     */
+    public void saveCheckpoint(Path file) throws IOException {
+        if (curr < 0) {
+            throw new IllegalStateException("No maze is being generated");
+        }
+        try (CheckpointFile out = CheckpointFile.create(file)) {
+            out.putInt(CHECKPOINT_MAGIC);
+            out.putInt(CHECKPOINT_VERSION);
+            out.putString(settings.getShape());
+            out.putInt(settings.getRows());
+            out.putInt(settings.getColumns());
+            out.putInt(settings.getFloors());
+            out.putInt(settings.isZOrderLayout() ? 1 : 0);
+            out.putString(settings.getStorage());
+            out.putString(settings.getGenerator());
+            out.putDouble(settings.getBraidFraction());
+            out.putInt(pipeline != null ? 1 : 0);
+            out.putDouble(percentAtPathFound);
+
+            int cells = grid.getCellCount();
+            out.putInt(cells);
+            out.putInt(curr);
+            out.putInt(cellsVisited);
+            out.putLong(RNG.getState());
+
+            byte[] chunk = new byte[Math.min(cells, 1 << 20)];
+            for (int cell = 0; cell < cells; cell += chunk.length) {
+                int count = Math.min(chunk.length, cells - cell);
+                grid.copyWalls(cell, chunk, 0, count);
+                out.putBytes(chunk, 0, count);
+            }
+            if (kruskal != null) {
+                kruskal.save(out);
+            } else {
+                out.putInt(stackSize);
+                out.putLongs(visited, 0, (cells + 63) >>> 6);
+                out.putInts(stack, 0, stackSize);
+            }
+
+            out.putInt(grid.isWeighted() ? 1 : 0);
+            if (grid.isWeighted()) {
+                for (int cell = 0; cell < cells; cell += chunk.length) {
+                    int count = Math.min(chunk.length, cells - cell);
+                    for (int i = 0; i < count; i++) {
+                        chunk[i] = (byte) grid.getWeight(cell + i);
+                    }
+                    out.putBytes(chunk, 0, count);
+                }
+            }
+            out.putInt(CHECKPOINT_MAGIC);
+            out.commit();
+        }
+    }
+
+    /**
+     * Loads a checkpoint saved by saveCheckpoint, ready to carry on with step or generate. The random number
+     * generator is only changed once the whole checkpoint has been read.
+     * @param file The checkpoint file.
+     * @param RNG Random number generator to carry on with, which is put back in its saved state.
+     * @return The run, with the settings it was started with.
+     * @throws IOException If the checkpoint can't be read or isn't valid.
+     */
+    public static GenerationRun resume(Path file, RestorableRandom RNG) throws IOException {
+        try (CheckpointFile in = CheckpointFile.open(file)) {
+            if (in.getInt() != CHECKPOINT_MAGIC || in.getInt() != CHECKPOINT_VERSION) {
+                throw new IOException("Not a maze checkpoint: " + file);
+            }
+            MazeSettings settings = new MazeSettings();
+            settings.setShape(in.getString());
+            settings.setRows(in.getInt());
+            settings.setColumns(in.getInt());
+            settings.setFloors(in.getInt());
+            settings.setZOrderLayout(in.getInt() != 0);
+            settings.setStorage(in.getString());
+            settings.setGenerator(in.getString());
+            settings.setBraidFraction(in.getDouble());
+            settings.setSolveWhileGenerating(in.getInt() != 0);
+            double pathFoundAt = in.getDouble();
+
+            Topology topology;
+            try {
+                topology = settings.createTopology();
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Checkpoint doesn't match its maze: " + file, e);
+            }
+            int cells = in.getInt();
+            int resumedCurr = in.getInt();
+            int resumedCellsVisited = in.getInt();
+            if (cells != topology.getCellCount() || resumedCurr < 0 || resumedCurr >= cells
+                    || resumedCellsVisited < 0 || resumedCellsVisited > cells) {
+                throw new IOException("Checkpoint doesn't match its maze: " + file);
+            }
+            long randomState = in.getLong();
+
+            MazeGrid grid = settings.createGrid();
+            byte[] chunk = new byte[Math.min(cells, 1 << 20)];
+            for (int cell = 0; cell < cells; cell += chunk.length) {
+                int count = Math.min(chunk.length, cells - cell);
+                in.getBytes(chunk, 0, count);
+                grid.loadWalls(cell, chunk, 0, count);
+            }
+
+            // the state of the generator that was running
+            GenerationRun run = new GenerationRun(settings, grid, RNG, resumedCurr);
+            run.cellsVisited = resumedCellsVisited;
+            switch (settings.getGenerator()) {
+                case ControlPanel.DFS_GENERATOR:
+                    run.stackSize = in.getInt();
+                    if (run.stackSize < 0 || run.stackSize > cells) {
+                        throw new IOException("Checkpoint doesn't match its maze: " + file);
+                    }
+                    run.visited = new long[(cells + 63) >>> 6];
+                    in.getLongs(run.visited, 0, run.visited.length);
+                    run.stack = new int[cells];
+                    in.getInts(run.stack, 0, run.stackSize);
+                    for (int i = 0; i < run.stackSize; i++) {
+                        if (run.stack[i] < 0 || run.stack[i] >= cells) {
+                            throw new IOException("Checkpoint is corrupt: " + file);
+                        }
+                    }
+                    break;
+                case ControlPanel.KRUSKAL_GENERATOR:
+                    run.kruskal = KruskalGenerator.load(in, grid, RNG);
+                    break;
+                default:
+                    throw new IOException("Unknown generator in checkpoint: " + settings.getGenerator());
+            }
+
+            if (in.getInt() != 0) {
+                for (int cell = 0; cell < cells; cell += chunk.length) {
+                    int count = Math.min(chunk.length, cells - cell);
+                    in.getBytes(chunk, 0, count);
+                    for (int i = 0; i < count; i++) {
+                        grid.setWeight(cell + i, chunk[i]);
+                    }
+                }
+            }
+            if (in.getInt() != CHECKPOINT_MAGIC) {
+                throw new IOException("Checkpoint is corrupt: " + file);
+            }
+            settings.setWeightedTerrain(grid.isWeighted());
+
+            // everything was read, so carry on from where the checkpoint was saved
+            RNG.setState(randomState);
+            grid.setState(run.start, MazeCell.START);
+            grid.setState(run.end, MazeCell.END);
+
+            // rebuild the pipelined solver from the passages carved so far
+            if (settings.isSolveWhileGenerating()) {
+                run.pipeline = new PipelinedSolver(grid, run.start, run.end);
+                for (int cell = 0; cell < cells; cell++) {
+                    run.pipeline.cellChanged(cell);
+                }
+                grid.addGridListener(run.pipeline);
+                if (run.pipeline.isConnected()) {
+                    run.showPipelinedPath();
+                    run.percentAtPathFound = pathFoundAt;
+                }
+            }
+            return run;
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Checkpoint doesn't match its maze: " + file, e);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * File:     GridFrame.java
+ * Author:   Taylor Ecton
+ * Purpose:  One published copy of the walls, states and weights of a MazeGrid, handed from the thread
+ *           running an algorithm to the thread painting the maze by a GridPublisher. Whoever holds a frame
+ *           can read it without locks because nothing writes to it until it is handed back, and a frame
+ *           that is pinned by a background reader is never written to again. The arrays can be longer
+ *           than the maze, so a MazeArena can reuse a frame for the next maze.
+ */
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class GridFrame {
+    // how the cells fit together
+    private Topology topology;
+
+    // wall bits and state of each cell, and the cost of entering each cell when weighted is set
+    final byte[] walls;
+    final byte[] states;
+    byte[] weights;
+    boolean weighted;
+
+    // the publication the frame holds, the publication each block of cells last changed in, and the
+    // publisher that filled it, or null
+    int version;
+    final int[] blockVersions;
+    GridPublisher filledBy;
+
+    // number of background readers still using the frame
+    private final AtomicInteger pins = new AtomicInteger();
+
+    /**
+     * Constructor for GridFrame class. The frame is empty until a GridPublisher fills it.
+     * @param topology The topology of the maze.
+     * @param blocks The number of blocks the publisher splits the cells into.
+     */
+    GridFrame(Topology topology, int blocks) {
+        this.topology = topology;
+        walls = new byte[topology.getCellCount()];
+        states = new byte[topology.getCellCount()];
+        blockVersions = new int[blocks];
+    }
+
+    /**
+     * Gets the frame ready for a different maze if its arrays are long enough. Nothing in it is kept.
+     * @param topology The topology of the maze.
+     * @param blocks The number of blocks the publisher splits the cells into.
+     * @return True if the frame can be used for the maze, false if it is too small.
+     */
+    boolean reuse(Topology topology, int blocks) {
+        if (walls.length < topology.getCellCount() || blockVersions.length < blocks)
+            return false;
+        this.topology = topology;
+        version = 0;
+        weighted = false;
+        filledBy = null;
+        return true;
+    }
+
+    /**
+     * Gets the topology of the maze.
+     * @return The topology.
+     */
+    public Topology getTopology() { return topology; }
+
+    /**
+     * Gets the number of the publication the frame holds. Later publications have larger numbers.
+     * @return The version of the frame.
+     */
+    public int getVersion() { return version; }
+
+    /**
+     * Gets the state of a cell.
+     * @param cell The cell index.
+     * @return The state of the cell when the frame was published (see MazeCell constants).
+     */
+    public int getState(int cell) { return states[cell]; }
+
+    /**
+     * Gets the cost of entering a cell.
+     * @param cell The cell index.
+     * @return The weight of the cell, from 1 to MazeGrid.MAX_WEIGHT.
+     */
+    public int getWeight(int cell) { return weighted ? weights[cell] : 1; }
+
+    /**
+     * Gets all the wall bits of a cell at once.
+     * @param cell The cell index.
+     * @return The wall bits; bit i is set when wall i is present.
+     */
+    public int getWalls(int cell) { return walls[cell] & 0xFF; }
+
+    /**
+     * Gets the cell that can be reached by moving through a wall.
+     * @param cell The cell index.
+     * @param wall The wall to move through.
+     * @return The neighbouring cell index, or -1 if there is a wall or the edge of the grid.
+     */
+    public int passage(int cell, int wall) {
+        return (walls[cell] & (1 << wall)) != 0 ? -1 : topology.neighbor(cell, wall);
+    }
+
+    /**
+     * Keeps the frame from being reused until unpin is called, so a background thread can go on reading it
+     * after the thread that received it has moved on to a newer frame.
+     */
+    public void pin() { pins.incrementAndGet(); }
+
+    /**
+     * Lets the frame be reused once every background reader that pinned it is done.
+     */
+    public void unpin() { pins.decrementAndGet(); }
+
+    /**
+     * Tells whether a background reader is still using the frame.
+     * @return True if the frame is pinned.
+     */
+    boolean isPinned() { return pins.get() > 0; }
+}
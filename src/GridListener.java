@@ -0,0 +1,18 @@
+/*
+ * File:     GridListener.java
+ * Author:   Taylor Ecton
+ * Purpose:  Listener notified when the walls, states or weights of a MazeGrid change.
+ */
+
+public interface GridListener {
+    /**
+     * Called after the walls, state or weight of a single cell change.
+     * @param cell The cell that changed.
+     */
+    void cellChanged(int cell);
+
+    /**
+     * Called after a change that may affect every cell in the grid.
+     */
+    void gridChanged();
+}
@@ -0,0 +1,326 @@
+/*
+ * File:     GridPublisher.java
+ * Author:   Taylor Ecton
+ * Purpose:  Hands copies of a MazeGrid from the thread changing it to the thread painting it without
+ *           either ever waiting for the other. Three GridFrames are passed around as a triple buffer: the
+ *           writer fills the back frame and exchanges it with the middle one in a single atomic step, and
+ *           the reader exchanges its front frame with the middle one whenever a newer frame is waiting
+ *           there. Only the blocks of cells that changed since a frame was last filled are copied into it,
+ *           and each frame records the publication every block last changed in, so the reader finds out
+ *           which cells changed even when it skipped some frames.
+ */
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class GridPublisher implements GridListener {
+    // cells in a block, the unit changes are tracked and copied in
+    private static final int BLOCK_BITS = 8;
+    private static final int BLOCK_CELLS = 1 << BLOCK_BITS;
+
+    // bit set in middle when the frame there hasn't been taken by the reader yet
+    private static final int FRESH = 4;
+
+    // the maze being published, its number of cells and number of blocks
+    private final MazeGrid grid;
+    private final int cells, blocks;
+
+    // where the frames come from
+    private final MazeArena arena;
+
+    // the three frames, taken from the arena the first time they are needed; each is owned by whoever holds
+    // its index
+    private final GridFrame[] frames = new GridFrame[3];
+
+    // index of the frame waiting between the writer and the reader, with FRESH set if it is newer than the
+    // reader's frame
+    private final AtomicInteger middle = new AtomicInteger(1);
+
+    // index of the writer's frame and of the frame it published last, or -1 before the first publication,
+    // the number of publications so far, and the publication each block last changed in (only used by the
+    // writer)
+    private int back = 0;
+    private int published = -1;
+    private int version;
+    private final int[] blockVersions;
+
+    // blocks changed since the last publication (only used by the writer)
+    private final long[] changedBits;
+    private final int[] changedBlocks;
+    private int changedCount;
+    private boolean allChanged = true;
+
+    // for each frame, the blocks that changed since it was last filled (only used by the writer)
+    private final long[][] staleBits = new long[3][];
+    private final int[][] staleBlocks = new int[3][];
+    private final int[] staleCounts = new int[3];
+    private final boolean[] allStale = {true, true, true};
+
+    // index of the reader's frame and the version of the frame it last took (only used by the reader)
+    private int front = 2;
+    private int seenVersion;
+
+    /**
+     * Constructor for GridPublisher class. Starts following changes to the maze; nothing is handed to the
+     * reader until the first call to publish.
+     * @param grid The maze to publish.
+     */
+    public GridPublisher(MazeGrid grid) {
+        this(grid, new MazeArena());
+    }
+
+    /**
+     * Constructor for GridPublisher class that reuses the frames of an arena, which can't be used by any
+     * earlier publisher from then on.
+     * @param grid The maze to publish.
+     * @param arena The arena to take the frames from.
+     */
+    public GridPublisher(MazeGrid grid, MazeArena arena) {
+        this.grid = grid;
+        this.arena = arena;
+        cells = grid.getCellCount();
+        blocks = (cells + BLOCK_CELLS - 1) >> BLOCK_BITS;
+        blockVersions = new int[blocks];
+        changedBits = new long[(blocks + 63) >> 6];
+        changedBlocks = new int[blocks];
+        for (int i = 0; i < 3; i++) {
+            staleBits[i] = new long[changedBits.length];
+            staleBlocks[i] = new int[blocks];
+        }
+        grid.addGridListener(this);
+    }
+
+    /**
+     * Gets the topology of the maze being published.
+     * @return The topology.
+     */
+    public Topology getTopology() { return grid.getTopology(); }
+
+    /**
+     * Stops following changes to the maze.
+     */
+    public void dispose() {
+        grid.removeGridListener(this);
+    }
+
+    /**
+     * Notes that the block holding a cell has to be published. Called on the writer's thread.
+     * @param cell The cell that changed.
+     */
+    @Override
+    public void cellChanged(int cell) {
+        int block = cell >>> BLOCK_BITS;
+        long bit = 1L << block;
+        if ((changedBits[block >> 6] & bit) == 0) {
+            changedBits[block >> 6] |= bit;
+            changedBlocks[changedCount++] = block;
+        }
+    }
+
+    /**
+     * Notes that every block has to be published. Called on the writer's thread.
+     */
+    @Override
+    public void gridChanged() {
+        allChanged = true;
+    }
+
+    /**
+     * Hands the maze as it is now to the reader, replacing any frame the reader hasn't taken yet. Must be
+     * called on the thread that changes the maze. Never waits for the reader: a frame still pinned by a
+     * background reader is left to it and swapped for a spare frame from the arena instead.
+     */
+    public void publish() {
+        version++;
+
+        // stamp the blocks that changed with this publication; every frame is now missing them
+        if (allChanged && published < 0) {
+            Arrays.fill(blockVersions, version);
+            Arrays.fill(allStale, true);
+        } else if (allChanged) {
+            // the last frame published is only read here, so it can be compared with while the reader holds it
+            stampDifferences(frames[published]);
+        } else {
+            for (int i = 0; i < changedCount; i++) {
+                int block = changedBlocks[i];
+                blockVersions[block] = version;
+                for (int f = 0; f < 3; f++) {
+                    markStale(f, block);
+                }
+            }
+        }
+        Arrays.fill(changedBits, 0);
+        changedCount = 0;
+        allChanged = false;
+
+        // bring the back frame up to date and swap it into the middle
+        if (frames[back] == null || frames[back].isPinned()) {
+            frames[back] = arena.getFrame(back, grid.getTopology(), blocks);
+            findStale(back);
+        }
+        fill(back);
+        published = back;
+        back = middle.getAndSet(back | FRESH) & ~FRESH;
+    }
+
+    /**
+     * Takes the newest published frame if there is one the reader hasn't seen, and tells a listener which
+     * cells differ from the frame the reader had before. Must always be called on the same thread, and the
+     * frame returned can only be read on that thread until the next call unless it is pinned.
+     * @param changes Told about every cell that changed, or that the whole grid changed when most of the
+     *                cells did or there was no frame before.
+     * @return The newest frame, or null if nothing has been published yet.
+     */
+    public GridFrame acquire(GridListener changes) {
+        if ((middle.get() & FRESH) == 0)
+            return frames[front];
+
+        front = middle.getAndSet(front) & ~FRESH;
+        GridFrame frame = frames[front];
+
+        // count the blocks that changed since the last frame, and report each of their cells unless too many did
+        int changed = 0;
+        for (int block = 0; block < blocks; block++) {
+            if (frame.blockVersions[block] > seenVersion)
+                changed++;
+        }
+        if (seenVersion == 0 || changed > blocks / 4) {
+            changes.gridChanged();
+        } else if (changed > 0) {
+            for (int block = 0; block < blocks; block++) {
+                if (frame.blockVersions[block] > seenVersion) {
+                    int last = Math.min(cells, (block + 1) << BLOCK_BITS);
+                    for (int cell = block << BLOCK_BITS; cell < last; cell++) {
+                        changes.cellChanged(cell);
+                    }
+                }
+            }
+        }
+        seenVersion = frame.version;
+        return frame;
+    }
+
+    /**
+     * Stamps only the blocks that differ from the last frame published after the whole maze was reported as
+     * changed. Most such changes, like loading an earlier step of a recording, leave most cells as they
+     * were, and comparing eight cells at a time is far cheaper than copying every block into every frame
+     * and having the reader redraw all of them.
+     * @param last The frame published last.
+     */
+    private void stampDifferences(GridFrame last) {
+        boolean weighted = grid.isWeighted() || last.weighted;
+        for (int block = 0; block < blocks; block++) {
+            int first = block << BLOCK_BITS;
+            int count = Math.min(BLOCK_CELLS, cells - first);
+            if (grid.findWallDifference(first, last.walls, first, count) >= 0
+                    || grid.findStateDifference(first, last.states, first, count) >= 0
+                    || weighted && weightsDiffer(last, first, count)) {
+                blockVersions[block] = version;
+                for (int f = 0; f < 3; f++) {
+                    markStale(f, block);
+                }
+            }
+        }
+    }
+
+    /**
+     * Tells whether any cell of a run costs a different amount to enter in the maze than in a frame.
+     * @param frame The frame.
+     * @param first The first cell.
+     * @param count The number of cells.
+     * @return True if any weight differs.
+     */
+    private boolean weightsDiffer(GridFrame frame, int first, int count) {
+        for (int cell = first; cell < first + count; cell++) {
+            if (grid.getWeight(cell) != frame.getWeight(cell))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Works out which blocks a frame just taken from the arena is missing. A frame this publisher filled
+     * before only misses the blocks that changed since, which its block versions tell; any other frame
+     * misses everything.
+     * @param f Index of the frame.
+     */
+    private void findStale(int f) {
+        GridFrame frame = frames[f];
+        Arrays.fill(staleBits[f], 0);
+        staleCounts[f] = 0;
+        allStale[f] = frame.filledBy != this;
+        if (allStale[f])
+            return;
+        for (int block = 0; block < blocks; block++) {
+            if (frame.blockVersions[block] != blockVersions[block]) {
+                markStale(f, block);
+            }
+        }
+    }
+
+    /**
+     * Marks a block as missing from a frame.
+     * @param f Index of the frame.
+     * @param block The block.
+     */
+    private void markStale(int f, int block) {
+        if (allStale[f])
+            return;
+        long bit = 1L << block;
+        if ((staleBits[f][block >> 6] & bit) == 0) {
+            staleBits[f][block >> 6] |= bit;
+            staleBlocks[f][staleCounts[f]++] = block;
+        }
+    }
+
+    /**
+     * Copies every block a frame is missing from the maze into it.
+     * @param f Index of the frame.
+     */
+    private void fill(int f) {
+        GridFrame frame = frames[f];
+        if (!grid.isWeighted()) {
+            frame.weighted = false;
+        } else if (!frame.weighted) {
+            // cells that changed since the frame was last filled are copied below; the rest still cost 1
+            if (frame.weights == null || frame.weights.length < cells) {
+                frame.weights = new byte[cells];
+            }
+            Arrays.fill(frame.weights, 0, cells, (byte) 1);
+            frame.weighted = true;
+        }
+
+        if (allStale[f]) {
+            copyCells(frame, 0, cells);
+            System.arraycopy(blockVersions, 0, frame.blockVersions, 0, blocks);
+            allStale[f] = false;
+        } else {
+            for (int i = 0; i < staleCounts[f]; i++) {
+                int block = staleBlocks[f][i];
+                int first = block << BLOCK_BITS;
+                copyCells(frame, first, Math.min(BLOCK_CELLS, cells - first));
+                frame.blockVersions[block] = blockVersions[block];
+            }
+        }
+        Arrays.fill(staleBits[f], 0);
+        staleCounts[f] = 0;
+        frame.version = version;
+        frame.filledBy = this;
+    }
+
+    /**
+     * Copies the walls, states and weights of a run of cells from the maze into a frame.
+     * @param frame The frame.
+     * @param first The first cell.
+     * @param count The number of cells.
+     */
+    private void copyCells(GridFrame frame, int first, int count) {
+        grid.copyWalls(first, frame.walls, first, count);
+        grid.copyStates(first, frame.states, first, count);
+        if (frame.weighted) {
+            for (int cell = first; cell < first + count; cell++) {
+                frame.weights[cell] = (byte) grid.getWeight(cell);
+            }
+        }
+    }
+}
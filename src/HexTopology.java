@@ -0,0 +1,99 @@
+/*
+ * File:     HexTopology.java
+ * Author:   Taylor Ecton
+ * Purpose:  Grid of pointy-topped hexagons one unit wide, with every odd row shifted half a cell to the
+ *           right. Sides are numbered clockwise from the east side, so the opposite side is always three
+ *           further on.
+ */
+
+public class HexTopology extends LatticeTopology {
+    // sides of a hexagon
+    public static final int EAST = 0;
+    public static final int SOUTH_EAST = 1;
+    public static final int SOUTH_WEST = 2;
+    public static final int WEST = 3;
+    public static final int NORTH_WEST = 4;
+    public static final int NORTH_EAST = 5;
+
+    // distance from the center of a hexagon to its corners
+    private static final double RADIUS = 1.0 / Math.sqrt(3.0);
+
+    // rows moved through each side, and columns moved for even and odd rows
+    private static final int[] ROW_STEPS = {0, 1, 1, 0, -1, -1};
+    private static final int[] EVEN_COLUMN_STEPS = {1, 0, -1, -1, -1, 0};
+    private static final int[] ODD_COLUMN_STEPS = {1, 1, 0, -1, 0, 1};
+
+    /**
+     * Constructor for HexTopology class.
+     * @param rows Number of rows in the grid.
+     * @param columns Number of columns in the grid.
+     */
+    public HexTopology(int rows, int columns) {
+        super(rows, columns, new int[] {WEST, NORTH_WEST, NORTH_EAST, EAST, SOUTH_EAST, SOUTH_WEST},
+              1.0, 1.5 * RADIUS);
+    }
+
+    @Override
+    protected int rowStep(boolean oddRow, boolean oddColumn, int side) { return ROW_STEPS[side]; }
+
+    @Override
+    protected int columnStep(boolean oddRow, boolean oddColumn, int side) {
+        return oddRow ? ODD_COLUMN_STEPS[side] : EVEN_COLUMN_STEPS[side];
+    }
+
+    @Override
+    public double getWidth() { return rows > 1 ? columns + 0.5 : columns; }
+
+    @Override
+    public double getHeight() { return 2 * RADIUS + (rows - 1) * 1.5 * RADIUS; }
+
+    @Override
+    public void getCenter(int cell, double[] xy) {
+        int row = row(cell);
+        xy[0] = column(cell) + ((row & 1) != 0 ? 1.0 : 0.5);
+        xy[1] = RADIUS + row * 1.5 * RADIUS;
+    }
+
+    @Override
+    public int getOutline(int cell, double[] xs, double[] ys) {
+        double[] center = new double[2];
+        getCenter(cell, center);
+        // corner i is at -30 + 60i degrees, so side i runs from corner i to corner i + 1
+        for (int i = 0; i < 6; i++) {
+            double angle = Math.toRadians(-30 + 60 * i);
+            xs[i] = center[0] + RADIUS * Math.cos(angle);
+            ys[i] = center[1] + RADIUS * Math.sin(angle);
+        }
+        return 6;
+    }
+
+    @Override
+    public boolean getSide(int cell, int side, double[] segment) {
+        double[] center = new double[2];
+        getCenter(cell, center);
+        double a1 = Math.toRadians(-30 + 60 * side);
+        double a2 = Math.toRadians(30 + 60 * side);
+        segment[0] = center[0] + RADIUS * Math.cos(a1);
+        segment[1] = center[1] + RADIUS * Math.sin(a1);
+        segment[2] = center[0] + RADIUS * Math.cos(a2);
+        segment[3] = center[1] + RADIUS * Math.sin(a2);
+        return true;
+    }
+
+    /**
+     * Gets the number of steps between two cells if there were no walls, using cube coordinates.
+     * @param from The first cell.
+     * @param to The second cell.
+     * @return The number of steps.
+     */
+    @Override
+    public int distanceEstimate(int from, int to) {
+        int r1 = row(from);
+        int r2 = row(to);
+        int x1 = column(from) - (r1 - (r1 & 1)) / 2;
+        int x2 = column(to) - (r2 - (r2 & 1)) / 2;
+        int dx = x1 - x2;
+        int dz = r1 - r2;
+        return Math.max(Math.abs(dx), Math.max(Math.abs(dz), Math.abs(dx + dz)));
+    }
+}
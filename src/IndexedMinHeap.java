@@ -0,0 +1,144 @@
+/*
+ * File:     IndexedMinHeap.java
+ * Author:   Taylor Ecton
+ * Purpose:  Binary min-heap of int ids (cell indices) ordered by int keys, with decrease-key. Everything
+ *           is stored in primitive arrays sized once up front, so no objects are created while searching.
+ */
+
+import java.util.Arrays;
+
+public class IndexedMinHeap {
+    // ids in heap order
+    private final int[] heap;
+
+    // position of each id in heap, or -1 if it isn't in the heap
+    private final int[] position;
+
+    // key of each id
+    private final int[] keys;
+
+    // number of ids in the heap
+    private int size;
+
+    /**
+     * Constructor for IndexedMinHeap class.
+     * @param capacity Ids range from 0 to capacity - 1.
+     */
+    public IndexedMinHeap(int capacity) {
+        heap = new int[capacity];
+        position = new int[capacity];
+        keys = new int[capacity];
+        Arrays.fill(position, -1);
+    }
+
+    /**
+     * Tells whether the heap is empty.
+     * @return True if there are no ids in the heap.
+     */
+    public boolean isEmpty() { return size == 0; }
+
+    /**
+     * Gets the number of ids in the heap.
+     * @return The size of the heap.
+     */
+    public int size() { return size; }
+
+    /**
+     * Gets the id at a position in the heap's internal order, for visiting every id without removing them.
+     * @param i Position from 0 to size() - 1.
+     * @return The id at that position.
+     */
+    public int get(int i) { return heap[i]; }
+
+    /**
+     * Tells whether an id is in the heap.
+     * @param id The id.
+     * @return True if the id is in the heap.
+     */
+    public boolean contains(int id) { return position[id] >= 0; }
+
+    /**
+     * Adds an id, or lowers its key if it is already in the heap with a larger key.
+     * @param id The id.
+     * @param key The new key.
+     */
+    public void insertOrDecrease(int id, int key) {
+        int i = position[id];
+        if (i < 0) {
+            i = size++;
+            heap[i] = id;
+            position[id] = i;
+        } else if (key >= keys[id]) {
+            return;
+        }
+        keys[id] = key;
+        siftUp(i);
+    }
+
+    /**
+     * Removes the id with the smallest key.
+     * @return The id that was removed.
+     */
+    public int poll() {
+        int min = heap[0];
+        position[min] = -1;
+        size--;
+        if (size > 0) {
+            heap[0] = heap[size];
+            position[heap[0]] = 0;
+            siftDown(0);
+        }
+        return min;
+    }
+
+    /**
+     * Removes every id from the heap.
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            position[heap[i]] = -1;
+        }
+        size = 0;
+    }
+
+    /**
+     * Moves the id at a position up until its parent's key is no larger.
+     * @param i The position.
+     */
+    private void siftUp(int i) {
+        int id = heap[i];
+        int key = keys[id];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (keys[heap[parent]] <= key)
+                break;
+            heap[i] = heap[parent];
+            position[heap[i]] = i;
+            i = parent;
+        }
+        heap[i] = id;
+        position[id] = i;
+    }
+
+    /**
+     * Moves the id at a position down until neither child has a smaller key.
+     * @param i The position.
+     */
+    private void siftDown(int i) {
+        int id = heap[i];
+        int key = keys[id];
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && keys[heap[child + 1]] < keys[heap[child]])
+                child++;
+            if (key <= keys[heap[child]])
+                break;
+            heap[i] = heap[child];
+            position[heap[i]] = i;
+            i = child;
+        }
+        heap[i] = id;
+        position[id] = i;
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * File:     KruskalGenerator.java
+ * Author:   Taylor Ecton
+ * Purpose:  Generates a maze with randomized Kruskal's algorithm. Every wall between two cells is listed once
+ *           as cell * sides + side in a single int array, and the walls are visited in random order by
+ *           shuffling the array a position at a time as it is walked, so no list of wall objects is ever
+ *           built. A wall is knocked down when the cells on either side aren't joined yet, which is checked
+ *           with a DisjointSets. Unlike the depth first generator there is no stack and no long corridor to
+ *           backtrack along, and the memory used is known as soon as the maze is created.
+ */
+
+import java.io.IOException;
+import java.util.Random;
+
+public class KruskalGenerator {
+    // the maze being generated
+    private final MazeGrid grid;
+
+    // random number generator used to shuffle the walls
+    private final Random RNG;
+
+    // every wall between two cells as cell * sides + side, at the start of the array; the walls before next
+    // have been looked at
+    private final int[] walls;
+    private final int wallCount;
+    private int next;
+
+    // cells joined by the passages carved so far
+    private final DisjointSets sets;
+
+    /**
+     * Constructor for KruskalGenerator class. The maze should have every wall up.
+     * @param grid The maze to generate.
+     * @param RNG Random number generator used to shuffle the walls.
+     */
+    public KruskalGenerator(MazeGrid grid, Random RNG) {
+        this(grid, RNG, new MazeArena());
+    }
+
+    /**
+     * Constructor for KruskalGenerator class that lists the walls and joins the cells in an arena's storage.
+     * The maze should have every wall up.
+     * @param grid The maze to generate.
+     * @param RNG Random number generator used to shuffle the walls.
+     * @param arena The arena to take the storage from.
+     */
+    public KruskalGenerator(MazeGrid grid, Random RNG, MazeArena arena) {
+        this(grid, RNG, arena, countWalls(grid));
+    }
+
+    /**
+     * Constructor for KruskalGenerator class that lists a known number of walls in an arena's storage.
+     * @param grid The maze to generate.
+     * @param RNG Random number generator used to shuffle the walls.
+     * @param arena The arena to take the storage from.
+     * @param wallCount The number of walls between two cells.
+     */
+    private KruskalGenerator(MazeGrid grid, Random RNG, MazeArena arena, int wallCount) {
+        this(grid, RNG, arena.getKruskalWalls(wallCount), wallCount, 0, arena.createSets(grid.getCellCount()));
+        listWalls(grid, walls);
+    }
+
+    /**
+     * Constructor for KruskalGenerator class that carries on from walls that have partly been looked at.
+     * @param grid The maze being generated.
+     * @param RNG Random number generator used to shuffle the walls.
+     * @param walls Every wall between two cells, in the order they are being looked at.
+     * @param wallCount The number of walls at the start of the array.
+     * @param next The number of walls already looked at.
+     * @param sets Sets with every cell on its own.
+     */
+    private KruskalGenerator(MazeGrid grid, Random RNG, int[] walls, int wallCount, int next, DisjointSets sets) {
+        this.grid = grid;
+        this.RNG = RNG;
+        this.walls = walls;
+        this.wallCount = wallCount;
+        this.next = next;
+        this.sets = sets;
+    }
+
+    /**
+     * Knocks down the next wall in random order that joins two cells that aren't connected yet.
+     * @return The cell on the near side of the wall knocked down, or -1 if the maze is finished.
+     */
+    public int step() {
+        int sides = grid.getSides();
+        while (!isFinished() && next < wallCount) {
+            // swap a random wall from the rest into the next position
+            int pick = next + RNG.nextInt(wallCount - next);
+            int wall = walls[pick];
+            walls[pick] = walls[next];
+            walls[next++] = wall;
+
+            int cell = wall / sides;
+            int side = wall % sides;
+            if (sets.union(cell, grid.neighbor(cell, side))) {
+                grid.breakWall(cell, side);
+                return cell;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Tells whether every cell has been joined into one maze.
+     * @return True if the maze is finished.
+     */
+    public boolean isFinished() { return sets.getSetCount() <= 1; }
+
+    /**
+     * Gets the number of cells joined to another cell so far, counting the first cell of each joined
+     * group. Each wall knocked down joins one more cell.
+     * @return The number of cells joined, which reaches the number of cells when the maze is finished.
+     */
+    public int getCellsJoined() { return grid.getCellCount() - sets.getSetCount() + 1; }
+
+    /**
+     * Writes the order of the walls and how far through them the generator is. The joined cells aren't
+     * written, since they follow from the walls of the maze.
+     * @param out The checkpoint to write to.
+     * @throws IOException If writing fails.
+     */
+    public void save(CheckpointFile out) throws IOException {
+        out.putInt(wallCount);
+        out.putInt(next);
+        out.putInts(walls, 0, wallCount);
+    }
+
+    /**
+     * Reads a generator written by save and joins the cells that are already connected in the maze.
+     * @param in The checkpoint to read from.
+     * @param grid The maze being generated, with the walls it had when the checkpoint was saved.
+     * @param RNG Random number generator used to shuffle the walls, in the state it was saved in.
+     * @return The generator, ready to carry on.
+     * @throws IOException If reading fails or the walls don't belong to the maze.
+     */
+    public static KruskalGenerator load(CheckpointFile in, MazeGrid grid, Random RNG) throws IOException {
+        int count = in.getInt();
+        int next = in.getInt();
+        if (count != countWalls(grid) || next < 0 || next > count) {
+            throw new IOException("Checkpoint doesn't match its maze");
+        }
+        int[] walls = new int[count];
+        in.getInts(walls, 0, count);
+        int sides = grid.getSides();
+        for (int wall : walls) {
+            if (wall < 0 || wall >= grid.getCellCount() * sides || grid.neighbor(wall / sides, wall % sides) < 0) {
+                throw new IOException("Checkpoint is corrupt");
+            }
+        }
+
+        KruskalGenerator generator = new KruskalGenerator(grid, RNG, walls, count, next,
+                                                          new DisjointSets(grid.getCellCount()));
+        for (int cell = 0; cell < grid.getCellCount(); cell++) {
+            for (int side = 0; side < sides; side++) {
+                int neighbor = grid.passage(cell, side);
+                if (neighbor > cell) {
+                    generator.sets.union(cell, neighbor);
+                }
+            }
+        }
+        return generator;
+    }
+
+    /**
+     * Counts the walls between two cells, counting each from the lower numbered cell.
+     * @param grid The maze.
+     * @return The number of walls.
+     */
+    private static int countWalls(MazeGrid grid) {
+        int count = 0;
+        for (int cell = 0; cell < grid.getCellCount(); cell++) {
+            for (int side = 0; side < grid.getSides(); side++) {
+                if (grid.neighbor(cell, side) > cell)
+                    count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Lists every wall between two cells once, from the lower numbered cell.
+     * @param grid The maze.
+     * @param walls Array to list the walls in as cell * sides + side, in cell order, with room for every wall.
+     */
+    private static void listWalls(MazeGrid grid, int[] walls) {
+        int sides = grid.getSides();
+        int count = 0;
+        for (int cell = 0; cell < grid.getCellCount(); cell++) {
+            for (int side = 0; side < sides; side++) {
+                if (grid.neighbor(cell, side) > cell)
+                    walls[count++] = cell * sides + side;
+            }
+        }
+    }
+}
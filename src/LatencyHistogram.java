@@ -0,0 +1,117 @@
+/*
+ * File:     LatencyHistogram.java
+ * Author:   Taylor Ecton
+ * Purpose:  Counts durations in buckets that grow with the value, the same way HdrHistogram does: values below
+ *           128 get a bucket each, and every power of two above that is split into 64 equal buckets. Any
+ *           value is therefore kept to within 1/64 of itself, from nanoseconds up to centuries, in a few
+ *           thousand counters that never grow. Percentiles are read off the counts afterwards, so recording
+ *           a value is only a few instructions. A histogram isn't safe to share between threads; give each
+ *           thread its own and add them together at the end.
+ */
+
+public class LatencyHistogram {
+    // values below this have a bucket each
+    private static final int LINEAR_BUCKETS = 128;
+
+    // number of buckets each power of two above that is split into, as a power of two
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    // number of times a value fell in each bucket
+    private final long[] counts = new long[LINEAR_BUCKETS + (63 - SUB_BUCKET_BITS) * SUB_BUCKETS];
+
+    // number of values, their total, and the largest one
+    private long count;
+    private long total;
+    private long max;
+
+    /**
+     * Records a value.
+     * @param value The value, which must not be negative.
+     */
+    public void record(long value) {
+        counts[bucket(value)]++;
+        count++;
+        total += value;
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Adds every value recorded by another histogram to this one.
+     * @param other The histogram to add.
+     */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        count += other.count;
+        total += other.total;
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * Gets the number of values recorded.
+     * @return The number of values.
+     */
+    public long getCount() { return count; }
+
+    /**
+     * Gets the largest value recorded.
+     * @return The largest value, exactly, or 0 if nothing has been recorded.
+     */
+    public long getMax() { return max; }
+
+    /**
+     * Gets the average of the values recorded.
+     * @return The mean, or 0 if nothing has been recorded.
+     */
+    public double getMean() { return count == 0 ? 0 : total / (double) count; }
+
+    /**
+     * Gets the value that a percentage of the values recorded are at or below.
+     * @param percentile The percentage, from 0 to 100.
+     * @return The largest value that falls in the same bucket as that value, or 0 if nothing has been
+     *         recorded. It is never more than the largest value recorded.
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (count == 0)
+            return 0;
+
+        // the rank of the value, counting from 1
+        long rank = Math.max(1, (long) Math.ceil(Math.min(percentile, 100) / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank)
+                return Math.min(highestValue(i), max);
+        }
+        return max;
+    }
+
+    /**
+     * Finds the bucket a value falls in.
+     * @param value The value.
+     * @return The index of the bucket.
+     */
+    private static int bucket(long value) {
+        if (value < LINEAR_BUCKETS)
+            return (int) Math.max(0, value);
+
+        // shift the value down until it is between SUB_BUCKETS and 2 * SUB_BUCKETS
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return LINEAR_BUCKETS + (shift - 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    /**
+     * Finds the largest value that falls in a bucket.
+     * @param bucket The index of the bucket.
+     * @return The largest value.
+     */
+    private static long highestValue(int bucket) {
+        if (bucket < LINEAR_BUCKETS)
+            return bucket;
+        int shift = (bucket - LINEAR_BUCKETS) / SUB_BUCKETS + 1;
+        long lowest = (long) (SUB_BUCKETS + (bucket - LINEAR_BUCKETS) % SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * File:     LatticeTopology.java
+ * Author:   Taylor Ecton
+ * Purpose:  Base for grids whose cells sit in rows and columns (square, hexagonal and triangular grids).
+ *           The step from a cell to its neighbour through each side only depends on whether the row and
+ *           column are odd and whether they are on the edge of the grid, so every step is worked out once
+ *           into a flat table of index offsets and neighbor() is a single table lookup.
+ */
+
+import java.util.function.IntConsumer;
+
+public abstract class LatticeTopology extends Topology {
+    // bits of a row or column class
+    private static final int FIRST = 1;
+    private static final int LAST = 2;
+    private static final int ODD = 4;
+
+    // number of rows and columns in the grid
+    protected final int rows, columns;
+
+    // side of the neighbour that faces back through each side
+    private final int[] backSides;
+
+    // class of each row and of each column (see the bits above)
+    private final byte[] rowClasses, columnClasses;
+
+    // offset from a cell to its neighbour, indexed by ((rowClass << 3) | columnClass) * sides + side;
+    // 0 where there is no neighbour, since no cell is its own neighbour
+    private final int[] offsets;
+
+    // size of the area taken up by each column and row, used to find the cells inside a rectangle
+    private final double columnWidth, rowHeight;
+
+    /**
+     * Constructor for LatticeTopology class.
+     * @param rows Number of rows in the grid.
+     * @param columns Number of columns in the grid.
+     * @param backSides The side of the neighbour that faces back through each side; its length is the
+     *                  number of sides.
+     * @param columnWidth Horizontal distance between neighbouring columns.
+     * @param rowHeight Vertical distance between neighbouring rows.
+     */
+    protected LatticeTopology(int rows, int columns, int[] backSides, double columnWidth, double rowHeight) {
+        if (rows <= 0 || columns <= 0 || (long) rows * columns > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid maze dimensions: " + rows + " x " + columns);
+        }
+        this.rows = rows;
+        this.columns = columns;
+        this.backSides = backSides;
+        this.columnWidth = columnWidth;
+        this.rowHeight = rowHeight;
+        this.rowClasses = classes(rows);
+        this.columnClasses = classes(columns);
+
+        int sides = backSides.length;
+        offsets = new int[64 * sides];
+        for (int rowClass = 0; rowClass < 8; rowClass++) {
+            for (int columnClass = 0; columnClass < 8; columnClass++) {
+                boolean oddRow = (rowClass & ODD) != 0;
+                boolean oddColumn = (columnClass & ODD) != 0;
+                for (int side = 0; side < sides; side++) {
+                    int dr = rowStep(oddRow, oddColumn, side);
+                    int dc = columnStep(oddRow, oddColumn, side);
+                    boolean inside = !(dr < 0 && (rowClass & FIRST) != 0) && !(dr > 0 && (rowClass & LAST) != 0)
+                            && !(dc < 0 && (columnClass & FIRST) != 0) && !(dc > 0 && (columnClass & LAST) != 0);
+                    offsets[((rowClass << 3) | columnClass) * sides + side] = inside ? dr * columns + dc : 0;
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the number of rows to move through a side.
+     * @param oddRow Whether the cell is in an odd row.
+     * @param oddColumn Whether the cell is in an odd column.
+     * @param side The side.
+     * @return -1, 0 or 1.
+     */
+    protected abstract int rowStep(boolean oddRow, boolean oddColumn, int side);
+
+    /**
+     * Gets the number of columns to move through a side.
+     * @param oddRow Whether the cell is in an odd row.
+     * @param oddColumn Whether the cell is in an odd column.
+     * @param side The side.
+     * @return -1, 0 or 1.
+     */
+    protected abstract int columnStep(boolean oddRow, boolean oddColumn, int side);
+
+    @Override
+    public int getCellCount() { return rows * columns; }
+
+    @Override
+    public int getSides() { return backSides.length; }
+
+    @Override
+    public int neighbor(int cell, int side) {
+        int row = cell / columns;
+        int col = cell - row * columns;
+        int offset = offsets[((rowClasses[row] << 3) | columnClasses[col]) * backSides.length + side];
+        return offset == 0 ? -1 : cell + offset;
+    }
+
+    @Override
+    public int backSide(int cell, int side) { return backSides[side]; }
+
+    @Override
+    public int getRows() { return rows; }
+
+    @Override
+    public int getColumns() { return columns; }
+
+    @Override
+    public int index(int row, int column) { return row * columns + column; }
+
+    @Override
+    public int row(int cell) { return cell / columns; }
+
+    @Override
+    public int column(int cell) { return cell % columns; }
+
+    @Override
+    public void forEachCellIn(double x0, double y0, double x1, double y1, IntConsumer action) {
+        // one extra row and column on each side covers cells that are offset or overhang their column
+        int firstCol = Math.max(0, (int) Math.floor(x0 / columnWidth) - 1);
+        int lastCol = Math.min(columns - 1, (int) Math.floor(x1 / columnWidth) + 1);
+        int firstRow = Math.max(0, (int) Math.floor(y0 / rowHeight) - 1);
+        int lastRow = Math.min(rows - 1, (int) Math.floor(y1 / rowHeight) + 1);
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int col = firstCol; col <= lastCol; col++) {
+                action.accept(row * columns + col);
+            }
+        }
+    }
+
+    /**
+     * Works out the class of each row or column.
+     * @param count The number of rows or columns.
+     * @return The class of each one.
+     */
+    private static byte[] classes(int count) {
+        byte[] classes = new byte[count];
+        for (int i = 0; i < count; i++) {
+            int value = (i & 1) != 0 ? ODD : 0;
+            if (i == 0)
+                value |= FIRST;
+            if (i == count - 1)
+                value |= LAST;
+            classes[i] = (byte) value;
+        }
+        return classes;
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * File:     LayeredTopology.java
+ * Author:   Taylor Ecton
+ * Purpose:  Stacks several floors of another topology on top of each other, with passages up and down
+ *           between the same cell on neighbouring floors. Cells are numbered floor by floor, so the cells
+ *           (and the wall bytes in MazeGrid) of one floor are stored together and can be copied, saved or
+ *           drawn without touching the other floors. Moving within a floor uses the floor's own tables and
+ *           moving up or down is a single addition, so the third dimension adds no extra tables.
+ */
+
+import java.util.function.IntConsumer;
+
+public class LayeredTopology extends Topology {
+    // layout of a single floor
+    private final Topology floorTopology;
+
+    // number of floors, cells on each floor and sides of a cell within its floor
+    private final int floors, floorCells, floorSides;
+
+    /**
+     * Constructor for LayeredTopology class.
+     * @param floorTopology The layout of each floor; it can have at most 6 sides so that the up and down
+     *                      walls still fit in a byte.
+     * @param floors Number of floors.
+     */
+    public LayeredTopology(Topology floorTopology, int floors) {
+        if (floors <= 0 || (long) floors * floorTopology.getCellCount() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid number of floors: " + floors);
+        }
+        if (floorTopology.getSides() > 6) {
+            throw new IllegalArgumentException("Too many sides: " + floorTopology.getSides());
+        }
+        this.floorTopology = floorTopology;
+        this.floors = floors;
+        this.floorCells = floorTopology.getCellCount();
+        this.floorSides = floorTopology.getSides();
+    }
+
+    /**
+     * Gets the layout of a single floor. Cell i of floor f is cell f * getFloorCells() + i of the maze.
+     * @return The topology of one floor.
+     */
+    public Topology getFloorTopology() { return floorTopology; }
+
+    /**
+     * Gets the number of floors.
+     * @return The number of floors.
+     */
+    public int getFloors() { return floors; }
+
+    /**
+     * Gets the number of cells on each floor.
+     * @return The number of cells per floor.
+     */
+    public int getFloorCells() { return floorCells; }
+
+    /**
+     * Gets the floor a cell is on.
+     * @param cell The cell index.
+     * @return The floor, where 0 is the bottom floor.
+     */
+    public int floor(int cell) { return cell / floorCells; }
+
+    /**
+     * Gets the side leading to the floor above.
+     * @return The up side.
+     */
+    public int getUpSide() { return floorSides; }
+
+    /**
+     * Gets the side leading to the floor below.
+     * @return The down side.
+     */
+    public int getDownSide() { return floorSides + 1; }
+
+    @Override
+    public int getCellCount() { return floors * floorCells; }
+
+    @Override
+    public int getSides() { return floorSides + 2; }
+
+    @Override
+    public int neighbor(int cell, int side) {
+        if (side < floorSides) {
+            int first = cell - cell % floorCells;
+            int next = floorTopology.neighbor(cell - first, side);
+            return next < 0 ? -1 : first + next;
+        }
+        if (side == floorSides) {
+            return cell < (floors - 1) * floorCells ? cell + floorCells : -1;
+        }
+        return cell >= floorCells ? cell - floorCells : -1;
+    }
+
+    @Override
+    public int backSide(int cell, int side) {
+        if (side < floorSides) {
+            return floorTopology.backSide(cell % floorCells, side);
+        }
+        return side == floorSides ? floorSides + 1 : floorSides;
+    }
+
+    /**
+     * Gets the next side clockwise. The up and down sides come between the last side of the floor layout
+     * and side 0, so every side is still reached in a single cycle.
+     */
+    @Override
+    public int nextSideClockwise(int cell, int side) {
+        if (side == floorSides)
+            return floorSides + 1;
+        if (side == floorSides + 1)
+            return 0;
+        int next = floorTopology.nextSideClockwise(cell % floorCells, side);
+        return next == 0 ? floorSides : next;
+    }
+
+    @Override
+    public int nextSideCounterclockwise(int cell, int side) {
+        if (side == floorSides + 1)
+            return floorSides;
+        if (side == floorSides)
+            return floorTopology.nextSideCounterclockwise(cell % floorCells, 0);
+        return side == 0 ? floorSides + 1 : floorTopology.nextSideCounterclockwise(cell % floorCells, side);
+    }
+
+    @Override
+    public int getRows() { return floorTopology.getRows(); }
+
+    @Override
+    public int getColumns() { return floorTopology.getColumns(); }
+
+    /**
+     * Gets the index of the cell at a row and column of the bottom floor.
+     * @param row The row.
+     * @param column The column.
+     * @return The cell index.
+     */
+    @Override
+    public int index(int row, int column) { return floorTopology.index(row, column); }
+
+    @Override
+    public int row(int cell) { return floorTopology.row(cell % floorCells); }
+
+    @Override
+    public int column(int cell) { return floorTopology.column(cell % floorCells); }
+
+    @Override
+    public int getStartCell() { return floorTopology.getStartCell(); }
+
+    /**
+     * Gets the end cell of the floor layout on the top floor.
+     * @return The end cell index.
+     */
+    @Override
+    public int getEndCell() { return (floors - 1) * floorCells + floorTopology.getEndCell(); }
+
+    @Override
+    public double getWidth() { return floorTopology.getWidth(); }
+
+    @Override
+    public double getHeight() { return floorTopology.getHeight(); }
+
+    @Override
+    public void getCenter(int cell, double[] xy) { floorTopology.getCenter(cell % floorCells, xy); }
+
+    @Override
+    public int getOutline(int cell, double[] xs, double[] ys) {
+        return floorTopology.getOutline(cell % floorCells, xs, ys);
+    }
+
+    /**
+     * Gets the line segment a side of a cell is drawn along. The up and down sides aren't drawn as lines.
+     * @param cell The cell index.
+     * @param side The side.
+     * @param segment Array the coordinates x1, y1, x2, y2 are stored in.
+     * @return False for the up and down sides or a side the cell doesn't have.
+     */
+    @Override
+    public boolean getSide(int cell, int side, double[] segment) {
+        return side < floorSides && floorTopology.getSide(cell % floorCells, side, segment);
+    }
+
+    /**
+     * Calls an action for the cells on every floor that might overlap a rectangle.
+     */
+    @Override
+    public void forEachCellIn(double x0, double y0, double x1, double y1, final IntConsumer action) {
+        for (int floor = 0; floor < floors; floor++) {
+            final int first = floor * floorCells;
+            floorTopology.forEachCellIn(x0, y0, x1, y1, cell -> action.accept(first + cell));
+        }
+    }
+
+    /**
+     * Gets a lower bound on the number of steps between two cells: the steps within a floor plus one step
+     * for every floor between them.
+     * @param from The first cell.
+     * @param to The second cell.
+     * @return A number of steps that is never more than the real number.
+     */
+    @Override
+    public int distanceEstimate(int from, int to) {
+        return floorTopology.distanceEstimate(from % floorCells, to % floorCells)
+                + Math.abs(from / floorCells - to / floorCells);
+    }
+}
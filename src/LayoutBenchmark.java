@@ -0,0 +1,156 @@
+/*
+ * File:     LayoutBenchmark.java
+ * Author:   Taylor Ecton
+ * Purpose:  Times the depth first and Kruskal generators and the solvers on a square maze stored row by row and on the
+ *           same size of maze stored in Z-order tiles (see MortonTopology). Run it without a display:
+ *
+ *               java -Djava.awt.headless=true LayoutBenchmark [rows] [columns] [repetitions]
+ *
+ *           Each step is repeated and the fastest time is reported, since the first runs include JIT
+ *           compilation. The solvers are timed on the same maze copied into both layouts, so they do
+ *           exactly the same work. The layout only matters once the maze is larger than the CPU caches.
+ *           Every generated maze is checked to be a perfect maze before it is used.
+ */
+
+import java.util.Arrays;
+
+public class LayoutBenchmark {
+    // names of the timed steps, in the order they are run
+    private static final String[] STEPS = { "Kruskal generation", "DFS generation", "Depth-first solve",
+                                            "Breadth-first solve", "A* solve", "Parallel BFS solve" };
+
+    // generators timed by the first steps; the solvers run on the maze made by the last one
+    private static final String[] GENERATORS = { ControlPanel.KRUSKAL_GENERATOR, ControlPanel.DFS_GENERATOR };
+
+    /**
+     * This class only has static functions, so it is never instantiated.
+     */
+    private LayoutBenchmark() {
+    }
+
+    /**
+     * Runs the benchmark and prints the fastest time of each step for each layout.
+     * @param args Optional number of rows, number of columns and number of repetitions.
+     */
+    public static void main(String[] args) {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int columns = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        int repetitions = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        MazePanel rowMajorPanel = createPanel(rows, columns, false);
+        MazePanel zOrderPanel = createPanel(rows, columns, true);
+        long[] rowMajor = new long[STEPS.length];
+        long[] zOrder = new long[STEPS.length];
+        Arrays.fill(rowMajor, Long.MAX_VALUE);
+        Arrays.fill(zOrder, Long.MAX_VALUE);
+
+        // alternate the layouts so that both are warmed up and measured under the same conditions
+        for (int r = 0; r < repetitions; r++) {
+            for (int i = 0; i < GENERATORS.length; i++) {
+                rowMajorPanel.setGenerator(GENERATORS[i]);
+                zOrderPanel.setGenerator(GENERATORS[i]);
+                rowMajor[i] = Math.min(rowMajor[i], timeGeneration(rowMajorPanel));
+                zOrder[i] = Math.min(zOrder[i], timeGeneration(zOrderPanel));
+                check(rowMajorPanel);
+                check(zOrderPanel);
+            }
+
+            // the solvers run on the same maze in both layouts so they do exactly the same work
+            MazeGrid rowMajorGrid = copy(rowMajorPanel.getGrid(), new SquareTopology(rows, columns));
+            MazeGrid zOrderGrid = copy(rowMajorPanel.getGrid(), new MortonTopology(rows, columns));
+            for (int i = GENERATORS.length; i < STEPS.length; i++) {
+                rowMajor[i] = Math.min(rowMajor[i], timeSolver(rowMajorGrid, i));
+                zOrder[i] = Math.min(zOrder[i], timeSolver(zOrderGrid, i));
+            }
+        }
+
+        System.out.println("Maze of " + rows + " x " + columns + " cells, fastest of " + repetitions + " runs");
+        System.out.println(String.format("%-22s %12s %12s %8s", "", "row-major", "Z-order", "speedup"));
+        for (int i = 0; i < STEPS.length; i++) {
+            System.out.println(String.format("%-22s %10.1fms %10.1fms %7.2fx", STEPS[i], rowMajor[i] / 1e6,
+                                             zOrder[i] / 1e6, rowMajor[i] / (double) zOrder[i]));
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Creates a panel for generating mazes with one layout.
+     * @param rows Number of rows.
+     * @param columns Number of columns.
+     * @param zOrderLayout True to use the Z-order layout.
+     * @return The panel.
+     */
+    private static MazePanel createPanel(int rows, int columns, boolean zOrderLayout) {
+        MazePanel panel = new MazePanel();
+        panel.setRows(rows);
+        panel.setColumns(columns);
+        panel.setZOrderLayout(zOrderLayout);
+        return panel;
+    }
+
+    /**
+     * Generates a new maze on a panel.
+     * @param panel The panel to generate the maze on.
+     * @return The time taken in nanoseconds.
+     */
+    private static long timeGeneration(MazePanel panel) {
+        panel.clear();
+        panel.newMazeInit();
+        long start = System.nanoTime();
+        panel.generate();
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Stops the benchmark if a generated maze isn't a perfect maze, since the timings would be meaningless.
+     * @param panel The panel with the generated maze.
+     */
+    private static void check(MazePanel panel) {
+        MazeStatistics statistics = panel.computeStatistics();
+        if (!statistics.isPerfect()) {
+            System.err.println("Generated maze isn't perfect:\n" + statistics);
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Copies the walls of a square maze into a new maze with a different layout of the same size.
+     * @param source The maze to copy.
+     * @param topology The layout of the copy.
+     * @return The copy.
+     */
+    private static MazeGrid copy(MazeGrid source, Topology topology) {
+        byte[] walls = new byte[source.getCellCount()];
+        for (int cell = 0; cell < walls.length; cell++) {
+            walls[topology.index(source.row(cell), source.column(cell))] = (byte) source.getWalls(cell);
+        }
+        MazeGrid grid = new MazeGrid(topology);
+        grid.loadWalls(0, walls, 0, walls.length);
+        return grid;
+    }
+
+    /**
+     * Solves a maze from its start cell to its end cell with one of the solvers.
+     * @param grid The maze to solve.
+     * @param step Index in STEPS of the solver to use.
+     * @return The time taken in nanoseconds.
+     */
+    private static long timeSolver(MazeGrid grid, int step) {
+        int start = grid.getTopology().getStartCell();
+        int end = grid.getTopology().getEndCell();
+        grid.fillStates(MazeCell.UNVISITED);
+
+        long begin = System.nanoTime();
+        if (step == STEPS.length - 1) {
+            new ParallelBfsSolver().solve(grid, start, end);
+        } else {
+            MazeSolver solver = step == GENERATORS.length ? new DepthFirstSolver()
+                    : step == GENERATORS.length + 1 ? new BreadthFirstSolver() : new AStarSolver();
+            solver.init(grid, start, end);
+            while (!solver.isFinished()) {
+                solver.step();
+            }
+        }
+        return System.nanoTime() - begin;
+    }
+}
@@ -0,0 +1,388 @@
+/*
+ * File:     LoadTest.java
+ * Author:   Taylor Ecton
+ * Purpose:  Drives the headless generate and solve path that MazeServer uses from many threads at once and
+ *           measures how long each operation takes under that load. Run it without a display:
+ *
+ *               java -Djava.awt.headless=true LoadTest [workers] [seconds] [report file]
+ *
+ *           Each worker keeps picking a random operation: generating a maze of a random shape, size and
+ *           generator, or solving one of a set of mazes that all the workers share with a random solver.
+ *           Small mazes are picked most often and large ones least. Latencies go into a LatencyHistogram
+ *           for each kind of operation, and the report gives their percentiles along with the throughput
+ *           and the time spent in garbage collection. Workers start the next operation as soon as the last
+ *           one finishes, so the latencies are those of a fully loaded JVM rather than of a given request
+ *           rate.
+ *
+ *           Every maze is made and solved once on a single thread before the workers start, and every
+ *           result the workers get is checked against it. Any difference means some state was shared
+ *           between threads that shouldn't have been, and the test fails.
+ */
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class LoadTest {
+    // names, rows and columns of the sizes of maze; polar mazes use half the rows as rings so they have
+    // roughly as many cells as the others
+    private static final String[] SIZES = { "small", "medium", "large" };
+    private static final int[] SIZE_ROWS = { 40, 200, 600 };
+    private static final int[] SIZE_COLUMNS = { 40, 200, 600 };
+
+    // how often each size is picked, out of 100
+    private static final int[] SIZE_PERCENT = { 70, 25, 5 };
+
+    private static final String[] SHAPES = { ControlPanel.SQUARE_SHAPE, ControlPanel.HEX_SHAPE,
+                                             ControlPanel.TRIANGLE_SHAPE, ControlPanel.POLAR_SHAPE };
+    private static final String[] GENERATORS = { ControlPanel.DFS_GENERATOR, ControlPanel.KRUSKAL_GENERATOR };
+    private static final String[] SOLVERS = { ControlPanel.DFS_SOLVER, ControlPanel.BFS_SOLVER,
+                                              ControlPanel.DIJKSTRA_SOLVER, ControlPanel.ASTAR_SOLVER,
+                                              ControlPanel.PARALLEL_BFS_SOLVER, ControlPanel.LEFT_WALL_SOLVER,
+                                              ControlPanel.RIGHT_WALL_SOLVER, ControlPanel.TREMAUX_SOLVER };
+
+    // number of different seeds used for each shape, size and generator
+    private static final int SEEDS = 2;
+
+    /**
+     * A maze the workers make and solve, with the results of making and solving it on a single thread.
+     */
+    private static class Scenario {
+        final MazeServer.MazeRequest request;
+
+        // the maze made on a single thread, which the workers share for solving
+        MazeSnapshot maze;
+
+        // checksums of the walls of the maze and of the path each solver found, and the cells each reached
+        long wallsChecksum;
+        final long[] pathChecksums = new long[SOLVERS.length];
+        final int[] cellsVisited = new int[SOLVERS.length];
+
+        Scenario(MazeServer.MazeRequest request) {
+            this.request = request;
+        }
+    }
+
+    /**
+     * The latencies and failures seen by one worker, kept apart from the others until the workers finish.
+     */
+    private static class WorkerResults {
+        // latencies in nanoseconds by kind of operation
+        final TreeMap<String, LatencyHistogram> latencies = new TreeMap<>();
+
+        // number of results that didn't match the single threaded run, and the first of them
+        long failures;
+        String firstFailure;
+    }
+
+    /**
+     * This class only has static functions, so it is never instantiated.
+     */
+    private LoadTest() {
+    }
+
+    /**
+     * Runs the load test, prints the report and writes it to a file.
+     * @param args Optional number of workers, number of seconds to run for and report file name.
+     * @throws IOException If the report can't be written.
+     * @throws InterruptedException If interrupted while waiting for the workers.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int workers = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+        String reportFile = args.length > 2 ? args[2] : "loadtest-report.txt";
+
+        System.out.println("Making and solving every maze on one thread...");
+        final List<List<Scenario>> scenarios = createScenarios();
+        for (List<Scenario> ofSize : scenarios) {
+            for (Scenario scenario : ofSize) {
+                runReference(scenario);
+            }
+        }
+
+        System.out.println("Running " + workers + " workers for " + seconds + " s...");
+        final WorkerResults[] results = new WorkerResults[workers];
+        final CountDownLatch ready = new CountDownLatch(workers);
+        final CountDownLatch go = new CountDownLatch(1);
+        final AtomicLong deadline = new AtomicLong();
+        Thread[] threads = new Thread[workers];
+        for (int i = 0; i < workers; i++) {
+            final int worker = i;
+            results[i] = new WorkerResults();
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    ready.countDown();
+                    try {
+                        go.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    runWorker(scenarios, results[worker], new Random(worker), deadline.get());
+                }
+            }, "LoadTest worker " + i);
+            threads[i].start();
+        }
+
+        ready.await();
+        long[] gcBefore = readGarbageCollection();
+        long begin = System.nanoTime();
+        deadline.set(begin + seconds * 1000000000L);
+        go.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long elapsed = System.nanoTime() - begin;
+        long[] gcAfter = readGarbageCollection();
+
+        String report = writeReport(workers, elapsed, results, gcBefore, gcAfter);
+        System.out.print(report);
+        try (PrintWriter out = new PrintWriter(new FileWriter(reportFile))) {
+            out.print(report);
+        }
+        System.out.println("Report written to " + reportFile);
+
+        long failures = 0;
+        for (WorkerResults result : results) {
+            failures += result.failures;
+        }
+        System.exit(failures == 0 ? 0 : 1);
+    }
+
+    /**
+     * Lists every maze the workers can ask for, by size.
+     * @return The mazes of each size in SIZES.
+     */
+    private static List<List<Scenario>> createScenarios() {
+        List<List<Scenario>> scenarios = new ArrayList<>();
+        for (int size = 0; size < SIZES.length; size++) {
+            List<Scenario> ofSize = new ArrayList<>();
+            for (String shape : SHAPES) {
+                for (String generator : GENERATORS) {
+                    for (int seed = 1; seed <= SEEDS; seed++) {
+                        MazeServer.MazeRequest request = new MazeServer.MazeRequest();
+                        request.shape = shape;
+                        request.generator = generator;
+                        request.rows = shape.equals(ControlPanel.POLAR_SHAPE) ? SIZE_ROWS[size] / 2
+                                                                               : SIZE_ROWS[size];
+                        request.columns = SIZE_COLUMNS[size];
+                        request.seed = seed;
+                        ofSize.add(new Scenario(request));
+                    }
+                }
+            }
+            scenarios.add(ofSize);
+        }
+        return scenarios;
+    }
+
+    /**
+     * Makes and solves a maze on the current thread, keeping the results for the workers to match.
+     * @param scenario The maze.
+     */
+    private static void runReference(Scenario scenario) {
+        scenario.maze = MazeServer.generateMaze(scenario.request);
+        Topology topology = scenario.maze.getTopology();
+        MazeStatistics statistics = MazeStatistics.compute(scenario.maze.createGrid(), topology.getStartCell(),
+                                                           topology.getEndCell());
+        if (!statistics.isPerfect()) {
+            System.err.println("Generated maze isn't perfect:\n" + statistics);
+            System.exit(1);
+        }
+        scenario.wallsChecksum = wallsChecksum(scenario.maze);
+        for (int i = 0; i < SOLVERS.length; i++) {
+            MazeServer.Solution solution = MazeServer.solveMaze(scenario.maze, SOLVERS[i]);
+            scenario.pathChecksums[i] = pathChecksum(solution.path);
+            scenario.cellsVisited[i] = solution.cellsVisited;
+        }
+    }
+
+    /**
+     * Runs random operations until the deadline, timing each and checking its result.
+     * @param scenarios The mazes of each size.
+     * @param results Where the worker's latencies and failures are kept.
+     * @param random Random number generator for picking operations.
+     * @param deadline The time to stop at, from System.nanoTime().
+     */
+    private static void runWorker(List<List<Scenario>> scenarios, WorkerResults results, Random random,
+                                  long deadline) {
+        while (System.nanoTime() < deadline) {
+            int size = pickSize(random);
+            List<Scenario> ofSize = scenarios.get(size);
+            Scenario scenario = ofSize.get(random.nextInt(ofSize.size()));
+            String failure = null;
+            String operation;
+            long begin = System.nanoTime();
+            try {
+                if (random.nextBoolean()) {
+                    operation = "generate " + SIZES[size];
+                    MazeSnapshot maze = MazeServer.generateMaze(scenario.request);
+                    if (wallsChecksum(maze) != scenario.wallsChecksum)
+                        failure = "different walls";
+                } else {
+                    int solver = random.nextInt(SOLVERS.length);
+                    operation = "solve " + SOLVERS[solver];
+                    MazeServer.Solution solution = MazeServer.solveMaze(scenario.maze, SOLVERS[solver]);
+                    // the parallel solver may reach a few more or fewer cells depending on how its
+                    // threads interleave, but its path is always the same
+                    if (pathChecksum(solution.path) != scenario.pathChecksums[solver]
+                            || (!SOLVERS[solver].equals(ControlPanel.PARALLEL_BFS_SOLVER)
+                                && solution.cellsVisited != scenario.cellsVisited[solver]))
+                        failure = "different path";
+                }
+            } catch (RuntimeException e) {
+                operation = "failed";
+                failure = e.toString();
+            }
+            long latency = System.nanoTime() - begin;
+
+            LatencyHistogram histogram = results.latencies.get(operation);
+            if (histogram == null) {
+                histogram = new LatencyHistogram();
+                results.latencies.put(operation, histogram);
+            }
+            histogram.record(latency);
+            if (failure != null) {
+                if (results.failures++ == 0) {
+                    results.firstFailure = failure + " from " + scenario.request.key();
+                }
+            }
+        }
+    }
+
+    /**
+     * Picks a size of maze, small ones most often.
+     * @param random Random number generator.
+     * @return The index of the size in SIZES.
+     */
+    private static int pickSize(Random random) {
+        int percent = random.nextInt(100);
+        int size = 0;
+        while (percent >= SIZE_PERCENT[size]) {
+            percent -= SIZE_PERCENT[size];
+            size++;
+        }
+        return size;
+    }
+
+    /**
+     * Reads how many times each garbage collector has run and for how long.
+     * @return The number of collections followed by the milliseconds spent, for each collector.
+     */
+    private static long[] readGarbageCollection() {
+        List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+        long[] totals = new long[collectors.size() * 2];
+        for (int i = 0; i < collectors.size(); i++) {
+            totals[2 * i] = Math.max(0, collectors.get(i).getCollectionCount());
+            totals[2 * i + 1] = Math.max(0, collectors.get(i).getCollectionTime());
+        }
+        return totals;
+    }
+
+    /**
+     * Writes the report of a run.
+     * @param workers The number of workers.
+     * @param elapsed The time the workers ran for, in nanoseconds.
+     * @param results The results of each worker.
+     * @param gcBefore The garbage collection totals before the workers started.
+     * @param gcAfter The garbage collection totals after they finished.
+     * @return The report.
+     */
+    private static String writeReport(int workers, long elapsed, WorkerResults[] results, long[] gcBefore,
+                                      long[] gcAfter) {
+        TreeMap<String, LatencyHistogram> latencies = new TreeMap<>();
+        LatencyHistogram all = new LatencyHistogram();
+        long failures = 0;
+        String firstFailure = null;
+        for (WorkerResults result : results) {
+            for (String operation : result.latencies.keySet()) {
+                LatencyHistogram histogram = latencies.get(operation);
+                if (histogram == null) {
+                    histogram = new LatencyHistogram();
+                    latencies.put(operation, histogram);
+                }
+                histogram.add(result.latencies.get(operation));
+                all.add(result.latencies.get(operation));
+            }
+            failures += result.failures;
+            if (firstFailure == null)
+                firstFailure = result.firstFailure;
+        }
+
+        double seconds = elapsed / 1e9;
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("%d workers for %.1f s on %d processors: %d operations, %.1f per second%n",
+                                    workers, seconds, Runtime.getRuntime().availableProcessors(),
+                                    all.getCount(), all.getCount() / seconds));
+        report.append(String.format("Results that differ from the single threaded run: %d%s%n", failures,
+                                    firstFailure != null ? " (first: " + firstFailure + ")" : ""));
+
+        List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+        for (int i = 0; i < collectors.size(); i++) {
+            long milliseconds = gcAfter[2 * i + 1] - gcBefore[2 * i + 1];
+            report.append(String.format("%s: %d collections, %d ms (%.2f%% of the run)%n",
+                                        collectors.get(i).getName(), gcAfter[2 * i] - gcBefore[2 * i],
+                                        milliseconds, milliseconds / 10.0 / seconds));
+        }
+
+        report.append(String.format("%n%-32s %8s %8s %10s %10s %10s %10s %10s%n", "latency (ms)", "count",
+                                    "per s", "mean", "p50", "p99", "p99.9", "max"));
+        for (String operation : latencies.keySet()) {
+            appendLatencies(report, operation, latencies.get(operation), seconds);
+        }
+        appendLatencies(report, "all", all, seconds);
+        return report.toString();
+    }
+
+    /**
+     * Adds a line of latencies to the report.
+     * @param report The report.
+     * @param name The kind of operation.
+     * @param histogram Its latencies in nanoseconds.
+     * @param seconds The length of the run in seconds.
+     */
+    private static void appendLatencies(StringBuilder report, String name, LatencyHistogram histogram,
+                                        double seconds) {
+        report.append(String.format("%-32s %8d %8.1f %10.3f %10.3f %10.3f %10.3f %10.3f%n", name,
+                                    histogram.getCount(), histogram.getCount() / seconds, histogram.getMean() / 1e6,
+                                    histogram.getValueAtPercentile(50) / 1e6,
+                                    histogram.getValueAtPercentile(99) / 1e6,
+                                    histogram.getValueAtPercentile(99.9) / 1e6, histogram.getMax() / 1e6));
+    }
+
+    /**
+     * Finds a checksum of the walls of a maze.
+     * @param maze The maze.
+     * @return The checksum.
+     */
+    private static long wallsChecksum(MazeSnapshot maze) {
+        byte[] walls = new byte[maze.getCellCount()];
+        maze.copyWalls(0, walls, 0, walls.length);
+        long checksum = 0;
+        for (byte wall : walls) {
+            checksum = checksum * 31 + wall;
+        }
+        return checksum;
+    }
+
+    /**
+     * Finds a checksum of a path.
+     * @param path The cells along the path.
+     * @return The checksum.
+     */
+    private static long pathChecksum(int[] path) {
+        long checksum = path.length;
+        for (int cell : path) {
+            checksum = checksum * 31 + cell;
+        }
+        return checksum;
+    }
+}
@@ -0,0 +1,348 @@
+/*
+ * File:     LodPyramid.java
+ * Author:   Taylor Ecton
+ * Purpose:  Mipmapped images of a maze used when the view is zoomed out too far to draw single cells.
+ *           Level 0 has one pixel per cell and each following level halves the width and height by
+ *           averaging 2x2 blocks of the level below. Changed cells are queued and patched into the
+ *           levels the next time an image is requested, rebuilding everything only after large changes.
+ *           Grids that aren't square have no pixel per cell, so their level 0 covers the grid at a few
+ *           pixels per model unit instead, each pixel taking the color of the cell its center falls in and
+ *           the pixels outside every cell the color around the maze. The pyramid covers one layout of
+ *           cells, which is one floor of a layered maze, and is built from the GridFrame being painted
+ *           rather than from the maze an algorithm is changing.
+ */
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+
+public class LodPyramid implements GridListener {
+    // the layout of the cells shown and the index in the maze of the first one
+    private final Topology topology;
+    private final int firstCell;
+
+    // wall bits of the sides within the layout, and the number of sides
+    private final int wallMask, sides;
+
+    // pixels per model unit on level 0: 1 for square grids, where a pixel is a cell, and enough for about
+    // two pixels per cell otherwise
+    private final int unitPixels;
+
+    // for grids that aren't square, the cell in the layout covering each pixel of level 0, or -1 outside
+    private int[] pixelCells;
+
+    // scratch space for the corners of a cell and the first and last column and row of pixels it spans
+    private final double[] xs = new double[8];
+    private final double[] ys = new double[8];
+    private final int[] span = new int[4];
+
+    // a color for each state of a cell
+    private final Color[] palette;
+
+    // one image per level along with its pixel data
+    private final BufferedImage[] levels;
+    private final int[][] pixels;
+
+    // cells changed since the levels were last brought up to date
+    private final int[] dirtyCells;
+    private int dirtyCount;
+
+    // true when so much changed that rebuilding every level is cheaper than patching
+    private boolean rebuild = true;
+
+    /**
+     * Constructor for LodPyramid class. The images are filled in the first time one is requested.
+     * @param topology The square layout of the cells to show: the maze's topology, or one floor of it.
+     * @param firstCell Index in the maze of the topology's first cell.
+     * @param palette A color for each state of a cell, indexed by state.
+     */
+    public LodPyramid(Topology topology, int firstCell, Color[] palette) {
+        this.topology = topology;
+        this.firstCell = firstCell;
+        this.palette = palette;
+        this.sides = topology.getSides();
+        this.wallMask = (1 << sides) - 1;
+        this.unitPixels = topology.isRectangular() ? 1 : Math.max(1, (int) Math.ceil(
+                Math.sqrt(2.0 * topology.getCellCount() / (topology.getWidth() * topology.getHeight()))));
+        int width = topology.isRectangular()
+                ? topology.getColumns() : Math.max(1, (int) Math.ceil(topology.getWidth() * unitPixels));
+        int height = topology.isRectangular()
+                ? topology.getRows() : Math.max(1, (int) Math.ceil(topology.getHeight() * unitPixels));
+
+        // count the levels needed to shrink the maze down to a single pixel
+        int count = 1;
+        for (int w = width, h = height; w > 1 || h > 1; w = (w + 1) / 2, h = (h + 1) / 2) {
+            count++;
+        }
+
+        levels = new BufferedImage[count];
+        pixels = new int[count][];
+        int w = width;
+        int h = height;
+        for (int level = 0; level < count; level++) {
+            levels[level] = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+            pixels[level] = ((DataBufferInt) levels[level].getRaster().getDataBuffer()).getData();
+            w = (w + 1) / 2;
+            h = (h + 1) / 2;
+        }
+
+        dirtyCells = new int[Math.max(64, topology.getCellCount() / 16)];
+        if (!topology.isRectangular()) {
+            mapCells();
+        }
+    }
+
+    /**
+     * Finds the cell covering each pixel of level 0 of a grid that isn't square. A cell that is left without
+     * a pixel, because it holds no pixel's center, afterwards takes the pixel its own center is in.
+     */
+    private void mapCells() {
+        pixelCells = new int[pixels[0].length];
+        Arrays.fill(pixelCells, -1);
+        int width = levels[0].getWidth();
+        for (int cell = 0; cell < topology.getCellCount(); cell++) {
+            int corners = findSpan(cell);
+            for (int y = span[1]; y <= span[3]; y++) {
+                for (int x = span[0]; x <= span[2]; x++) {
+                    if (contains(corners, (x + 0.5) / unitPixels, (y + 0.5) / unitPixels)) {
+                        pixelCells[y * width + x] = cell;
+                    }
+                }
+            }
+        }
+
+        boolean[] covered = new boolean[topology.getCellCount()];
+        for (int cell : pixelCells) {
+            if (cell >= 0) {
+                covered[cell] = true;
+            }
+        }
+        double[] center = new double[2];
+        for (int cell = 0; cell < covered.length; cell++) {
+            if (!covered[cell]) {
+                topology.getCenter(cell, center);
+                int x = Math.min(width - 1, Math.max(0, (int) (center[0] * unitPixels)));
+                int y = Math.min(levels[0].getHeight() - 1, Math.max(0, (int) (center[1] * unitPixels)));
+                pixelCells[y * width + x] = cell;
+            }
+        }
+    }
+
+    /**
+     * Reads the outline of a cell into xs and ys and finds the pixels of level 0 it might cover.
+     * @param cell The cell index within the layout.
+     * @return The number of corners of the outline; the first and last column and row of the pixels are
+     *         stored in span.
+     */
+    private int findSpan(int cell) {
+        int corners = topology.getOutline(cell, xs, ys);
+        double left = xs[0], top = ys[0], right = xs[0], bottom = ys[0];
+        for (int i = 1; i < corners; i++) {
+            left = Math.min(left, xs[i]);
+            top = Math.min(top, ys[i]);
+            right = Math.max(right, xs[i]);
+            bottom = Math.max(bottom, ys[i]);
+        }
+        span[0] = Math.max(0, (int) Math.floor(left * unitPixels));
+        span[1] = Math.max(0, (int) Math.floor(top * unitPixels));
+        span[2] = Math.min(levels[0].getWidth() - 1, (int) Math.ceil(right * unitPixels));
+        span[3] = Math.min(levels[0].getHeight() - 1, (int) Math.ceil(bottom * unitPixels));
+        return corners;
+    }
+
+    /**
+     * Tells whether a point is inside the outline last read into xs and ys.
+     * @param corners The number of corners of the outline.
+     * @param x Horizontal position of the point in model units.
+     * @param y Vertical position of the point in model units.
+     * @return True if the point is inside.
+     */
+    private boolean contains(int corners, double x, double y) {
+        boolean inside = false;
+        for (int i = 0, j = corners - 1; i < corners; j = i++) {
+            if ((ys[i] > y) != (ys[j] > y) && x < xs[j] + (y - ys[j]) * (xs[i] - xs[j]) / (ys[i] - ys[j])) {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+
+    /**
+     * Gets the number of levels in the pyramid.
+     * @return The number of levels.
+     */
+    public int getLevelCount() { return levels.length; }
+
+    /**
+     * Gets the number of pixels of level 0 across one model unit.
+     * @return 1 for a square grid, where a pixel is a cell, and more for other shapes.
+     */
+    public int getUnitPixels() { return unitPixels; }
+
+    /**
+     * Gets an up to date image of the maze where each pixel covers 2^level x 2^level pixels of level 0.
+     * @param level The level to get.
+     * @param state The published maze to bring the levels up to date with.
+     * @return The image for that level.
+     */
+    public BufferedImage getLevel(int level, GridFrame state) {
+        update(state);
+        return levels[level];
+    }
+
+    /**
+     * Queues a changed cell to be patched into the levels.
+     * @param cell The cell that changed.
+     */
+    @Override
+    public void cellChanged(int cell) {
+        // ignore cells on other floors
+        cell -= firstCell;
+        if (rebuild || cell < 0 || cell >= topology.getCellCount())
+            return;
+
+        if (dirtyCount == dirtyCells.length) {
+            rebuild = true;
+        } else {
+            dirtyCells[dirtyCount++] = cell;
+        }
+    }
+
+    /**
+     * Marks every level for rebuilding.
+     */
+    @Override
+    public void gridChanged() {
+        rebuild = true;
+    }
+
+    /**
+     * Brings every level up to date with the maze.
+     * @param state The published maze.
+     */
+    private void update(GridFrame state) {
+        if (rebuild && pixelCells != null) {
+            int[] base = pixels[0];
+            int outside = MazeCell.OUTSIDE.getRGB() & 0xFFFFFF;
+            for (int pixel = 0; pixel < base.length; pixel++) {
+                base[pixel] = pixelCells[pixel] < 0 ? outside : basePixel(state, pixelCells[pixel]);
+            }
+        } else if (rebuild) {
+            int columns = topology.getColumns();
+            int[] base = pixels[0];
+            for (int row = 0; row < topology.getRows(); row++) {
+                for (int col = 0; col < columns; col++) {
+                    base[row * columns + col] = basePixel(state, topology.index(row, col));
+                }
+            }
+        }
+        if (rebuild) {
+            for (int level = 1; level < levels.length; level++) {
+                for (int y = 0; y < levels[level].getHeight(); y++) {
+                    for (int x = 0; x < levels[level].getWidth(); x++) {
+                        downsample(level, x, y);
+                    }
+                }
+            }
+            rebuild = false;
+        } else {
+            // patch each changed cell and the single pixel above it on every level
+            for (int i = 0; i < dirtyCount; i++) {
+                int cell = dirtyCells[i];
+                if (pixelCells != null) {
+                    patchShape(cell, basePixel(state, cell));
+                    continue;
+                }
+                int x = topology.column(cell);
+                int y = topology.row(cell);
+                pixels[0][y * topology.getColumns() + x] = basePixel(state, cell);
+                for (int level = 1; level < levels.length; level++) {
+                    x >>= 1;
+                    y >>= 1;
+                    downsample(level, x, y);
+                }
+            }
+        }
+        dirtyCount = 0;
+    }
+
+    /**
+     * Recolors the pixels of level 0 a cell of a grid that isn't square covers, and the pixels above them
+     * on every level.
+     * @param cell The cell index within the layout.
+     * @param rgb The RGB value of the cell's pixels.
+     */
+    private void patchShape(int cell, int rgb) {
+        findSpan(cell);
+        int width = levels[0].getWidth();
+        int x0 = span[0], y0 = span[1], x1 = span[2], y1 = span[3];
+        for (int y = y0; y <= y1; y++) {
+            for (int x = x0; x <= x1; x++) {
+                if (pixelCells[y * width + x] == cell) {
+                    pixels[0][y * width + x] = rgb;
+                }
+            }
+        }
+        for (int level = 1; level < levels.length; level++) {
+            x0 >>= 1;
+            y0 >>= 1;
+            x1 >>= 1;
+            y1 >>= 1;
+            for (int y = y0; y <= y1; y++) {
+                for (int x = x0; x <= x1; x++) {
+                    downsample(level, x, y);
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the color of a cell at one pixel per cell: the cell's color blended with the wall color by how
+     * many walls it has. Each wall is shared with a neighbour, so walls on every side count as half wall
+     * color.
+     * @param state The published maze.
+     * @param cell The cell index within the layout.
+     * @return The RGB value of the pixel.
+     */
+    private int basePixel(GridFrame state, int cell) {
+        cell += firstCell;
+        int rgb = MazeCell.displayColor(palette, state.getState(cell), state.getWeight(cell)).getRGB();
+        int wallRgb = MazeCell.WALL.getRGB();
+        int weight = Integer.bitCount(state.getWalls(cell) & wallMask);
+
+        int whole = 2 * sides;
+        int r = (((rgb >> 16) & 0xFF) * (whole - weight) + ((wallRgb >> 16) & 0xFF) * weight) / whole;
+        int g = (((rgb >> 8) & 0xFF) * (whole - weight) + ((wallRgb >> 8) & 0xFF) * weight) / whole;
+        int b = ((rgb & 0xFF) * (whole - weight) + (wallRgb & 0xFF) * weight) / whole;
+        return (r << 16) | (g << 8) | b;
+    }
+
+    /**
+     * Recomputes a pixel as the average of the (up to four) pixels beneath it.
+     * @param level The level of the pixel.
+     * @param x Column of the pixel.
+     * @param y Row of the pixel.
+     */
+    private void downsample(int level, int x, int y) {
+        int[] below = pixels[level - 1];
+        int belowWidth = levels[level - 1].getWidth();
+        int belowHeight = levels[level - 1].getHeight();
+
+        int r = 0, g = 0, b = 0, count = 0;
+        for (int dy = 0; dy < 2; dy++) {
+            for (int dx = 0; dx < 2; dx++) {
+                int bx = 2 * x + dx;
+                int by = 2 * y + dy;
+                if (bx < belowWidth && by < belowHeight) {
+                    int rgb = below[by * belowWidth + bx];
+                    r += (rgb >> 16) & 0xFF;
+                    g += (rgb >> 8) & 0xFF;
+                    b += rgb & 0xFF;
+                    count++;
+                }
+            }
+        }
+        pixels[level][y * levels[level].getWidth() + x] = ((r / count) << 16) | ((g / count) << 8) | (b / count);
+    }
+}
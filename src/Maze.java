@@ -8,6 +8,7 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
+import java.lang.management.ManagementFactory;
 
 public class Maze extends JFrame {
 
@@ -15,12 +16,33 @@ public class Maze extends JFrame {
      * Constructor for Maze class.
      */
     public Maze() {
+        this(false);
+    }
+
+    /**
+     * Constructor for Maze class that can time how long the program takes to start.
+     * @param timeStartup True to print the time from the start of the JVM to the first painted frame, then
+     *                    exit.
+     */
+    public Maze(boolean timeStartup) {
         super("Maze Game");
 
         Container container = getContentPane();
 
-        // initialize all the components
-        MazePanel mazePanel = new MazePanel();
+        // initialize all the components; the maze is drawn straight from its grid, so there is no component
+        // for each cell and the window is ready as soon as the panels are
+        MazePanel mazePanel = timeStartup ? new MazePanel() {
+            private boolean painted;
+
+            @Override
+            public void paint(Graphics g) {
+                super.paint(g);
+                if (!painted) {
+                    painted = true;
+                    reportFirstFrame();
+                }
+            }
+        } : new MazePanel();
         MazeController controller = new MazeController(mazePanel);
         ControlPanel controlPanel = new ControlPanel(controller);
         controller.setControlPanel(controlPanel);
@@ -35,17 +57,37 @@ public class Maze extends JFrame {
         this.setVisible(true);
     }
 
+    /**
+     * Prints how long after the start of the JVM the first frame was painted, then exits. Run this way
+     * while building a class data sharing archive, the program loads every class it needs to start and
+     * nothing more.
+     */
+    private static void reportFirstFrame() {
+        long elapsed = System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+        System.out.println("First frame painted " + elapsed + " ms after the JVM started");
+        System.exit(0);
+    }
+
     /**
      * Start the program.
-     * @param args No arguments.
+     * @param args Nothing, or --startup-time to print how long the program took to paint its first frame
+     *             and exit.
      */
     public static void main(String[] args) {
-        Maze maze = new Maze();
+        final boolean timeStartup = args.length > 0 && args[0].equals("--startup-time");
 
-        maze.addWindowListener(new WindowAdapter() {
+        // Swing components are only created and changed on the event dispatch thread
+        SwingUtilities.invokeLater(new Runnable() {
             @Override
-            public void windowClosing(WindowEvent e) {
-                System.exit(0);
+            public void run() {
+                Maze maze = new Maze(timeStartup);
+
+                maze.addWindowListener(new WindowAdapter() {
+                    @Override
+                    public void windowClosing(WindowEvent e) {
+                        System.exit(0);
+                    }
+                });
             }
         });
     }
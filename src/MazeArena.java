@@ -0,0 +1,166 @@
+/*
+ * File:     MazeArena.java
+ * Author:   Taylor Ecton
+ * Purpose:  Storage reused from one maze to the next: the walls, states and weights of the grid, the
+ *           stack and visited cells of the depth first generator, the walls and sets of the Kruskal
+ *           generator and the frames published to the view. Each array grows to the largest maze made so
+ *           far and is never shrunk, so making another maze only resets the cells it uses instead of
+ *           allocating everything again. Everything handed out by an arena belongs to the latest maze made
+ *           with it; an arena is meant for one maze at a time, such as the one shown by the panel. Frames
+ *           still pinned by a background reader when they are needed again are set aside and recycled once
+ *           the reader is done, so publishing while tiles are drawn doesn't allocate a frame every time.
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+public class MazeArena {
+    // walls, states and weights of the grid
+    private byte[] walls, states, weights;
+
+    // stack and visited bits of the depth first generator
+    private int[] stack;
+    private long[] visited;
+
+    // walls of the Kruskal generator and the parent and rank arrays of its sets
+    private int[] kruskalWalls, parents, ranks;
+
+    // most frames set aside while pinned; beyond this the oldest is left to the garbage collector
+    private static final int MAX_SPARE_FRAMES = 4;
+
+    // frames published to the view, and frames set aside while background readers finish with them
+    private final GridFrame[] frames = new GridFrame[3];
+    private final ArrayList<GridFrame> spares = new ArrayList<>();
+
+    /**
+     * Creates a grid in the arena's storage with every wall present and every cell unvisited. Any grid made
+     * by the arena before can't be used any more.
+     * @param topology How the cells fit together.
+     * @return The new grid.
+     */
+    public MazeGrid createGrid(Topology topology) {
+        int cells = topology.getCellCount();
+        walls = grow(walls, cells);
+        states = grow(states, cells);
+        weights = grow(weights, cells);
+        Arrays.fill(states, 0, cells, (byte) MazeCell.UNVISITED);
+        MazeGrid grid = new MazeGrid(topology, new ArrayWallStore(walls, cells), states, weights);
+        grid.fillWalls(true);
+        return grid;
+    }
+
+    /**
+     * Gets the stack of the depth first generator.
+     * @param cells The number of cells in the maze.
+     * @return An array of at least cells ints, with any values in it.
+     */
+    public int[] getStack(int cells) {
+        stack = grow(stack, cells);
+        return stack;
+    }
+
+    /**
+     * Gets the visited bits of the depth first generator, 64 cells to a word.
+     * @param cells The number of cells in the maze.
+     * @return An array with a bit for at least every cell, where the bits of the cells are all clear.
+     */
+    public long[] getVisited(int cells) {
+        int words = (cells + 63) >>> 6;
+        if (visited == null || visited.length < words) {
+            visited = new long[words];
+        } else {
+            Arrays.fill(visited, 0, words, 0);
+        }
+        return visited;
+    }
+
+    /**
+     * Gets the array the Kruskal generator lists the walls in.
+     * @param count The number of walls.
+     * @return An array of at least count ints, with any values in it.
+     */
+    public int[] getKruskalWalls(int count) {
+        kruskalWalls = grow(kruskalWalls, count);
+        return kruskalWalls;
+    }
+
+    /**
+     * Creates disjoint sets in the arena's storage with every element in its own set.
+     * @param size The number of elements.
+     * @return The new sets.
+     */
+    public DisjointSets createSets(int size) {
+        parents = grow(parents, size);
+        ranks = grow(ranks, size);
+        return new DisjointSets(size, parents, ranks);
+    }
+
+    /**
+     * Gets one of the frames the panel's publisher hands to the view. A frame still pinned by a background
+     * reader is set aside and replaced by a spare one that no reader is using, preferably one that already
+     * shows the same maze; a new frame is only made when there is no such spare or the frame is too small.
+     * A frame that comes back for the same maze keeps its contents, so the publisher can bring it up to
+     * date from the blocks that changed.
+     * @param index Which of the three frames.
+     * @param topology The topology of the maze being published.
+     * @param blocks The number of blocks the publisher splits the cells into.
+     * @return A frame for the maze, with any contents.
+     */
+    public GridFrame getFrame(int index, Topology topology, int blocks) {
+        GridFrame frame = frames[index];
+        if (frame != null && frame.isPinned()) {
+            spares.add(frame);
+            if (spares.size() > MAX_SPARE_FRAMES) {
+                spares.remove(0);
+            }
+            frame = takeSpare(topology, blocks);
+        } else if (frame != null && frame.getTopology() != topology && !frame.reuse(topology, blocks)) {
+            frame = null;
+        }
+        if (frame == null) {
+            frame = new GridFrame(topology, blocks);
+        }
+        frames[index] = frame;
+        return frame;
+    }
+
+    /**
+     * Takes a spare frame that no background reader is using, preferring one that shows the same maze.
+     * @param topology The topology of the maze being published.
+     * @param blocks The number of blocks the publisher splits the cells into.
+     * @return The frame, or null if no spare frame can be used.
+     */
+    private GridFrame takeSpare(Topology topology, int blocks) {
+        for (int i = 0; i < spares.size(); i++) {
+            GridFrame spare = spares.get(i);
+            if (!spare.isPinned() && spare.getTopology() == topology)
+                return spares.remove(i);
+        }
+        for (int i = 0; i < spares.size(); i++) {
+            GridFrame spare = spares.get(i);
+            if (!spare.isPinned() && spare.reuse(topology, blocks))
+                return spares.remove(i);
+        }
+        return null;
+    }
+
+    /**
+     * Makes sure an array has room for a number of values, replacing it with a larger one if it doesn't.
+     * @param array The array, or null.
+     * @param length The number of values needed.
+     * @return The array, or a new one if it was too small.
+     */
+    private static byte[] grow(byte[] array, int length) {
+        return array != null && array.length >= length ? array : new byte[length];
+    }
+
+    /**
+     * Makes sure an array has room for a number of values, replacing it with a larger one if it doesn't.
+     * @param array The array, or null.
+     * @param length The number of values needed.
+     * @return The array, or a new one if it was too small.
+     */
+    private static int[] grow(int[] array, int length) {
+        return array != null && array.length >= length ? array : new int[length];
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * File:     MazeBraider.java
+ * Author:   Taylor Ecton
+ * Purpose:  Turns a perfect maze into a braided one by knocking a wall out of some of its dead ends,
+ *           which creates loops and gives the maze more than one route between cells.
+ */
+
+import java.util.Random;
+
+public class MazeBraider {
+    /**
+     * This class only has static functions, so it is never instantiated.
+     */
+    private MazeBraider() {
+    }
+
+    /**
+     * Removes a wall from a fraction of the dead ends in the maze. Where possible the wall removed leads to
+     * another dead end, so a single wall can remove two dead ends at once.
+     * @param grid The maze to braid.
+     * @param fraction The fraction of dead ends to remove, from 0 to 1.
+     * @param RNG Random number generator used to pick dead ends and walls.
+     * @return The number of walls removed.
+     */
+    public static int braid(MazeGrid grid, double fraction, Random RNG) {
+        // walls of the current dead end that could be removed, and the ones leading to other dead ends
+        int[] candidates = new int[grid.getSides()];
+        int[] deadEndCandidates = new int[grid.getSides()];
+        int deadEndWalls = grid.getSides() - 1;
+        int removed = 0;
+
+        if (fraction <= 0)
+            return 0;
+
+        // cells with fewer walls are skipped eight at a time; the rest are checked again one by one
+        for (int cell = grid.findCellWithWalls(0, deadEndWalls); cell >= 0;
+                cell = grid.findCellWithWalls(cell + 1, deadEndWalls)) {
+            // a dead end has every wall but one; earlier removals may already have opened this one up
+            if (Integer.bitCount(grid.getWalls(cell)) != deadEndWalls || RNG.nextDouble() >= fraction)
+                continue;
+
+            int candidateCount = 0, deadEndCount = 0;
+            for (int wall = 0; wall < grid.getSides(); wall++) {
+                int next = grid.neighbor(cell, wall);
+                if (next >= 0 && grid.hasWall(cell, wall)) {
+                    candidates[candidateCount++] = wall;
+                    if (Integer.bitCount(grid.getWalls(next)) == deadEndWalls) {
+                        deadEndCandidates[deadEndCount++] = wall;
+                    }
+                }
+            }
+
+            if (deadEndCount > 0) {
+                grid.breakWall(cell, deadEndCandidates[RNG.nextInt(deadEndCount)]);
+                removed++;
+            } else if (candidateCount > 0) {
+                grid.breakWall(cell, candidates[RNG.nextInt(candidateCount)]);
+                removed++;
+            }
+        }
+        return removed;
+    }
+}
@@ -1,13 +1,17 @@
 /*
  * File:     MazeCell.java
  * Author:   Taylor Ecton
- * Purpose:  Single cell on the maze grid.
+ * Purpose:  Constants describing a single cell on the maze grid, and how a cell draws itself. There is no
+ *           separate path state: a solver leaves the path it found marked as VISITED and the cells it tried
+ *           and gave up on as BACKTRACKED, so VISITED is the path state once a solve finishes. The colors of
+ *           the states come from a palette the view owns, so a theme only replaces the palette.
  */
 
-import javax.swing.*;
 import java.awt.*;
+import java.awt.geom.Line2D;
+import java.awt.geom.Path2D;
 
-public class MazeCell extends JComponent {
+public final class MazeCell {
     // static constants for easy access outside of this class
     // indices for the walls
     public static final int TOP = 0;
@@ -15,144 +19,192 @@ public class MazeCell extends JComponent {
     public static final int BOTTOM = 2;
     public static final int LEFT = 3;
 
-    // different colors used by the cells
-    public static final Color BACKGROUND = Color.BLACK;
+    // states of a cell, kept in a byte per cell by MazeGrid and used as indices into a palette; a solver
+    // leaves the path it found as visited
+    public static final int UNVISITED = 0;
+    public static final int START = 1;
+    public static final int END = 2;
+    public static final int BACKTRACKED = 3;
+    public static final int VISITED = 4;
+
+    // color of the walls
     public static final Color WALL = Color.WHITE;
-    public static final Color START = Color.GREEN;
-    public static final Color END = Color.RED;
-    public static final Color BACKTRACKED = Color.LIGHT_GRAY;
-    public static final Color VISITED = Color.BLUE;
 
-    // boolean values representing the walls of this cell
-    private boolean[] walls = new boolean[]{ false, false, false, false };
+    // color each state is drawn with by default, indexed by state
+    private static final Color[] DEFAULT_PALETTE = {
+        Color.BLACK, Color.GREEN, Color.RED, Color.LIGHT_GRAY, Color.BLUE
+    };
 
-    // internal color of the cell
-    private Color rectangleColor;
+    // color shown around the cells of grids that aren't rectangular
+    public static final Color OUTSIDE = Color.LIGHT_GRAY;
 
-    // internal rectangle of the cell
-    private Polygon rectangle;
+    // color of the marker on the cell the user is in while walking through the maze
+    public static final Color PLAYER = Color.ORANGE;
 
-    // length of a side
-    private int sideLength;
+    // bits for the open passages to other floors of a layered maze
+    public static final int STAIRS_UP = 1;
+    public static final int STAIRS_DOWN = 2;
 
-    // coordinates of the cell
-    private int[] coords;
+    // background colors for cells that cost more to enter, indexed by weight
+    private static final Color[] TERRAIN = new Color[MazeGrid.MAX_WEIGHT + 1];
+    static {
+        for (int weight = 1; weight <= MazeGrid.MAX_WEIGHT; weight++) {
+            float t = (weight - 1) / (float) (MazeGrid.MAX_WEIGHT - 1);
+            TERRAIN[weight] = new Color((int) (t * 120), (int) (t * 80), (int) (t * 30));
+        }
+    }
 
     /**
-     * Constructor for the cell.
-     * @param sideLength Length of a side.
-     * @param row Row index for this cell.
-     * @param column Column index for this cell.
+     * Cells are only described by MazeGrid, so this class is never instantiated.
      */
-    public MazeCell(int sideLength, int row, int column) {
-        // set the side length and coordinates
-        this.sideLength = sideLength;
-        this.coords = new int[]{row, column};
-
-        // set the size of the cell
-        setPreferredSize(new Dimension(sideLength, sideLength));
-
-        // create the internal rectangle for this cell (leaving 3 pixels on each edge for the walls)
-        int[] xPoints = {0+3, sideLength-3, sideLength-3, 0+3};
-        int[] yPoints = {0+3, 0+3, sideLength-3, sideLength-3};
-        rectangle = new Polygon(xPoints, yPoints, 4);
-
-        // set the initial rectangle color
-        rectangleColor = BACKGROUND;
+    private MazeCell() {
     }
 
     /**
-     * Allows setting the internal cell color.
-     * @param rectangleColor The color to set.
+     * Creates a copy of the default palette, which can be changed and handed to MazeView.setPalette.
+     * @return A color for each state, indexed by state.
      */
-    public void setRectangleColor(Color rectangleColor) {
-        this.rectangleColor = rectangleColor;
+    public static Color[] createPalette() {
+        return DEFAULT_PALETTE.clone();
     }
 
     /**
-     * Gets the current color of the cell.
-     * @return The current rectangle color.
+     * Gets the color a cell is drawn with, from a palette. Unvisited cells that cost more than a single step
+     * to enter are shaded by their weight instead.
+     * @param palette A color for each state, indexed by state.
+     * @param state The state of the cell.
+     * @param weight The weight of the cell.
+     * @return The color to draw.
      */
-    public Color getRectangleColor() {
-        return rectangleColor;
+    public static Color displayColor(Color[] palette, int state, int weight) {
+        return state == UNVISITED && weight > 1 ? TERRAIN[weight] : palette[state];
     }
 
     /**
-     * Gets the coordinates for this cell.
-     * @return The cell's coordinates.
+     * Draws a cell. Each cell draws half of the thickness of its walls so that the walls of adjacent
+     * cells line up.
+     * @param g2 The graphics context.
+     * @param x Left edge of the cell in pixels.
+     * @param y Top edge of the cell in pixels.
+     * @param width Width of the cell in pixels.
+     * @param height Height of the cell in pixels.
+     * @param walls The wall bits of the cell (see MazeGrid.getWalls).
+     * @param rectangleColor The internal color of the cell.
      */
-    public int[] getCoords() {
-        return coords;
+    public static void paint(Graphics2D g2, int x, int y, int width, int height, int walls, Color rectangleColor) {
+        // fill the internal rectangle of the cell
+        g2.setColor(rectangleColor);
+        g2.fillRect(x, y, width, height);
+
+        if (walls == 0)
+            return;
+
+        // half of a wall is a tenth of the cell (2 pixels for a 15 pixel cell), but never less than a pixel
+        int thickness = Math.max(1, (Math.min(width, height) + 5) / 10);
+
+        // draw the four walls
+        g2.setColor(WALL);
+        for (int i = 0; i < 4; i++) {
+            if ((walls & (1 << i)) != 0) {
+                drawWall(i, g2, x, y, width, height, thickness);
+            }
+        }
     }
 
     /**
-     * Sets a wall to true or false.
-     * @param wall The wall to set.
-     * @param value The value to set the wall to.
+     * Fills the outline of a cell of any shape. Positions are in model units, so g2 should already be scaled.
+     * @param g2 The graphics context.
+     * @param topology The topology the cell belongs to.
+     * @param cell The cell index.
+     * @param rectangleColor The internal color of the cell.
+     * @param xs Scratch space for the x coordinates of the corners (at least 8 long).
+     * @param ys Scratch space for the y coordinates of the corners (at least 8 long).
      */
-    public void setWall(int wall, boolean value) {
-        walls[wall] = value;
+    public static void fillShape(Graphics2D g2, Topology topology, int cell, Color rectangleColor,
+                                 double[] xs, double[] ys) {
+        int corners = topology.getOutline(cell, xs, ys);
+        Path2D.Double outline = new Path2D.Double();
+        outline.moveTo(xs[0], ys[0]);
+        for (int i = 1; i < corners; i++) {
+            outline.lineTo(xs[i], ys[i]);
+        }
+        outline.closePath();
+
+        g2.setColor(rectangleColor);
+        g2.fill(outline);
     }
 
     /**
-     * Gets whether there is a wall at the specified side.
-     * @param wall The number representing which wall (see constants at top).
-     * @return Whether there is a wall there or not.
+     * Draws the walls of a cell of any shape along the middle of each side. Neighbouring cells draw the same
+     * line, so the walls should be drawn after every cell around them has been filled.
+     * @param g2 The graphics context, already scaled to model units and given the wall stroke.
+     * @param topology The topology the cell belongs to.
+     * @param cell The cell index.
+     * @param walls The wall bits of the cell (see MazeGrid.getWalls).
+     * @param segment Scratch space for the ends of a side (at least 4 long).
      */
-    public boolean getWall(int wall) {
-        return walls[wall];
+    public static void drawShapeWalls(Graphics2D g2, Topology topology, int cell, int walls, double[] segment) {
+        g2.setColor(WALL);
+        for (int side = 0; side < topology.getSides(); side++) {
+            if ((walls & (1 << side)) != 0 && topology.getSide(cell, side, segment)) {
+                g2.draw(new Line2D.Double(segment[0], segment[1], segment[2], segment[3]));
+            }
+        }
     }
 
     /**
-     * Specifies how the cell should draw itself.
-     * @param g The graphics context.
+     * Marks the open passages to other floors with an arrow pointing up above the center of the cell and
+     * one pointing down below it.
+     * @param g2 The graphics context.
+     * @param cx Horizontal center of the cell.
+     * @param cy Vertical center of the cell.
+     * @param size Size of the cell.
+     * @param stairs The STAIRS_UP and STAIRS_DOWN bits of the open passages.
      */
-    @Override
-    public void paintComponent(Graphics g) {
-        super.paintComponents(g);
-
-        Graphics2D g2 = (Graphics2D) g;
-
-        // set stroke to 3 pixels
-        g2.setStroke(new BasicStroke(3));
-
-        // draw the four walls
-        for (int i = 0; i < 4; i++) {
-            if (walls[i]) {
-                g2.setColor(Color.WHITE);
-            } else {
-                g2.setColor(rectangleColor);
-            }
-            drawWall(i, g2);
+    public static void paintStairs(Graphics2D g2, double cx, double cy, double size, int stairs) {
+        double half = size / 6;
+        g2.setColor(WALL);
+        if ((stairs & STAIRS_UP) != 0) {
+            Path2D.Double up = new Path2D.Double();
+            up.moveTo(cx, cy - 3 * half);
+            up.lineTo(cx + 1.5 * half, cy - half / 2);
+            up.lineTo(cx - 1.5 * half, cy - half / 2);
+            up.closePath();
+            g2.fill(up);
+        }
+        if ((stairs & STAIRS_DOWN) != 0) {
+            Path2D.Double down = new Path2D.Double();
+            down.moveTo(cx, cy + 3 * half);
+            down.lineTo(cx + 1.5 * half, cy + half / 2);
+            down.lineTo(cx - 1.5 * half, cy + half / 2);
+            down.closePath();
+            g2.fill(down);
         }
-
-        // draw the internal rectangle of the cell and fill it
-        g2.setColor(rectangleColor);
-        g2.drawPolygon(rectangle);
-        g2.fill(rectangle);
     }
 
     /**
      * Draws a wall
      * @param wall Which wall is being drawn.
      * @param g2 The graphics context.
+     * @param x Left edge of the cell in pixels.
+     * @param y Top edge of the cell in pixels.
+     * @param width Width of the cell in pixels.
+     * @param height Height of the cell in pixels.
+     * @param thickness Thickness of the wall in pixels.
      */
-    private void drawWall(int wall, Graphics2D g2) {
-        int start = 0;
-        int stop = sideLength;
-
+    private static void drawWall(int wall, Graphics2D g2, int x, int y, int width, int height, int thickness) {
         switch (wall) {
             case TOP:
-                g2.drawLine(start, start, stop, start);
+                g2.fillRect(x, y, width, thickness);
                 break;
             case RIGHT:
-                g2.drawLine(stop, start, stop, stop);
+                g2.fillRect(x + width - thickness, y, thickness, height);
                 break;
             case BOTTOM:
-                g2.drawLine(start, stop, stop, stop);
+                g2.fillRect(x, y + height - thickness, width, thickness);
                 break;
             case LEFT:
-                g2.drawLine(start, start, start, stop);
+                g2.fillRect(x, y, thickness, height);
                 break;
         }
     }
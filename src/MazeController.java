@@ -9,8 +9,23 @@ import javax.swing.event.ChangeEvent;
 import javax.swing.event.ChangeListener;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.awt.event.KeyEvent;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ThreadLocalRandom;
 
 public class MazeController implements ChangeListener, ActionListener {
+    // file in the working directory that generations are checkpointed to
+    public static final String CHECKPOINT_FILE = "maze.checkpoint";
+
+    // time between frames published while a maze is generated or solved without animation, in nanoseconds
+    private static final long PUBLISH_INTERVAL = 50000000L;
+
+    // steps taken between looks at the clock while working without animation
+    private static final int STEPS_PER_CLOCK_CHECK = 4096;
+
     // the panel containing the maze
     private MazePanel mazePanel;
 
@@ -20,6 +35,22 @@ public class MazeController implements ChangeListener, ActionListener {
     // the timer for animations
     private Timer timer;
 
+    // the thread generating or solving the maze without animation, or null, and whether it should stop
+    private Thread worker;
+    private volatile boolean workerCancelled;
+
+    // whether the thread runs the solver and what it does when it finishes, and the run the resume button
+    // starts again after the thread was stopped, or null
+    private boolean workerSolving;
+    private Runnable workerDone, pausedRun;
+
+    // the timer for replaying a recording, and whether it is what the stop/resume button controls
+    private Timer replayTimer;
+    private boolean replaying;
+
+    // true while the timeline slider is being moved to match the recording rather than by the user
+    private boolean updatingTimeline;
+
     // whether the maze is currently solved or not
     private boolean solved = false;
 
@@ -29,6 +60,7 @@ public class MazeController implements ChangeListener, ActionListener {
      */
     public MazeController(MazePanel mazePanel) {
         this.mazePanel = mazePanel;
+        bindPlayKeys();
     }
 
     /**
@@ -47,11 +79,31 @@ public class MazeController implements ChangeListener, ActionListener {
     public void actionPerformed(ActionEvent e) {
         JButton clicked = (JButton) e.getSource();
 
+        // anything but stopping an animation changes the maze, so a run in the background is ended first
+        if (!clicked.getActionCommand().equals("stop") && !clicked.getActionCommand().equals("resume")) {
+            stopWorker();
+        }
+
         // call appropriate function based on action command of button
         switch (clicked.getActionCommand()) {
             case "generate":
                 generateMaze();
                 break;
+            case "resumeGeneration":
+                resumeGeneration();
+                break;
+            case "replay":
+                replay();
+                break;
+            case "statistics":
+                showStatistics();
+                break;
+            case "play":
+                playMaze();
+                break;
+            case "recarve":
+                recarveRegion();
+                break;
             case "solve":
                 solveMaze();
                 break;
@@ -75,6 +127,12 @@ public class MazeController implements ChangeListener, ActionListener {
     public void stateChanged(ChangeEvent e) {
         JSlider adjusted = (JSlider) e.getSource();
 
+        // the timeline follows the slider while it is dragged
+        if (adjusted.getName().equals("timeline")) {
+            seekTimeline(adjusted.getValue());
+            return;
+        }
+
         // take appropriate action based on which bar is being adjusted
         if (!adjusted.getValueIsAdjusting()) {
             switch (adjusted.getName()) {
@@ -96,6 +154,21 @@ public class MazeController implements ChangeListener, ActionListener {
                     mazePanel.setColumns(adjusted.getValue());
                     controlPanel.setColumnLabelText("Columns: " + adjusted.getValue());
                     break;
+                case "braid":
+                    controlPanel.setBraidLabelText("Dead Ends Removed: " + adjusted.getValue() + "%");
+                    break;
+                case "floors":
+                    if (timer != null && timer.isRunning()) {
+                        timer.stop();
+                        mazePanel.setPercentCompleteLabelText("Maze dimension adjusted. Animation stopped.");
+                    }
+                    mazePanel.setFloors(adjusted.getValue());
+                    controlPanel.setFloorsLabelText("Floors: " + adjusted.getValue());
+                    break;
+                case "floor":
+                    mazePanel.showFloor(adjusted.getValue());
+                    controlPanel.setFloorLabelText("Showing Floor: " + adjusted.getValue());
+                    break;
                 default:
                     System.err.println("Unexpected string in stateChanged: " + adjusted.getName());
                     System.exit(1);
@@ -105,31 +178,81 @@ public class MazeController implements ChangeListener, ActionListener {
 
     /**
      * Has the mazePanel generate a new maze. Does so in a timer if the checkbox is checked on
-     * the control panel.
+     * the control panel, and on a background thread otherwise.
      */
     private void generateMaze() {
         // set solved to false since a new maze is being generated
         solved = false;
 
-        // stop the timer if one is running
+        // stop the timers if any are running
         if (timer != null)
             timer.stop();
+        stopReplay();
 
         // set the stop/resume button to say stop (in case it said resume before button was clicked)
         controlPanel.setStopResumeButtonText("Stop");
         controlPanel.setStopResumeButtonAction("stop");
 
         // clear the maze in the maze panel and initialize a new one
+        mazePanel.setSolveWhileGenerating(controlPanel.getSolveWhileGenerating());
+        mazePanel.setBraidFraction(controlPanel.getBraidPercent() / 100.0);
+        mazePanel.setWeightedTerrain(controlPanel.getWeightedTerrain());
+        mazePanel.setGenerator(controlPanel.getGenerator());
+        mazePanel.setShape(controlPanel.getShape());
+        mazePanel.setZOrderLayout(controlPanel.getZOrderLayout());
+        mazePanel.setStorage(controlPanel.getStorage());
+        mazePanel.setCheckpointFile(controlPanel.getSaveCheckpoints() ? Paths.get(CHECKPOINT_FILE) : null);
+        mazePanel.setRecording(controlPanel.getRecordTimeline());
         mazePanel.clear();
         mazePanel.newMazeInit();
+        controlPanel.setFloorRange(mazePanel.getFloors());
 
+        runGeneration();
+    }
+
+    /**
+     * Has the mazePanel carry on generating the maze saved in the checkpoint file, the same way as
+     * generateMaze.
+     */
+    private void resumeGeneration() {
+        Path file = Paths.get(CHECKPOINT_FILE);
+        if (!Files.exists(file)) {
+            mazePanel.setPercentCompleteLabelText("Error: No checkpoint to resume.");
+            return;
+        }
+
+        // stop the timers if any are running
+        if (timer != null)
+            timer.stop();
+        stopReplay();
+
+        try {
+            mazePanel.setRecording(controlPanel.getRecordTimeline());
+            mazePanel.resumeGeneration(file);
+        } catch (IOException e) {
+            mazePanel.setPercentCompleteLabelText("Error: " + e.getMessage());
+            return;
+        }
+        solved = false;
+        controlPanel.setStopResumeButtonText("Stop");
+        controlPanel.setStopResumeButtonAction("stop");
+        controlPanel.setMazeSettings(mazePanel.getGenerator(), mazePanel.getShape(), mazePanel.getRows(),
+                                     mazePanel.getColumns(), mazePanel.getFloors());
+        controlPanel.setFloorRange(mazePanel.getFloors());
+
+        runGeneration();
+    }
+
+    /**
+     * Generates the rest of the maze in mazePanel. Does so in a timer if the checkbox is checked on the
+     * control panel, and on a background thread otherwise.
+     */
+    private void runGeneration() {
         // set the label on the maze indicating percent generated
-        mazePanel.setPercentCompleteLabelText("Generating maze...\n" +
-                                              "Percent complete: " +
-                                              mazePanel.getPercentGenerated() + "%");
+        mazePanel.setPercentCompleteLabelText(getGenerationLabelText());
 
         // if showGeneration check box is checked on control panel, start a timer that
-        // updates the maze at fixed intervals; if it isn't checked, do the whole generation then repaint
+        // updates the maze at fixed intervals; if it isn't checked, do the whole generation then show it
         if (controlPanel.getShowGeneration()) {
             timer = new Timer(1, new ActionListener() {
                 @Override
@@ -138,38 +261,172 @@ public class MazeController implements ChangeListener, ActionListener {
                     for (int i = 0; i < controlPanel.getSpeed(); i++) {
                         mazePanel.updateMaze();
                     }
-                    // update the label on the maze
-                    mazePanel.setPercentCompleteLabelText("Generating maze...\n" +
-                                                          "Percent complete: " +
-                                                          mazePanel.getPercentGenerated() + "%");
+                    // update the label on the maze and the timeline
+                    mazePanel.setPercentCompleteLabelText(getGenerationLabelText());
+                    updateTimeline();
 
-                    // repaint
-                    mazePanel.repaint();
+                    // show the changes
+                    mazePanel.publish();
 
-                    // stop if every MazeCell has been visited
-                    if (mazePanel.getCurr() == null) {
+                    // stop if every cell has been visited; the maze is already solved if the path was found
+                    if (mazePanel.getCurr() < 0) {
                         timer.stop();
+                        solved = mazePanel.isPathFound();
                     }
                 }
             });
             timer.start();
         } else {
-            // generate a new maze
-            mazePanel.generate();
-            // set the label text
-            mazePanel.setPercentCompleteLabelText("Generating maze...\n" +
-                                                  "Percent complete: " +
-                                                  mazePanel.getPercentGenerated() + "%");
+            // generate the maze in the background, showing it now and then; the maze is already solved if
+            // the path was found
+            runInBackground(false, new Runnable() {
+                @Override
+                public void run() {
+                    solved = mazePanel.isPathFound();
+                    mazePanel.setPercentCompleteLabelText(getGenerationLabelText());
+                    updateTimeline();
+                }
+            });
+        }
+        updateTimeline();
+    }
+
+    /**
+     * Gets the text for the label on the maze while generating.
+     * @return The percent generated, and when the path was found if it has been.
+     */
+    private String getGenerationLabelText() {
+        String text = "Generating maze...\n" +
+                      "Percent complete: " +
+                      mazePanel.getPercentGenerated() + "%";
+        if (mazePanel.isPathFound()) {
+            text += " Path found at " + mazePanel.getPercentAtPathFound() + "%.";
+        }
+        return text;
+    }
+
+    /**
+     * Generates or solves the rest of the maze on a background thread, so the window keeps responding.
+     * The thread is the only one changing the maze until it ends, so it publishes a frame for the view
+     * every PUBLISH_INTERVAL along with the progress, and a last one when it is done.
+     * @param solving True to run the solver, false to run the generator.
+     * @param done Called on the event dispatch thread once the run finishes, unless it was stopped.
+     */
+    private void runInBackground(final boolean solving, final Runnable done) {
+        // an old animation must not be resumed while the thread changes the maze
+        if (timer != null) {
+            timer.stop();
+            timer = null;
+        }
+        workerCancelled = false;
+        workerSolving = solving;
+        workerDone = done;
+        worker = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                final Thread self = Thread.currentThread();
+                long nextPublish = System.nanoTime() + PUBLISH_INTERVAL;
+                int steps = 0;
+                while (solving ? !mazePanel.isSolverFinished() : mazePanel.getCurr() >= 0) {
+                    if (workerCancelled)
+                        return;
+                    if (solving) {
+                        mazePanel.updateSolver();
+                    } else {
+                        mazePanel.updateMaze();
+                    }
+
+                    if (++steps % STEPS_PER_CLOCK_CHECK == 0 && System.nanoTime() >= nextPublish) {
+                        mazePanel.publish();
+                        final String text = solving ? getSolvingLabelText() : getGenerationLabelText();
+                        SwingUtilities.invokeLater(new Runnable() {
+                            @Override
+                            public void run() {
+                                if (worker == self) {
+                                    mazePanel.setPercentCompleteLabelText(text);
+                                }
+                            }
+                        });
+                        nextPublish = System.nanoTime() + PUBLISH_INTERVAL;
+                    }
+                }
+                mazePanel.publish();
+
+                SwingUtilities.invokeLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (worker == self) {
+                            worker = null;
+                            done.run();
+                        }
+                    }
+                });
+            }
+        }, solving ? "Maze solver" : "Maze generator");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Stops the background run, if there is one, and waits for it to leave the maze alone. The maze is left
+     * as far as it got, and a run stopped before can no longer be resumed.
+     */
+    private void stopWorker() {
+        pausedRun = null;
+        if (worker == null)
+            return;
+
+        workerCancelled = true;
+        try {
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
+        worker = null;
+        mazePanel.publish();
+    }
+
+    /**
+     * Stops the background run, if there is one, so that the resume button carries it on from where it got
+     * to, the way it carries on an animation.
+     * @return True if a run was stopped.
+     */
+    private boolean pauseWorker() {
+        if (worker == null)
+            return false;
+
+        final boolean solving = workerSolving;
+        final Runnable done = workerDone;
+        stopWorker();
+        pausedRun = new Runnable() {
+            @Override
+            public void run() {
+                runInBackground(solving, done);
+            }
+        };
+        mazePanel.setPercentCompleteLabelText((solving ? getSolvingLabelText() : getGenerationLabelText()) +
+                                              " Stopped.");
+        return true;
+    }
+
+    /**
+     * Gets the text for the label on the maze while solving.
+     * @return The percent of the cells visited.
+     */
+    private String getSolvingLabelText() {
+        return "Solving maze...\n" +
+               "Percent visited: " +
+               mazePanel.getPercentVisited() + "%";
     }
 
     /**
      * Calls the solver on the maze.
      */
     private void solveMaze() {
-        // stop timer if one is running
+        // stop timers if any are running
         if (timer != null)
             timer.stop();
+        stopReplay();
 
         // if the maze is still being generated, don't allow user to start solver
         if (!mazePanel.getPercentGenerated().contains("100.")) {
@@ -190,31 +447,28 @@ public class MazeController implements ChangeListener, ActionListener {
         controlPanel.setStopResumeButtonAction("stop");
 
         // initialize the solver
-        mazePanel.initSolver();
+        mazePanel.initSolver(controlPanel.getSolver());
 
         // set the label on the maze
-        mazePanel.setPercentCompleteLabelText("Solving maze...\n" +
-                                              "Percent visited: " +
-                                              mazePanel.getPercentVisited() + "%");
+        mazePanel.setPercentCompleteLabelText(getSolvingLabelText());
 
-        // if the show solver is checked, animate the solver, otherwise solve and repaint
-        if (controlPanel.getShowSolver()) {
+        // if the show solver is checked, animate the solver, otherwise solve in the background and show the
+        // result; the parallel solver expands whole levels at once, so it is never animated
+        if (controlPanel.getShowSolver() && !controlPanel.getSolver().equals(ControlPanel.PARALLEL_BFS_SOLVER)) {
             timer = new Timer(1, new ActionListener() {
                 @Override
                 public void actionPerformed(ActionEvent e) {
                     for (int i = 0; i < controlPanel.getSpeed(); i++) {
                         mazePanel.updateSolver();
                     }
-                    mazePanel.setPercentCompleteLabelText("Solving maze...\n" +
-                                                          "Percent visited: " +
-                                                          mazePanel.getPercentVisited() + "%");
+                    mazePanel.setPercentCompleteLabelText(getSolvingLabelText());
+                    updateTimeline();
 
-                    mazePanel.repaint();
+                    mazePanel.publish();
 
                     // stopping condition for timer
-                    if (mazePanel.getCurr() == null || mazePanel.getCurr().getRectangleColor() == MazeCell.END) {
+                    if (mazePanel.isSolverFinished()) {
                         timer.stop();
-                        mazePanel.fixGreyBlocks();
                         mazePanel.setPercentCompleteLabelText("Maze solved. Percent visited: " +
                                                               mazePanel.getPercentVisited() + "%");
                         solved = true;
@@ -222,26 +476,195 @@ public class MazeController implements ChangeListener, ActionListener {
                 }
             });
             timer.start();
-            mazePanel.repaint();
+            mazePanel.publish();
+        } else {
+            runInBackground(true, new Runnable() {
+                @Override
+                public void run() {
+                    mazePanel.setPercentCompleteLabelText("Maze solved.\n" +
+                                                          "Percent visited: " +
+                                                          mazePanel.getPercentVisited() + "%");
+                    solved = true;
+                    updateTimeline();
+                }
+            });
+        }
+    }
+
+    /**
+     * Checks the maze and shows its statistics, including whether the path found by the last solver is a
+     * shortest path.
+     */
+    private void showStatistics() {
+        // a maze that is still being generated isn't a maze yet
+        if (!mazePanel.getPercentGenerated().contains("100.")) {
+            mazePanel.setPercentCompleteLabelText("Error: Maze not fully generated.");
+            return;
+        }
+
+        MazeStatistics statistics = mazePanel.computeStatistics();
+        updateTimeline();
+        mazePanel.publish();
+        JOptionPane.showMessageDialog(mazePanel, statistics.toString(), "Maze Statistics",
+                                      JOptionPane.INFORMATION_MESSAGE);
+    }
+
+    /**
+     * Lets the user walk through the finished maze from the keyboard, starting at the start cell.
+     */
+    private void playMaze() {
+        // stop timers if any are running; a solver that was being animated is dropped
+        if (timer != null) {
+            timer.stop();
+            timer = null;
+        }
+        stopReplay();
+
+        // a maze that is still being generated can't be walked through yet
+        if (!mazePanel.getPercentGenerated().contains("100.")) {
+            mazePanel.setPercentCompleteLabelText("Error: Maze not fully generated.");
+            return;
+        }
+
+        mazePanel.startPlaying();
+        solved = false;
+        controlPanel.setStopResumeButtonText("Stop");
+        controlPanel.setStopResumeButtonAction("stop");
+        showPlayerMove();
+    }
+
+    /**
+     * Asks for a rectangle of rows and columns and carves it again with new corridors, keeping the rest of
+     * the finished maze and the path found through it. The rectangle starts out as the middle of the maze.
+     */
+    private void recarveRegion() {
+        // stop timers if any are running; a solver that was being animated can't have its path repaired
+        if (timer != null) {
+            timer.stop();
+            timer = null;
+        }
+        stopReplay();
+
+        // a maze that is still being generated can't be re-carved yet
+        if (!mazePanel.getPercentGenerated().contains("100.")) {
+            mazePanel.setPercentCompleteLabelText("Error: Maze not fully generated.");
+            return;
+        }
+
+        int rows = mazePanel.getRows(), columns = mazePanel.getColumns();
+        String region = JOptionPane.showInputDialog(mazePanel, "First row, first column, last row and last "
+                                                    + "column of the region to re-carve:",
+                                                    rows / 4 + ", " + columns / 4 + ", " + (rows * 3 / 4 - 1)
+                                                    + ", " + (columns * 3 / 4 - 1));
+        if (region == null)
+            return;
+
+        try {
+            String[] bounds = region.trim().split("[\\s,]+");
+            if (bounds.length != 4) {
+                throw new IllegalArgumentException("Enter four numbers.");
+            }
+            mazePanel.recarveRegion(Integer.parseInt(bounds[0]), Integer.parseInt(bounds[1]),
+                                    Integer.parseInt(bounds[2]), Integer.parseInt(bounds[3]),
+                                    ThreadLocalRandom.current().nextLong());
+            mazePanel.setPercentCompleteLabelText("Region re-carved.");
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            mazePanel.setPercentCompleteLabelText("Error: " + e.getMessage());
+        }
+        updateTimeline();
+        mazePanel.publish();
+    }
+
+    /**
+     * Binds the arrow keys and W, A, S and D to moving the user through the maze, and Page Up and Page Down
+     * to taking the stairs of a maze with several floors. The keys work anywhere in the window unless a
+     * slider or list has them.
+     */
+    private void bindPlayKeys() {
+        InputMap keys = mazePanel.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW);
+        ActionMap actions = mazePanel.getActionMap();
+        bindMove(keys, actions, "moveUp", 0, -1, KeyEvent.VK_UP, KeyEvent.VK_W);
+        bindMove(keys, actions, "moveLeft", -1, 0, KeyEvent.VK_LEFT, KeyEvent.VK_A);
+        bindMove(keys, actions, "moveDown", 0, 1, KeyEvent.VK_DOWN, KeyEvent.VK_S);
+        bindMove(keys, actions, "moveRight", 1, 0, KeyEvent.VK_RIGHT, KeyEvent.VK_D);
+
+        keys.put(KeyStroke.getKeyStroke(KeyEvent.VK_PAGE_UP, 0), "climbUp");
+        actions.put("climbUp", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                if (mazePanel.climbPlayer(true)) {
+                    showPlayerMove();
+                }
+            }
+        });
+        keys.put(KeyStroke.getKeyStroke(KeyEvent.VK_PAGE_DOWN, 0), "climbDown");
+        actions.put("climbDown", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                if (mazePanel.climbPlayer(false)) {
+                    showPlayerMove();
+                }
+            }
+        });
+    }
+
+    /**
+     * Binds keys to moving the user in a direction on the screen.
+     * @param keys The keys of the maze panel.
+     * @param actions The actions of the maze panel.
+     * @param name The name of the action.
+     * @param dx How far right the direction goes.
+     * @param dy How far down the direction goes.
+     * @param keyCodes The keys that move in the direction (see KeyEvent constants).
+     */
+    private void bindMove(InputMap keys, ActionMap actions, String name, final double dx, final double dy,
+                          int... keyCodes) {
+        for (int keyCode : keyCodes) {
+            keys.put(KeyStroke.getKeyStroke(keyCode, 0), name);
+        }
+        actions.put(name, new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                if (mazePanel.movePlayer(dx, dy)) {
+                    showPlayerMove();
+                }
+            }
+        });
+    }
+
+    /**
+     * Shows the floor the user is on and how far they are from the end after a move.
+     */
+    private void showPlayerMove() {
+        PlayRun play = mazePanel.getPlayRun();
+        controlPanel.setShownFloor(mazePanel.getPlayerFloor());
+        if (play.isFinished()) {
+            mazePanel.setPercentCompleteLabelText("You reached the end in " + play.getMoves() + " moves. " +
+                                                  "The shortest path takes " + play.getShortestLength() +
+                                                  " steps.");
         } else {
-            // solve the maze and repaint
-            mazePanel.solve();
-            mazePanel.setPercentCompleteLabelText("Maze solved.\n" +
-                                                  "Percent visited: " +
-                                                  mazePanel.getPercentVisited() + "%");
-            solved = true;
-            mazePanel.repaint();
+            mazePanel.setPercentCompleteLabelText("Playing: arrow keys or WASD to move, Page Up/Down for " +
+                                                  "stairs. Steps to the end: " + play.getStepsToEnd() +
+                                                  ". Moves: " + play.getMoves());
         }
+        updateTimeline();
     }
 
     /**
-     * Stops the timer when the stop button is pressed.
+     * Stops the timer, or the run in the background, when the stop button is pressed.
      */
     private void stopTimer() {
-        if (timer == null) {
+        if (replayTimer != null) {
+            replayTimer.stop();
+        }
+        if (pauseWorker()) {
+            controlPanel.setStopResumeButtonText("Resume");
+            controlPanel.setStopResumeButtonAction("resume");
+        } else if (timer == null && replayTimer == null) {
             return;
         } else {
-            timer.stop();
+            if (timer != null)
+                timer.stop();
 
             // stop button becomes resume when pressed
             controlPanel.setStopResumeButtonText("Resume");
@@ -250,13 +673,110 @@ public class MazeController implements ChangeListener, ActionListener {
     }
 
     /**
-     * Resumes timer when resume button is pressed.
+     * Resumes the timer, or the run that was stopped in the background, when resume button is pressed.
      */
     private void resumeTimer() {
-        if (timer != null)
+        if (replaying) {
+            replayTimer.start();
+        } else if (pausedRun != null) {
+            Runnable run = pausedRun;
+            pausedRun = null;
+            run.run();
+        } else if (timer != null) {
             timer.start();
+        }
+
+        controlPanel.setStopResumeButtonText("Stop");
+        controlPanel.setStopResumeButtonAction("stop");
+    }
+
+    /**
+     * Replays the recording of the current maze from the step shown, or from the start if the latest step
+     * is shown, at the speed on the control panel.
+     */
+    private void replay() {
+        final RunRecorder recorder = mazePanel.getRecorder();
+        if (recorder == null) {
+            mazePanel.setPercentCompleteLabelText("Error: Check Record Timeline before generating to replay.");
+            return;
+        }
+
+        // pause the run being recorded; it carries on from the latest step when it is resumed
+        if (timer != null)
+            timer.stop();
+        stopReplay();
+        if (recorder.isAtEnd()) {
+            recorder.seek(recorder.getFirstStep());
+        }
 
         controlPanel.setStopResumeButtonText("Stop");
         controlPanel.setStopResumeButtonAction("stop");
+        replaying = true;
+        replayTimer = new Timer(1, new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                recorder.seek(recorder.getPosition() + controlPanel.getSpeed());
+                updateTimeline();
+                mazePanel.publish();
+
+                // stop at the latest step; the paused run can then be resumed
+                if (recorder.isAtEnd()) {
+                    stopReplay();
+                    controlPanel.setStopResumeButtonText("Resume");
+                    controlPanel.setStopResumeButtonAction("resume");
+                }
+            }
+        });
+        replayTimer.start();
+    }
+
+    /**
+     * Stops replaying the recording, leaving the step that was reached shown.
+     */
+    private void stopReplay() {
+        if (replayTimer != null) {
+            replayTimer.stop();
+            replayTimer = null;
+        }
+        replaying = false;
+    }
+
+    /**
+     * Shows a step of the recording chosen on the timeline. A run that is being animated or run in the
+     * background is paused so the step stays shown; resuming it goes back to the latest step.
+     * @param step The step to show.
+     */
+    private void seekTimeline(int step) {
+        RunRecorder recorder = mazePanel.getRecorder();
+        if (updatingTimeline || recorder == null)
+            return;
+
+        if (pauseWorker() || timer != null && timer.isRunning()) {
+            if (timer != null) {
+                timer.stop();
+            }
+            controlPanel.setStopResumeButtonText("Resume");
+            controlPanel.setStopResumeButtonAction("resume");
+        }
+        recorder.seek(step);
+        updateTimeline();
+        mazePanel.publish();
+    }
+
+    /**
+     * Moves the timeline slider and label to match the recording of the current maze.
+     */
+    private void updateTimeline() {
+        RunRecorder recorder = mazePanel.getRecorder();
+        updatingTimeline = true;
+        if (recorder == null) {
+            controlPanel.setTimeline(0, 0, 0);
+            controlPanel.setTimelineLabelText("Timeline: not recorded");
+        } else {
+            controlPanel.setTimeline(recorder.getFirstStep(), recorder.getStepCount(), recorder.getPosition());
+            controlPanel.setTimelineLabelText("Timeline: step " + recorder.getPosition() + " of " +
+                                              recorder.getStepCount());
+        }
+        updatingTimeline = false;
     }
 }
@@ -0,0 +1,430 @@
+/*
+ * File:     MazeGrid.java
+ * Author:   Taylor Ecton
+ * Purpose:  Compact, component-free model of a maze. Each cell is identified by an int and its walls
+ *           are packed into the low bits of a single byte, so very large mazes can be generated, solved
+ *           and displayed without creating a component for every cell. How the cells fit together comes
+ *           from a Topology, so the same maze can be square, hexagonal, triangular or polar. The wall
+ *           bytes are kept in a WallStore, which can be on the Java heap or outside it.
+ */
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+public class MazeGrid {
+    // largest traversal weight a cell can have
+    public static final int MAX_WEIGHT = 9;
+    // how the cells fit together
+    private final Topology topology;
+
+    // wall bits for each cell; bit i is set when the wall on side i is present
+    private final WallStore walls;
+
+    // wall bits of a cell with every wall present
+    private final byte allWalls;
+
+    // number of cells
+    private final int cells;
+
+    // state of each cell (see MazeCell constants); the array can be longer than the number of cells
+    private final byte[] states;
+
+    // the same states read eight cells at a time
+    private final ByteBuffer stateWords;
+
+    // cost of entering each cell, or null while every cell costs 1, and the array the weights are kept in
+    // once they are needed, which can be longer than the number of cells
+    private byte[] weights;
+    private byte[] weightStore;
+
+    // listeners notified when cells change
+    private GridListener[] listeners = new GridListener[0];
+
+    /**
+     * Constructor for MazeGrid class that creates a grid of square cells. All walls start out present.
+     * @param rows Number of rows in the grid.
+     * @param columns Number of columns in the grid.
+     */
+    public MazeGrid(int rows, int columns) {
+        this(new SquareTopology(rows, columns));
+    }
+
+    /**
+     * Constructor for MazeGrid class that keeps the walls in an array on the Java heap. All walls start
+     * out present.
+     * @param topology How the cells fit together; cells can have at most 8 sides.
+     */
+    public MazeGrid(Topology topology) {
+        this(topology, new ArrayWallStore(topology.getCellCount()));
+    }
+
+    /**
+     * Constructor for MazeGrid class. All walls start out present.
+     * @param topology How the cells fit together; cells can have at most 8 sides.
+     * @param walls Storage for the walls, with room for every cell of the topology.
+     */
+    public MazeGrid(Topology topology, WallStore walls) {
+        this(topology, walls, new byte[topology.getCellCount()], null);
+        walls.fill(allWalls);
+    }
+
+    /**
+     * Constructor for MazeGrid class that keeps the states and weights in arrays that may be reused from an
+     * earlier grid, such as the ones in a MazeArena. The walls and states are used as they are.
+     * @param topology How the cells fit together; cells can have at most 8 sides.
+     * @param walls Storage for the walls, with room for every cell of the topology.
+     * @param states Array for the states of the cells, at least as long as the number of cells.
+     * @param weightStore Array for the weights once a cell costs more than 1, or null to create one then.
+     */
+    public MazeGrid(Topology topology, WallStore walls, byte[] states, byte[] weightStore) {
+        if (topology.getSides() > 8) {
+            throw new IllegalArgumentException("Too many sides: " + topology.getSides());
+        }
+        if (walls.getCellCount() != topology.getCellCount()) {
+            throw new IllegalArgumentException("Wall storage has " + walls.getCellCount() + " cells, expected "
+                                               + topology.getCellCount());
+        }
+        if (states.length < topology.getCellCount()
+                || weightStore != null && weightStore.length < topology.getCellCount()) {
+            throw new IllegalArgumentException("Arrays too short for " + topology.getCellCount() + " cells");
+        }
+        this.topology = topology;
+        this.allWalls = (byte) ((1 << topology.getSides()) - 1);
+        this.walls = walls;
+        this.cells = topology.getCellCount();
+        this.states = states;
+        this.weightStore = weightStore;
+        stateWords = PackedBytes.wrap(states);
+    }
+
+    /**
+     * Adds a listener that is notified whenever a cell changes.
+     * @param listener The listener to add.
+     */
+    public void addGridListener(GridListener listener) {
+        listeners = Arrays.copyOf(listeners, listeners.length + 1);
+        listeners[listeners.length - 1] = listener;
+    }
+
+    /**
+     * Removes a listener added with addGridListener.
+     * @param listener The listener to remove.
+     */
+    public void removeGridListener(GridListener listener) {
+        for (int i = 0; i < listeners.length; i++) {
+            if (listeners[i] == listener) {
+                GridListener[] remaining = new GridListener[listeners.length - 1];
+                System.arraycopy(listeners, 0, remaining, 0, i);
+                System.arraycopy(listeners, i + 1, remaining, i, remaining.length - i);
+                listeners = remaining;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Gets how the cells of the grid fit together.
+     * @return The topology of the grid.
+     */
+    public Topology getTopology() { return topology; }
+
+    /**
+     * Gets the largest number of sides a cell can have.
+     * @return The number of sides.
+     */
+    public int getSides() { return topology.getSides(); }
+
+    /**
+     * Gets the number of rows in the grid.
+     * @return The number of rows.
+     */
+    public int getRows() { return topology.getRows(); }
+
+    /**
+     * Gets the number of columns in the grid.
+     * @return The number of columns.
+     */
+    public int getColumns() { return topology.getColumns(); }
+
+    /**
+     * Gets the total number of cells in the grid.
+     * @return The number of cells.
+     */
+    public int getCellCount() { return cells; }
+
+    /**
+     * Gets the index of the cell at the given row and column.
+     * @param row Row of the cell.
+     * @param column Column of the cell.
+     * @return The cell index.
+     */
+    public int index(int row, int column) { return topology.index(row, column); }
+
+    /**
+     * Gets the row of a cell.
+     * @param cell The cell index.
+     * @return The row of the cell.
+     */
+    public int row(int cell) { return topology.row(cell); }
+
+    /**
+     * Gets the column of a cell.
+     * @param cell The cell index.
+     * @return The column of the cell.
+     */
+    public int column(int cell) { return topology.column(cell); }
+
+    /**
+     * Gets the state of a cell.
+     * @param cell The cell index.
+     * @return The current state of the cell (see MazeCell constants).
+     */
+    public int getState(int cell) { return states[cell]; }
+
+    /**
+     * Sets the state of a cell.
+     * @param cell The cell index.
+     * @param state The state to set (see MazeCell constants).
+     */
+    public void setState(int cell, int state) {
+        states[cell] = (byte) state;
+        fireCellChanged(cell);
+    }
+
+    /**
+     * Sets every cell to the same state.
+     * @param state The state to set (see MazeCell constants).
+     */
+    public void fillStates(int state) {
+        Arrays.fill(states, 0, cells, (byte) state);
+        fireGridChanged();
+    }
+
+    /**
+     * Copies the states of a run of cells into an array.
+     * @param firstCell The first cell to copy.
+     * @param dst The array to copy into.
+     * @param offset Where in dst to put the first cell.
+     * @param count The number of cells to copy.
+     */
+    public void copyStates(int firstCell, byte[] dst, int offset, int count) {
+        System.arraycopy(states, firstCell, dst, offset, count);
+    }
+
+    /**
+     * Replaces the states of a run of cells from an array, notifying the listeners once.
+     * @param firstCell The first cell to replace.
+     * @param src The array to copy from.
+     * @param offset Where in src the first cell is.
+     * @param count The number of cells to replace.
+     */
+    public void loadStates(int firstCell, byte[] src, int offset, int count) {
+        System.arraycopy(src, offset, states, firstCell, count);
+        fireGridChanged();
+    }
+
+    /**
+     * Finds the first cell of a run whose state differs from the one in an array, such as the states of an
+     * earlier copy of the maze.
+     * @param firstCell The first cell to compare.
+     * @param other The array to compare with.
+     * @param offset Where in other the first cell is.
+     * @param count The number of cells to compare.
+     * @return The first cell that differs, or -1 if they are all the same.
+     */
+    public int findStateDifference(int firstCell, byte[] other, int offset, int count) {
+        int i = PackedBytes.mismatch(stateWords, firstCell, PackedBytes.wrap(other), offset, count);
+        return i < 0 ? -1 : firstCell + i;
+    }
+
+    /**
+     * Gets the cost of entering a cell.
+     * @param cell The cell index.
+     * @return The weight of the cell, from 1 to MAX_WEIGHT.
+     */
+    public int getWeight(int cell) {
+        return weights == null ? 1 : weights[cell];
+    }
+
+    /**
+     * Sets the cost of entering a cell. The weights are only stored once a cell costs more than 1.
+     * @param cell The cell index.
+     * @param weight The weight, from 1 to MAX_WEIGHT.
+     */
+    public void setWeight(int cell, int weight) {
+        if (weight < 1 || weight > MAX_WEIGHT) {
+            throw new IllegalArgumentException("Invalid weight: " + weight);
+        }
+        if (weights == null) {
+            if (weight == 1)
+                return;
+            if (weightStore == null) {
+                weightStore = new byte[cells];
+            }
+            weights = weightStore;
+            Arrays.fill(weights, 0, cells, (byte) 1);
+        }
+        weights[cell] = (byte) weight;
+        fireCellChanged(cell);
+    }
+
+    /**
+     * Tells whether any cell costs more than 1 to enter.
+     * @return True if the maze has weighted terrain.
+     */
+    public boolean isWeighted() { return weights != null; }
+
+    /**
+     * Sets every cell back to costing 1.
+     */
+    public void clearWeights() {
+        weights = null;
+        fireGridChanged();
+    }
+
+    /**
+     * Gets all the wall bits of a cell at once.
+     * @param cell The cell index.
+     * @return The wall bits; bit i is set when wall i is present.
+     */
+    public int getWalls(int cell) { return walls.get(cell); }
+
+    /**
+     * Gets whether there is a wall at the specified side of a cell.
+     * @param cell The cell index.
+     * @param wall The side of the wall.
+     * @return Whether there is a wall there or not.
+     */
+    public boolean hasWall(int cell, int wall) {
+        return (walls.get(cell) & (1 << wall)) != 0;
+    }
+
+    /**
+     * Sets a single wall of a cell without touching the neighbouring cell.
+     * @param cell The cell index.
+     * @param wall The wall to set.
+     * @param value The value to set the wall to.
+     */
+    public void setWall(int cell, int wall, boolean value) {
+        if (value) {
+            walls.set(cell, walls.get(cell) | (1 << wall));
+        } else {
+            walls.set(cell, walls.get(cell) & ~(1 << wall));
+        }
+        fireCellChanged(cell);
+    }
+
+    /**
+     * Sets all the wall bits of a cell at once without touching the neighbouring cells.
+     * @param cell The cell index.
+     * @param walls The wall bits; bit i is set when wall i is present.
+     */
+    public void setWalls(int cell, int walls) {
+        this.walls.set(cell, walls);
+        fireCellChanged(cell);
+    }
+
+    /**
+     * Sets every wall of every cell to the same value.
+     * @param value The value to set the walls to.
+     */
+    public void fillWalls(boolean value) {
+        walls.fill(value ? allWalls : 0);
+        fireGridChanged();
+    }
+
+    /**
+     * Copies the wall bits of a run of cells, such as one floor of a layered maze, into an array.
+     * @param firstCell The first cell to copy.
+     * @param dst The array to copy into.
+     * @param offset Where in dst to put the first cell.
+     * @param count The number of cells to copy.
+     */
+    public void copyWalls(int firstCell, byte[] dst, int offset, int count) {
+        walls.copyTo(firstCell, dst, offset, count);
+    }
+
+    /**
+     * Replaces the wall bits of a run of cells, such as one floor of a layered maze, from an array.
+     * @param firstCell The first cell to replace.
+     * @param src The array to copy from.
+     * @param offset Where in src the first cell is.
+     * @param count The number of cells to replace.
+     */
+    public void loadWalls(int firstCell, byte[] src, int offset, int count) {
+        walls.copyFrom(firstCell, src, offset, count);
+        fireGridChanged();
+    }
+
+    /**
+     * Finds the first cell of a run whose wall bits differ from those in an array, such as the walls of an
+     * earlier copy of the maze.
+     * @param firstCell The first cell to compare.
+     * @param other The array to compare with.
+     * @param offset Where in other the first cell is.
+     * @param count The number of cells to compare.
+     * @return The first cell that differs, or -1 if they are all the same.
+     */
+    public int findWallDifference(int firstCell, byte[] other, int offset, int count) {
+        return walls.mismatch(firstCell, other, offset, count);
+    }
+
+    /**
+     * Finds the first cell at or after a given one with at least a number of walls. Looking for every wall
+     * but one finds the dead ends of a perfect maze many cells at a time.
+     * @param fromCell The first cell to look at.
+     * @param minWalls The number of walls, from 1 to 8.
+     * @return The cell index, or -1 if no later cell has that many walls.
+     */
+    public int findCellWithWalls(int fromCell, int minWalls) { return walls.find(fromCell, minWalls); }
+
+    /**
+     * Gets the cell on the other side of a wall.
+     * @param cell The cell index.
+     * @param wall The wall to look through.
+     * @return The neighbouring cell index, or -1 if the wall is on the edge of the grid.
+     */
+    public int neighbor(int cell, int wall) { return topology.neighbor(cell, wall); }
+
+    /**
+     * Gets the cell that can be reached by moving through a wall.
+     * @param cell The cell index.
+     * @param wall The wall to move through.
+     * @return The neighbouring cell index, or -1 if there is a wall or the edge of the grid.
+     */
+    public int passage(int cell, int wall) {
+        return hasWall(cell, wall) ? -1 : neighbor(cell, wall);
+    }
+
+    /**
+     * Removes the wall between a cell and its neighbour on both sides.
+     * @param cell The cell index.
+     * @param wall The wall to break.
+     */
+    public void breakWall(int cell, int wall) {
+        int next = neighbor(cell, wall);
+        setWall(cell, wall, false);
+        if (next >= 0) {
+            setWall(next, topology.backSide(cell, wall), false);
+        }
+    }
+
+    /**
+     * Notifies the listeners that a cell changed.
+     * @param cell The cell that changed.
+     */
+    private void fireCellChanged(int cell) {
+        for (GridListener listener : listeners) {
+            listener.cellChanged(cell);
+        }
+    }
+
+    /**
+     * Notifies the listeners that the whole grid changed.
+     */
+    private void fireGridChanged() {
+        for (GridListener listener : listeners) {
+            listener.gridChanged();
+        }
+    }
+}
@@ -1,69 +1,85 @@
 /*
  * File:     MazePanel.java
  * Author:   Taylor Ecton
- * Purpose:  Panel containing the actual maze and functions for generating and solving the maze.
- *           Also contains a label for information about the amount of the maze generated/visited.
+ * Purpose:  Panel containing the actual maze and functions for generating and solving the maze, or
+ *           walking through it from the keyboard. Also contains a label for information about the amount
+ *           of the maze generated/visited.
  */
 
 import javax.swing.*;
 import java.awt.*;
-import java.util.ArrayList;
-import java.util.LinkedList;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Random;
 
 public class MazePanel extends JPanel {
     // the maximum number of rows and columns allowable
-    private final int MAX_ROWS = 50;
-    private final int MAX_COLS = 50;
+    public static final int MAX_ROWS = 2000;
+    public static final int MAX_COLS = 2000;
 
-    // number of rows and columns for the current maze
-    private int rows, columns;
+    // the maximum number of rings in a polar maze, which has about twice as many cells as a square maze
+    public static final int MAX_RINGS = 1000;
 
-    // the width and height for the panel
-    private int mazeWidth, mazeHeight;
+    // the maximum number of floors stacked in a maze
+    public static final int MAX_FLOORS = 8;
+
+    // seconds between checkpoints of a generation that is being checkpointed
+    public static final int CHECKPOINT_SECONDS = 60;
+
+    // generation steps between looking at the clock when checkpointing
+    private static final int CHECKPOINT_CHECK_STEPS = 1 << 16;
+
+    // fewest steps between keyframes of a recording, and the memory a recording may use
+    private static final int MIN_KEYFRAME_INTERVAL = 1024;
+    private static final long MAX_RECORDING_BYTES = Math.min(256L << 20, Runtime.getRuntime().maxMemory() / 4);
+
+    // settings for new mazes
+    private MazeSettings settings = new MazeSettings();
+
+    // storage reused by each new maze, its generator and the frames showing it
+    private final MazeArena arena = new MazeArena();
 
     // label with information about percent generated/visited
     private JLabel percentCompleteLabel;
 
-    // values used for calculating percent generated/visited
-    private double totalCells, cellsVisited, percentGenerated, percentVisited;
-
-    // 2D array of maze cells representing the maze
-    private MazeCell[][] maze;
+    // the maze itself, the view that draws it and the publisher that hands copies of it to the view
+    private MazeGrid grid;
+    private MazeView view;
+    private GridPublisher publisher;
 
     // Random number generator for random values needed
-    private Random RNG = new Random(System.currentTimeMillis());
+    private RestorableRandom RNG = new RestorableRandom(System.currentTimeMillis());
+
+    // the generation of the current maze, or null if it hasn't started
+    private GenerationRun generation;
 
-    // list of visited cells used for tidying up path on display
-    private LinkedList<MazeCell> visitedCells;
+    // the solver running on the current maze, or null if there is none
+    private SolveRun solving;
 
-    // queue is used for DFS in both generation and solving
-    private LinkedList<MazeCell> queue = new LinkedList<>();
+    // the user's walk through the current maze, or null if they aren't walking through it
+    private PlayRun playing;
 
-    // 2D boolean array representing whether MazeCells with corresponding indices
-    // have been visited
-    private boolean[][] visited;
+    // file the generation is checkpointed to, or null if it isn't, and when the next checkpoint is due
+    private Path checkpointFile;
+    private long nextCheckpoint;
+    private int stepsUntilClockCheck;
 
-    // the current MazeCell in the generation or solution process
-    private MazeCell curr;
+    // whether runs are recorded for replay, and the recording of the current maze, or null if there is none
+    private boolean recording;
+    private RunRecorder recorder;
 
     /**
      * Constructor for MazePanel class.
      */
     public MazePanel() {
-        // Set the size and background for the panel
+        // Set the size, layout and background for the panel
         this.setPreferredSize(new Dimension(775, 900));
+        this.setLayout(new BorderLayout());
         this.setBackground(Color.LIGHT_GRAY);
         this.setOpaque(true);
 
-        // set initial rows and columns values to MAX_ROWS and MAX_COLS
-        rows = MAX_ROWS;
-        columns = MAX_COLS;
-
-        // sets the width and height for the panel
-        setMazeWidthAndHeight();
-
-        // initializes all the maze cells and adds them to the panel
+        // initializes the view of the maze and adds it to the panel
         initializeMaze();
 
         // initializes the label that shows how much of the maze is generated/visited
@@ -75,19 +91,167 @@ public class MazePanel extends JPanel {
      * Sets the number of rows for the maze.
      * @param rows The new number of rows.
      */
-    public void setRows(int rows) { this.rows = rows; }
+    public void setRows(int rows) { settings.setRows(rows); }
 
     /**
      * Sets the number of columns for the maze.
      * @param columns The new number of columns.
      */
-    public void setColumns(int columns) { this.columns = columns; }
+    public void setColumns(int columns) { settings.setColumns(columns); }
+
+    /**
+     * Sets the shape of the cells for new mazes. Polar mazes use the number of rows as the number of rings.
+     * @param shape The name of the shape (see constants in ControlPanel).
+     */
+    public void setShape(String shape) { settings.setShape(shape); }
+
+    /**
+     * Sets the number of floors for new mazes. Mazes with more than one floor have passages up and down.
+     * @param floors The number of floors.
+     */
+    public void setFloors(int floors) { settings.setFloors(floors); }
+
+    /**
+     * Sets whether new square mazes store their cells in Z-order tiles, which keeps neighbouring cells
+     * close together in memory. The maze looks and behaves the same either way.
+     * @param zOrderLayout True to use the Z-order layout.
+     */
+    public void setZOrderLayout(boolean zOrderLayout) { settings.setZOrderLayout(zOrderLayout); }
+
+    /**
+     * Sets where the walls of new mazes are stored: in an array on the Java heap, in a direct buffer
+     * outside the heap, or in a temporary memory-mapped file that the system can page to disk.
+     * @param storage The name of the storage (see constants in ControlPanel).
+     */
+    public void setStorage(String storage) { settings.setStorage(storage); }
+
+    /**
+     * Seeds the random number generator, so the next maze generated with the same settings is the same.
+     * @param seed The seed.
+     */
+    public void setSeed(long seed) { RNG.setSeed(seed); }
+
+    /**
+     * Sets the algorithm that generates new mazes: depth first, which carves long winding corridors, or
+     * Kruskal's, which knocks down walls in random order and makes many short dead ends.
+     * @param generator The name of the generator (see constants in ControlPanel).
+     */
+    public void setGenerator(String generator) { settings.setGenerator(generator); }
+
+    /**
+     * Sets the file that new generations save a checkpoint to every CHECKPOINT_SECONDS seconds, so that a
+     * run that is killed can carry on with resumeGeneration. The file is deleted once generation finishes.
+     * @param checkpointFile The checkpoint file, or null to not save checkpoints.
+     */
+    public void setCheckpointFile(Path checkpointFile) {
+        this.checkpointFile = checkpointFile;
+        nextCheckpoint = System.nanoTime() + CHECKPOINT_SECONDS * 1000000000L;
+        stepsUntilClockCheck = CHECKPOINT_CHECK_STEPS;
+    }
+
+    /**
+     * Sets whether the generation and solving of new mazes is recorded so it can be replayed.
+     * @param recording True to record new mazes.
+     */
+    public void setRecording(boolean recording) { this.recording = recording; }
+
+    /**
+     * Gets the recording of the current maze. Seeking it shows earlier steps; generating or solving any
+     * further goes back to the latest step first.
+     * @return The recorder, or null if the maze isn't being recorded.
+     */
+    public RunRecorder getRecorder() { return recorder; }
+
+    /**
+     * Gets the number of rows for new mazes.
+     * @return The number of rows.
+     */
+    public int getRows() { return settings.getRows(); }
+
+    /**
+     * Gets the number of columns for new mazes.
+     * @return The number of columns.
+     */
+    public int getColumns() { return settings.getColumns(); }
+
+    /**
+     * Gets the shape of the cells for new mazes.
+     * @return The name of the shape (see constants in ControlPanel).
+     */
+    public String getShape() { return settings.getShape(); }
 
     /**
-     * Gets the current MazeCell in the generation/solution process.
-     * @return The current MazeCell.
+     * Gets the algorithm that generates new mazes.
+     * @return The name of the generator (see constants in ControlPanel).
      */
-    public MazeCell getCurr() { return curr; }
+    public String getGenerator() { return settings.getGenerator(); }
+
+    /**
+     * Gets the number of floors for new mazes.
+     * @return The number of floors.
+     */
+    public int getFloors() { return settings.getFloors(); }
+
+    /**
+     * Shows a different floor of the maze.
+     * @param floor The floor to show, where 0 is the bottom floor.
+     */
+    public void showFloor(int floor) {
+        view.setFloor(floor);
+    }
+
+    /**
+     * Sets the fraction of dead ends to remove once a maze is generated, which adds loops to the maze.
+     * @param braidFraction The fraction of dead ends to remove, from 0 to 1.
+     */
+    public void setBraidFraction(double braidFraction) { settings.setBraidFraction(braidFraction); }
+
+    /**
+     * Sets whether new mazes get random terrain weights for the weighted solvers.
+     * @param weightedTerrain True to assign terrain weights to new mazes.
+     */
+    public void setWeightedTerrain(boolean weightedTerrain) { settings.setWeightedTerrain(weightedTerrain); }
+
+    /**
+     * Sets whether the path should be found while the maze is being generated.
+     * @param solveWhileGenerating True to run the pipelined solver during generation.
+     */
+    public void setSolveWhileGenerating(boolean solveWhileGenerating) {
+        settings.setSolveWhileGenerating(solveWhileGenerating);
+    }
+
+    /**
+     * Tells whether the pipelined solver has found and colored the path.
+     * @return True if the path was found during generation.
+     */
+    public boolean isPathFound() { return generation != null && generation.isPathFound(); }
+
+    /**
+     * Gets the percent generated when the path was found as a String of length no greater than 4.
+     * @return String of the percent generated when the path was found trimmed to length 4.
+     */
+    public String getPercentAtPathFound() {
+        return formatPercent(generation == null ? -1 : generation.getPercentAtPathFound());
+    }
+
+    /**
+     * Gets the current cell in the generation process.
+     * @return The index of the current cell, or -1 if there is none.
+     */
+    public int getCurr() { return generation == null ? -1 : generation.getCurr(); }
+
+    /**
+     * Gets the maze being displayed.
+     * @return The current MazeGrid.
+     */
+    public MazeGrid getGrid() { return grid; }
+
+    /**
+     * Tells whether the solver has nothing left to do, either because it found the end or because it ran
+     * out of cells to explore.
+     * @return True if the solver is finished.
+     */
+    public boolean isSolverFinished() { return solving == null || solving.isFinished(); }
 
     /**
      * Sets the text on the label beneath the maze
@@ -97,22 +261,27 @@ public class MazePanel extends JPanel {
 
     /**
      * Gets the percent generated as a String of length no greater than 4.
-     * @return String of percentGenerated trimmed to length 4.
+     * @return String of the percent generated trimmed to length 4.
      */
     public String getPercentGenerated() {
-        String value = Double.toString(percentGenerated);
-        if (value.length() > 4) {
-            value = value.substring(0, 4);
-        }
-        return value;
+        return formatPercent(generation == null ? 0 : generation.getPercentGenerated());
     }
 
     /**
      * Gets the percent visited as a String of length no greater than 4.
-     * @return String of percentVisited trimmed to length 4.
+     * @return String of the percent visited trimmed to length 4.
      */
     public String getPercentVisited() {
-        String value = Double.toString(percentVisited);
+        return formatPercent(solving == null ? 0 : solving.getCellsVisited() * 100.0 / grid.getCellCount());
+    }
+
+    /**
+     * Formats a percentage as a String of length no greater than 4.
+     * @param percent The percentage.
+     * @return The percentage trimmed to length 4.
+     */
+    private static String formatPercent(double percent) {
+        String value = Double.toString(percent);
         if (value.length() > 4) {
             value = value.substring(0, 4);
         }
@@ -123,70 +292,51 @@ public class MazePanel extends JPanel {
      * Clears the maze to a new maze of dimension rows x columns
      */
     public void clear() {
-        // set all cells that will be part of the new maze to black
-        for (int row = 0; row < rows; row++) {
-            for (int col = 0; col < columns; col++) {
-                for (int wall = 0; wall < 4; wall++) {
-                    maze[row][col].setWall(wall, false);
-                }
-                maze[row][col].setRectangleColor(MazeCell.BACKGROUND);
-            }
-        }
+        // create an empty maze with no walls, reusing the storage of the last one
+        grid = settings.createGrid(arena);
+        grid.fillWalls(false);
+        generation = null;
+        solving = null;
+        recorder = null;
+        stopPlaying();
+
+        // show the new maze in its entirety
+        showGrid();
+    }
 
-        // set all cells outside of the new maze to light grey in the rows dimension
-        for (int row = rows; row < MAX_ROWS; row++) {
-            for (int col = 0; col < MAX_COLS; col++) {
-                for (int wall = 0; wall < 4; wall++) {
-                    maze[row][col].setWall(wall, false);
-                }
-                maze[row][col].setRectangleColor(MazeCell.BACKTRACKED);
-            }
-        }
+    /**
+     * Initializes values for the generation of a new maze. The generation has its own copy of the
+     * settings, so they can be changed for the next maze while this one is generated.
+     */
+    public void newMazeInit() {
+        generation = new GenerationRun(settings, grid, RNG, arena);
+        solving = null;
+        stopPlaying();
+        startRecording();
+    }
 
-        // set all cells outside of the new maze to light grey in the columns dimension
-        for (int row = 0; row < MAX_ROWS; row++) {
-            for (int col = columns; col < MAX_COLS; col++) {
-                for (int wall = 0; wall < 4; wall++) {
-                    maze[row][col].setWall(wall, false);
-                }
-                maze[row][col].setRectangleColor(MazeCell.BACKTRACKED);
-            }
+    /**
+     * Starts recording the current maze from its current state if recording is turned on.
+     */
+    private void startRecording() {
+        if (recorder != null) {
+            grid.removeGridListener(recorder);
+        }
+        recorder = null;
+        if (recording) {
+            int keyframeInterval = Math.max(MIN_KEYFRAME_INTERVAL, grid.getCellCount() / 8);
+            recorder = new RunRecorder(grid, keyframeInterval, MAX_RECORDING_BYTES);
+            grid.addGridListener(recorder);
         }
-        this.repaint();
     }
 
     /**
-     * Initializes values for the generation of a new maze.
+     * Shows the latest recorded step again if an earlier one is being shown, so the run can carry on.
      */
-    public void newMazeInit() {
-        // set the number of cells visited to 0, and the total number of cells to rows * columns
-        cellsVisited = 0.0;
-        totalCells = rows * columns;
-
-        // initialize percentGenerated (to zero)
-        percentGenerated = (cellsVisited / totalCells) * 100;
-
-        // set all cells as not visited
-        visited = new boolean[rows][columns];
-        for (int row = 0; row < rows; row++) {
-            for (int col = 0; col < columns; col++) {
-                visited[row][col] = false;
-            }
+    private void seekToLatestStep() {
+        if (recorder != null) {
+            recorder.seek(recorder.getStepCount());
         }
-
-        // randomly select a cell to start the generation from
-        int currRow = RNG.nextInt(rows);
-        int currCol = RNG.nextInt(columns);
-
-        // Curr is cell N from pseudo-code
-        curr = maze[currRow][currCol];
-
-        // resets the maze walls
-        resetWalls();
-
-        // sets the start to green and the end to red
-        maze[0][0].setRectangleColor(MazeCell.START);
-        maze[rows-1][columns-1].setRectangleColor(MazeCell.END);
     }
 
     /**
@@ -194,124 +344,130 @@ public class MazePanel extends JPanel {
      */
     public void generate() {
         // Continue looping as long as there are still nodes to explore
-        while (curr != null)
+        while (getCurr() >= 0)
             updateMaze();
-
-        percentGenerated = (cellsVisited / totalCells) * 100;
     }
 
     /**
-     * Explores a single node of the maze and finds the next node to explore.
+     * Runs a single step of the generator: explores a single node of the maze depth first, or knocks down
+     * a single wall with Kruskal's algorithm.
      */
     public void updateMaze() {
-        // tracks the coordinates of the current cell
-        int[] currCoords;
-        int currRow, currCol;
-
-        // the coordinates of the next cell to explore
-        Integer[] nextCoords;
-
-        // coordinates of the cells to the top, right, bottom and left of current cell
-        Integer[][] coordsToCheck;
-
-        // ArrayList of valid coordinates adjacent to the current cell
-        ArrayList<Integer[]> neighborCoords;
-
         // return if curr is null; needed for timer in controller
-        if (curr == null)
+        if (getCurr() < 0)
             return;
+        seekToLatestStep();
 
-        // push N onto the queue
-        queue.push(curr);
-
-        // mark N as visited
-        currCoords = curr.getCoords();
-        currRow = currCoords[0];
-        currCol = currCoords[1];
-        visited[currRow][currCol] = true;
-
-        // keep track of number of visited cells
-        cellsVisited++;
-
-        // Randomly select an adjacent cell A of N that has not been visited
-        neighborCoords = new ArrayList<>();
-        while (neighborCoords.isEmpty()) {
-            // initialize all adjacent coordinates
-            coordsToCheck = new Integer[][]{
-                    {currRow - 1, currCol},
-                    {currRow, currCol - 1},
-                    {currRow, currCol + 1},
-                    {currRow + 1, currCol}
-            };
-
-            // check which of the above coordinates correspond to unvisited cells
-            neighborCoords = new ArrayList<>();
-            for (int i = 0; i < 4; i++) {
-                int r = coordsToCheck[i][0];
-                int c = coordsToCheck[i][1];
-
-                if (!(r < 0) && !(r >= rows) && !(c < 0) && !(c >= columns) && !visited[r][c]) {
-                    neighborCoords.add(coordsToCheck[i]);
-                }
-            }
-
-            // if there are no neighbors that haven't been explored
-            if (neighborCoords.isEmpty()) {
-                if (queue.isEmpty()) {
-                    curr = null;
-                    break;
-                }
-                // pop off the stack until one with a valid neighbor is found
-                curr = queue.pop();
-                currCoords = curr.getCoords();
-                currRow = currCoords[0];
-                currCol = currCoords[1];
-            }
+        generation.step();
+        if (generation.isFinished()) {
+            deleteCheckpoint();
+        } else if (checkpointFile != null && --stepsUntilClockCheck == 0) {
+            checkpointIfDue();
         }
 
-        // if there is a neighbor
-        if (!neighborCoords.isEmpty()) {
-            // choose one at random
-            int neighbor = RNG.nextInt(neighborCoords.size());
-            nextCoords = neighborCoords.get(neighbor);
+        if (recorder != null) {
+            recorder.endStep();
+        }
+    }
 
-            // move to the random neighbor that was selected
-            breakWalls(currRow, currCol, nextCoords[0], nextCoords[1]);
+    /**
+     * Deletes the checkpoint of a generation that has finished.
+     */
+    private void deleteCheckpoint() {
+        if (checkpointFile != null) {
+            try {
+                Files.deleteIfExists(checkpointFile);
+            } catch (IOException e) {
+                System.err.println("Could not delete checkpoint: " + e.getMessage());
+            }
         }
+    }
 
-        // update the percent generated
-        percentGenerated = (cellsVisited / totalCells) * 100;
+    /**
+     * Saves a checkpoint if CHECKPOINT_SECONDS have passed since the last one. A checkpoint that can't be
+     * saved is reported and generation carries on.
+     */
+    private void checkpointIfDue() {
+        stepsUntilClockCheck = CHECKPOINT_CHECK_STEPS;
+        if (System.nanoTime() - nextCheckpoint < 0)
+            return;
+        try {
+            saveCheckpoint(checkpointFile);
+        } catch (IOException e) {
+            System.err.println("Could not save checkpoint: " + e.getMessage());
+        }
+        nextCheckpoint = System.nanoTime() + CHECKPOINT_SECONDS * 1000000000L;
     }
 
     /**
-     * Initializes variables when solving the maze.
+     * Saves everything needed to carry on generating the current maze (see GenerationRun.saveCheckpoint).
+     * The previous checkpoint in the file is only replaced once the new one is complete.
+     * @param file The checkpoint file.
+     * @throws IOException If the checkpoint can't be written.
      */
-    public void initSolver() {
-        // set cellsVisited to zero and initialze totalCells
-        cellsVisited = 0.0;
-        totalCells = rows * columns;
+    public void saveCheckpoint(Path file) throws IOException {
+        if (getCurr() < 0) {
+            throw new IllegalStateException("No maze is being generated");
+        }
+        generation.saveCheckpoint(file);
+    }
 
-        // initialize percentVisited to zero
-        percentVisited = (cellsVisited / totalCells) * 100;
+    /**
+     * Loads a checkpoint saved by saveCheckpoint and shows the partly generated maze, ready to carry on with
+     * updateMaze or generate. The settings for new mazes become the ones the checkpoint was made with. If
+     * the checkpoint can't be loaded nothing changes.
+     * @param file The checkpoint file.
+     * @throws IOException If the checkpoint can't be read or isn't valid.
+     */
+    public void resumeGeneration(Path file) throws IOException {
+        generation = GenerationRun.resume(file, RNG);
+        settings = generation.getSettings();
+        grid = generation.getGrid();
+        solving = null;
+        stopPlaying();
+
+        // keep checkpointing to the same file, and record from here on
+        setCheckpointFile(file);
+        recorder = null;
+        startRecording();
+
+        showGrid();
+    }
 
-        // initialize new linked list for visited cells
-        visitedCells = new LinkedList<>();
+    /**
+     * Shows the current maze in the view, publishing it from now on.
+     */
+    private void showGrid() {
+        if (publisher != null) {
+            publisher.dispose();
+        }
+        publisher = new GridPublisher(grid, arena);
+        view.setPublisher(publisher);
+        publish();
+    }
 
-        // initialize the queue to a new linked list
-        queue = new LinkedList<>();
+    /**
+     * Shows the changes made to the maze since the last call. The maze is copied into a frame that the view
+     * picks up the next time it paints, so neither the thread changing the maze nor the one painting it
+     * waits for the other. Must be called on the thread that changes the maze.
+     */
+    public void publish() {
+        publisher.publish();
+        view.repaint();
+    }
 
-        // mark all cells as unvisited
-        visited = new boolean[rows][columns];
-        for (int row = 0; row < rows; row++) {
-            for (int col = 0; col < columns; col++) {
-                visited[row][col] = false;
-            }
+    /**
+     * Initializes variables when solving the maze.
+     * @param solverName The solver to run on the maze (see constants in ControlPanel).
+     */
+    public void initSolver(String solverName) {
+        // start the solver at the start cell of the finished maze, without the colors of the user's walk
+        seekToLatestStep();
+        if (playing != null) {
+            grid.fillStates(MazeCell.UNVISITED);
+            stopPlaying();
         }
-
-        // set current cell to top left cell
-        int currRow = 0;
-        int currCol = 0;
-        curr = maze[currRow][currCol];
+        solving = new SolveRun(grid, solverName);
     }
 
     /**
@@ -319,267 +475,193 @@ public class MazePanel extends JPanel {
      */
     public void solve() {
         // loop until the end of the maze is found
-        while(curr != null && !(curr.getRectangleColor() == MazeCell.END)) {
+        while (!isSolverFinished()) {
             updateSolver();
         }
-
-        // fixes cells on the path that are colored incorrectly after popping off stack
-        fixGreyBlocks();
     }
 
     /**
-     * Choose the next cell to explore in the solver.
+     * Runs a single step of the solver. The parallel breadth first search solves the whole maze in one step.
      */
     public void updateSolver() {
-        // coordinates of the current cell
-        int[] currCoords;
-        int currRow, currCol;
-
-        // the next cell to look at
-        MazeCell next;
-
-        // coordinates of the next cell
-        Integer[] nextCoords;
-        int nextRow, nextCol;
-
-        // Adjacent coordinates to current cell
-        Integer[][] coordsToCheck;
-
-        // ArrayList of valid adjacent coordinates (i.e. that aren't blocked by a wall or visited)
-        ArrayList<Integer[]> neighborCoords;
-
-        // return if there is no current cell or the current cell is the end of the maze
-        if ((curr == null) || (curr.getRectangleColor() == MazeCell.END))
+        // return if there is no solver or it is finished
+        if (isSolverFinished())
             return;
+        seekToLatestStep();
 
-        // push the current cell onto the list of visited cells
-        visitedCells.push(curr);
-
-        // push N onto the queue
-        queue.push(curr);
-
-        // mark N as visited
-        currCoords = curr.getCoords();
-        currRow = currCoords[0];
-        currCol = currCoords[1];
-        visited[currRow][currCol] = true;
-
-        // track the number of cells visited
-        cellsVisited++;
-
-        // set each cell to visited color when visited (leaving initial cell green)
-        if (!(curr.getCoords()[0] == 0 && curr.getCoords()[1] == 0))
-            curr.setRectangleColor(MazeCell.VISITED);
-
-        // Randomly select an adjacent cell A of N that has not been visited
-        neighborCoords = new ArrayList<>();
-        while (neighborCoords.isEmpty()) {
-            // all adjacent coordinates to current cell
-            coordsToCheck = new Integer[][]{
-                    {currRow - 1, currCol}, // top
-                    {currRow, currCol + 1}, // right
-                    {currRow + 1, currCol}, // bottom
-                    {currRow, currCol - 1} // left
-            };
-
-            // create an ArrayList of adjacent cells that can be visited
-            neighborCoords = new ArrayList<>();
-            for (int i = 0; i < 4; i++) {
-                int r = coordsToCheck[i][0];
-                int c = coordsToCheck[i][1];
-
-                if (!(r < 0) && !(r >= rows) && !(c < 0) && !(c >= columns) && !visited[r][c]
-                        && !curr.getWall(i)) {
-                    neighborCoords.add(coordsToCheck[i]);
-                }
-            }
+        solving.step();
+        if (recorder != null) {
+            recorder.endStep();
+        }
+    }
 
-            // if there are no neighbors, pop off the stack until one with neighbors is found
-            if (neighborCoords.isEmpty()) {
-                if (queue.isEmpty()) {
-                    curr = null;
-                    break;
-                }
-                curr = queue.pop();
-                if (!(curr.getCoords()[0] == 0 && curr.getCoords()[1] == 0))
-                    curr.setRectangleColor(MazeCell.BACKTRACKED);
-                currCoords = curr.getCoords();
-                currRow = currCoords[0];
-                currCol = currCoords[1];
-            }
+    /**
+     * Re-carves a rectangle of the finished maze with new corridors, leaving the rest of the maze as it is
+     * and keeping it perfect. A finished solve has its path repaired across the new corridors instead of
+     * being run again. Ends the user's walk through the maze. Recorded as a single step.
+     * @param firstRow The first row of the rectangle.
+     * @param firstColumn The first column of the rectangle.
+     * @param lastRow The last row of the rectangle.
+     * @param lastColumn The last column of the rectangle.
+     * @param seed The seed the rectangle is carved with.
+     * @throws IllegalStateException If the maze isn't finished or is braided, or a solver is still running.
+     */
+    public void recarveRegion(int firstRow, int firstColumn, int lastRow, int lastColumn, long seed) {
+        if (generation == null || !generation.isFinished()) {
+            throw new IllegalStateException("The maze isn't finished");
+        }
+        if (generation.getSettings().getBraidFraction() > 0) {
+            throw new IllegalStateException("Only perfect mazes can be re-carved");
         }
+        if (!isSolverFinished()) {
+            throw new IllegalStateException("A solver is still running");
+        }
+        seekToLatestStep();
+        stopPlaying();
 
-        // if there is at least one neighbor, select the next cell
-        if (!neighborCoords.isEmpty()) {
-            nextCoords = neighborCoords.get(0);
-            nextRow = nextCoords[0];
-            nextCol = nextCoords[1];
-            next = maze[nextRow][nextCol];
+        Random regionRNG = new Random(seed);
+        if (solving != null) {
+            solving.recarve(firstRow, firstColumn, lastRow, lastColumn, regionRNG);
+        } else {
+            RegionCarver.recarve(grid, firstRow, firstColumn, lastRow, lastColumn, regionRNG, null);
+        }
+        if (recorder != null) {
+            recorder.endStep();
+        }
+    }
 
-            curr = next;
+    /**
+     * Starts the user walking through the finished maze from its start cell, taking the solver colors off
+     * it and dropping any solver that hasn't finished. Recorded as a single step.
+     * @throws IllegalStateException If the maze isn't finished.
+     */
+    public void startPlaying() {
+        if (generation == null || !generation.isFinished()) {
+            throw new IllegalStateException("The maze isn't finished");
         }
+        seekToLatestStep();
 
-        // update the percentVisited
-        percentVisited = (cellsVisited / totalCells) * 100;
-    }
-
-    /**
-     * Fixes cells that get set to grey when backtracking that are actually on the solution path.
-     */
-    public void fixGreyBlocks() {
-        // for all visited cells
-        for (MazeCell cell : visitedCells) {
-            // current cell coordinates
-            int[] coords = cell.getCoords();
-            int row = coords[0];
-            int col = coords[1];
-
-            // adjacent coordinates
-            int[][] adjacentCoords;
-
-            // number of adjacent cells on the path; all cells on the path except for the initial and final
-            // cell should have exactly two adjacent cells on the path
-            int adjacentBlues;
-
-            // only check cells that are the visited color and are not the initial cell
-            if (cell.getRectangleColor() == MazeCell.VISITED && !(row == 0 && col == 0)) {
-                adjacentCoords = new int[][]{
-                        {row - 1, col}, // top
-                        {row, col + 1}, // right
-                        {row + 1, col}, // bottom
-                        {row, col - 1}  // left
-                };
-
-                // initialize adjacent cells on path to zero
-                adjacentBlues = 0;
-
-                // check adjacent cells incrementing adjacentBlues for each one found on the path
-                for (int i = 0; i < 4; i++) {
-                    int r = adjacentCoords[i][0];
-                    int c = adjacentCoords[i][1];
-
-                    if (!cell.getWall(i) && !(r < 0) && !(r >= rows) && !(c < 0) && !(c >= columns) &&
-                            (maze[r][c].getRectangleColor() == MazeCell.VISITED ||
-                                    maze[r][c].getRectangleColor() == MazeCell.BACKGROUND ||
-                            maze[r][c].getRectangleColor() == MazeCell.START))
-                        adjacentBlues++;
-                }
-
-                // if there are less than 2, there's a grey adjacent cell that should be blue
-                if (adjacentBlues < 2) {
-                    for (int i = 0; i < 4; i++) {
-                        int r = adjacentCoords[i][0];
-                        int c = adjacentCoords[i][1];
-
-                        // set the cell that's on the solution path that is grey to blue
-                        if (!cell.getWall(i) && !(r < 0) && !(r >= rows) && !(c < 0) && !(c >= columns) &&
-                                maze[r][c].getRectangleColor() == MazeCell.BACKTRACKED &&
-                                !(r == 0 && c == 0))
-                            maze[r][c].setRectangleColor(MazeCell.VISITED);
-                    }
-                }
-            }
+        solving = null;
+        playing = new PlayRun(grid);
+        if (recorder != null) {
+            recorder.endStep();
         }
+        view.setPlayerCell(playing.getCurrent());
+        publish();
+
+        // take the arrow keys away from whichever slider or list had them
+        setFocusable(true);
+        requestFocusInWindow();
     }
 
     /**
-     * Sets the width and height for the panel.
+     * Gets the user's walk through the maze.
+     * @return The walk, or null if the user isn't walking through the maze.
+     */
+    public PlayRun getPlayRun() { return playing; }
+
+    /**
+     * Gets the floor the user is on.
+     * @return The floor, where 0 is the bottom floor.
      */
-    private void setMazeWidthAndHeight() {
-        mazeWidth = rows * 15;
-        mazeHeight = columns * 15;
+    public int getPlayerFloor() {
+        Topology topology = grid.getTopology();
+        if (playing == null || !(topology instanceof LayeredTopology))
+            return 0;
+        return ((LayeredTopology) topology).floor(playing.getCurrent());
     }
 
     /**
-     * Constructs new MazeCells and adds them to the panel when constructor is called.
+     * Moves the user to the neighbouring cell that lies most nearly in a direction on the screen, if a
+     * passage leads there.
+     * @param dx How far right the direction goes.
+     * @param dy How far down the direction goes.
+     * @return True if the user moved.
      */
-    private void initializeMaze() {
-        // create the panel
-        JPanel topPanel = new JPanel();
-        topPanel.setPreferredSize(new Dimension(mazeWidth, mazeHeight));
-        topPanel.setLayout(new GridLayout(rows, columns, 0, 0));
-
-        // create all the MazeCells
-        maze = new MazeCell[rows][columns];
-        for (int row = 0; row < rows; row++) {
-            for (int column = 0; column < columns; column++) {
-                maze[row][column] = new MazeCell(15, row, column);
-                topPanel.add(maze[row][column]);
-            }
-        }
+    public boolean movePlayer(double dx, double dy) {
+        return playing != null && movePlayer(playing.findSide(dx, dy));
+    }
 
-        // add the maze to the parent panel
-        this.add(topPanel, BorderLayout.NORTH);
+    /**
+     * Moves the user up or down the stairs of the cell they are in, if there are any.
+     * @param up True to go up, false to go down.
+     * @return True if the user moved.
+     */
+    public boolean climbPlayer(boolean up) {
+        return playing != null && movePlayer(playing.findStairs(up));
     }
 
     /**
-     * Initializes the percentCompleteLabel in a JPanel.
+     * Moves the user through a side of the cell they are in and shows the move. Only the cells that changed
+     * are repainted, rather than the whole view, so a move shows up in the next frame however large the
+     * maze is. Recorded as a single step.
+     * @param side The side to move through, or -1 to stay put.
+     * @return True if the user moved.
      */
-    private void initializeBottom() {
-        // create the panel for the label
-        JPanel bottomPanel = new JPanel();
-        bottomPanel.setPreferredSize(new Dimension(775, 900-mazeHeight));
+    private boolean movePlayer(int side) {
+        if (side < 0)
+            return false;
+        seekToLatestStep();
+        if (!playing.move(side))
+            return false;
+        if (recorder != null) {
+            recorder.endStep();
+        }
 
-        // add the label
-        percentCompleteLabel = new JLabel();
-        bottomPanel.add(percentCompleteLabel, BorderLayout.SOUTH);
+        publisher.publish();
+        for (int i = 0; i < playing.getChangedCount(); i++) {
+            view.repaintCell(playing.getChangedCell(i));
+        }
+        view.setPlayerCell(playing.getCurrent());
+        return true;
+    }
 
-        // add bottomPanel to the parent MazePanel
-        this.add(bottomPanel, BorderLayout.SOUTH);
+    /**
+     * Ends the user's walk through the maze and hides the marker showing where they are.
+     */
+    private void stopPlaying() {
+        playing = null;
+        view.setPlayerCell(-1);
     }
 
     /**
-     * Sets all the walls for all the cells to true.
+     * Checks that the maze is a perfect maze and measures it. The latest recorded step is shown first so
+     * the whole maze is checked.
+     * @return The statistics of the maze.
      */
-    private void resetWalls() {
-        for (int row = 0; row < rows; row++) {
-            for (int col = 0; col < columns; col++) {
-                for (int wall = 0; wall < 4; wall++) {
-                    maze[row][col].setWall(wall, true);
-                }
-            }
-        }
+    public MazeStatistics computeStatistics() {
+        seekToLatestStep();
+        return MazeStatistics.compute(grid, grid.getTopology().getStartCell(), grid.getTopology().getEndCell());
     }
 
     /**
-     * Break through a wall into the next cell.
-     * @param currRow Row of the current cell.
-     * @param currCol Column of the current cell.
-     * @param nextRow Row of the next cell.
-     * @param nextCol Column of the next cell.
+     * Creates the view of the maze and adds it to the panel when constructor is called.
      */
-    private void breakWalls(int currRow, int currCol, int nextRow, int nextCol) {
-        // the next cell
-        MazeCell next;
+    private void initializeMaze() {
+        // create the view
+        view = new MazeView();
+        view.setPreferredSize(new Dimension(775, 850));
 
-        // the wall on the current and next cell
-        int currWall, nextWall;
+        // add the view to the parent panel
+        this.add(view, BorderLayout.CENTER);
 
-        next = maze[nextRow][nextCol];
+        // start with an empty maze
+        clear();
+    }
 
-        // Break walls between cells
-        if (nextRow == currRow) {
-            if (nextCol == currCol - 1) {
-                currWall = MazeCell.LEFT;
-                nextWall = MazeCell.RIGHT;
-            } else {
-                currWall = MazeCell.RIGHT;
-                nextWall = MazeCell.LEFT;
-            }
-        } else {
-            if (nextRow == currRow - 1) {
-                currWall = MazeCell.TOP;
-                nextWall = MazeCell.BOTTOM;
-            } else {
-                currWall = MazeCell.BOTTOM;
-                nextWall = MazeCell.TOP;
-            }
-        }
+    /**
+     * Initializes the percentCompleteLabel in a JPanel.
+     */
+    private void initializeBottom() {
+        // create the panel for the label
+        JPanel bottomPanel = new JPanel();
+        bottomPanel.setPreferredSize(new Dimension(775, 50));
 
-        curr.setWall(currWall, false);
-        next.setWall(nextWall, false);
+        // add the label
+        percentCompleteLabel = new JLabel();
+        bottomPanel.add(percentCompleteLabel, BorderLayout.SOUTH);
 
-        // update curr to the next cell
-        curr = next;
+        // add bottomPanel to the parent MazePanel
+        this.add(bottomPanel, BorderLayout.SOUTH);
     }
 }
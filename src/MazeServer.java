@@ -0,0 +1,591 @@
+/*
+ * File:     MazeServer.java
+ * Author:   Taylor Ecton
+ * Purpose:  Serves mazes over HTTP without the Swing window, so many clients can share one JVM. Run it with
+ *
+ *               java -Djava.awt.headless=true MazeServer [port]
+ *
+ *           and ask for /generate, /solve or /export with the maze in the query string, for example
+ *           /solve?shape=hexagonal&rows=200&columns=300&seed=7&solver=bfs. Responses are streamed in chunks
+ *           as they are written, so even the largest mazes never need a second copy in memory. Requests for
+ *           the same seeded maze that arrive while it is still being made wait for that one computation
+ *           instead of starting their own. Requests run on virtual threads when the JVM has them.
+ */
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+public class MazeServer {
+    // port used when none is given
+    public static final int DEFAULT_PORT = 8080;
+
+    // bytes written to a response at a time
+    private static final int CHUNK_SIZE = 1 << 16;
+
+    /**
+     * A maze asked for by a request, read from its query string.
+     */
+    static class MazeRequest {
+        String shape = ControlPanel.SQUARE_SHAPE;
+        String generator = ControlPanel.DFS_GENERATOR;
+        int rows = 50, columns = 50, floors = 1, braidPercent;
+        boolean weighted;
+        long seed;
+
+        /**
+         * Gets a key that is the same for every request that asks for the same maze.
+         * @return The key.
+         */
+        String key() {
+            return shape + '/' + generator + '/' + rows + 'x' + columns + 'x' + floors + '/' + braidPercent + '/'
+                    + weighted + '/' + seed;
+        }
+
+        /**
+         * Gets the settings to generate the maze with.
+         * @return New settings for the maze.
+         */
+        MazeSettings toSettings() {
+            MazeSettings settings = new MazeSettings();
+            settings.setShape(shape);
+            settings.setGenerator(generator);
+            settings.setRows(rows);
+            settings.setColumns(columns);
+            settings.setFloors(floors);
+            settings.setBraidFraction(braidPercent / 100.0);
+            settings.setWeightedTerrain(weighted);
+            return settings;
+        }
+    }
+
+    /**
+     * A path found through a maze by a solver.
+     */
+    static class Solution {
+        // the cells from the start to the end, or empty if the end can't be reached
+        final int[] path;
+
+        // the number of cells the solver reached
+        final int cellsVisited;
+
+        Solution(int[] path, int cellsVisited) {
+            this.path = path;
+            this.cellsVisited = cellsVisited;
+        }
+    }
+
+    // the server and the threads requests run on
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    // computations still running, by the key of what they compute; requests for the same key wait for them
+    private final ConcurrentHashMap<String, CompletableFuture<MazeSnapshot>> generating = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, CompletableFuture<Solution>> solving = new ConcurrentHashMap<>();
+
+    // limits the mazes being generated or solved at once to the number of processors
+    private final Semaphore computeSlots = new Semaphore(Runtime.getRuntime().availableProcessors());
+
+    // number of computations run and number of requests that shared one that was already running
+    private final AtomicLong computations = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    /**
+     * Constructor for MazeServer class. The server doesn't accept requests until start is called.
+     * @param port The port to listen on, or 0 for any free port.
+     * @throws IOException If the port can't be opened.
+     */
+    public MazeServer(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(port), 0);
+        executor = createExecutor();
+        server.setExecutor(executor);
+        server.createContext("/generate", exchange -> handle(exchange, "generate"));
+        server.createContext("/solve", exchange -> handle(exchange, "solve"));
+        server.createContext("/export", exchange -> handle(exchange, "export"));
+        server.createContext("/stats", exchange -> handle(exchange, "stats"));
+    }
+
+    /**
+     * Starts the server.
+     * @param args Optional port number.
+     * @throws IOException If the port can't be opened.
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        MazeServer mazeServer = new MazeServer(port);
+        mazeServer.start();
+        System.out.println("Serving mazes on port " + mazeServer.getPort());
+    }
+
+    /**
+     * Starts accepting requests.
+     */
+    public void start() { server.start(); }
+
+    /**
+     * Stops accepting requests and waits up to a second for the ones being answered.
+     */
+    public void stop() {
+        server.stop(1);
+        executor.shutdown();
+    }
+
+    /**
+     * Gets the port the server listens on.
+     * @return The port.
+     */
+    public int getPort() { return server.getAddress().getPort(); }
+
+    /**
+     * Gets the number of mazes generated and solved so far.
+     * @return The number of computations.
+     */
+    public long getComputations() { return computations.get(); }
+
+    /**
+     * Gets the number of requests answered with a computation another request had already started.
+     * @return The number of coalesced requests.
+     */
+    public long getCoalesced() { return coalesced.get(); }
+
+    /**
+     * Answers a request, or sends an error if its query is invalid or the answer can't be computed.
+     * @param exchange The request and response.
+     * @param action The kind of request: generate, solve, export or stats.
+     * @throws IOException If the response can't be sent.
+     */
+    private void handle(HttpExchange exchange, String action) throws IOException {
+        try {
+            if (!exchange.getRequestMethod().equals("GET")) {
+                sendError(exchange, 405, "Only GET is supported");
+                return;
+            }
+            Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+            switch (action) {
+                case "generate":
+                    sendWalls(exchange, parseMaze(query));
+                    break;
+                case "solve":
+                    sendPath(exchange, parseMaze(query), parseSolver(query));
+                    break;
+                case "export":
+                    sendSvg(exchange, parseMaze(query), query.containsKey("solver") ? parseSolver(query) : null,
+                            parseInt(query, "floor", 0, 0, MazePanel.MAX_FLOORS - 1));
+                    break;
+                case "stats":
+                    sendText(exchange, "computations " + getComputations() + "\ncoalesced " + getCoalesced() + "\n");
+                    break;
+                default:
+                    throw new IllegalStateException("Unexpected string in handle: " + action);
+            }
+        } catch (IllegalArgumentException e) {
+            sendError(exchange, 400, e.getMessage());
+        } catch (RuntimeException | Error e) {
+            // a failure while generating, solving or drawing fails this request only; the server carries on
+            System.err.println("Could not answer " + exchange.getRequestURI() + ": " + e);
+            sendError(exchange, 500, "Internal error: " + e);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Streams the wall bits of a maze, one byte per cell in cell order.
+     * @param exchange The request and response.
+     * @param request The maze.
+     * @throws IOException If the response can't be sent.
+     */
+    private void sendWalls(HttpExchange exchange, MazeRequest request) throws IOException {
+        MazeSnapshot maze = generate(exchange, request);
+        exchange.getResponseHeaders().set("Content-Type", "application/octet-stream");
+        exchange.sendResponseHeaders(200, 0);
+        OutputStream out = exchange.getResponseBody();
+        byte[] chunk = new byte[Math.min(CHUNK_SIZE, maze.getCellCount())];
+        for (int cell = 0; cell < maze.getCellCount(); cell += chunk.length) {
+            int count = Math.min(chunk.length, maze.getCellCount() - cell);
+            maze.copyWalls(cell, chunk, 0, count);
+            out.write(chunk, 0, count);
+        }
+    }
+
+    /**
+     * Streams the path through a maze, one cell index per line from the start to the end.
+     * @param exchange The request and response.
+     * @param request The maze.
+     * @param solverName The solver to use (see constants in ControlPanel).
+     * @throws IOException If the response can't be sent.
+     */
+    private void sendPath(HttpExchange exchange, MazeRequest request, String solverName) throws IOException {
+        MazeSnapshot maze = generate(exchange, request);
+        Solution solution = solve(exchange, request, maze, solverName);
+        exchange.getResponseHeaders().set("X-Maze-Path-Length", Integer.toString(solution.path.length));
+        exchange.getResponseHeaders().set("X-Maze-Cells-Visited", Integer.toString(solution.cellsVisited));
+        try (Writer out = openText(exchange, "text/plain")) {
+            for (int cell : solution.path) {
+                out.write(Integer.toString(cell));
+                out.write('\n');
+            }
+        }
+    }
+
+    /**
+     * Streams a floor of a maze as an SVG drawing, with the path drawn over it if a solver is given.
+     * @param exchange The request and response.
+     * @param request The maze.
+     * @param solverName The solver to use (see constants in ControlPanel), or null to draw no path.
+     * @param floor The floor to draw.
+     * @throws IOException If the response can't be sent.
+     */
+    private void sendSvg(HttpExchange exchange, MazeRequest request, String solverName, int floor)
+            throws IOException {
+        if (floor >= request.floors) {
+            throw new IllegalArgumentException("Invalid floor: " + floor);
+        }
+        MazeSnapshot maze = generate(exchange, request);
+        Solution solution = solverName == null ? null : solve(exchange, request, maze, solverName);
+
+        Topology topology = maze.getTopology();
+        int floorCells = maze.getCellCount() / request.floors;
+        double[] xy = new double[4];
+        try (Writer out = openText(exchange, "image/svg+xml")) {
+            double margin = 0.5;
+            out.write("<svg xmlns=\"http://www.w3.org/2000/svg\" viewBox=\"" + -margin + " " + -margin + " "
+                      + (topology.getWidth() + 2 * margin) + " " + (topology.getHeight() + 2 * margin) + "\">\n");
+            out.write("<rect x=\"" + -margin + "\" y=\"" + -margin + "\" width=\"100%\" height=\"100%\" "
+                      + "fill=\"white\"/>\n");
+
+            // every wall once, from the lower numbered cell or from the cell on the edge
+            out.write("<path fill=\"none\" stroke=\"black\" stroke-width=\"0.1\" stroke-linecap=\"round\" d=\"");
+            StringBuilder line = new StringBuilder();
+            for (int cell = floor * floorCells; cell < (floor + 1) * floorCells; cell++) {
+                for (int side = 0; side < maze.getSides(); side++) {
+                    int next = topology.neighbor(cell, side);
+                    if (maze.hasWall(cell, side) && (next < 0 || next > cell) && topology.getSide(cell, side, xy)) {
+                        line.setLength(0);
+                        line.append('M').append(round(xy[0])).append(' ').append(round(xy[1]))
+                            .append('L').append(round(xy[2])).append(' ').append(round(xy[3]));
+                        out.append(line);
+                    }
+                }
+            }
+            out.write("\"/>\n");
+
+            // the path through the centers of its cells, broken where it changes floor
+            if (solution != null) {
+                out.write("<path fill=\"none\" stroke=\"blue\" stroke-width=\"0.3\" stroke-linejoin=\"round\" "
+                          + "d=\"");
+                boolean drawing = false;
+                for (int cell : solution.path) {
+                    if (cell / floorCells != floor) {
+                        drawing = false;
+                        continue;
+                    }
+                    topology.getCenter(cell, xy);
+                    line.setLength(0);
+                    line.append(drawing ? 'L' : 'M').append(round(xy[0])).append(' ').append(round(xy[1]));
+                    out.append(line);
+                    drawing = true;
+                }
+                out.write("\"/>\n");
+            }
+            out.write("</svg>\n");
+        }
+    }
+
+    /**
+     * Gets a generated maze, waiting for another request that is already generating it if there is one.
+     * @param exchange The request, which is told whether the maze was shared.
+     * @param request The maze.
+     * @return The maze, which other requests may be reading at the same time.
+     */
+    private MazeSnapshot generate(HttpExchange exchange, final MazeRequest request) {
+        MazeSnapshot maze = coalesce(exchange, generating, request.key(), new Supplier<MazeSnapshot>() {
+            @Override
+            public MazeSnapshot get() { return generateMaze(request); }
+        });
+        exchange.getResponseHeaders().set("X-Maze-Seed", Long.toString(request.seed));
+        exchange.getResponseHeaders().set("X-Maze-Cells", Integer.toString(maze.getCellCount()));
+        exchange.getResponseHeaders().set("X-Maze-Sides", Integer.toString(maze.getSides()));
+        exchange.getResponseHeaders().set("X-Maze-Start", Integer.toString(maze.getTopology().getStartCell()));
+        exchange.getResponseHeaders().set("X-Maze-End", Integer.toString(maze.getTopology().getEndCell()));
+        return maze;
+    }
+
+    /**
+     * Solves a generated maze, waiting for another request that is already solving it if there is one. The
+     * solver runs on a copy of the maze so the shared maze is never changed.
+     * @param exchange The request, which is told whether the solution was shared.
+     * @param request The maze.
+     * @param maze The generated maze.
+     * @param solverName The solver to use (see constants in ControlPanel).
+     * @return The solution.
+     */
+    private Solution solve(HttpExchange exchange, MazeRequest request, final MazeSnapshot maze,
+                           final String solverName) {
+        return coalesce(exchange, solving, request.key() + '/' + solverName, new Supplier<Solution>() {
+            @Override
+            public Solution get() { return solveMaze(maze, solverName); }
+        });
+    }
+
+    /**
+     * Generates a maze in a run of its own, without a window. Each call has its own grid and random number
+     * generator, so calls can run on any number of threads at once.
+     * @param request The maze.
+     * @return The finished maze.
+     */
+    static MazeSnapshot generateMaze(MazeRequest request) {
+        MazeSettings settings = request.toSettings();
+        GenerationRun run = new GenerationRun(settings, settings.createGrid(), new RestorableRandom(request.seed));
+        run.generate();
+        return run.snapshot();
+    }
+
+    /**
+     * Solves a maze from its start cell to its end cell. The solver colors a grid of its own made from the
+     * snapshot, so any number of threads can solve the same maze at once.
+     * @param maze The maze.
+     * @param solverName The solver to use (see constants in ControlPanel).
+     * @return The solution.
+     */
+    static Solution solveMaze(MazeSnapshot maze, String solverName) {
+        SolveRun run = new SolveRun(maze.createGrid(), solverName);
+        run.solve();
+        return new Solution(run.getPath(), run.getCellsVisited());
+    }
+
+    /**
+     * Runs a computation, or waits for the same computation if another request is already running it.
+     * Only computations that are running at the same time are shared; nothing is kept once they finish.
+     * @param exchange The request, which is given a header telling whether the result was shared.
+     * @param running The computations running, by key.
+     * @param key The key of the computation.
+     * @param computation The computation.
+     * @return The result of the computation.
+     */
+    private <T> T coalesce(HttpExchange exchange, ConcurrentHashMap<String, CompletableFuture<T>> running,
+                           String key, Supplier<T> computation) {
+        CompletableFuture<T> created = new CompletableFuture<>();
+        CompletableFuture<T> existing = running.putIfAbsent(key, created);
+        if (existing != null) {
+            coalesced.incrementAndGet();
+            exchange.getResponseHeaders().add("X-Maze-Coalesced", "true");
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+        }
+
+        try {
+            computeSlots.acquireUninterruptibly();
+            try {
+                computations.incrementAndGet();
+                created.complete(computation.get());
+            } finally {
+                computeSlots.release();
+            }
+        } catch (RuntimeException | Error e) {
+            created.completeExceptionally(e);
+            throw e;
+        } finally {
+            running.remove(key, created);
+        }
+        return created.join();
+    }
+
+    /**
+     * Reads the maze asked for from a query.
+     * @param query The query parameters.
+     * @return The maze.
+     * @throws IllegalArgumentException If a parameter is invalid.
+     */
+    private static MazeRequest parseMaze(Map<String, String> query) {
+        MazeRequest request = new MazeRequest();
+        request.shape = lookup(query, "shape", request.shape,
+                               "square", ControlPanel.SQUARE_SHAPE, "hexagonal", ControlPanel.HEX_SHAPE,
+                               "triangular", ControlPanel.TRIANGLE_SHAPE, "polar", ControlPanel.POLAR_SHAPE);
+        request.generator = lookup(query, "generator", request.generator,
+                                   "dfs", ControlPanel.DFS_GENERATOR, "kruskal", ControlPanel.KRUSKAL_GENERATOR);
+        request.rows = parseInt(query, "rows", request.rows, 1,
+                                request.shape.equals(ControlPanel.POLAR_SHAPE) ? MazePanel.MAX_RINGS
+                                                                               : MazePanel.MAX_ROWS);
+        request.columns = parseInt(query, "columns", request.columns, MazeSettings.getMinColumns(request.shape),
+                                   MazePanel.MAX_COLS);
+        request.floors = parseInt(query, "floors", request.floors, 1, MazePanel.MAX_FLOORS);
+        request.braidPercent = parseInt(query, "braid", 0, 0, 100);
+        request.weighted = Boolean.parseBoolean(query.get("weighted"));
+
+        // only seeded mazes can be shared, since every unseeded request asks for a different maze
+        String seed = query.get("seed");
+        try {
+            request.seed = seed != null ? Long.parseLong(seed) : ThreadLocalRandom.current().nextLong();
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid seed: " + seed);
+        }
+        return request;
+    }
+
+    /**
+     * Reads the solver asked for from a query.
+     * @param query The query parameters.
+     * @return The name of the solver (see constants in ControlPanel).
+     * @throws IllegalArgumentException If the solver is unknown.
+     */
+    private static String parseSolver(Map<String, String> query) {
+        return lookup(query, "solver", ControlPanel.BFS_SOLVER,
+                      "dfs", ControlPanel.DFS_SOLVER, "bfs", ControlPanel.BFS_SOLVER,
+                      "dijkstra", ControlPanel.DIJKSTRA_SOLVER, "astar", ControlPanel.ASTAR_SOLVER,
+                      "parallel", ControlPanel.PARALLEL_BFS_SOLVER, "left", ControlPanel.LEFT_WALL_SOLVER,
+                      "right", ControlPanel.RIGHT_WALL_SOLVER, "tremaux", ControlPanel.TREMAUX_SOLVER);
+    }
+
+    /**
+     * Reads a parameter that is one of a fixed set of names.
+     * @param query The query parameters.
+     * @param name The name of the parameter.
+     * @param defaultValue The value if the parameter is missing.
+     * @param choices Pairs of the name in the query and the value it stands for.
+     * @return The value.
+     * @throws IllegalArgumentException If the parameter isn't one of the names.
+     */
+    private static String lookup(Map<String, String> query, String name, String defaultValue, String... choices) {
+        String value = query.get(name);
+        if (value == null)
+            return defaultValue;
+        for (int i = 0; i < choices.length; i += 2) {
+            if (choices[i].equalsIgnoreCase(value))
+                return choices[i + 1];
+        }
+        throw new IllegalArgumentException("Invalid " + name + ": " + value);
+    }
+
+    /**
+     * Reads a whole number parameter.
+     * @param query The query parameters.
+     * @param name The name of the parameter.
+     * @param defaultValue The value if the parameter is missing.
+     * @param min The smallest allowed value.
+     * @param max The largest allowed value.
+     * @return The value.
+     * @throws IllegalArgumentException If the parameter isn't a number in range.
+     */
+    private static int parseInt(Map<String, String> query, String name, int defaultValue, int min, int max) {
+        String value = query.get(name);
+        if (value == null)
+            return defaultValue;
+        try {
+            int number = Integer.parseInt(value);
+            if (number >= min && number <= max)
+                return number;
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new IllegalArgumentException("Invalid " + name + ": " + value + " (must be " + min + " to " + max
+                                           + ")");
+    }
+
+    /**
+     * Splits a query string into its parameters.
+     * @param rawQuery The query string, still URL encoded, or null.
+     * @return The parameters by name.
+     */
+    private static Map<String, String> parseQuery(String rawQuery) throws UnsupportedEncodingException {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null)
+            return query;
+        for (String pair : rawQuery.split("&")) {
+            int equals = pair.indexOf('=');
+            if (equals > 0) {
+                query.put(URLDecoder.decode(pair.substring(0, equals), "UTF-8"),
+                          URLDecoder.decode(pair.substring(equals + 1), "UTF-8"));
+            }
+        }
+        return query;
+    }
+
+    /**
+     * Starts a streamed text response.
+     * @param exchange The request and response.
+     * @param contentType The type of the text.
+     * @return A buffered writer for the body, which sends a chunk whenever its buffer fills.
+     * @throws IOException If the headers can't be sent.
+     */
+    private static Writer openText(HttpExchange exchange, String contentType) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType + "; charset=utf-8");
+        exchange.sendResponseHeaders(200, 0);
+        return new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8),
+                                  CHUNK_SIZE);
+    }
+
+    /**
+     * Sends a short text response.
+     * @param exchange The request and response.
+     * @param text The text.
+     * @throws IOException If the response can't be sent.
+     */
+    private static void sendText(HttpExchange exchange, String text) throws IOException {
+        try (Writer out = openText(exchange, "text/plain")) {
+            out.write(text);
+        }
+    }
+
+    /**
+     * Sends an error with a message. Nothing can be sent once a response has started streaming, so the
+     * exchange is only closed then and the client sees the response cut short.
+     * @param exchange The request and response.
+     * @param status The HTTP status code.
+     * @param message The message.
+     * @throws IOException If the response can't be sent.
+     */
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        if (exchange.getResponseCode() != -1)
+            return;
+        byte[] body = (message + "\n").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        exchange.getResponseBody().write(body);
+    }
+
+    /**
+     * Rounds a coordinate to three decimal places for drawing.
+     * @param value The coordinate.
+     * @return The rounded coordinate.
+     */
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+
+    /**
+     * Creates the threads requests run on: a virtual thread for each request on JVMs that have them, and a
+     * pool of ordinary threads otherwise.
+     * @return The executor.
+     */
+    private static ExecutorService createExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+}
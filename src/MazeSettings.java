@@ -0,0 +1,279 @@
+/*
+ * File:     MazeSettings.java
+ * Author:   Taylor Ecton
+ * Purpose:  The choices that describe a new maze: the shape and size of the grid, where the walls are
+ *           stored, which generator carves it and what is done to it afterwards. A GenerationRun takes a
+ *           copy when it starts, so the settings can be changed for the next maze while one is running.
+ */
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class MazeSettings {
+    // number of rows and columns; polar mazes use the rows as the number of rings
+    private int rows = 50, columns = 50;
+
+    // shape of the cells (see constants in ControlPanel)
+    private String shape = ControlPanel.SQUARE_SHAPE;
+
+    // number of floors stacked in the maze
+    private int floors = 1;
+
+    // whether square mazes number their cells in Z-order tiles instead of row by row
+    private boolean zOrderLayout;
+
+    // where the walls are stored (see constants in ControlPanel)
+    private String storage = ControlPanel.HEAP_STORAGE;
+
+    // algorithm that generates the maze (see constants in ControlPanel)
+    private String generator = ControlPanel.DFS_GENERATOR;
+
+    // fraction of dead ends removed once generation finishes, from 0 to 1
+    private double braidFraction;
+
+    // whether the maze gets random terrain weights
+    private boolean weightedTerrain;
+
+    // whether the path is found while the maze is generated
+    private boolean solveWhileGenerating;
+
+    /**
+     * Constructor for MazeSettings class, with a 50 x 50 square maze generated depth first.
+     */
+    public MazeSettings() {
+    }
+
+    /**
+     * Constructor for MazeSettings class that copies other settings.
+     * @param other The settings to copy.
+     */
+    public MazeSettings(MazeSettings other) {
+        rows = other.rows;
+        columns = other.columns;
+        shape = other.shape;
+        floors = other.floors;
+        zOrderLayout = other.zOrderLayout;
+        storage = other.storage;
+        generator = other.generator;
+        braidFraction = other.braidFraction;
+        weightedTerrain = other.weightedTerrain;
+        solveWhileGenerating = other.solveWhileGenerating;
+    }
+
+    /**
+     * Gets the number of rows.
+     * @return The number of rows, or rings for a polar maze.
+     */
+    public int getRows() { return rows; }
+
+    /**
+     * Sets the number of rows.
+     * @param rows The number of rows, or rings for a polar maze.
+     */
+    public void setRows(int rows) { this.rows = rows; }
+
+    /**
+     * Gets the number of columns.
+     * @return The number of columns.
+     */
+    public int getColumns() { return columns; }
+
+    /**
+     * Sets the number of columns.
+     * @param columns The number of columns.
+     */
+    public void setColumns(int columns) { this.columns = columns; }
+
+    /**
+     * Gets the shape of the cells.
+     * @return The shape (see constants in ControlPanel).
+     */
+    public String getShape() { return shape; }
+
+    /**
+     * Sets the shape of the cells.
+     * @param shape The shape (see constants in ControlPanel).
+     */
+    public void setShape(String shape) { this.shape = shape; }
+
+    /**
+     * Gets the number of floors stacked in the maze.
+     * @return The number of floors.
+     */
+    public int getFloors() { return floors; }
+
+    /**
+     * Sets the number of floors stacked in the maze.
+     * @param floors The number of floors.
+     */
+    public void setFloors(int floors) { this.floors = floors; }
+
+    /**
+     * Gets whether square mazes number their cells in Z-order tiles.
+     * @return True for Z-order tiles, false for row by row.
+     */
+    public boolean isZOrderLayout() { return zOrderLayout; }
+
+    /**
+     * Sets whether square mazes number their cells in Z-order tiles.
+     * @param zOrderLayout True for Z-order tiles, false for row by row.
+     */
+    public void setZOrderLayout(boolean zOrderLayout) { this.zOrderLayout = zOrderLayout; }
+
+    /**
+     * Gets where the walls are stored.
+     * @return The storage (see constants in ControlPanel).
+     */
+    public String getStorage() { return storage; }
+
+    /**
+     * Sets where the walls are stored.
+     * @param storage The storage (see constants in ControlPanel).
+     */
+    public void setStorage(String storage) { this.storage = storage; }
+
+    /**
+     * Gets the algorithm that generates the maze.
+     * @return The generator (see constants in ControlPanel).
+     */
+    public String getGenerator() { return generator; }
+
+    /**
+     * Sets the algorithm that generates the maze.
+     * @param generator The generator (see constants in ControlPanel).
+     */
+    public void setGenerator(String generator) { this.generator = generator; }
+
+    /**
+     * Gets the fraction of dead ends removed once generation finishes.
+     * @return The fraction, from 0 to 1.
+     */
+    public double getBraidFraction() { return braidFraction; }
+
+    /**
+     * Sets the fraction of dead ends removed once generation finishes.
+     * @param braidFraction The fraction, from 0 to 1.
+     */
+    public void setBraidFraction(double braidFraction) { this.braidFraction = braidFraction; }
+
+    /**
+     * Gets whether the maze gets random terrain weights.
+     * @return True to give the cells random weights.
+     */
+    public boolean isWeightedTerrain() { return weightedTerrain; }
+
+    /**
+     * Sets whether the maze gets random terrain weights.
+     * @param weightedTerrain True to give the cells random weights.
+     */
+    public void setWeightedTerrain(boolean weightedTerrain) { this.weightedTerrain = weightedTerrain; }
+
+    /**
+     * Gets whether the path is found while the maze is generated.
+     * @return True to find the path while generating.
+     */
+    public boolean isSolveWhileGenerating() { return solveWhileGenerating; }
+
+    /**
+     * Sets whether the path is found while the maze is generated.
+     * @param solveWhileGenerating True to find the path while generating.
+     */
+    public void setSolveWhileGenerating(boolean solveWhileGenerating) {
+        this.solveWhileGenerating = solveWhileGenerating;
+    }
+
+    /**
+     * Creates an empty grid for the maze, with its walls in the selected storage.
+     * @return The new grid, with every wall present.
+     */
+    public MazeGrid createGrid() {
+        Topology topology = createTopology();
+        return new MazeGrid(topology, createWallStore(topology.getCellCount()));
+    }
+
+    /**
+     * Creates an empty grid for the maze in an arena's storage when the walls are kept on the heap, and in
+     * the selected storage otherwise.
+     * @param arena The arena, whose earlier grid can't be used any more.
+     * @return The new grid, with every wall present.
+     */
+    public MazeGrid createGrid(MazeArena arena) {
+        if (!storage.equals(ControlPanel.HEAP_STORAGE))
+            return createGrid();
+        return arena.createGrid(createTopology());
+    }
+
+    /**
+     * Gets the fewest columns a maze of a shape can have. A single column of triangles only touch each other
+     * at their corners, so there is no way from one to the next.
+     * @param shape The shape of the cells (see constants in ControlPanel).
+     * @return The smallest number of columns.
+     */
+    public static int getMinColumns(String shape) {
+        return shape.equals(ControlPanel.TRIANGLE_SHAPE) ? 2 : 1;
+    }
+
+    /**
+     * Creates the topology for the maze from the shape, dimensions and number of floors.
+     * @return The new topology.
+     * @throws IllegalArgumentException If there are too few rows, columns or floors for the shape.
+     */
+    public Topology createTopology() {
+        if (rows < 1 || columns < getMinColumns(shape) || floors < 1) {
+            throw new IllegalArgumentException("Invalid size for a " + shape + " maze: " + rows + " rows, "
+                                               + columns + " columns, " + floors + " floors");
+        }
+        Topology floorTopology = createFloorTopology();
+        return floors > 1 ? new LayeredTopology(floorTopology, floors) : floorTopology;
+    }
+
+    /**
+     * Creates the topology of a single floor from the shape and dimensions.
+     * @return The new topology.
+     */
+    private Topology createFloorTopology() {
+        switch (shape) {
+            case ControlPanel.SQUARE_SHAPE:
+                return zOrderLayout ? new MortonTopology(rows, columns) : new SquareTopology(rows, columns);
+            case ControlPanel.HEX_SHAPE:
+                return new HexTopology(rows, columns);
+            case ControlPanel.TRIANGLE_SHAPE:
+                return new TriangleTopology(rows, columns);
+            case ControlPanel.POLAR_SHAPE:
+                return new PolarTopology(Math.min(rows, MazePanel.MAX_RINGS));
+            default:
+                System.err.println("Unexpected string in createFloorTopology: " + shape);
+                System.exit(1);
+                return null;
+        }
+    }
+
+    /**
+     * Creates the storage for the walls from the selected storage. Falls back to the heap if the temporary
+     * file can't be created.
+     * @param cells The number of cells in the maze.
+     * @return The new storage.
+     */
+    private WallStore createWallStore(int cells) {
+        switch (storage) {
+            case ControlPanel.HEAP_STORAGE:
+                return new ArrayWallStore(cells);
+            case ControlPanel.DIRECT_STORAGE:
+                return BufferWallStore.allocateDirect(cells);
+            case ControlPanel.MAPPED_STORAGE:
+                try {
+                    Path file = Files.createTempFile("maze", ".walls");
+                    file.toFile().deleteOnExit();
+                    return BufferWallStore.map(file, cells);
+                } catch (IOException e) {
+                    System.err.println("Could not map the walls to a file: " + e.getMessage());
+                    return new ArrayWallStore(cells);
+                }
+            default:
+                System.err.println("Unexpected string in createWallStore: " + storage);
+                System.exit(1);
+                return null;
+        }
+    }
+}
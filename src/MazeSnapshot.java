@@ -0,0 +1,101 @@
+/*
+ * File:     MazeSnapshot.java
+ * Author:   Taylor Ecton
+ * Purpose:  A finished maze that never changes: its topology, the walls of every cell and the terrain
+ *           weights, copied out of a MazeGrid. Since nothing in it is ever written after it is created, any
+ *           number of threads can read it at once, and each solve makes its own grid from it with
+ *           createGrid() to color as it goes.
+ */
+
+public class MazeSnapshot {
+    // how the cells fit together, which is never changed once created
+    private final Topology topology;
+
+    // wall bits of each cell, and the cost of entering each cell or null if every cell costs 1
+    private final byte[] walls;
+    private final byte[] weights;
+
+    /**
+     * Constructor for MazeSnapshot class. Copies the walls and weights of a maze as they are now.
+     * @param grid The maze.
+     */
+    public MazeSnapshot(MazeGrid grid) {
+        topology = grid.getTopology();
+        walls = new byte[grid.getCellCount()];
+        grid.copyWalls(0, walls, 0, walls.length);
+        if (grid.isWeighted()) {
+            weights = new byte[walls.length];
+            for (int cell = 0; cell < weights.length; cell++) {
+                weights[cell] = (byte) grid.getWeight(cell);
+            }
+        } else {
+            weights = null;
+        }
+    }
+
+    /**
+     * Gets the topology of the maze.
+     * @return The topology.
+     */
+    public Topology getTopology() { return topology; }
+
+    /**
+     * Gets the number of cells.
+     * @return The number of cells.
+     */
+    public int getCellCount() { return walls.length; }
+
+    /**
+     * Gets the largest number of sides a cell can have.
+     * @return The number of sides.
+     */
+    public int getSides() { return topology.getSides(); }
+
+    /**
+     * Tells whether a cell has a wall on one of its sides.
+     * @param cell The cell index.
+     * @param side The side.
+     * @return True if the wall is present.
+     */
+    public boolean hasWall(int cell, int side) { return (walls[cell] & (1 << side)) != 0; }
+
+    /**
+     * Copies the wall bits of a range of cells.
+     * @param firstCell The first cell to copy.
+     * @param dst Array the wall bits are copied to, one byte per cell.
+     * @param offset Index in dst of the first cell.
+     * @param count The number of cells.
+     */
+    public void copyWalls(int firstCell, byte[] dst, int offset, int count) {
+        System.arraycopy(walls, firstCell, dst, offset, count);
+    }
+
+    /**
+     * Tells whether some cells cost more than 1 to enter.
+     * @return True if the maze has terrain weights.
+     */
+    public boolean isWeighted() { return weights != null; }
+
+    /**
+     * Gets the cost of entering a cell.
+     * @param cell The cell index.
+     * @return The weight, from 1 to MazeGrid.MAX_WEIGHT.
+     */
+    public int getWeight(int cell) { return weights == null ? 1 : weights[cell]; }
+
+    /**
+     * Creates a grid with the walls and weights of the maze, for a solver to color. The grid belongs to
+     * the caller and changing it doesn't change the snapshot.
+     * @return The new grid, with every cell uncolored.
+     */
+    public MazeGrid createGrid() {
+        MazeGrid grid = new MazeGrid(topology);
+        grid.loadWalls(0, walls, 0, walls.length);
+        if (weights != null) {
+            for (int cell = 0; cell < weights.length; cell++) {
+                grid.setWeight(cell, weights[cell]);
+            }
+        }
+        return grid;
+    }
+}
@@ -0,0 +1,34 @@
+/*
+ * File:     MazeSolver.java
+ * Author:   Taylor Ecton
+ * Purpose:  A solver that can be run a single step at a time so the controller can animate it. Solvers
+ *           color the cells of the grid as they explore them and color the path once it is found.
+ */
+
+public interface MazeSolver {
+    /**
+     * Prepares the solver to search a maze.
+     * @param grid The maze to solve.
+     * @param start The cell to start from.
+     * @param end The cell to find.
+     */
+    void init(MazeGrid grid, int start, int end);
+
+    /**
+     * Explores a single cell.
+     */
+    void step();
+
+    /**
+     * Tells whether the solver has nothing left to do, either because it found the end or because it ran
+     * out of cells to explore.
+     * @return True if the solver is finished.
+     */
+    boolean isFinished();
+
+    /**
+     * Gets the number of cells the solver has reached so far.
+     * @return The number of cells visited.
+     */
+    int getCellsVisited();
+}
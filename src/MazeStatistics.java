@@ -0,0 +1,288 @@
+/*
+ * File:     MazeStatistics.java
+ * Author:   Taylor Ecton
+ * Purpose:  Checks that a maze is a perfect maze and measures it. One pass over the wall bits joins the
+ *           cells on either side of every passage in a DisjointSets, which finds any cycles, cells that
+ *           can't be reached and walls that the two cells on either side disagree about, and counts dead
+ *           ends and junctions on the way. Two breadth first searches then give the solution length and
+ *           the longest path, and the path the solver colored is checked against them. Everything runs in
+ *           time linear in the number of cells, so it can check every maze of a batch run.
+ */
+
+import java.util.Arrays;
+
+public class MazeStatistics {
+    // number of cells and passages
+    private int cellCount;
+    private long passageCount;
+
+    // number of separate regions, passages that close a loop, and walls that are open on one side only or
+    // open onto the outside of the maze
+    private int componentCount;
+    private long cycleCount;
+    private long wallErrors;
+
+    // cells with one passage and with three or more, and the passages leading on from junctions
+    private int deadEnds, junctions;
+    private long junctionBranches;
+
+    // total number of cells in the corridors that lead from each dead end to the nearest junction
+    private long deadEndCells;
+
+    // steps on the longest shortest path between two cells, and on the shortest path from start to end
+    private int diameter, solutionLength;
+
+    // number of cells colored as the path by a solver, and whether they connect the start and end
+    private int pathCells;
+    private boolean pathConnected;
+
+    /**
+     * Statistics are only made by compute, so this class is never instantiated elsewhere.
+     */
+    private MazeStatistics() {
+    }
+
+    /**
+     * Checks and measures a maze.
+     * @param grid The maze.
+     * @param start The cell the path starts at.
+     * @param end The cell the path ends at.
+     * @return The statistics of the maze.
+     */
+    public static MazeStatistics compute(MazeGrid grid, int start, int end) {
+        MazeStatistics stats = new MazeStatistics();
+        int cells = grid.getCellCount();
+        int sides = grid.getSides();
+        Topology topology = grid.getTopology();
+        DisjointSets sets = new DisjointSets(cells);
+        byte[] degrees = new byte[cells];
+        stats.cellCount = cells;
+
+        // single pass over the walls: passages, loops, wall errors and the number of passages of each cell
+        for (int cell = 0; cell < cells; cell++) {
+            int degree = 0;
+            for (int wall = 0; wall < sides; wall++) {
+                if (grid.hasWall(cell, wall))
+                    continue;
+                int next = grid.neighbor(cell, wall);
+                if (next < 0 || grid.hasWall(next, topology.backSide(cell, wall))) {
+                    stats.wallErrors++;
+                    continue;
+                }
+                degree++;
+
+                // count each passage from its lower numbered cell
+                if (next > cell) {
+                    stats.passageCount++;
+                    if (!sets.union(cell, next)) {
+                        stats.cycleCount++;
+                    }
+                }
+            }
+            degrees[cell] = (byte) degree;
+            if (degree == 1) {
+                stats.deadEnds++;
+            } else if (degree >= 3) {
+                stats.junctions++;
+                stats.junctionBranches += degree - 1;
+            }
+        }
+        stats.componentCount = sets.getSetCount();
+
+        // corridors from each dead end back to a junction show how long and winding the passages are
+        for (int cell = 0; cell < cells; cell++) {
+            if (degrees[cell] == 1) {
+                stats.deadEndCells += corridorLength(grid, degrees, cell);
+            }
+        }
+
+        // the farthest cell from any cell is one end of the longest path in a tree
+        int[] distance = new int[cells];
+        int[] queue = new int[cells];
+        int farthest = search(grid, start, distance, queue, null);
+        stats.solutionLength = distance[end];
+        stats.diameter = distance[search(grid, farthest, distance, queue, null)];
+
+        // the path is every cell the solver colored as visited, plus the start and end
+        boolean[] onPath = new boolean[cells];
+        for (int cell = 0; cell < cells; cell++) {
+            if (grid.getState(cell) == MazeCell.VISITED || cell == start || cell == end) {
+                onPath[cell] = true;
+                stats.pathCells++;
+            }
+        }
+        search(grid, start, distance, queue, onPath);
+        stats.pathConnected = distance[end] >= 0;
+        return stats;
+    }
+
+    /**
+     * Gets the number of cells in the maze.
+     * @return The number of cells.
+     */
+    public int getCellCount() { return cellCount; }
+
+    /**
+     * Gets the number of passages between cells.
+     * @return The number of passages.
+     */
+    public long getPassageCount() { return passageCount; }
+
+    /**
+     * Gets the number of separate regions of the maze that can't reach each other.
+     * @return The number of regions; 1 if every cell can be reached.
+     */
+    public int getComponentCount() { return componentCount; }
+
+    /**
+     * Gets the number of passages that could be removed without disconnecting any cells.
+     * @return The number of independent loops; 0 for a perfect maze.
+     */
+    public long getCycleCount() { return cycleCount; }
+
+    /**
+     * Gets the number of walls that are open on one side only, or open onto the outside of the maze.
+     * @return The number of broken walls; 0 for a valid maze.
+     */
+    public long getWallErrors() { return wallErrors; }
+
+    /**
+     * Tells whether the maze is a perfect maze: every cell can be reached and there are no loops.
+     * @return True if there is exactly one path between any two cells.
+     */
+    public boolean isPerfect() { return componentCount == 1 && cycleCount == 0 && wallErrors == 0; }
+
+    /**
+     * Gets the number of cells with a single passage.
+     * @return The number of dead ends.
+     */
+    public int getDeadEnds() { return deadEnds; }
+
+    /**
+     * Gets the number of cells with three or more passages.
+     * @return The number of junctions.
+     */
+    public int getJunctions() { return junctions; }
+
+    /**
+     * Gets the average number of ways on from a junction, not counting the way in.
+     * @return The branching factor, or 0 if there are no junctions.
+     */
+    public double getBranchingFactor() {
+        return junctions == 0 ? 0 : junctionBranches / (double) junctions;
+    }
+
+    /**
+     * Gets the average number of cells in the corridor from a dead end to the nearest junction. Mazes
+     * with a high river factor have fewer but longer dead ends.
+     * @return The river factor, or 0 if there are no dead ends.
+     */
+    public double getRiverFactor() {
+        return deadEnds == 0 ? 0 : deadEndCells / (double) deadEnds;
+    }
+
+    /**
+     * Gets the number of steps on the longest path between two cells. The result is exact for perfect
+     * mazes and a lower bound for mazes with loops.
+     * @return The diameter of the maze.
+     */
+    public int getDiameter() { return diameter; }
+
+    /**
+     * Gets the number of steps on the shortest path from the start to the end.
+     * @return The solution length, or -1 if the end can't be reached.
+     */
+    public int getSolutionLength() { return solutionLength; }
+
+    /**
+     * Gets the number of steps on the path a solver colored, counting the start and end.
+     * @return The number of cells on the path minus one.
+     */
+    public int getPathLength() { return pathCells - 1; }
+
+    /**
+     * Tells whether the cells a solver colored as the path lead from the start to the end, and take no
+     * more steps than the shortest path. Paths found on weighted terrain can be longer in steps.
+     * @return True if the solver's path is a shortest path.
+     */
+    public boolean isPathValid() { return pathConnected && pathCells - 1 == solutionLength; }
+
+    /**
+     * Describes the statistics, one per line.
+     * @return The description.
+     */
+    @Override
+    public String toString() {
+        return "Cells: " + cellCount + "\n" +
+               "Passages: " + passageCount + "\n" +
+               "Perfect maze: " + (isPerfect() ? "yes" : "no (" + componentCount + " regions, " + cycleCount +
+                                   " loops, " + wallErrors + " broken walls)") + "\n" +
+               "Dead ends: " + deadEnds + "\n" +
+               "Junctions: " + junctions + "\n" +
+               String.format("Branching factor: %.2f%n", getBranchingFactor()) +
+               String.format("River factor: %.2f%n", getRiverFactor()) +
+               "Longest path: " + diameter + "\n" +
+               "Solution length: " + solutionLength + "\n" +
+               "Solver path: " + (pathConnected ? getPathLength() + (isPathValid() ? " (shortest)" : "") :
+                                  "not found");
+    }
+
+    /**
+     * Follows the corridor from a dead end until it reaches a junction or another dead end.
+     * @param grid The maze.
+     * @param degrees The number of passages of each cell.
+     * @param deadEnd The dead end to start from.
+     * @return The number of cells in the corridor, not counting the junction.
+     */
+    private static int corridorLength(MazeGrid grid, byte[] degrees, int deadEnd) {
+        int previous = -1;
+        int cell = deadEnd;
+        int length = 1;
+        while (length < grid.getCellCount()) {
+            // the passage that doesn't lead back
+            int next = -1;
+            for (int wall = 0; wall < grid.getSides() && next < 0; wall++) {
+                int neighbor = grid.passage(cell, wall);
+                if (neighbor >= 0 && neighbor != previous && degrees[neighbor] > 0)
+                    next = neighbor;
+            }
+            if (next < 0 || degrees[next] > 2)
+                return length;
+
+            // the corridor carries on through cells with two passages and stops at another dead end
+            previous = cell;
+            cell = next;
+            length++;
+            if (degrees[cell] == 1)
+                return length;
+        }
+        return length;
+    }
+
+    /**
+     * Breadth first search through the passages of the maze.
+     * @param grid The maze.
+     * @param source The cell to search from.
+     * @param distance Filled with the number of steps to each cell, or -1 where it can't be reached.
+     * @param queue Scratch space for the search, with room for every cell.
+     * @param allowed Cells the search may enter, or null to allow every cell.
+     * @return The last cell reached, which is as far from the source as any cell.
+     */
+    static int search(MazeGrid grid, int source, int[] distance, int[] queue, boolean[] allowed) {
+        Arrays.fill(distance, -1);
+        distance[source] = 0;
+        queue[0] = source;
+        int head = 0, tail = 1;
+        while (head < tail) {
+            int cell = queue[head++];
+            for (int wall = 0; wall < grid.getSides(); wall++) {
+                int next = grid.passage(cell, wall);
+                if (next >= 0 && distance[next] < 0 && (allowed == null || allowed[next])) {
+                    distance[next] = distance[cell] + 1;
+                    queue[tail++] = next;
+                }
+            }
+        }
+        return queue[tail - 1];
+    }
+}
@@ -0,0 +1,498 @@
+/*
+ * File:     MazeView.java
+ * Author:   Taylor Ecton
+ * Purpose:  Zoomable, pannable view of a MazeGrid. Only the cells inside the visible area are drawn, and when
+ *           the cells get too small to draw individually the view switches to a downsampled image from an
+ *           LodPyramid, so the time to draw a frame depends on the size of the view and not on the size of
+ *           the maze. Zoomed in cells are drawn into tiles by a TileCache in the background and the view only
+ *           copies finished tiles to the screen. Grids that aren't square are drawn from tiles at a scale
+ *           rounded to a quarter power of two, and from a pyramid of their own once zoomed out. A maze with
+ *           several floors is shown one floor at a time. The view never reads the maze an algorithm is
+ *           changing; it paints the newest GridFrame handed over by a GridPublisher. While the user walks
+ *           through the maze a marker is drawn over the cell they are in, and moving it only repaints the
+ *           cells it left and entered. The colors of the cell states come from a palette that can be replaced
+ *           to change the theme without touching the algorithms that set the states.
+ */
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.awt.image.BufferedImage;
+import java.util.function.IntConsumer;
+
+public class MazeView extends JComponent implements GridListener {
+    // cells smaller than this many pixels are drawn from the pyramid instead of one at a time
+    private static final double MIN_DETAIL_SIZE = 4.0;
+
+    // largest size a cell can be zoomed to in pixels
+    private static final double MAX_CELL_SIZE = 64.0;
+
+    // how much one notch of the mouse wheel zooms in or out
+    private static final double ZOOM_STEP = 1.25;
+
+    // size of the marker on the user's cell as a fraction of a cell, and its smallest size in pixels
+    private static final double MARKER_SIZE = 0.6;
+    private static final int MIN_MARKER_PIXELS = 5;
+
+    // hands over copies of the maze being shown
+    private GridPublisher publisher;
+
+    // the floor being shown, its layout and the index of its first cell
+    private int floor;
+    private Topology floorTopology;
+    private int firstCell;
+
+    // downsampled images of the maze, created the first time the view is zoomed out far enough
+    private LodPyramid pyramid;
+
+    // tiles of the maze drawn at the current cell size, replaced whenever the cell size changes
+    private TileCache tiles;
+
+    // a color for each state of a cell, indexed by state
+    private Color[] palette = MazeCell.createPalette();
+
+    // size of a cell in pixels
+    private double cellSize = 15.0;
+
+    // position in the maze (in model units, which are cells on a square grid) shown at the top left corner
+    private double originX, originY;
+
+    // last mouse position while dragging
+    private Point dragPoint;
+
+    // the cell the user is in while walking through the maze, or -1
+    private int playerCell = -1;
+
+    // scratch space for the center of a cell (only used on the painting thread)
+    private final double[] center = new double[2];
+
+    /**
+     * Constructor for MazeView class.
+     */
+    public MazeView() {
+        setOpaque(true);
+        setBackground(MazeCell.OUTSIDE);
+
+        // drag to pan, scroll to zoom, double click to fit the maze to the view
+        MouseAdapter mouse = new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                dragPoint = e.getPoint();
+            }
+
+            @Override
+            public void mouseDragged(MouseEvent e) {
+                if (dragPoint != null) {
+                    pan(dragPoint.x - e.getX(), dragPoint.y - e.getY());
+                    dragPoint = e.getPoint();
+                }
+            }
+
+            @Override
+            public void mouseReleased(MouseEvent e) {
+                dragPoint = null;
+            }
+
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2) {
+                    fitToView();
+                }
+            }
+
+            @Override
+            public void mouseWheelMoved(MouseWheelEvent e) {
+                zoom(Math.pow(ZOOM_STEP, -e.getPreciseWheelRotation()), e.getX(), e.getY());
+            }
+        };
+        addMouseListener(mouse);
+        addMouseMotionListener(mouse);
+        addMouseWheelListener(mouse);
+    }
+
+    /**
+     * Sets the maze shown by the view and fits it to the view. Nothing is drawn until the publisher hands
+     * over its first frame.
+     * @param publisher The publisher of the maze to show.
+     */
+    public void setPublisher(GridPublisher publisher) {
+        this.publisher = publisher;
+        setFloor(0);
+        fitToView();
+    }
+
+    /**
+     * Shows a different floor of a maze with several floors, keeping the same zoom and position.
+     * @param floor The floor to show, where 0 is the bottom floor.
+     */
+    public void setFloor(int floor) {
+        if (tiles != null) {
+            tiles.dispose();
+            tiles = null;
+        }
+        pyramid = null;
+
+        if (publisher.getTopology() instanceof LayeredTopology) {
+            LayeredTopology layers = (LayeredTopology) publisher.getTopology();
+            this.floor = Math.max(0, Math.min(layers.getFloors() - 1, floor));
+            this.floorTopology = layers.getFloorTopology();
+            this.firstCell = this.floor * layers.getFloorCells();
+        } else {
+            this.floor = 0;
+            this.floorTopology = publisher.getTopology();
+            this.firstCell = 0;
+        }
+        repaint();
+    }
+
+    /**
+     * Gets the colors the cell states are drawn with.
+     * @return A copy of the palette, indexed by state.
+     */
+    public Color[] getPalette() { return palette.clone(); }
+
+    /**
+     * Replaces the colors the cell states are drawn with and redraws the maze with them.
+     * @param palette A color for each state, indexed by state (see MazeCell.createPalette).
+     * @throws IllegalArgumentException If the palette doesn't have a color for every state.
+     */
+    public void setPalette(Color[] palette) {
+        if (palette.length < MazeCell.createPalette().length)
+            throw new IllegalArgumentException("Palette has " + palette.length + " colors, not one per state");
+        this.palette = palette.clone();
+        if (tiles != null) {
+            tiles.dispose();
+            tiles = null;
+        }
+        pyramid = null;
+        repaint();
+    }
+
+    /**
+     * Gets the floor being shown.
+     * @return The floor, where 0 is the bottom floor.
+     */
+    public int getFloor() { return floor; }
+
+    /**
+     * Zooms and centers the view so that the whole maze is visible.
+     */
+    public void fitToView() {
+        if (publisher == null)
+            return;
+
+        int width = getWidth() > 0 ? getWidth() : getPreferredSize().width;
+        int height = getHeight() > 0 ? getHeight() : getPreferredSize().height;
+        cellSize = Math.min(MAX_CELL_SIZE, Math.min(width / floorTopology.getWidth(),
+                                                    height / floorTopology.getHeight()));
+        originX = (floorTopology.getWidth() - width / cellSize) / 2;
+        originY = (floorTopology.getHeight() - height / cellSize) / 2;
+        repaint();
+    }
+
+    /**
+     * Zooms the view while keeping the point under the mouse in place.
+     * @param factor How much to multiply the cell size by.
+     * @param x Horizontal position of the mouse in pixels.
+     * @param y Vertical position of the mouse in pixels.
+     */
+    public void zoom(double factor, int x, int y) {
+        if (publisher == null)
+            return;
+
+        // never zoom out further than needed to make the whole maze smaller than a pixel
+        double minSize = 1.0 / Math.max(floorTopology.getWidth(), floorTopology.getHeight());
+        double newSize = Math.max(minSize, Math.min(MAX_CELL_SIZE, cellSize * factor));
+
+        originX += x / cellSize - x / newSize;
+        originY += y / cellSize - y / newSize;
+        cellSize = newSize;
+        repaint();
+    }
+
+    /**
+     * Moves the view.
+     * @param dx Pixels to move right.
+     * @param dy Pixels to move down.
+     */
+    public void pan(int dx, int dy) {
+        originX += dx / cellSize;
+        originY += dy / cellSize;
+        repaint();
+    }
+
+    /**
+     * Moves the marker showing where the user is, repainting only the cells it leaves and enters. The view
+     * is moved to center the marker if it would be out of sight.
+     * @param cell The cell the user is in, or -1 to stop showing the marker.
+     */
+    public void setPlayerCell(int cell) {
+        int old = playerCell;
+        playerCell = cell;
+        if (old >= 0) {
+            repaintMarker(old);
+        }
+        if (cell < firstCell || cell - firstCell >= floorTopology.getCellCount())
+            return;
+
+        floorTopology.getCenter(cell - firstCell, center);
+        int x = screenX(center[0]), y = screenY(center[1]);
+        if (x < 0 || y < 0 || x >= getWidth() || y >= getHeight()) {
+            originX = center[0] - getWidth() / 2.0 / cellSize;
+            originY = center[1] - getHeight() / 2.0 / cellSize;
+            repaint();
+        } else {
+            repaintMarker(cell);
+        }
+    }
+
+    /**
+     * Repaints the area the marker covers when it is on a cell, if the cell is on the floor being shown.
+     * @param cell The cell.
+     */
+    private void repaintMarker(int cell) {
+        cell -= firstCell;
+        if (cell < 0 || cell >= floorTopology.getCellCount())
+            return;
+        floorTopology.getCenter(cell, center);
+        int radius = markerPixels() / 2 + 1;
+        repaint(screenX(center[0]) - radius, screenY(center[1]) - radius, 2 * radius + 1, 2 * radius + 1);
+    }
+
+    /**
+     * Gets the size of the marker on the user's cell.
+     * @return The width and height of the marker in pixels.
+     */
+    private int markerPixels() {
+        return Math.max(MIN_MARKER_PIXELS, (int) (cellSize * MARKER_SIZE));
+    }
+
+    /**
+     * Repaints just the area covered by one cell if it is on the floor being shown.
+     * @param cell The cell to repaint.
+     */
+    public void repaintCell(int cell) {
+        cell -= firstCell;
+        if (cell < 0 || cell >= floorTopology.getCellCount())
+            return;
+
+        // the walls of other shapes are drawn across the outline, so leave room for them
+        double[] bounds = new double[4];
+        floorTopology.getBounds(cell, bounds);
+        double margin = floorTopology.isRectangular() ? 0 : 0.25;
+        int x = screenX(bounds[0] - margin);
+        int y = screenY(bounds[1] - margin);
+        repaint(x, y, screenX(bounds[2] + margin) - x + 1, screenY(bounds[3] + margin) - y + 1);
+    }
+
+    /**
+     * Keeps the pyramid and tiles up to date when a cell differs in a newly published frame.
+     * @param cell The cell that changed.
+     */
+    @Override
+    public void cellChanged(int cell) {
+        if (pyramid != null) {
+            pyramid.cellChanged(cell);
+        }
+        if (tiles != null) {
+            tiles.cellChanged(cell);
+        }
+    }
+
+    /**
+     * Keeps the pyramid and tiles up to date when most of a newly published frame differs.
+     */
+    @Override
+    public void gridChanged() {
+        if (pyramid != null) {
+            pyramid.gridChanged();
+        }
+        if (tiles != null) {
+            tiles.gridChanged();
+        }
+    }
+
+    /**
+     * Draws the visible part of the maze.
+     * @param g The graphics context.
+     */
+    @Override
+    protected void paintComponent(Graphics g) {
+        Graphics2D g2 = (Graphics2D) g;
+        Rectangle clip = g2.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
+        }
+
+        g2.setColor(getBackground());
+        g2.fillRect(clip.x, clip.y, clip.width, clip.height);
+
+        if (publisher == null)
+            return;
+
+        // take the newest copy of the maze, finding out which cells changed since the last one
+        GridFrame frame = publisher.acquire(this);
+        if (frame == null)
+            return;
+
+        if (cellSize >= MIN_DETAIL_SIZE) {
+            paintCells(g2, clip, frame);
+        } else {
+            paintLevel(g2, clip, frame);
+        }
+        paintMarker(g2);
+    }
+
+    /**
+     * Draws the marker on the cell the user is in, if they are walking through the maze on the floor
+     * being shown.
+     * @param g2 The graphics context.
+     */
+    private void paintMarker(Graphics2D g2) {
+        int cell = playerCell - firstCell;
+        if (playerCell < 0 || cell < 0 || cell >= floorTopology.getCellCount())
+            return;
+        floorTopology.getCenter(cell, center);
+        int size = markerPixels();
+        g2.setColor(MazeCell.PLAYER);
+        g2.fillOval(screenX(center[0]) - size / 2, screenY(center[1]) - size / 2, size, size);
+    }
+
+    /**
+     * Draws the visible tiles of the maze. Square grids are drawn at the nearest whole number of pixels per
+     * cell and other shapes at the nearest quarter power of two, then scaled slightly to the actual cell
+     * size; tiles that have never been drawn are left empty until the background threads finish them.
+     * @param g2 The graphics context.
+     * @param clip The area to draw.
+     * @param frame The published maze to draw.
+     */
+    private void paintCells(Graphics2D g2, Rectangle clip, GridFrame frame) {
+        // start a new cache when the cell size changes by enough to change the scale of the tiles
+        Topology topology = floorTopology;
+        double scale = topology.isRectangular()
+                ? Math.round(cellSize)
+                : Math.pow(2, Math.round(4 * Math.log(cellSize) / Math.log(2)) / 4.0);
+        if (tiles == null || tiles.getScale() != scale) {
+            if (tiles != null) {
+                tiles.dispose();
+            }
+            tiles = new TileCache(floorTopology, firstCell, scale, palette, new IntConsumer() {
+                @Override
+                public void accept(final int tile) {
+                    SwingUtilities.invokeLater(new Runnable() {
+                        @Override
+                        public void run() {
+                            repaintTile(tile);
+                        }
+                    });
+                }
+            });
+        }
+        tiles.beginFrame(frame);
+
+        // find the range of tiles inside the clip
+        double tileUnits = tiles.getTileUnits();
+        int firstX = Math.max(0, (int) Math.floor((originX + clip.x / cellSize) / tileUnits));
+        int lastX = Math.min(tiles.getTilesX() - 1,
+                             (int) Math.floor((originX + (clip.x + clip.width) / cellSize) / tileUnits));
+        int firstY = Math.max(0, (int) Math.floor((originY + clip.y / cellSize) / tileUnits));
+        int lastY = Math.min(tiles.getTilesY() - 1,
+                             (int) Math.floor((originY + (clip.y + clip.height) / cellSize) / tileUnits));
+        if (firstX > lastX || firstY > lastY)
+            return;
+
+        // copy each tile, scaling it from the size it was drawn at to the current cell size
+        g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, topology.isRectangular()
+                ? RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR
+                : RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        for (int ty = firstY; ty <= lastY; ty++) {
+            for (int tx = firstX; tx <= lastX; tx++) {
+                BufferedImage tile = tiles.getTile(tx, ty);
+                if (tile != null) {
+                    int x = screenX(tx * tileUnits);
+                    int y = screenY(ty * tileUnits);
+                    int width = screenX(tx * tileUnits + tile.getWidth() / scale) - x;
+                    int height = screenY(ty * tileUnits + tile.getHeight() / scale) - y;
+                    g2.drawImage(tile, x, y, width, height, null);
+                }
+            }
+        }
+    }
+
+    /**
+     * Repaints just the area covered by a tile that finished drawing, so a change to a few cells doesn't
+     * repaint the whole view.
+     * @param tile The index ty * tilesX + tx of the tile in the current cache.
+     */
+    private void repaintTile(int tile) {
+        if (tiles == null)
+            return;
+        double tileUnits = tiles.getTileUnits();
+        int x = screenX(tile % tiles.getTilesX() * tileUnits);
+        int y = screenY(tile / tiles.getTilesX() * tileUnits);
+        repaint(x, y, screenX((tile % tiles.getTilesX() + 1) * tileUnits) - x + 1,
+                screenY((tile / tiles.getTilesX() + 1) * tileUnits) - y + 1);
+    }
+
+    /**
+     * Draws the visible part of the maze from the coarsest pyramid level that still has at least one
+     * pixel per screen pixel. Level 0 of a grid that isn't square has several pixels per model unit.
+     * @param g2 The graphics context.
+     * @param clip The area to draw.
+     * @param frame The published maze to draw.
+     */
+    private void paintLevel(Graphics2D g2, Rectangle clip, GridFrame frame) {
+        if (pyramid == null) {
+            pyramid = new LodPyramid(floorTopology, firstCell, palette);
+        }
+
+        // each pixel of the level covers 2^level pixels of level 0, which are cells on a square grid
+        double unitPixels = pyramid.getUnitPixels();
+        int level = 0;
+        while (level < pyramid.getLevelCount() - 1 && cellSize * (1 << (level + 1)) / unitPixels <= 1.0) {
+            level++;
+        }
+        BufferedImage image = pyramid.getLevel(level, frame);
+        double pixelSize = cellSize * (1 << level) / unitPixels;
+        double levelX = originX * unitPixels / (1 << level);
+        double levelY = originY * unitPixels / (1 << level);
+
+        // find the range of level pixels inside the clip
+        int sx1 = Math.max(0, (int) Math.floor(levelX + clip.x / pixelSize));
+        int sy1 = Math.max(0, (int) Math.floor(levelY + clip.y / pixelSize));
+        int sx2 = Math.min(image.getWidth(), (int) Math.ceil(levelX + (clip.x + clip.width) / pixelSize));
+        int sy2 = Math.min(image.getHeight(), (int) Math.ceil(levelY + (clip.y + clip.height) / pixelSize));
+        if (sx1 >= sx2 || sy1 >= sy2)
+            return;
+
+        int dx1 = (int) Math.floor((sx1 - levelX) * pixelSize);
+        int dy1 = (int) Math.floor((sy1 - levelY) * pixelSize);
+        int dx2 = (int) Math.floor((sx2 - levelX) * pixelSize);
+        int dy2 = (int) Math.floor((sy2 - levelY) * pixelSize);
+
+        g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, pixelSize < 1.0 || !floorTopology.isRectangular()
+                ? RenderingHints.VALUE_INTERPOLATION_BILINEAR
+                : RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+        g2.drawImage(image, dx1, dy1, dx2, dy2, sx1, sy1, sx2, sy2, null);
+    }
+
+    /**
+     * Gets the position of a horizontal model coordinate in pixels (the left edge of a column on a square grid).
+     * @param x The model coordinate.
+     * @return The x coordinate on the screen.
+     */
+    private int screenX(double x) {
+        return (int) Math.floor((x - originX) * cellSize);
+    }
+
+    /**
+     * Gets the position of a vertical model coordinate in pixels (the top edge of a row on a square grid).
+     * @param y The model coordinate.
+     * @return The y coordinate on the screen.
+     */
+    private int screenY(double y) {
+        return (int) Math.floor((y - originY) * cellSize);
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * File:     MortonTopology.java
+ * Author:   Taylor Ecton
+ * Purpose:  Square grid with the cells numbered in 8 x 8 tiles instead of row by row. Tiles are numbered
+ *           row by row and the cells inside a full tile follow a Z-order (Morton) curve, so every array
+ *           indexed by cell (walls, colors, visited flags, solver queues) keeps nearby cells close together
+ *           in memory: the 64 wall bytes of a tile share a cache line and a step up or down usually stays
+ *           inside it. Tiles on the right and bottom edges may be smaller and are numbered row by row, so
+ *           the indices still run from 0 to rows * columns - 1 without gaps.
+ */
+
+import java.util.function.IntConsumer;
+
+public class MortonTopology extends SquareTopology {
+    // width and height of a tile and the number of cells in a full tile
+    private static final int TILE_BITS = 3;
+    private static final int TILE = 1 << TILE_BITS;
+    private static final int TILE_CELLS = TILE * TILE;
+
+    // Z-order index of each (row, column) in a tile, indexed by row * TILE + column, and the reverse
+    private static final int[] ENCODE = new int[TILE_CELLS];
+    private static final int[] DECODE_ROW = new int[TILE_CELLS];
+    private static final int[] DECODE_COLUMN = new int[TILE_CELLS];
+
+    // Z-order index reached from each index of a full tile through each side, or -1 if it leaves the tile
+    private static final int[] STEPS = new int[TILE_CELLS * 4];
+
+    // Z-order index reached in the next tile when a step leaves a full tile, and the offset to that tile
+    private static final int[] CROSSINGS = new int[TILE_CELLS * 4];
+
+    static {
+        for (int row = 0; row < TILE; row++) {
+            for (int col = 0; col < TILE; col++) {
+                // interleave the bits, with the column in the even bits and the row in the odd bits
+                int index = 0;
+                for (int bit = 0; bit < TILE_BITS; bit++) {
+                    index |= ((col >> bit) & 1) << (2 * bit);
+                    index |= ((row >> bit) & 1) << (2 * bit + 1);
+                }
+                ENCODE[row * TILE + col] = index;
+                DECODE_ROW[index] = row;
+                DECODE_COLUMN[index] = col;
+            }
+        }
+
+        int[] rowSteps = {-1, 0, 1, 0};
+        int[] columnSteps = {0, 1, 0, -1};
+        for (int index = 0; index < TILE_CELLS; index++) {
+            for (int side = 0; side < 4; side++) {
+                int row = DECODE_ROW[index] + rowSteps[side];
+                int col = DECODE_COLUMN[index] + columnSteps[side];
+                boolean inside = row >= 0 && row < TILE && col >= 0 && col < TILE;
+                STEPS[index * 4 + side] = inside ? ENCODE[row * TILE + col] : -1;
+                CROSSINGS[index * 4 + side] = ENCODE[(row & (TILE - 1)) * TILE + (col & (TILE - 1))];
+            }
+        }
+    }
+
+    // cells in a full row of tiles, and the number of full tiles down and across
+    private final int tileRowCells, fullTileRows, fullTileColumns;
+
+    // multiplier and shift that divide a cell index by tileRowCells without a division instruction
+    private final long tileRowMagic;
+    private final int tileRowShift;
+
+    /**
+     * Constructor for MortonTopology class.
+     * @param rows Number of rows in the grid.
+     * @param columns Number of columns in the grid.
+     */
+    public MortonTopology(int rows, int columns) {
+        super(rows, columns);
+        if ((long) TILE * columns > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid maze dimensions: " + rows + " x " + columns);
+        }
+        this.tileRowCells = TILE * columns;
+        this.fullTileRows = rows >> TILE_BITS;
+        this.fullTileColumns = columns >> TILE_BITS;
+
+        // rounding the reciprocal up gives exact quotients for every non-negative int (Granlund-Montgomery)
+        int bits = 32 - Integer.numberOfLeadingZeros(tileRowCells - 1);
+        this.tileRowShift = 32 + bits;
+        this.tileRowMagic = (1L << tileRowShift) / tileRowCells + 1;
+    }
+
+    @Override
+    public int index(int row, int column) {
+        int tileRow = row >> TILE_BITS;
+        int tileCol = column >> TILE_BITS;
+        int tileHeight = tileRow < fullTileRows ? TILE : rows - (tileRow << TILE_BITS);
+        int tileStart = tileRow * tileRowCells + tileCol * TILE * tileHeight;
+        if (tileRow < fullTileRows && tileCol < fullTileColumns) {
+            return tileStart + ENCODE[((row & (TILE - 1)) << TILE_BITS) | (column & (TILE - 1))];
+        }
+        return tileStart + (row & (TILE - 1)) * tileWidth(tileCol) + (column & (TILE - 1));
+    }
+
+    @Override
+    public int row(int cell) {
+        int tileRow = tileRow(cell);
+        int local = cell - tileRow * tileRowCells;
+        int tileHeight = tileRow < fullTileRows ? TILE : rows - (tileRow << TILE_BITS);
+        int tileCol = local / (TILE * tileHeight);
+        local -= tileCol * TILE * tileHeight;
+        if (tileRow < fullTileRows && tileCol < fullTileColumns) {
+            return (tileRow << TILE_BITS) + DECODE_ROW[local];
+        }
+        return (tileRow << TILE_BITS) + local / tileWidth(tileCol);
+    }
+
+    @Override
+    public int column(int cell) {
+        int tileRow = tileRow(cell);
+        int local = cell - tileRow * tileRowCells;
+        int tileHeight = tileRow < fullTileRows ? TILE : rows - (tileRow << TILE_BITS);
+        int tileCol = local / (TILE * tileHeight);
+        local -= tileCol * TILE * tileHeight;
+        if (tileRow < fullTileRows && tileCol < fullTileColumns) {
+            return (tileCol << TILE_BITS) + DECODE_COLUMN[local];
+        }
+        return (tileCol << TILE_BITS) + local % tileWidth(tileCol);
+    }
+
+    /**
+     * Gets the neighbour of a cell. Steps that stay inside a full tile are a single table lookup; the rest
+     * go through the row and column.
+     * @param cell The cell index.
+     * @param side The side to look through.
+     * @return The neighbouring cell index, or -1 if there is no cell on that side.
+     */
+    @Override
+    public int neighbor(int cell, int side) {
+        int tileRow = tileRow(cell);
+        int row, col;
+        if (tileRow < fullTileRows) {
+            // every tile before the last in a full row of tiles has TILE_CELLS cells
+            int local = cell - tileRow * tileRowCells;
+            int tileCol = local >> (2 * TILE_BITS);
+            if (tileCol < fullTileColumns) {
+                local &= TILE_CELLS - 1;
+                int step = STEPS[(local << 2) | side];
+                if (step >= 0)
+                    return cell - local + step;
+
+                // crossing into a full tile beside this one only moves to a different block of the arrays
+                int crossing = cell - local + CROSSINGS[(local << 2) | side];
+                switch (side) {
+                    case MazeCell.TOP:
+                        return tileRow > 0 ? crossing - tileRowCells : -1;
+                    case MazeCell.LEFT:
+                        return tileCol > 0 ? crossing - TILE_CELLS : -1;
+                    case MazeCell.RIGHT:
+                        if (tileCol + 1 < fullTileColumns)
+                            return crossing + TILE_CELLS;
+                        break;
+                    default:
+                        if (tileRow + 1 < fullTileRows)
+                            return crossing + tileRowCells;
+                        break;
+                }
+                row = (tileRow << TILE_BITS) + DECODE_ROW[local];
+                col = (tileCol << TILE_BITS) + DECODE_COLUMN[local];
+            } else {
+                row = row(cell);
+                col = column(cell);
+            }
+        } else {
+            row = row(cell);
+            col = column(cell);
+        }
+
+        switch (side) {
+            case MazeCell.TOP:
+                return row > 0 ? index(row - 1, col) : -1;
+            case MazeCell.RIGHT:
+                return col < columns - 1 ? index(row, col + 1) : -1;
+            case MazeCell.BOTTOM:
+                return row < rows - 1 ? index(row + 1, col) : -1;
+            default:
+                return col > 0 ? index(row, col - 1) : -1;
+        }
+    }
+
+    @Override
+    public int getEndCell() { return index(rows - 1, columns - 1); }
+
+    @Override
+    public void forEachCellIn(double x0, double y0, double x1, double y1, IntConsumer action) {
+        int firstCol = Math.max(0, (int) Math.floor(x0));
+        int lastCol = Math.min(columns - 1, (int) Math.floor(x1));
+        int firstRow = Math.max(0, (int) Math.floor(y0));
+        int lastRow = Math.min(rows - 1, (int) Math.floor(y1));
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int col = firstCol; col <= lastCol; col++) {
+                action.accept(index(row, col));
+            }
+        }
+    }
+
+    /**
+     * Gets the row of tiles a cell is in.
+     * @param cell The cell index.
+     * @return cell / tileRowCells.
+     */
+    private int tileRow(int cell) {
+        return (int) ((cell * tileRowMagic) >>> tileRowShift);
+    }
+
+    /**
+     * Gets the width of a column of tiles.
+     * @param tileCol The column of tiles.
+     * @return TILE, or less for the last column.
+     */
+    private int tileWidth(int tileCol) {
+        return Math.min(TILE, columns - (tileCol << TILE_BITS));
+    }
+}
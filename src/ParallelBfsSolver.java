@@ -0,0 +1,196 @@
+/*
+ * File:     ParallelBfsSolver.java
+ * Author:   Taylor Ecton
+ * Purpose:  Level-synchronous breadth first search solver that expands each frontier in parallel on a
+ *           ForkJoinPool. Cells are claimed with an atomic compare-and-set on a shared bitset, so every
+ *           cell is expanded exactly once even when the maze has loops.
+ */
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class ParallelBfsSolver {
+    // frontier cells handled by a single task before it stops splitting
+    private static final int CHUNK_SIZE = 4096;
+
+    // the pool the frontier chunks are expanded on
+    private final ForkJoinPool pool;
+
+    // grid being solved and the state of the current search
+    private MazeGrid grid;
+    private AtomicLongArray visited;
+    private int[] parent;
+    private int[] next;
+    private AtomicInteger nextSize;
+    private volatile boolean found;
+    private int end;
+
+    // number of cells claimed by the last search
+    private int cellsVisited;
+
+    /**
+     * Constructor for ParallelBfsSolver class using the common ForkJoinPool.
+     */
+    public ParallelBfsSolver() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructor for ParallelBfsSolver class.
+     * @param pool The pool to expand frontier chunks on.
+     */
+    public ParallelBfsSolver(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Finds a shortest path between two cells.
+     * @param grid The maze to solve.
+     * @param start The cell to start from.
+     * @param end The cell to find.
+     * @return The cells on the path from start to end inclusive, or an empty array if end can't be reached.
+     */
+    public int[] solve(MazeGrid grid, int start, int end) {
+        int cellCount = grid.getCellCount();
+
+        // initialize the state shared by the frontier tasks
+        this.grid = grid;
+        this.end = end;
+        this.found = start == end;
+        visited = new AtomicLongArray((cellCount + 63) >>> 6);
+        parent = new int[cellCount];
+        next = new int[cellCount];
+        nextSize = new AtomicInteger();
+
+        int[] frontier = new int[cellCount];
+        int frontierSize = 1;
+        frontier[0] = start;
+        claim(start);
+        parent[start] = -1;
+        cellsVisited = 1;
+
+        // expand one level at a time until the end is claimed or nothing is left to explore
+        while (!found && frontierSize > 0) {
+            nextSize.set(0);
+            Expand task = new Expand(frontier, 0, frontierSize);
+            if (frontierSize <= CHUNK_SIZE) {
+                task.compute();
+            } else {
+                pool.invoke(task);
+            }
+
+            // the next frontier becomes the current one
+            int[] swap = frontier;
+            frontier = next;
+            next = swap;
+            frontierSize = nextSize.get();
+            cellsVisited += frontierSize;
+        }
+
+        int[] path = found ? buildPath(start) : new int[0];
+
+        // release the search state so large grids can be collected (visited is kept for wasVisited)
+        this.grid = null;
+        parent = null;
+        next = null;
+        return path;
+    }
+
+    /**
+     * Gets the number of cells reached by the last search.
+     * @return The number of cells visited.
+     */
+    public int getCellsVisited() { return cellsVisited; }
+
+    /**
+     * Tells whether a cell was reached by the last search.
+     * @param cell The cell index.
+     * @return True if the cell was claimed by the search.
+     */
+    public boolean wasVisited(int cell) {
+        return visited != null && (visited.get(cell >>> 6) & (1L << cell)) != 0;
+    }
+
+    /**
+     * Attempts to claim a cell for the current search.
+     * @param cell The cell to claim.
+     * @return True if this call claimed the cell, false if it was already claimed.
+     */
+    private boolean claim(int cell) {
+        int word = cell >>> 6;
+        long bit = 1L << cell;
+        long value;
+        do {
+            value = visited.get(word);
+            if ((value & bit) != 0) {
+                return false;
+            }
+        } while (!visited.compareAndSet(word, value, value | bit));
+        return true;
+    }
+
+    /**
+     * Walks the parent links back from the end of the maze.
+     * @param start The cell the search started from.
+     * @return The path from start to end inclusive.
+     */
+    private int[] buildPath(int start) {
+        int length = 1;
+        for (int cell = end; cell != start; cell = parent[cell]) {
+            length++;
+        }
+
+        int[] path = new int[length];
+        int cell = end;
+        for (int i = length - 1; i >= 0; i--) {
+            path[i] = cell;
+            cell = parent[cell];
+        }
+        return path;
+    }
+
+    /**
+     * Expands a range of the current frontier, splitting it in half until it is small enough.
+     */
+    private class Expand extends RecursiveAction {
+        private final int[] frontier;
+        private final int from, to;
+
+        Expand(int[] frontier, int from, int to) {
+            this.frontier = frontier;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > CHUNK_SIZE) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new Expand(frontier, from, mid), new Expand(frontier, mid, to));
+                return;
+            }
+
+            // collect the claimed cells locally so the shared frontier is only touched once per chunk
+            int[] local = new int[(to - from) * grid.getSides()];
+            int count = 0;
+            for (int i = from; i < to && !found; i++) {
+                int cell = frontier[i];
+                for (int wall = 0; wall < grid.getSides(); wall++) {
+                    int neighbor = grid.passage(cell, wall);
+                    if (neighbor >= 0 && claim(neighbor)) {
+                        parent[neighbor] = cell;
+                        local[count++] = neighbor;
+                        if (neighbor == end) {
+                            found = true;
+                        }
+                    }
+                }
+            }
+
+            int offset = nextSize.getAndAdd(count);
+            System.arraycopy(local, 0, next, offset, count);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * File:     PipelinedSolver.java
+ * Author:   Taylor Ecton
+ * Purpose:  Solver that runs alongside the generator. It listens for carved passages, joins the cells on
+ *           either side in a DisjointSets, and notices the moment the start and end become connected, so
+ *           the path can be shown without waiting for the rest of the maze to be generated.
+ */
+
+import java.util.Arrays;
+
+public class PipelinedSolver implements GridListener {
+    // the maze being generated
+    private final MazeGrid grid;
+
+    // the cells being connected
+    private final int start, end;
+
+    // cells joined by the passages carved so far
+    private final DisjointSets sets;
+
+    // number of passages carved so far, and when the start and end were connected
+    private long carves;
+    private long carvesUntilConnected = -1;
+
+    // the path from start to end, found the first time it is asked for after connecting
+    private int[] path;
+
+    /**
+     * Constructor for PipelinedSolver class. Must be created before any passages are carved.
+     * @param grid The maze being generated.
+     * @param start The cell the path starts at.
+     * @param end The cell the path ends at.
+     */
+    public PipelinedSolver(MazeGrid grid, int start, int end) {
+        this.grid = grid;
+        this.start = start;
+        this.end = end;
+        this.sets = new DisjointSets(grid.getCellCount());
+    }
+
+    /**
+     * Tells whether the start and end have been connected.
+     * @return True once a path exists.
+     */
+    public boolean isConnected() { return carvesUntilConnected >= 0; }
+
+    /**
+     * Gets the number of passages that had been carved when the start and end were connected.
+     * @return The number of passages, or -1 if they aren't connected yet.
+     */
+    public long getCarvesUntilConnected() { return carvesUntilConnected; }
+
+    /**
+     * Joins a cell with every neighbour it has an open passage to.
+     * @param cell The cell that changed.
+     */
+    @Override
+    public void cellChanged(int cell) {
+        for (int wall = 0; wall < grid.getSides(); wall++) {
+            int next = grid.passage(cell, wall);
+            if (next >= 0 && sets.union(cell, next)) {
+                carves++;
+                if (carvesUntilConnected < 0 && sets.connected(start, end)) {
+                    carvesUntilConnected = carves;
+                }
+            }
+        }
+    }
+
+    /**
+     * Walls are only ever reset before generation starts, so there's nothing to do here.
+     */
+    @Override
+    public void gridChanged() {
+    }
+
+    /**
+     * Gets the path from start to end through the passages carved so far. The search only covers the cells
+     * connected to the start, not the whole maze.
+     * @return The cells on the path from start to end inclusive, or null if they aren't connected yet.
+     */
+    public int[] getPath() {
+        if (!isConnected())
+            return null;
+        if (path != null)
+            return path;
+
+        // breadth first search from the start, remembering where each cell was reached from
+        int[] parent = new int[grid.getCellCount()];
+        int[] queue = new int[grid.getCellCount()];
+        int head = 0, tail = 0;
+        Arrays.fill(parent, -1);
+        parent[start] = start;
+        queue[tail++] = start;
+        while (head < tail && parent[end] < 0) {
+            int cell = queue[head++];
+            for (int wall = 0; wall < grid.getSides(); wall++) {
+                int next = grid.passage(cell, wall);
+                if (next >= 0 && parent[next] < 0) {
+                    parent[next] = cell;
+                    queue[tail++] = next;
+                }
+            }
+        }
+
+        // walk back from the end
+        int length = 1;
+        for (int cell = end; cell != start; cell = parent[cell]) {
+            length++;
+        }
+        path = new int[length];
+        for (int i = length - 1, cell = end; i >= 0; i--, cell = parent[cell]) {
+            path[i] = cell;
+        }
+        return path;
+    }
+}
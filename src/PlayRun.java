@@ -0,0 +1,208 @@
+/*
+ * File:     PlayRun.java
+ * Author:   Taylor Ecton
+ * Purpose:  Everything needed while the user walks through a finished maze from the start cell to the end
+ *           cell: where they are, the path they have walked and how far every cell is from the end. The
+ *           distances are found with one breadth first search when the run starts, so each move only reads
+ *           the wall bits of the cell the user is in and costs the same however large the maze is. The path
+ *           is kept as a stack with the position of every cell on it, so walking back over it, or around a
+ *           loop of a braided maze onto it, only touches the cells taken off it.
+ */
+
+import java.util.Arrays;
+
+public class PlayRun {
+    // smallest cosine between the direction asked for and the direction of a passage that still counts as
+    // going that way; a little below a half, so the sides of a triangle can be taken with arrow keys
+    private static final double MIN_ALIGNMENT = 0.45;
+
+    // the maze being walked and the cells the walk starts and ends at
+    private final MazeGrid grid;
+    private final int start, end;
+
+    // the number of steps from each cell to the end, or -1 where it can't be reached
+    private final int[] distance;
+
+    // the cells from the start to the cell the user is in, and the position of each cell on it or -1
+    private int[] path;
+    private int pathLength;
+    private final int[] pathIndex;
+
+    // the number of moves made so far
+    private int moves;
+
+    // cells whose state changed in the last move
+    private int[] changed = new int[16];
+    private int changedCount;
+
+    // scratch space for the centers of cells
+    private final double[] here = new double[2];
+    private final double[] there = new double[2];
+
+    /**
+     * Constructor for PlayRun class. Takes the solver colors off the maze and puts the user on the start
+     * cell.
+     * @param grid The maze to walk through, which the run colors as the user goes.
+     */
+    public PlayRun(MazeGrid grid) {
+        this.grid = grid;
+        start = grid.getTopology().getStartCell();
+        end = grid.getTopology().getEndCell();
+        grid.fillStates(MazeCell.UNVISITED);
+        grid.setState(start, MazeCell.START);
+        grid.setState(end, MazeCell.END);
+
+        int cells = grid.getCellCount();
+        distance = new int[cells];
+        MazeStatistics.search(grid, end, distance, new int[cells], null);
+
+        path = new int[64];
+        pathIndex = new int[cells];
+        Arrays.fill(pathIndex, -1);
+        path[pathLength++] = start;
+        pathIndex[start] = 0;
+    }
+
+    /**
+     * Gets the cell the user is in.
+     * @return The cell index.
+     */
+    public int getCurrent() { return path[pathLength - 1]; }
+
+    /**
+     * Gets the number of steps from the cell the user is in to the end.
+     * @return The number of steps, or -1 if the end can't be reached.
+     */
+    public int getStepsToEnd() { return distance[getCurrent()]; }
+
+    /**
+     * Gets the number of steps on the shortest path from the start to the end.
+     * @return The number of steps, or -1 if the end can't be reached.
+     */
+    public int getShortestLength() { return distance[start]; }
+
+    /**
+     * Gets the number of moves made so far, counting moves back.
+     * @return The number of moves.
+     */
+    public int getMoves() { return moves; }
+
+    /**
+     * Tells whether the user has reached the end.
+     * @return True if the user is on the end cell.
+     */
+    public boolean isFinished() { return getCurrent() == end; }
+
+    /**
+     * Gets the path from the start to the cell the user is in, without the loops and dead ends they walked
+     * back out of.
+     * @return The cells of the path.
+     */
+    public int[] getPath() { return Arrays.copyOf(path, pathLength); }
+
+    /**
+     * Gets the number of cells whose state changed in the last move.
+     * @return The number of cells.
+     */
+    public int getChangedCount() { return changedCount; }
+
+    /**
+     * Gets a cell whose state changed in the last move.
+     * @param i Which of the cells, from 0 to getChangedCount() - 1.
+     * @return The cell index.
+     */
+    public int getChangedCell(int i) { return changed[i]; }
+
+    /**
+     * Finds the open side of the cell the user is in that leads most nearly in a direction on the screen.
+     * @param dx How far right the direction goes.
+     * @param dy How far down the direction goes.
+     * @return The side, or -1 if no passage leads that way.
+     */
+    public int findSide(double dx, double dy) {
+        Topology topology = grid.getTopology();
+        int cell = getCurrent();
+        topology.getCenter(cell, here);
+
+        int best = -1;
+        double bestAlignment = MIN_ALIGNMENT;
+        for (int side = 0; side < grid.getSides(); side++) {
+            int next = grid.passage(cell, side);
+            if (next < 0)
+                continue;
+
+            // passages to other floors have no direction on the screen
+            topology.getCenter(next, there);
+            double x = there[0] - here[0], y = there[1] - here[1];
+            double length = Math.hypot(x, y) * Math.hypot(dx, dy);
+            if (length == 0)
+                continue;
+            double alignment = (x * dx + y * dy) / length;
+            if (alignment > bestAlignment) {
+                best = side;
+                bestAlignment = alignment;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Finds the stairs up or down from the cell the user is in.
+     * @param up True for the stairs up, false for the stairs down.
+     * @return The side, or -1 if the maze has one floor or there are no such stairs.
+     */
+    public int findStairs(boolean up) {
+        if (!(grid.getTopology() instanceof LayeredTopology))
+            return -1;
+        LayeredTopology layers = (LayeredTopology) grid.getTopology();
+        int side = up ? layers.getUpSide() : layers.getDownSide();
+        return grid.passage(getCurrent(), side) >= 0 ? side : -1;
+    }
+
+    /**
+     * Moves the user through a side of the cell they are in. Stepping onto a new cell colors it as visited;
+     * stepping back onto the path takes the cells after it off the path and colors them as backtracked, as
+     * a solver leaves the cells it tried.
+     * @param side The side to move through.
+     * @return True if the user moved, false if there is a wall there or they already reached the end.
+     */
+    public boolean move(int side) {
+        changedCount = 0;
+        int next = grid.passage(getCurrent(), side);
+        if (next < 0 || isFinished())
+            return false;
+        moves++;
+
+        if (pathIndex[next] >= 0) {
+            while (pathLength - 1 > pathIndex[next]) {
+                int cell = path[--pathLength];
+                pathIndex[cell] = -1;
+                setState(cell, MazeCell.BACKTRACKED);
+            }
+            return true;
+        }
+
+        if (pathLength == path.length) {
+            path = Arrays.copyOf(path, 2 * pathLength);
+        }
+        pathIndex[next] = pathLength;
+        path[pathLength++] = next;
+        if (next != end) {
+            setState(next, MazeCell.VISITED);
+        }
+        return true;
+    }
+
+    /**
+     * Colors a cell and notes that it changed.
+     * @param cell The cell index.
+     * @param state The new state (see MazeCell constants).
+     */
+    private void setState(int cell, int state) {
+        grid.setState(cell, state);
+        if (changedCount == changed.length) {
+            changed = Arrays.copyOf(changed, 2 * changedCount);
+        }
+        changed[changedCount++] = cell;
+    }
+}
@@ -0,0 +1,307 @@
+/*
+ * File:     PolarTopology.java
+ * Author:   Taylor Ecton
+ * Purpose:  Circular grid of rings around a small empty hole. Each ring is one unit thick and is split
+ *           into the same number of cells as the ring inside it, or twice as many once the cells would
+ *           get too wide, so a cell has up to two neighbours in the ring outside it. The neighbours of
+ *           every cell are worked out once into a flat table.
+ */
+
+import java.util.function.IntConsumer;
+
+public class PolarTopology extends Topology {
+    // sides of a cell: the next cell clockwise and counterclockwise, the cell inside, and the one or two
+    // cells outside
+    public static final int CLOCKWISE = 0;
+    public static final int COUNTERCLOCKWISE = 1;
+    public static final int INWARD = 2;
+    public static final int OUTWARD = 3;
+    public static final int OUTWARD_SECOND = 4;
+    private static final int SIDES = 5;
+
+    // side after each side going clockwise around a cell, and going counterclockwise
+    private static final int[] CLOCKWISE_SIDES = { INWARD, OUTWARD, COUNTERCLOCKWISE, OUTWARD_SECOND, CLOCKWISE };
+    private static final int[] COUNTERCLOCKWISE_SIDES = { OUTWARD_SECOND, INWARD, CLOCKWISE, COUNTERCLOCKWISE,
+                                                          OUTWARD };
+
+    // cells in the innermost ring, and the width a cell can reach before its ring is split
+    private static final int FIRST_RING_CELLS = 6;
+    private static final double MAX_CELL_WIDTH = 2.0;
+
+    // index of the first cell of each ring, with the total cell count at the end
+    private final int[] ringStarts;
+
+    // neighbour of each cell through each side, indexed by cell * SIDES + side; -1 where there is none
+    private final int[] neighbors;
+
+    /**
+     * Constructor for PolarTopology class.
+     * @param rings Number of rings.
+     */
+    public PolarTopology(int rings) {
+        if (rings <= 0) {
+            throw new IllegalArgumentException("Invalid number of rings: " + rings);
+        }
+
+        ringStarts = new int[rings + 1];
+        long total = 0;
+        int count = FIRST_RING_CELLS;
+        for (int ring = 0; ring < rings; ring++) {
+            if (ring > 0 && 2 * Math.PI * (ring + 1.5) / count >= MAX_CELL_WIDTH) {
+                count *= 2;
+            }
+            ringStarts[ring] = (int) total;
+            total += count;
+            if (total * SIDES > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Invalid number of rings: " + rings);
+            }
+        }
+        ringStarts[rings] = (int) total;
+
+        neighbors = new int[(int) total * SIDES];
+        for (int ring = 0; ring < rings; ring++) {
+            int cells = ringCells(ring);
+            int innerCells = ring > 0 ? ringCells(ring - 1) : 0;
+            int outerCells = ring < rings - 1 ? ringCells(ring + 1) : 0;
+            for (int i = 0; i < cells; i++) {
+                int base = (ringStarts[ring] + i) * SIDES;
+                neighbors[base + CLOCKWISE] = ringStarts[ring] + (i + 1) % cells;
+                neighbors[base + COUNTERCLOCKWISE] = ringStarts[ring] + (i + cells - 1) % cells;
+                neighbors[base + INWARD] = innerCells == 0 ? -1
+                        : ringStarts[ring - 1] + (innerCells == cells ? i : i / 2);
+                if (outerCells == 0) {
+                    neighbors[base + OUTWARD] = -1;
+                    neighbors[base + OUTWARD_SECOND] = -1;
+                } else if (outerCells == cells) {
+                    neighbors[base + OUTWARD] = ringStarts[ring + 1] + i;
+                    neighbors[base + OUTWARD_SECOND] = -1;
+                } else {
+                    neighbors[base + OUTWARD] = ringStarts[ring + 1] + 2 * i;
+                    neighbors[base + OUTWARD_SECOND] = ringStarts[ring + 1] + 2 * i + 1;
+                }
+            }
+        }
+    }
+
+    @Override
+    public int getCellCount() { return ringStarts[ringStarts.length - 1]; }
+
+    @Override
+    public int getSides() { return SIDES; }
+
+    @Override
+    public int neighbor(int cell, int side) { return neighbors[cell * SIDES + side]; }
+
+    @Override
+    public int backSide(int cell, int side) {
+        switch (side) {
+            case CLOCKWISE:
+                return COUNTERCLOCKWISE;
+            case COUNTERCLOCKWISE:
+                return CLOCKWISE;
+            case INWARD:
+                return neighbors[neighbors[cell * SIDES + INWARD] * SIDES + OUTWARD] == cell
+                        ? OUTWARD : OUTWARD_SECOND;
+            default:
+                return INWARD;
+        }
+    }
+
+    /**
+     * Gets the next side clockwise: from the counterclockwise side out through the one or two outward sides,
+     * then the clockwise side and back in.
+     */
+    @Override
+    public int nextSideClockwise(int cell, int side) { return CLOCKWISE_SIDES[side]; }
+
+    @Override
+    public int nextSideCounterclockwise(int cell, int side) { return COUNTERCLOCKWISE_SIDES[side]; }
+
+    /**
+     * Gets the number of rings.
+     * @return The number of rings.
+     */
+    @Override
+    public int getRows() { return ringStarts.length - 1; }
+
+    /**
+     * Gets the number of cells in the outer ring.
+     * @return The number of cells in the outer ring.
+     */
+    @Override
+    public int getColumns() { return ringCells(getRows() - 1); }
+
+    @Override
+    public int index(int row, int column) { return ringStarts[row] + column; }
+
+    @Override
+    public int row(int cell) {
+        // last ring starting at or before the cell
+        int low = 0;
+        int high = ringStarts.length - 2;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (ringStarts[mid] <= cell) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    @Override
+    public int column(int cell) { return cell - ringStarts[row(cell)]; }
+
+    @Override
+    public int getEndCell() { return ringStarts[getRows() - 1]; }
+
+    @Override
+    public double getWidth() { return 2 * (getRows() + 1); }
+
+    @Override
+    public double getHeight() { return getWidth(); }
+
+    @Override
+    public void getCenter(int cell, double[] xy) {
+        int ring = row(cell);
+        double angle = 2 * Math.PI * (cell - ringStarts[ring] + 0.5) / ringCells(ring);
+        point(ring + 1.5, angle, xy, 0);
+    }
+
+    @Override
+    public int getOutline(int cell, double[] xs, double[] ys) {
+        int ring = row(cell);
+        int cells = ringCells(ring);
+        int i = cell - ringStarts[ring];
+        double a0 = 2 * Math.PI * i / cells;
+        double a1 = 2 * Math.PI * (i + 1) / cells;
+        double[] xy = new double[2];
+
+        int count = 0;
+        point(ring + 1, a0, xy, 0);
+        xs[count] = xy[0];
+        ys[count++] = xy[1];
+        point(ring + 2, a0, xy, 0);
+        xs[count] = xy[0];
+        ys[count++] = xy[1];
+        if (neighbors[cell * SIDES + OUTWARD_SECOND] >= 0) {
+            point(ring + 2, (a0 + a1) / 2, xy, 0);
+            xs[count] = xy[0];
+            ys[count++] = xy[1];
+        }
+        point(ring + 2, a1, xy, 0);
+        xs[count] = xy[0];
+        ys[count++] = xy[1];
+        point(ring + 1, a1, xy, 0);
+        xs[count] = xy[0];
+        ys[count++] = xy[1];
+        return count;
+    }
+
+    @Override
+    public boolean getSide(int cell, int side, double[] segment) {
+        int ring = row(cell);
+        int cells = ringCells(ring);
+        int i = cell - ringStarts[ring];
+        double a0 = 2 * Math.PI * i / cells;
+        double a1 = 2 * Math.PI * (i + 1) / cells;
+        boolean split = neighbors[cell * SIDES + OUTWARD_SECOND] >= 0;
+
+        switch (side) {
+            case CLOCKWISE:
+                point(ring + 1, a1, segment, 0);
+                point(ring + 2, a1, segment, 2);
+                return true;
+            case COUNTERCLOCKWISE:
+                point(ring + 1, a0, segment, 0);
+                point(ring + 2, a0, segment, 2);
+                return true;
+            case INWARD:
+                point(ring + 1, a0, segment, 0);
+                point(ring + 1, a1, segment, 2);
+                return true;
+            case OUTWARD:
+                point(ring + 2, a0, segment, 0);
+                point(ring + 2, split ? (a0 + a1) / 2 : a1, segment, 2);
+                return true;
+            default:
+                if (!split)
+                    return false;
+                point(ring + 2, (a0 + a1) / 2, segment, 0);
+                point(ring + 2, a1, segment, 2);
+                return true;
+        }
+    }
+
+    @Override
+    public void forEachCellIn(double x0, double y0, double x1, double y1, IntConsumer action) {
+        // nearest and farthest distance from the center to the rectangle decide which rings it touches
+        double center = getRows() + 1;
+        double nearX = Math.max(x0 - center, Math.max(0, center - x1));
+        double nearY = Math.max(y0 - center, Math.max(0, center - y1));
+        double farX = Math.max(Math.abs(x0 - center), Math.abs(x1 - center));
+        double farY = Math.max(Math.abs(y0 - center), Math.abs(y1 - center));
+        int firstRing = Math.max(0, (int) Math.floor(Math.hypot(nearX, nearY)) - 2);
+        int lastRing = Math.min(getRows() - 1, (int) Math.ceil(Math.hypot(farX, farY)) - 1);
+        if (firstRing > lastRing)
+            return;
+
+        // a rectangle around the center touches every angle; otherwise the angles of its corners, measured
+        // from the angle of its middle so none of them wraps around, bound the angles it covers
+        if (nearX == 0 && nearY == 0) {
+            for (int cell = ringStarts[firstRing]; cell < ringStarts[lastRing + 1]; cell++) {
+                action.accept(cell);
+            }
+            return;
+        }
+        double middle = Math.atan2((y0 + y1) / 2 - center, (x0 + x1) / 2 - center);
+        double from = 0, to = 0;
+        for (int corner = 0; corner < 4; corner++) {
+            double angle = Math.atan2((corner < 2 ? y0 : y1) - center, (corner % 2 == 0 ? x0 : x1) - center);
+            double turn = Math.IEEEremainder(angle - middle, 2 * Math.PI);
+            from = Math.min(from, turn);
+            to = Math.max(to, turn);
+        }
+        from += middle;
+        to += middle;
+
+        // visit the cells of each ring between those angles, and one more on each side, in the order of their
+        // indices so cells overlapping at their edges are always drawn in the same order
+        for (int ring = firstRing; ring <= lastRing; ring++) {
+            int cells = ringCells(ring);
+            int first = (int) Math.floor(from * cells / (2 * Math.PI)) - 1;
+            int count = Math.min(cells, (int) Math.floor(to * cells / (2 * Math.PI)) + 2 - first);
+            first = Math.floorMod(first, cells);
+            int wrapped = Math.max(0, first + count - cells);
+            for (int i = 0; i < wrapped; i++) {
+                action.accept(ringStarts[ring] + i);
+            }
+            for (int i = first; i < first + count - wrapped; i++) {
+                action.accept(ringStarts[ring] + i);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of cells in a ring.
+     * @param ring The ring.
+     * @return The number of cells.
+     */
+    private int ringCells(int ring) {
+        return ringStarts[ring + 1] - ringStarts[ring];
+    }
+
+    /**
+     * Stores the position of a point given its distance from the center and its angle.
+     * @param radius The distance from the center.
+     * @param angle The angle in radians, clockwise from the right.
+     * @param out Array the coordinates are stored in.
+     * @param offset Index in out for the x coordinate; the y coordinate follows it.
+     */
+    private void point(double radius, double angle, double[] out, int offset) {
+        double center = getRows() + 1;
+        out[offset] = center + radius * Math.cos(angle);
+        out[offset + 1] = center + radius * Math.sin(angle);
+    }
+}
@@ -0,0 +1,597 @@
+/*
+ * File:     RegionCarver.java
+ * Author:   Taylor Ecton
+ * Purpose:  Re-carves a rectangle of a finished perfect maze with new corridors and leaves the rest of the
+ *           maze as it is. Taking the corridors of the rectangle away splits the rest of the maze into
+ *           pieces, and the maze only stays perfect if the new corridors join every piece exactly once. A
+ *           search out from the rectangle finds which passages lead into the same piece, but only looks at a
+ *           few cells for every cell of the rectangle. Two old corridors are carved together only when the
+ *           search showed that they lead into the same piece, and one of their two passages into it is
+ *           walled up; corridors it couldn't link are carved anew on their own cells and keep their passages.
+ *           An edit so costs about as much as the rectangle it touches however far the rest of the maze winds,
+ *           and a solution path is repaired across the new corridors instead of solving the maze again. The
+ *           repair still reads the path once to find where it enters and leaves the rectangle and copies it
+ *           once, so that part of an edit grows with the length of the path, but only as plain passes over
+ *           an array rather than the search that solving again would be.
+ */
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+public class RegionCarver {
+    // cells outside the rectangle the search may look at for every cell inside it
+    private static final int SEARCH_CELLS_PER_CELL = 8;
+
+    // the maze and how its cells fit together
+    private final MazeGrid grid;
+    private final Topology topology;
+
+    // the rows and columns of the rectangle, and its width and number of cells
+    private final int firstRow, firstColumn, lastRow, lastColumn;
+    private final int width, size;
+
+    // the cells of the rectangle, row by row; cells of the rectangle are numbered by their place in it
+    private final int[] cells;
+
+    // passages between the rectangle and the cells around it: the cell inside, the wall and the cell
+    // outside, whether the passage is still open, whether the path goes through it, and the passage the path
+    // comes back in or went out through on the other side of a detour, or -1
+    private int[] portCells, portWalls, portNeighbors;
+    private boolean[] open, onPath;
+    private int[] partners;
+    private int portCount;
+
+    // the corridors of the rectangle, joined together as they are merged, and the corridors next to each
+    // corridor, listed under the cell find() gives for it
+    private DisjointSets corridors;
+    private final Map<Integer, Set<Integer>> adjacent = new HashMap<>();
+
+    // the cell before each cell of the rectangle in the tree its new corridor was carved as, or -1, and how
+    // far it is from the first cell of the tree
+    private final int[] parent, depth;
+
+    // the repaired path as it is built
+    private int[] repaired;
+    private int repairedLength;
+
+    /**
+     * Constructor for RegionCarver class.
+     * @param grid The maze.
+     * @param firstRow The first row of the rectangle.
+     * @param firstColumn The first column of the rectangle.
+     * @param lastRow The last row of the rectangle.
+     * @param lastColumn The last column of the rectangle.
+     */
+    private RegionCarver(MazeGrid grid, int firstRow, int firstColumn, int lastRow, int lastColumn) {
+        this.grid = grid;
+        this.topology = grid.getTopology();
+        this.firstRow = firstRow;
+        this.firstColumn = firstColumn;
+        this.lastRow = lastRow;
+        this.lastColumn = lastColumn;
+        width = lastColumn - firstColumn + 1;
+        size = (lastRow - firstRow + 1) * width;
+        parent = new int[size];
+        depth = new int[size];
+
+        cells = new int[size];
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                cells[(row - firstRow) * width + column - firstColumn] = topology.index(row, column);
+            }
+        }
+    }
+
+    /**
+     * Re-carves a rectangle of a perfect maze with new corridors, keeping the maze perfect. Each piece of
+     * the maze outside the rectangle is left with a single opening into it, chosen so the path still goes
+     * through where it did, except for pieces that only meet far from the rectangle; those keep their
+     * openings and the corridors behind them are carved anew separately. The cells of the rectangle lose
+     * their solver colors and the new stretches of path are colored as visited.
+     * @param grid The maze, which must be a perfect maze of square, hexagonal or triangular cells.
+     * @param firstRow The first row of the rectangle.
+     * @param firstColumn The first column of the rectangle.
+     * @param lastRow The last row of the rectangle.
+     * @param lastColumn The last column of the rectangle.
+     * @param RNG Random number generator used to carve the rectangle.
+     * @param path The cells of the solution from start to end, or null if the maze hasn't been solved.
+     * @return The repaired path, or null if path was null.
+     * @throws IllegalArgumentException If the maze isn't a grid of rows and columns, the rectangle isn't
+     *                                  inside it, or the path goes through a wall.
+     */
+    public static int[] recarve(MazeGrid grid, int firstRow, int firstColumn, int lastRow, int lastColumn,
+                                Random RNG, int[] path) {
+        Topology topology = grid.getTopology();
+        if (!(topology instanceof LatticeTopology)) {
+            throw new IllegalArgumentException("Only grids of rows and columns can be re-carved");
+        }
+        if (firstRow < 0 || firstColumn < 0 || firstRow > lastRow || firstColumn > lastColumn
+                || lastRow >= topology.getRows() || lastColumn >= topology.getColumns()) {
+            throw new IllegalArgumentException("Invalid region: rows " + firstRow + " to " + lastRow
+                                               + ", columns " + firstColumn + " to " + lastColumn);
+        }
+        return new RegionCarver(grid, firstRow, firstColumn, lastRow, lastColumn).recarve(RNG, path);
+    }
+
+    /**
+     * Re-carves the rectangle.
+     * @param RNG Random number generator used to carve the rectangle.
+     * @param path The cells of the solution from start to end, or null.
+     * @return The repaired path, or null if path was null.
+     */
+    private int[] recarve(Random RNG, int[] path) {
+        findPorts();
+        DisjointSets pieces = findPieces(findCorridors() - 1);
+
+        // where the path first enters the rectangle and last leaves it, if it goes through at all
+        int entry = -1, exit = -1;
+        if (path != null) {
+            for (int i = 0; i < path.length; i++) {
+                if (contains(path[i])) {
+                    if (entry < 0)
+                        entry = i;
+                    exit = i;
+                }
+            }
+        }
+        if (entry >= 0) {
+            markPath(path, entry, exit);
+        }
+
+        mergeCorridors(pieces);
+        closeRegion();
+        carve(RNG);
+        for (int port = 0; port < portCount; port++) {
+            if (open[port]) {
+                grid.breakWall(portCells[port], portWalls[port]);
+            }
+        }
+
+        if (entry < 0)
+            return path;
+        return repairPath(path, entry, exit);
+    }
+
+    /**
+     * Tells whether a cell is inside the rectangle.
+     * @param cell The cell index.
+     * @return True if the cell is in the rectangle.
+     */
+    private boolean contains(int cell) {
+        int row = topology.row(cell);
+        int column = topology.column(cell);
+        return row >= firstRow && row <= lastRow && column >= firstColumn && column <= lastColumn;
+    }
+
+    /**
+     * Gets the place of a cell of the rectangle within it.
+     * @param cell The cell index, which must be in the rectangle.
+     * @return The position of the cell in cells, from 0 to size - 1.
+     */
+    private int local(int cell) {
+        return (topology.row(cell) - firstRow) * width + topology.column(cell) - firstColumn;
+    }
+
+    /**
+     * Lists the passages between the rectangle and the cells around it.
+     */
+    private void findPorts() {
+        portCells = new int[16];
+        portWalls = new int[16];
+        portNeighbors = new int[16];
+        for (int cell : cells) {
+            for (int wall = 0; wall < grid.getSides(); wall++) {
+                int next = grid.passage(cell, wall);
+                if (next >= 0 && !contains(next)) {
+                    if (portCount == portCells.length) {
+                        portCells = Arrays.copyOf(portCells, 2 * portCount);
+                        portWalls = Arrays.copyOf(portWalls, 2 * portCount);
+                        portNeighbors = Arrays.copyOf(portNeighbors, 2 * portCount);
+                    }
+                    portCells[portCount] = cell;
+                    portWalls[portCount] = wall;
+                    portNeighbors[portCount++] = next;
+                }
+            }
+        }
+        open = new boolean[portCount];
+        onPath = new boolean[portCount];
+        partners = new int[portCount];
+        Arrays.fill(open, true);
+        Arrays.fill(partners, -1);
+    }
+
+    /**
+     * Finds the passage between a cell of the rectangle and a cell outside it.
+     * @param cell The cell inside.
+     * @param neighbor The cell outside.
+     * @return The index of the passage.
+     * @throws IllegalArgumentException If there is no passage between the cells.
+     */
+    private int findPort(int cell, int neighbor) {
+        for (int port = 0; port < portCount; port++) {
+            if (portCells[port] == cell && portNeighbors[port] == neighbor)
+                return port;
+        }
+        throw new IllegalArgumentException("The path goes through a wall between " + cell + " and " + neighbor);
+    }
+
+    /**
+     * Joins the cells of the rectangle into the corridors they make up before it is re-carved, and notes
+     * which corridors are next to each other.
+     * @return The number of corridors.
+     */
+    private int findCorridors() {
+        corridors = new DisjointSets(size);
+        for (int i = 0; i < size; i++) {
+            for (int wall = 0; wall < grid.getSides(); wall++) {
+                int next = grid.passage(cells[i], wall);
+                if (next >= 0 && contains(next)) {
+                    corridors.union(i, local(next));
+                }
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            for (int wall = 0; wall < grid.getSides(); wall++) {
+                int next = grid.neighbor(cells[i], wall);
+                if (next >= 0 && contains(next) && corridors.find(i) != corridors.find(local(next))) {
+                    neighbors(corridors.find(i)).add(corridors.find(local(next)));
+                }
+            }
+        }
+        return corridors.getSetCount();
+    }
+
+    /**
+     * Gets the corridors next to a corridor.
+     * @param corridor The cell find() gives for the corridor.
+     * @return The cells find() gave for its neighbours when they were added.
+     */
+    private Set<Integer> neighbors(int corridor) {
+        Set<Integer> set = adjacent.get(corridor);
+        if (set == null) {
+            set = new HashSet<>();
+            adjacent.put(corridor, set);
+        }
+        return set;
+    }
+
+    /**
+     * Groups the passages out of the rectangle by the piece of the outside maze they lead to. In a perfect
+     * maze the pieces and the corridors inside the rectangle are joined by the passages into a tree, so
+     * there is one more passage than there are pieces for every corridor but the first. The search spreads
+     * out from every passage at once and stops once it has joined up that many, or has looked at
+     * SEARCH_CELLS_PER_CELL cells for every cell of the rectangle; passages it didn't join may still lead
+     * to the same piece.
+     * @param joins The number of times two passages lead to the same piece.
+     * @return The passages, grouped by the pieces the search found them to lead to.
+     */
+    private DisjointSets findPieces(int joins) {
+        DisjointSets pieces = new DisjointSets(portCount);
+
+        // outside cells reached so far and the passage each was reached from
+        Map<Integer, Integer> reached = new HashMap<>();
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int port = 0; port < portCount; port++) {
+            Integer other = reached.putIfAbsent(portNeighbors[port], port);
+            if (other == null) {
+                queue.add(portNeighbors[port]);
+            } else if (pieces.union(port, other)) {
+                joins--;
+            }
+        }
+
+        long budget = (long) SEARCH_CELLS_PER_CELL * size;
+        while (joins > 0 && !queue.isEmpty() && reached.size() < budget) {
+            int cell = queue.poll();
+            int port = reached.get(cell);
+            for (int wall = 0; wall < grid.getSides(); wall++) {
+                int next = grid.passage(cell, wall);
+                if (next < 0 || contains(next))
+                    continue;
+                Integer other = reached.putIfAbsent(next, port);
+                if (other == null) {
+                    queue.add(next);
+                } else if (pieces.union(port, other)) {
+                    joins--;
+                }
+            }
+        }
+        return pieces;
+    }
+
+    /**
+     * Marks the passages the path goes through, pairing each passage it leaves the rectangle by with the
+     * one it comes back in by.
+     * @param path The path.
+     * @param entry Where in the path it first enters the rectangle.
+     * @param exit Where in the path it last leaves the rectangle.
+     */
+    private void markPath(int[] path, int entry, int exit) {
+        if (entry > 0) {
+            onPath[findPort(path[entry], path[entry - 1])] = true;
+        }
+        if (exit < path.length - 1) {
+            onPath[findPort(path[exit], path[exit + 1])] = true;
+        }
+        for (int i = entry; i < exit; i++) {
+            if (contains(path[i + 1]))
+                continue;
+            int back = i + 1;
+            while (!contains(path[back])) {
+                back++;
+            }
+            int out = findPort(path[i], path[i + 1]), in = findPort(path[back], path[back - 1]);
+            onPath[out] = onPath[in] = true;
+            partners[out] = in;
+            partners[in] = out;
+            i = back - 1;
+        }
+    }
+
+    /**
+     * Merges neighbouring corridors whose passages lead into the same piece of the outside maze, walling up
+     * one of the two passages each time, until no more can be merged. A passage the path goes through is
+     * only walled up when the path goes out through one of the two and back in through the other, since it
+     * can cross the merged corridor instead.
+     * @param pieces The passages, grouped by piece.
+     */
+    private void mergeCorridors(DisjointSets pieces) {
+        // the passages into each piece, listed piece by piece
+        int[] starts = new int[portCount + 1];
+        for (int port = 0; port < portCount; port++) {
+            starts[pieces.find(port) + 1]++;
+        }
+        for (int i = 0; i < portCount; i++) {
+            starts[i + 1] += starts[i];
+        }
+        int[] byPiece = new int[portCount];
+        int[] filled = Arrays.copyOf(starts, portCount);
+        for (int port = 0; port < portCount; port++) {
+            byPiece[filled[pieces.find(port)]++] = port;
+        }
+
+        for (int piece = 0; piece < portCount; piece++) {
+            boolean merged = true;
+            while (merged) {
+                merged = false;
+                for (int i = starts[piece]; i < starts[piece + 1]; i++) {
+                    for (int j = i + 1; j < starts[piece + 1]; j++) {
+                        int a = byPiece[i], b = byPiece[j];
+                        if (!open[a] || !open[b] || !isNextTo(corridorOf(a), corridorOf(b)))
+                            continue;
+                        int walledUp = onPath[b] ? a : b;
+                        if (onPath[walledUp] && partners[walledUp] != a + b - walledUp)
+                            continue;
+
+                        mergeCorridors(corridorOf(a), corridorOf(b));
+                        open[walledUp] = false;
+                        merged = true;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the corridor a passage leads out of.
+     * @param port The passage.
+     * @return The cell find() gives for the corridor.
+     */
+    private int corridorOf(int port) {
+        return corridors.find(local(portCells[port]));
+    }
+
+    /**
+     * Tells whether two corridors have cells next to each other.
+     * @param a The cell find() gives for the first corridor.
+     * @param b The cell find() gives for the second corridor.
+     * @return True if the corridors are different and next to each other.
+     */
+    private boolean isNextTo(int a, int b) {
+        if (a == b)
+            return false;
+        for (int corridor : neighbors(a)) {
+            if (corridors.find(corridor) == b)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Merges two corridors into one, along with their lists of neighbours.
+     * @param a The cell find() gives for the first corridor.
+     * @param b The cell find() gives for the second corridor.
+     */
+    private void mergeCorridors(int a, int b) {
+        Set<Integer> neighborsA = neighbors(a), neighborsB = neighbors(b);
+        adjacent.remove(a);
+        adjacent.remove(b);
+        corridors.union(a, b);
+
+        // the smaller list is added to the larger one
+        if (neighborsA.size() < neighborsB.size()) {
+            Set<Integer> swap = neighborsA;
+            neighborsA = neighborsB;
+            neighborsB = swap;
+        }
+        neighborsA.addAll(neighborsB);
+        adjacent.put(corridors.find(a), neighborsA);
+    }
+
+    /**
+     * Puts up every wall of the rectangle, including the ones facing outwards, and takes the solver colors
+     * off its cells other than the start and end.
+     */
+    private void closeRegion() {
+        int allWalls = (1 << grid.getSides()) - 1;
+        for (int cell : cells) {
+            int state = grid.getState(cell);
+            if (state != MazeCell.START && state != MazeCell.END && state != MazeCell.UNVISITED) {
+                grid.setState(cell, MazeCell.UNVISITED);
+            }
+            grid.setWalls(cell, allWalls);
+            for (int wall = 0; wall < grid.getSides(); wall++) {
+                int next = grid.neighbor(cell, wall);
+                if (next >= 0 && !contains(next) && !grid.hasWall(next, topology.backSide(cell, wall))) {
+                    grid.setWall(next, topology.backSide(cell, wall), true);
+                }
+            }
+        }
+    }
+
+    /**
+     * Carves each merged corridor as a new perfect maze over its cells, depth first, noting the tree each
+     * one makes in parent and depth.
+     * @param RNG Random number generator used to pick the cells.
+     */
+    private void carve(Random RNG) {
+        boolean[] visited = new boolean[size];
+        int[] stack = new int[size];
+        int[] walls = new int[grid.getSides()];
+
+        // the first corridor is carved from a random cell, the rest from their first cells
+        int first = RNG.nextInt(size);
+        for (int i = -1; i < size; i++) {
+            int root = i < 0 ? first : i;
+            if (visited[root])
+                continue;
+            int corridor = corridors.find(root);
+            visited[root] = true;
+            parent[root] = -1;
+            depth[root] = 0;
+            int stackSize = 0;
+            stack[stackSize++] = root;
+
+            while (stackSize > 0) {
+                int cell = cells[stack[stackSize - 1]];
+
+                // walls leading to unvisited cells of the same corridor
+                int count = 0;
+                for (int wall = 0; wall < grid.getSides(); wall++) {
+                    int next = grid.neighbor(cell, wall);
+                    if (next >= 0 && contains(next) && !visited[local(next)]
+                            && corridors.find(local(next)) == corridor) {
+                        walls[count++] = wall;
+                    }
+                }
+                if (count == 0) {
+                    stackSize--;
+                    continue;
+                }
+
+                int wall = walls[RNG.nextInt(count)];
+                int next = local(grid.neighbor(cell, wall));
+                grid.breakWall(cell, wall);
+                visited[next] = true;
+                parent[next] = stack[stackSize - 1];
+                depth[next] = depth[parent[next]] + 1;
+                stack[stackSize++] = next;
+            }
+        }
+    }
+
+    /**
+     * Replaces the stretch of the path from where it first enters the rectangle to where it last leaves it.
+     * The path crosses the new corridors and keeps the detours it made outside the rectangle between
+     * corridors that are still separate. The cells of detours it no longer makes are colored as backtracked,
+     * as a solver leaves the cells it tried.
+     * @param path The old path.
+     * @param entry Where in the path it first enters the rectangle.
+     * @param exit Where in the path it last leaves the rectangle.
+     * @return The new path.
+     */
+    private int[] repairPath(int[] path, int entry, int exit) {
+        repaired = Arrays.copyOf(path, path.length + size);
+        repairedLength = entry;
+
+        int current = path[entry];
+        for (int i = entry; i < exit; i++) {
+            if (contains(path[i + 1]))
+                continue;
+
+            // the path goes out of the rectangle here and comes back in at back
+            int back = i + 1;
+            while (!contains(path[back])) {
+                back++;
+            }
+            if (open[findPort(path[i], path[i + 1])] && open[findPort(path[back], path[back - 1])]) {
+                appendRoute(current, path[i]);
+                for (int k = i + 1; k < back; k++) {
+                    append(path[k]);
+                }
+                current = path[back];
+            } else {
+                for (int k = i + 1; k < back; k++) {
+                    grid.setState(path[k], MazeCell.BACKTRACKED);
+                }
+            }
+            i = back - 1;
+        }
+        appendRoute(current, path[exit]);
+        for (int i = exit + 1; i < path.length; i++) {
+            append(path[i]);
+        }
+        return Arrays.copyOf(repaired, repairedLength);
+    }
+
+    /**
+     * Adds the way between two cells of the same new corridor to the repaired path, found by climbing the
+     * tree the corridor was carved as from both cells until they meet, and colors it as visited.
+     * @param from The cell the way starts at.
+     * @param to The cell the way ends at.
+     */
+    private void appendRoute(int from, int to) {
+        int a = local(from), b = local(to);
+
+        // the cells climbed from to are added in reverse once the two ends meet
+        int[] fromEnd = new int[depth[b] + 1];
+        int count = 0;
+        while (depth[a] > depth[b]) {
+            appendVisited(a);
+            a = parent[a];
+        }
+        while (depth[b] > depth[a]) {
+            fromEnd[count++] = b;
+            b = parent[b];
+        }
+        while (a != b) {
+            appendVisited(a);
+            a = parent[a];
+            fromEnd[count++] = b;
+            b = parent[b];
+        }
+        appendVisited(a);
+        while (count > 0) {
+            appendVisited(fromEnd[--count]);
+        }
+    }
+
+    /**
+     * Adds a cell of the rectangle to the repaired path and colors it as visited unless it is the start or
+     * end.
+     * @param local The place of the cell within the rectangle.
+     */
+    private void appendVisited(int local) {
+        append(cells[local]);
+        if (grid.getState(cells[local]) == MazeCell.UNVISITED) {
+            grid.setState(cells[local], MazeCell.VISITED);
+        }
+    }
+
+    /**
+     * Adds a cell to the repaired path.
+     * @param cell The cell index.
+     */
+    private void append(int cell) {
+        if (repairedLength == repaired.length) {
+            repaired = Arrays.copyOf(repaired, 2 * repairedLength);
+        }
+        repaired[repairedLength++] = cell;
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * File:     RestorableRandom.java
+ * Author:   Taylor Ecton
+ * Purpose:  Random number generator that produces the same numbers as java.util.Random but whose internal
+ *           state can be read and put back, so a checkpointed generation continues with exactly the random
+ *           choices it would have made. Not safe to share between threads.
+ */
+
+import java.util.Random;
+
+public class RestorableRandom extends Random {
+    // constants of the linear congruential generator used by java.util.Random
+    private static final long MULTIPLIER = 0x5DEECE66DL;
+    private static final long ADDEND = 0xBL;
+    private static final long MASK = (1L << 48) - 1;
+
+    // the 48 bits of state
+    private long state;
+
+    /**
+     * Constructor for RestorableRandom class.
+     * @param seed The initial seed.
+     */
+    public RestorableRandom(long seed) {
+        super(seed);
+    }
+
+    @Override
+    public void setSeed(long seed) {
+        super.setSeed(seed);
+        state = (seed ^ MULTIPLIER) & MASK;
+    }
+
+    /**
+     * Gets the internal state. Values cached by nextGaussian aren't part of it.
+     * @return The state, which can be passed to setState.
+     */
+    public long getState() { return state; }
+
+    /**
+     * Puts back a state returned by getState.
+     * @param state The state.
+     */
+    public void setState(long state) { this.state = state & MASK; }
+
+    @Override
+    protected int next(int bits) {
+        state = (state * MULTIPLIER + ADDEND) & MASK;
+        return (int) (state >>> (48 - bits));
+    }
+}
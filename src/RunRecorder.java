@@ -0,0 +1,238 @@
+/*
+ * File:     RunRecorder.java
+ * Author:   Taylor Ecton
+ * Purpose:  Records every change a generator or solver makes to a MazeGrid so the run can be rewound,
+ *           scrubbed and replayed. Each change is a single long holding the cell, its new wall bits and its
+ *           new state, and the whole grid is saved as a keyframe every so many steps, so any step can be
+ *           shown again by loading the keyframe before it and replaying at most that many steps of changes.
+ *           The oldest keyframes and changes are dropped once the recording uses more memory than it is
+ *           allowed, so a long run keeps its most recent history.
+ */
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+
+public class RunRecorder implements GridListener {
+    // a change holds the state in its low bits, the wall bits above them and the cell above those
+    private static final int STATE_BITS = 8;
+    private static final int WALL_SHIFT = STATE_BITS;
+    private static final int CELL_SHIFT = WALL_SHIFT + 8;
+
+    /**
+     * A keyframe and the changes made in the steps after it, up to the next keyframe.
+     */
+    private static class Segment {
+        // the step the keyframe shows
+        final int firstStep;
+
+        // the walls and states of every cell at firstStep
+        final byte[] walls, states;
+
+        // the changes made since the keyframe, and the number of changes made by the end of each step
+        long[] changes = new long[256];
+        int changeCount;
+        int[] stepEnds = new int[256];
+        int stepCount;
+
+        /**
+         * Constructor for Segment class.
+         * @param firstStep The step the keyframe shows.
+         * @param cells The number of cells in the grid.
+         */
+        Segment(int firstStep, int cells) {
+            this.firstStep = firstStep;
+            this.walls = new byte[cells];
+            this.states = new byte[cells];
+        }
+
+        /**
+         * Gets the number of changes made before a step started.
+         * @param step A step from firstStep to firstStep + stepCount.
+         * @return The index of the first change of the step.
+         */
+        int changesBefore(int step) {
+            return step == firstStep ? 0 : stepEnds[step - firstStep - 1];
+        }
+
+        /**
+         * Gets the memory used by the segment.
+         * @return The approximate number of bytes.
+         */
+        long bytes() {
+            return walls.length + states.length + 8L * changes.length + 4L * stepEnds.length;
+        }
+    }
+
+    // the grid being recorded
+    private final MazeGrid grid;
+
+    // steps between keyframes and the memory the recording may use
+    private final int keyframeInterval;
+    private final long maxBytes;
+
+    // recorded segments, oldest first
+    private final ArrayDeque<Segment> segments = new ArrayDeque<>();
+
+    // number of steps recorded, and the step the grid currently shows
+    private int stepCount, position;
+
+    // true while the grid is being changed by seek rather than by the run
+    private boolean seeking;
+
+    // true once the whole grid has changed during the current step, so the next step needs a keyframe
+    private boolean keyframeDue;
+
+    /**
+     * Constructor for RunRecorder class. The current state of the grid becomes step 0. The recorder has to be
+     * added as a listener of the grid to see the changes.
+     * @param grid The grid to record.
+     * @param keyframeInterval The number of steps between keyframes.
+     * @param maxBytes The memory the recording may use before old steps are dropped.
+     */
+    public RunRecorder(MazeGrid grid, int keyframeInterval, long maxBytes) {
+        if (keyframeInterval <= 0) {
+            throw new IllegalArgumentException("Invalid keyframe interval: " + keyframeInterval);
+        }
+        this.grid = grid;
+        this.keyframeInterval = keyframeInterval;
+        this.maxBytes = maxBytes;
+        startSegment();
+    }
+
+    /**
+     * Gets the oldest step that is still recorded.
+     * @return The first step that can be shown.
+     */
+    public int getFirstStep() { return segments.peekFirst().firstStep; }
+
+    /**
+     * Gets the number of steps recorded, which is also the last step that can be shown.
+     * @return The number of steps.
+     */
+    public int getStepCount() { return stepCount; }
+
+    /**
+     * Gets the step the grid currently shows.
+     * @return The current step.
+     */
+    public int getPosition() { return position; }
+
+    /**
+     * Tells whether the grid shows the latest step, so the run can carry on.
+     * @return True if the grid is at the end of the recording.
+     */
+    public boolean isAtEnd() { return position == stepCount; }
+
+    /**
+     * Records a change to a cell made by the run.
+     * @param cell The cell that changed.
+     */
+    @Override
+    public void cellChanged(int cell) {
+        if (seeking)
+            return;
+
+        Segment segment = segments.peekLast();
+        if (segment.changeCount == segment.changes.length) {
+            segment.changes = Arrays.copyOf(segment.changes, 2 * segment.changes.length);
+        }
+        segment.changes[segment.changeCount++] = ((long) cell << CELL_SHIFT)
+                | (grid.getWalls(cell) << WALL_SHIFT) | grid.getState(cell);
+    }
+
+    /**
+     * A change to the whole grid can't be replayed cell by cell, so the step after it starts a keyframe.
+     */
+    @Override
+    public void gridChanged() {
+        if (!seeking) {
+            keyframeDue = true;
+        }
+    }
+
+    /**
+     * Marks the end of a step of the run. Every change since the last call belongs to the step.
+     */
+    public void endStep() {
+        Segment segment = segments.peekLast();
+        if (segment.stepCount == segment.stepEnds.length) {
+            segment.stepEnds = Arrays.copyOf(segment.stepEnds, 2 * segment.stepEnds.length);
+        }
+        segment.stepEnds[segment.stepCount++] = segment.changeCount;
+        stepCount++;
+        position = stepCount;
+
+        if (keyframeDue || segment.stepCount >= keyframeInterval) {
+            startSegment();
+        }
+    }
+
+    /**
+     * Shows a recorded step in the grid. Steps forward within the same keyframe interval only replay the
+     * changes in between; anything else loads the nearest keyframe before the step first.
+     * @param step The step to show; it is clamped to the recorded steps.
+     */
+    public void seek(int step) {
+        step = Math.max(getFirstStep(), Math.min(stepCount, step));
+        if (step == position)
+            return;
+
+        // the last segment starting at or before the step
+        Segment target = null;
+        for (Iterator<Segment> it = segments.descendingIterator(); it.hasNext(); ) {
+            target = it.next();
+            if (target.firstStep <= step)
+                break;
+        }
+
+        seeking = true;
+        try {
+            int from = position;
+            if (position > step || position < target.firstStep) {
+                loadKeyframe(target);
+                from = target.firstStep;
+            }
+            for (int i = target.changesBefore(from); i < target.changesBefore(step); i++) {
+                long change = target.changes[i];
+                int cell = (int) (change >>> CELL_SHIFT);
+                grid.setWalls(cell, (int) (change >>> WALL_SHIFT) & 0xFF);
+                grid.setState(cell, (int) change & ((1 << STATE_BITS) - 1));
+            }
+        } finally {
+            seeking = false;
+        }
+        position = step;
+    }
+
+    /**
+     * Starts a new segment with a keyframe of the grid as it is now, and drops the oldest segments if the
+     * recording is using too much memory.
+     */
+    private void startSegment() {
+        int cells = grid.getCellCount();
+        Segment segment = new Segment(stepCount, cells);
+        grid.copyWalls(0, segment.walls, 0, cells);
+        grid.copyStates(0, segment.states, 0, cells);
+        segments.addLast(segment);
+        keyframeDue = false;
+
+        long bytes = 0;
+        for (Segment s : segments) {
+            bytes += s.bytes();
+        }
+        while (bytes > maxBytes && segments.size() > 1) {
+            bytes -= segments.removeFirst().bytes();
+        }
+    }
+
+    /**
+     * Puts the walls and states of a keyframe back into the grid.
+     * @param segment The segment whose keyframe to load.
+     */
+    private void loadKeyframe(Segment segment) {
+        int cells = grid.getCellCount();
+        grid.loadWalls(0, segment.walls, 0, cells);
+        grid.loadStates(0, segment.states, 0, cells);
+    }
+}
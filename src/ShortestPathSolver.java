@@ -0,0 +1,137 @@
+/*
+ * File:     ShortestPathSolver.java
+ * Author:   Taylor Ecton
+ * Purpose:  Best first search over the cell weights of a MazeGrid, backed by an IndexedMinHeap.
+ *           Subclasses supply the estimate of the remaining cost: zero gives Dijkstra's algorithm and an
+ *           admissible estimate gives A*. Cells in the heap are shown as visited, cells that have been
+ *           expanded as backtracked, and the cheapest path is recolored as visited once the end is found.
+ */
+
+import java.util.Arrays;
+
+public abstract class ShortestPathSolver implements MazeSolver {
+    // the maze being solved and the cells the solver starts and ends at
+    protected MazeGrid grid;
+    protected int start, end;
+
+    // cheapest known cost from the start to each cell, or -1 if it hasn't been reached
+    private int[] cost;
+
+    // the cell each cell was reached from
+    private int[] parent;
+
+    // cells waiting to be expanded, ordered by cost plus estimate
+    private IndexedMinHeap open;
+
+    // number of cells reached so far
+    private int cellsVisited;
+
+    // whether the solver has run out of cells or found the end
+    private boolean finished;
+
+    /**
+     * Initializes variables when solving the maze.
+     * @param grid The maze to solve.
+     * @param start The cell to start from.
+     * @param end The cell to find.
+     */
+    @Override
+    public void init(MazeGrid grid, int start, int end) {
+        this.grid = grid;
+        this.start = start;
+        this.end = end;
+
+        // reuse the arrays if the last maze was the same size
+        if (cost == null || cost.length != grid.getCellCount()) {
+            cost = new int[grid.getCellCount()];
+            parent = new int[grid.getCellCount()];
+            open = new IndexedMinHeap(grid.getCellCount());
+        } else {
+            open.clear();
+        }
+        Arrays.fill(cost, -1);
+
+        // the search begins at the start
+        cost[start] = 0;
+        parent[start] = start;
+        open.insertOrDecrease(start, estimate(start));
+        cellsVisited = 1;
+        finished = false;
+    }
+
+    /**
+     * Expands the cell with the smallest cost plus estimate.
+     */
+    @Override
+    public void step() {
+        if (finished)
+            return;
+
+        if (open.isEmpty()) {
+            finish();
+            return;
+        }
+
+        int cell = open.poll();
+        if (cell == end) {
+            finish();
+            return;
+        }
+        if (cell != start)
+            grid.setState(cell, MazeCell.BACKTRACKED);
+
+        // relax every open neighbour; entering a cell costs that cell's weight
+        for (int wall = 0; wall < grid.getSides(); wall++) {
+            int next = grid.passage(cell, wall);
+            if (next < 0)
+                continue;
+
+            int nextCost = cost[cell] + grid.getWeight(next);
+            if (cost[next] < 0 || nextCost < cost[next]) {
+                if (cost[next] < 0)
+                    cellsVisited++;
+                cost[next] = nextCost;
+                parent[next] = cell;
+                open.insertOrDecrease(next, nextCost + estimate(next));
+                if (next != end)
+                    grid.setState(next, MazeCell.VISITED);
+            }
+        }
+    }
+
+    @Override
+    public boolean isFinished() { return finished; }
+
+    @Override
+    public int getCellsVisited() { return cellsVisited; }
+
+    /**
+     * Gets the cost of the path found to the end.
+     * @return The sum of the weights of the cells entered, or -1 if the end wasn't reached.
+     */
+    public int getPathCost() { return finished ? cost[end] : -1; }
+
+    /**
+     * Estimates the cost of getting from a cell to the end. Must never overestimate for the path found to
+     * be the cheapest.
+     * @param cell The cell index.
+     * @return The estimated remaining cost.
+     */
+    protected abstract int estimate(int cell);
+
+    /**
+     * Stops the search, clearing the cells still in the heap and coloring the path if it was found.
+     */
+    private void finish() {
+        finished = true;
+        for (int i = 0; i < open.size(); i++) {
+            if (open.get(i) != end)
+                grid.setState(open.get(i), MazeCell.BACKTRACKED);
+        }
+        if (cost[end] >= 0) {
+            for (int cell = parent[end]; cell != start; cell = parent[cell]) {
+                grid.setState(cell, MazeCell.VISITED);
+            }
+        }
+    }
+}
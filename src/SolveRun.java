@@ -0,0 +1,203 @@
+/*
+ * File:     SolveRun.java
+ * Author:   Taylor Ecton
+ * Purpose:  Everything needed while one solver runs on a maze: the grid it colors, the solver and how far
+ *           it has got. Each run has its own, so solves can go on at once on different threads as long as
+ *           each has its own grid, such as one made by MazeSnapshot.createGrid(). Also creates the solvers
+ *           by the names shown on the control panel.
+ */
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class SolveRun {
+    // the maze being solved and the cells the solver starts and ends at
+    private final MazeGrid grid;
+    private final int start, end;
+
+    // the step by step solver, or null for the parallel breadth first search
+    private final MazeSolver solver;
+
+    // whether the parallel search has run, the path once it is known, and the number of cells reached
+    private boolean parallelFinished;
+    private int[] path;
+    private int cellsVisited;
+
+    /**
+     * Constructor for SolveRun class. Starts the solver at the start cell of the maze, looking for its end
+     * cell, and colors them both.
+     * @param grid The maze to solve, which the run colors as it goes.
+     * @param solverName The solver to use (see constants in ControlPanel).
+     */
+    public SolveRun(MazeGrid grid, String solverName) {
+        this.grid = grid;
+        start = grid.getTopology().getStartCell();
+        end = grid.getTopology().getEndCell();
+        grid.setState(start, MazeCell.START);
+        grid.setState(end, MazeCell.END);
+
+        if (solverName.equals(ControlPanel.PARALLEL_BFS_SOLVER)) {
+            solver = null;
+        } else {
+            solver = createSolver(solverName);
+            solver.init(grid, start, end);
+        }
+    }
+
+    /**
+     * Creates one of the step by step solvers.
+     * @param name The name of the solver (see constants in ControlPanel), other than the parallel solver.
+     * @return A new solver.
+     */
+    public static MazeSolver createSolver(String name) {
+        switch (name) {
+            case ControlPanel.BFS_SOLVER:
+                return new BreadthFirstSolver();
+            case ControlPanel.DFS_SOLVER:
+                return new DepthFirstSolver();
+            case ControlPanel.DIJKSTRA_SOLVER:
+                return new DijkstraSolver();
+            case ControlPanel.ASTAR_SOLVER:
+                return new AStarSolver();
+            case ControlPanel.LEFT_WALL_SOLVER:
+                return new WallFollowerSolver(true);
+            case ControlPanel.RIGHT_WALL_SOLVER:
+                return new WallFollowerSolver(false);
+            case ControlPanel.TREMAUX_SOLVER:
+                return new TremauxSolver();
+            default:
+                System.err.println("Unexpected string in createSolver: " + name);
+                System.exit(1);
+                return null;
+        }
+    }
+
+    /**
+     * Gets the maze being solved.
+     * @return The grid.
+     */
+    public MazeGrid getGrid() { return grid; }
+
+    /**
+     * Tells whether the solver has nothing left to do, either because it found the end or because it ran
+     * out of cells to explore.
+     * @return True if the solver is finished.
+     */
+    public boolean isFinished() { return solver == null ? parallelFinished : solver.isFinished(); }
+
+    /**
+     * Gets the number of cells the solver has reached so far.
+     * @return The number of cells visited.
+     */
+    public int getCellsVisited() { return solver == null ? cellsVisited : solver.getCellsVisited(); }
+
+    /**
+     * Runs a single step of the solver. The parallel breadth first search expands whole levels at once, so
+     * it does all its work in its first step.
+     */
+    public void step() {
+        if (isFinished())
+            return;
+        if (solver != null) {
+            solver.step();
+        } else {
+            solveParallel();
+        }
+    }
+
+    /**
+     * Runs the solver until it is finished.
+     */
+    public void solve() {
+        while (!isFinished()) {
+            step();
+        }
+    }
+
+    /**
+     * Gets the path the solver found. Step by step solvers leave the path colored as visited, so it is found
+     * by a breadth first search through the colored cells the first time it is asked for.
+     * @return The cells from the start to the end, or an empty array if the end can't be reached.
+     * @throws IllegalStateException If the solver isn't finished.
+     */
+    public int[] getPath() {
+        if (!isFinished()) {
+            throw new IllegalStateException("The solver isn't finished");
+        }
+        if (path == null) {
+            path = findColoredPath();
+        }
+        return path;
+    }
+
+    /**
+     * Re-carves a rectangle of the solved maze with RegionCarver and repairs the path found through it, so
+     * the maze doesn't have to be solved again.
+     * @param firstRow The first row of the rectangle.
+     * @param firstColumn The first column of the rectangle.
+     * @param lastRow The last row of the rectangle.
+     * @param lastColumn The last column of the rectangle.
+     * @param RNG Random number generator used to carve the rectangle.
+     * @throws IllegalStateException If the solver isn't finished.
+     */
+    public void recarve(int firstRow, int firstColumn, int lastRow, int lastColumn, Random RNG) {
+        path = RegionCarver.recarve(grid, firstRow, firstColumn, lastRow, lastColumn, RNG, getPath());
+    }
+
+    /**
+     * Solves the maze with a breadth first search that expands each level in parallel. Every cell reached
+     * by the search is marked as backtracked and the shortest path is marked as visited, matching what the
+     * depth first solver leaves behind.
+     */
+    private void solveParallel() {
+        ParallelBfsSolver parallelSolver = new ParallelBfsSolver();
+        path = parallelSolver.solve(grid, start, end);
+
+        // color every cell the search could reach, then the path itself
+        for (int cell = 0; cell < grid.getCellCount(); cell++) {
+            if (parallelSolver.wasVisited(cell) && grid.getState(cell) == MazeCell.UNVISITED)
+                grid.setState(cell, MazeCell.BACKTRACKED);
+        }
+        for (int i = 1; i < path.length - 1; i++) {
+            grid.setState(path[i], MazeCell.VISITED);
+        }
+        cellsVisited = parallelSolver.getCellsVisited();
+        parallelFinished = true;
+    }
+
+    /**
+     * Finds the path a solver colored as visited, by a breadth first search through the colored cells.
+     * @return The cells from start to end, or an empty array if the colored cells don't connect them.
+     */
+    private int[] findColoredPath() {
+        int[] parent = new int[grid.getCellCount()];
+        int[] queue = new int[grid.getCellCount()];
+        Arrays.fill(parent, -2);
+        parent[start] = -1;
+        queue[0] = start;
+        int head = 0, tail = 1;
+        while (head < tail && parent[end] == -2) {
+            int cell = queue[head++];
+            for (int side = 0; side < grid.getSides(); side++) {
+                int next = grid.passage(cell, side);
+                if (next >= 0 && parent[next] == -2
+                        && (next == end || grid.getState(next) == MazeCell.VISITED)) {
+                    parent[next] = cell;
+                    queue[tail++] = next;
+                }
+            }
+        }
+        if (parent[end] == -2)
+            return new int[0];
+
+        int length = 0;
+        for (int cell = end; cell >= 0; cell = parent[cell]) {
+            length++;
+        }
+        int[] found = new int[length];
+        for (int cell = end; cell >= 0; cell = parent[cell]) {
+            found[--length] = cell;
+        }
+        return found;
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * File:     SquareTopology.java
+ * Author:   Taylor Ecton
+ * Purpose:  The original grid of square cells. Sides are the MazeCell wall constants and each cell is a
+ *           unit square at (column, row).
+ */
+
+public class SquareTopology extends LatticeTopology {
+    // rows and columns moved through each side (TOP, RIGHT, BOTTOM, LEFT)
+    private static final int[] ROW_STEPS = {-1, 0, 1, 0};
+    private static final int[] COLUMN_STEPS = {0, 1, 0, -1};
+
+    /**
+     * Constructor for SquareTopology class.
+     * @param rows Number of rows in the grid.
+     * @param columns Number of columns in the grid.
+     */
+    public SquareTopology(int rows, int columns) {
+        super(rows, columns, new int[] {MazeCell.BOTTOM, MazeCell.LEFT, MazeCell.TOP, MazeCell.RIGHT}, 1.0, 1.0);
+    }
+
+    @Override
+    protected int rowStep(boolean oddRow, boolean oddColumn, int side) { return ROW_STEPS[side]; }
+
+    @Override
+    protected int columnStep(boolean oddRow, boolean oddColumn, int side) { return COLUMN_STEPS[side]; }
+
+    @Override
+    public boolean isRectangular() { return true; }
+
+    @Override
+    public double getWidth() { return columns; }
+
+    @Override
+    public double getHeight() { return rows; }
+
+    @Override
+    public void getCenter(int cell, double[] xy) {
+        xy[0] = column(cell) + 0.5;
+        xy[1] = row(cell) + 0.5;
+    }
+
+    @Override
+    public int getOutline(int cell, double[] xs, double[] ys) {
+        int x = column(cell);
+        int y = row(cell);
+        xs[0] = x;
+        ys[0] = y;
+        xs[1] = x + 1;
+        ys[1] = y;
+        xs[2] = x + 1;
+        ys[2] = y + 1;
+        xs[3] = x;
+        ys[3] = y + 1;
+        return 4;
+    }
+
+    @Override
+    public boolean getSide(int cell, int side, double[] segment) {
+        int x = column(cell);
+        int y = row(cell);
+        // corners are listed clockwise from the top left, so side i runs from corner i to corner i + 1
+        segment[0] = side == MazeCell.RIGHT || side == MazeCell.BOTTOM ? x + 1 : x;
+        segment[1] = side == MazeCell.BOTTOM || side == MazeCell.LEFT ? y + 1 : y;
+        segment[2] = side == MazeCell.TOP || side == MazeCell.RIGHT ? x + 1 : x;
+        segment[3] = side == MazeCell.TOP || side == MazeCell.LEFT ? y : y + 1;
+        return true;
+    }
+
+    @Override
+    public int distanceEstimate(int from, int to) {
+        return Math.abs(row(from) - row(to)) + Math.abs(column(from) - column(to));
+    }
+}
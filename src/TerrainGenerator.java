@@ -0,0 +1,76 @@
+/*
+ * File:     TerrainGenerator.java
+ * Author:   Taylor Ecton
+ * Purpose:  Assigns traversal weights to the cells of a maze. Weights come from smoothly interpolated
+ *           random noise, so expensive terrain forms patches instead of being scattered cell by cell.
+ */
+
+import java.util.Random;
+
+public class TerrainGenerator {
+    // distance in model units (about one cell each) between the random values that are interpolated
+    private static final int SPACING = 8;
+
+    /**
+     * This class only has static functions, so it is never instantiated.
+     */
+    private TerrainGenerator() {
+    }
+
+    /**
+     * Gives every cell of the maze a weight from 1 to MazeGrid.MAX_WEIGHT. Most of the maze stays cheap.
+     * @param grid The maze to assign weights to.
+     * @param RNG Random number generator for the noise.
+     */
+    public static void assign(MazeGrid grid, Random RNG) {
+        // random values on a coarse lattice covering the maze
+        Topology topology = grid.getTopology();
+        int latticeRows = (int) (topology.getHeight() / SPACING) + 2;
+        int latticeCols = (int) (topology.getWidth() / SPACING) + 2;
+        float[] lattice = new float[latticeRows * latticeCols];
+        for (int i = 0; i < lattice.length; i++) {
+            lattice[i] = RNG.nextFloat();
+        }
+
+        // sample the noise at the center of each cell, so it works the same for every shape of grid
+        double[] center = new double[2];
+        for (int cell = 0; cell < grid.getCellCount(); cell++) {
+            topology.getCenter(cell, center);
+            double x = center[0] / SPACING;
+            double y = center[1] / SPACING;
+            int lx = (int) x;
+            int ly = (int) y;
+            float fx = smooth((float) (x - lx));
+            float fy = smooth((float) (y - ly));
+
+            // interpolate between the four surrounding lattice values
+            float top = lerp(lattice[ly * latticeCols + lx], lattice[ly * latticeCols + lx + 1], fx);
+            float bottom = lerp(lattice[(ly + 1) * latticeCols + lx], lattice[(ly + 1) * latticeCols + lx + 1], fx);
+            float value = lerp(top, bottom, fy);
+
+            // squaring keeps most of the maze cheap with a few expensive patches
+            int weight = 1 + (int) (value * value * MazeGrid.MAX_WEIGHT);
+            grid.setWeight(cell, Math.min(MazeGrid.MAX_WEIGHT, weight));
+        }
+    }
+
+    /**
+     * Eases a fraction so that the noise has no visible creases at lattice points.
+     * @param t Fraction from 0 to 1.
+     * @return The eased fraction.
+     */
+    private static float smooth(float t) {
+        return t * t * (3 - 2 * t);
+    }
+
+    /**
+     * Linearly interpolates between two values.
+     * @param a Value at t = 0.
+     * @param b Value at t = 1.
+     * @param t Fraction from 0 to 1.
+     * @return The interpolated value.
+     */
+    private static float lerp(float a, float b, float t) {
+        return a + (b - a) * t;
+    }
+}
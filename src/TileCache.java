@@ -0,0 +1,378 @@
+/*
+ * File:     TileCache.java
+ * Author:   Taylor Ecton
+ * Purpose:  Cache of square tiles of a maze drawn at a fixed number of pixels per model unit. Tiles are
+ *           drawn on a shared pool of background threads, so the thread painting the view only has to
+ *           copy finished images to the screen. A tile is only redrawn after a cell inside it changes, and
+ *           its previous image is used until the new one is ready. Square grids are cut into whole blocks
+ *           of cells; other shapes are cut along tile edges and every cell overlapping a tile is drawn.
+ *           Tiles are drawn from the GridFrame the view was painting when they were requested, which is
+ *           pinned until they are done so the algorithm running on the maze never has to wait for them.
+ */
+
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+public class TileCache implements GridListener {
+    // largest width and height of a tile in pixels
+    public static final int TILE_PIXELS = 256;
+
+    // most tiles kept at once; the least recently used tiles are dropped beyond this
+    private static final int MAX_TILES = 192;
+
+    // threads shared by every cache for drawing tiles
+    private static final ExecutorService RASTERIZERS = Executors.newFixedThreadPool(
+            Math.max(1, Runtime.getRuntime().availableProcessors() - 1), new ThreadFactory() {
+                private final AtomicInteger count = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "maze-tile-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+
+    // the layout of the cells drawn and the index in the maze of the first one
+    private final Topology topology;
+    private final int firstCell;
+
+    // number of pixels per model unit (per cell on a square grid) and size of a tile in model units
+    private final double scale, tileUnits;
+
+    // number of tiles across and down the maze
+    private final int tilesX, tilesY;
+
+    // a color for each state of a cell
+    private final Color[] palette;
+
+    // every tile indexed by ty * tilesX + tx (null until first requested), and the ones that exist
+    private final Tile[] tiles;
+    private final ArrayList<Tile> liveTiles = new ArrayList<>();
+
+    // called (from a background thread) with the index ty * tilesX + tx of each tile that finishes drawing
+    private final IntConsumer onTileReady;
+
+    // counts frames so that the least recently used tiles can be found
+    private long frame;
+
+    // the published maze being painted this frame, which new tiles are drawn from
+    private GridFrame state;
+
+    // set once the cache is no longer used so pending tiles are skipped
+    private volatile boolean disposed;
+
+    // scratch space for the bounds of a changed cell (only used on the painting thread)
+    private final double[] bounds = new double[4];
+
+    /**
+     * Constructor for TileCache class.
+     * @param topology The layout of the cells to draw: the maze's topology, or one floor of a layered maze.
+     * @param firstCell Index in the maze of the topology's first cell.
+     * @param scale Number of pixels per model unit; a whole number for square grids.
+     * @param palette A color for each state of a cell, indexed by state.
+     * @param onTileReady Called from a background thread with the index ty * tilesX + tx of each tile that
+     *                    finishes drawing.
+     */
+    public TileCache(Topology topology, int firstCell, double scale, Color[] palette, IntConsumer onTileReady) {
+        this.topology = topology;
+        this.firstCell = firstCell;
+        this.scale = scale;
+        this.palette = palette;
+        this.tileUnits = topology.isRectangular() ? Math.max(1, (int) (TILE_PIXELS / scale)) : TILE_PIXELS / scale;
+        this.tilesX = Math.max(1, (int) Math.ceil(topology.getWidth() / tileUnits));
+        this.tilesY = Math.max(1, (int) Math.ceil(topology.getHeight() / tileUnits));
+        this.tiles = new Tile[tilesX * tilesY];
+        this.onTileReady = onTileReady;
+    }
+
+    /**
+     * Gets the number of pixels per model unit the tiles are drawn at.
+     * @return The scale of the tiles.
+     */
+    public double getScale() { return scale; }
+
+    /**
+     * Gets the width and height of a tile in model units (whole cells on a square grid).
+     * @return The size of a tile.
+     */
+    public double getTileUnits() { return tileUnits; }
+
+    /**
+     * Gets the number of tiles across the maze.
+     * @return The number of tile columns.
+     */
+    public int getTilesX() { return tilesX; }
+
+    /**
+     * Gets the number of tiles down the maze.
+     * @return The number of tile rows.
+     */
+    public int getTilesY() { return tilesY; }
+
+    /**
+     * Starts a new frame. Tiles requested during the frame count as recently used, and are drawn from the
+     * published maze being painted.
+     * @param state The published maze being painted.
+     */
+    public void beginFrame(GridFrame state) {
+        frame++;
+        this.state = state;
+    }
+
+    /**
+     * Gets the most recent image of a tile, and schedules it to be drawn if it is missing or out of date.
+     * @param tx Column of the tile.
+     * @param ty Row of the tile.
+     * @return The image of the tile, or null if it has never been drawn.
+     */
+    public BufferedImage getTile(int tx, int ty) {
+        Tile tile = tiles[ty * tilesX + tx];
+        if (tile == null) {
+            tile = new Tile(tx, ty);
+            tiles[ty * tilesX + tx] = tile;
+            liveTiles.add(tile);
+            if (liveTiles.size() > MAX_TILES) {
+                evict();
+            }
+        }
+        tile.lastUsed = frame;
+
+        if (tile.renderedVersion != tile.version && tile.pending.compareAndSet(false, true)) {
+            // the frame already has every change that bumped the version so far, and later ones bump it again
+            final Tile scheduled = tile;
+            final GridFrame source = state;
+            final int version = tile.version;
+            source.pin();
+            RASTERIZERS.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        rasterize(scheduled, source, version);
+                    } finally {
+                        source.unpin();
+                    }
+                }
+            });
+        }
+        return tile.image;
+    }
+
+    /**
+     * Stops drawing tiles for this cache.
+     */
+    public void dispose() {
+        disposed = true;
+    }
+
+    /**
+     * Marks the tiles overlapping a cell as out of date.
+     * @param cell The cell that changed.
+     */
+    @Override
+    public void cellChanged(int cell) {
+        // ignore cells on other floors
+        cell -= firstCell;
+        if (cell < 0 || cell >= topology.getCellCount())
+            return;
+
+        if (topology.isRectangular()) {
+            int tileCells = (int) tileUnits;
+            invalidate((topology.row(cell) / tileCells) * tilesX + topology.column(cell) / tileCells);
+            return;
+        }
+
+        // walls are drawn across the edges of a cell, so the tiles just beside it may need redrawing too
+        topology.getBounds(cell, bounds);
+        int tx1 = Math.max(0, (int) Math.floor((bounds[0] - 0.5) / tileUnits));
+        int ty1 = Math.max(0, (int) Math.floor((bounds[1] - 0.5) / tileUnits));
+        int tx2 = Math.min(tilesX - 1, (int) Math.floor((bounds[2] + 0.5) / tileUnits));
+        int ty2 = Math.min(tilesY - 1, (int) Math.floor((bounds[3] + 0.5) / tileUnits));
+        for (int ty = ty1; ty <= ty2; ty++) {
+            for (int tx = tx1; tx <= tx2; tx++) {
+                invalidate(ty * tilesX + tx);
+            }
+        }
+    }
+
+    /**
+     * Marks every tile as out of date.
+     */
+    @Override
+    public void gridChanged() {
+        for (Tile tile : liveTiles) {
+            tile.version++;
+        }
+    }
+
+    /**
+     * Marks a tile as out of date if it exists.
+     * @param index Index of the tile in tiles.
+     */
+    private void invalidate(int index) {
+        Tile tile = tiles[index];
+        if (tile != null) {
+            tile.version++;
+        }
+    }
+
+    /**
+     * Drops the least recently used tiles until only three quarters of the maximum are left.
+     */
+    private void evict() {
+        liveTiles.sort((a, b) -> Long.compare(b.lastUsed, a.lastUsed));
+        while (liveTiles.size() > MAX_TILES * 3 / 4) {
+            Tile tile = liveTiles.remove(liveTiles.size() - 1);
+            tiles[tile.ty * tilesX + tile.tx] = null;
+        }
+    }
+
+    /**
+     * Draws a tile. Runs on one of the background threads.
+     * @param tile The tile to draw.
+     * @param source The published maze to draw the tile from.
+     * @param version The version of the tile that the published maze shows.
+     */
+    private void rasterize(Tile tile, GridFrame source, int version) {
+        if (disposed) {
+            tile.pending.set(false);
+            return;
+        }
+
+        BufferedImage image = topology.isRectangular() ? rasterizeCells(tile, source) : rasterizeShapes(tile, source);
+
+        tile.image = image;
+        tile.renderedVersion = version;
+        tile.pending.set(false);
+        onTileReady.accept(tile.ty * tilesX + tile.tx);
+    }
+
+    /**
+     * Draws a tile of a square grid one whole cell at a time.
+     * @param tile The tile to draw.
+     * @param source The published maze to draw the tile from.
+     * @return The image of the tile.
+     */
+    private BufferedImage rasterizeCells(Tile tile, GridFrame source) {
+        int cellPixels = (int) scale;
+        int tileCells = (int) tileUnits;
+        int firstCol = tile.tx * tileCells;
+        int firstRow = tile.ty * tileCells;
+        int cols = Math.min(tileCells, topology.getColumns() - firstCol);
+        int rows = Math.min(tileCells, topology.getRows() - firstRow);
+
+        BufferedImage image = new BufferedImage(cols * cellPixels, rows * cellPixels, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2 = image.createGraphics();
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                int cell = firstCell + topology.index(firstRow + row, firstCol + col);
+                Color color = MazeCell.displayColor(palette, source.getState(cell), source.getWeight(cell));
+                MazeCell.paint(g2, col * cellPixels, row * cellPixels, cellPixels, cellPixels,
+                               source.getWalls(cell), color);
+                int stairs = stairs(source, cell);
+                if (stairs != 0) {
+                    MazeCell.paintStairs(g2, (col + 0.5) * cellPixels, (row + 0.5) * cellPixels, cellPixels, stairs);
+                }
+            }
+        }
+        g2.dispose();
+        return image;
+    }
+
+    /**
+     * Draws a tile of a grid of any shape. Every overlapping cell is filled first and the walls are drawn
+     * over them afterwards, so a neighbour filled later never covers half of a wall.
+     * @param tile The tile to draw.
+     * @param source The published maze to draw the tile from.
+     * @return The image of the tile.
+     */
+    private BufferedImage rasterizeShapes(Tile tile, final GridFrame source) {
+        double x0 = tile.tx * tileUnits;
+        double y0 = tile.ty * tileUnits;
+        double x1 = Math.min(x0 + tileUnits, topology.getWidth());
+        double y1 = Math.min(y0 + tileUnits, topology.getHeight());
+        int width = Math.max(1, (int) Math.ceil((x1 - x0) * scale));
+        int height = Math.max(1, (int) Math.ceil((y1 - y0) * scale));
+
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        final Graphics2D g2 = image.createGraphics();
+        g2.setColor(MazeCell.OUTSIDE);
+        g2.fillRect(0, 0, width, height);
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g2.transform(AffineTransform.getScaleInstance(scale, scale));
+        g2.translate(-x0, -y0);
+
+        // walls are a fifth of a cell thick, but never thinner than a pixel or thicker than half a cell
+        g2.setStroke(new BasicStroke((float) Math.min(0.5, Math.max(0.2, 1.0 / scale))));
+
+        final double[] xs = new double[8];
+        final double[] ys = new double[8];
+        final double[] segment = new double[4];
+        topology.forEachCellIn(x0, y0, x1, y1, cell ->
+                MazeCell.fillShape(g2, topology, cell,
+                                   MazeCell.displayColor(palette, source.getState(firstCell + cell),
+                                                         source.getWeight(firstCell + cell)),
+                                   xs, ys));
+        topology.forEachCellIn(x0, y0, x1, y1, cell ->
+                MazeCell.drawShapeWalls(g2, topology, cell, source.getWalls(firstCell + cell), segment));
+        if (source.getTopology() instanceof LayeredTopology) {
+            topology.forEachCellIn(x0, y0, x1, y1, cell -> {
+                int stairs = stairs(source, firstCell + cell);
+                if (stairs != 0) {
+                    topology.getCenter(cell, segment);
+                    MazeCell.paintStairs(g2, segment[0], segment[1], 1.0, stairs);
+                }
+            });
+        }
+        g2.dispose();
+        return image;
+    }
+
+    /**
+     * Finds the open passages from a cell to other floors.
+     * @param source The published maze.
+     * @param cell The cell index in the maze.
+     * @return The MazeCell.STAIRS_UP and STAIRS_DOWN bits of the open passages.
+     */
+    private static int stairs(GridFrame source, int cell) {
+        if (!(source.getTopology() instanceof LayeredTopology))
+            return 0;
+        LayeredTopology layers = (LayeredTopology) source.getTopology();
+        return (source.passage(cell, layers.getUpSide()) >= 0 ? MazeCell.STAIRS_UP : 0)
+                | (source.passage(cell, layers.getDownSide()) >= 0 ? MazeCell.STAIRS_DOWN : 0);
+    }
+
+    /**
+     * A single tile and its most recent image.
+     */
+    private static class Tile {
+        // position of the tile in tiles
+        final int tx, ty;
+
+        // the most recent image and the version of the tile it shows
+        volatile BufferedImage image;
+        volatile int renderedVersion = -1;
+
+        // incremented whenever a cell inside the tile changes (only on the painting thread)
+        volatile int version;
+
+        // true while the tile is queued or being drawn
+        final AtomicBoolean pending = new AtomicBoolean();
+
+        // the last frame the tile was requested in
+        long lastUsed;
+
+        Tile(int tx, int ty) {
+            this.tx = tx;
+            this.ty = ty;
+        }
+    }
+}
@@ -0,0 +1,221 @@
+/*
+ * File:     Topology.java
+ * Author:   Taylor Ecton
+ * Purpose:  Describes how the cells of a maze fit together: how many sides each cell has, which cell is on
+ *           the other side of each side, and where each cell is drawn. Generators and solvers only loop
+ *           over getSides() and call neighbor(), so they work on every shape of grid without knowing it.
+ *           Positions are in model units, where the cells are roughly one unit across.
+ */
+
+import java.util.function.IntConsumer;
+
+public abstract class Topology {
+    // largest distance between the centers of two neighbouring cells, found the first time it's needed;
+    // volatile since a topology is shared by every thread solving the same maze, and any of them may find it
+    private volatile double maxStep;
+
+    /**
+     * Gets the number of cells.
+     * @return The number of cells.
+     */
+    public abstract int getCellCount();
+
+    /**
+     * Gets the largest number of sides a cell can have. Sides are numbered from 0 to getSides() - 1.
+     * @return The number of sides.
+     */
+    public abstract int getSides();
+
+    /**
+     * Gets the cell on the other side of a side.
+     * @param cell The cell index.
+     * @param side The side to look through.
+     * @return The neighbouring cell index, or -1 if there is no cell on that side.
+     */
+    public abstract int neighbor(int cell, int side);
+
+    /**
+     * Gets the side of the neighbouring cell that faces back towards a cell.
+     * @param cell The cell index.
+     * @param side The side of the cell.
+     * @return The side of neighbor(cell, side) that touches the cell.
+     */
+    public abstract int backSide(int cell, int side);
+
+    /**
+     * Gets the next side going clockwise around a cell, for solvers that follow a wall. Taking the next
+     * side over and over reaches every side once before coming back around. The default suits grids whose
+     * sides are numbered clockwise.
+     * @param cell The cell index.
+     * @param side The side.
+     * @return The side after it, which may be a side the cell doesn't have.
+     */
+    public int nextSideClockwise(int cell, int side) { return side + 1 < getSides() ? side + 1 : 0; }
+
+    /**
+     * Gets the next side going counterclockwise around a cell, undoing nextSideClockwise.
+     * @param cell The cell index.
+     * @param side The side.
+     * @return The side before it, which may be a side the cell doesn't have.
+     */
+    public int nextSideCounterclockwise(int cell, int side) { return side > 0 ? side - 1 : getSides() - 1; }
+
+    /**
+     * Gets the number of rows of cells (rings for a polar grid).
+     * @return The number of rows.
+     */
+    public abstract int getRows();
+
+    /**
+     * Gets the number of columns of cells (cells in the outer ring for a polar grid).
+     * @return The number of columns.
+     */
+    public abstract int getColumns();
+
+    /**
+     * Gets the index of the cell at a row and column.
+     * @param row The row.
+     * @param column The column.
+     * @return The cell index.
+     */
+    public abstract int index(int row, int column);
+
+    /**
+     * Gets the row of a cell.
+     * @param cell The cell index.
+     * @return The row.
+     */
+    public abstract int row(int cell);
+
+    /**
+     * Gets the column of a cell.
+     * @param cell The cell index.
+     * @return The column.
+     */
+    public abstract int column(int cell);
+
+    /**
+     * Gets the width of the whole grid.
+     * @return The width in model units.
+     */
+    public abstract double getWidth();
+
+    /**
+     * Gets the height of the whole grid.
+     * @return The height in model units.
+     */
+    public abstract double getHeight();
+
+    /**
+     * Gets the center of a cell.
+     * @param cell The cell index.
+     * @param xy Array the x and y coordinates are stored in.
+     */
+    public abstract void getCenter(int cell, double[] xy);
+
+    /**
+     * Gets the corners of a cell in order around its outline.
+     * @param cell The cell index.
+     * @param xs Array the x coordinates are stored in (at least 8 long).
+     * @param ys Array the y coordinates are stored in (at least 8 long).
+     * @return The number of corners.
+     */
+    public abstract int getOutline(int cell, double[] xs, double[] ys);
+
+    /**
+     * Gets the line segment a side of a cell is drawn along.
+     * @param cell The cell index.
+     * @param side The side.
+     * @param segment Array the coordinates x1, y1, x2, y2 are stored in.
+     * @return False if the cell doesn't have that side.
+     */
+    public abstract boolean getSide(int cell, int side, double[] segment);
+
+    /**
+     * Gets the smallest rectangle containing a cell.
+     * @param cell The cell index.
+     * @param bounds Array the left, top, right and bottom edges are stored in.
+     */
+    public void getBounds(int cell, double[] bounds) {
+        double[] xs = new double[8];
+        double[] ys = new double[8];
+        int corners = getOutline(cell, xs, ys);
+        bounds[0] = bounds[2] = xs[0];
+        bounds[1] = bounds[3] = ys[0];
+        for (int i = 1; i < corners; i++) {
+            bounds[0] = Math.min(bounds[0], xs[i]);
+            bounds[1] = Math.min(bounds[1], ys[i]);
+            bounds[2] = Math.max(bounds[2], xs[i]);
+            bounds[3] = Math.max(bounds[3], ys[i]);
+        }
+    }
+
+    /**
+     * Calls an action for every cell that might overlap a rectangle. May include a few cells just outside.
+     * @param x0 Left edge of the rectangle.
+     * @param y0 Top edge of the rectangle.
+     * @param x1 Right edge of the rectangle.
+     * @param y1 Bottom edge of the rectangle.
+     * @param action Called with each cell index.
+     */
+    public abstract void forEachCellIn(double x0, double y0, double x1, double y1, IntConsumer action);
+
+    /**
+     * Tells whether the cells are unit squares at (column, row), so faster square-only drawing can be used.
+     * @return True for a square grid.
+     */
+    public boolean isRectangular() { return false; }
+
+    /**
+     * Gets the cell a solver starts from.
+     * @return The start cell index.
+     */
+    public int getStartCell() { return 0; }
+
+    /**
+     * Gets the cell a solver looks for.
+     * @return The end cell index.
+     */
+    public int getEndCell() { return getCellCount() - 1; }
+
+    /**
+     * Gets a lower bound on the number of steps between two cells, for guiding A*. The default divides the
+     * distance between the centers by the longest single step.
+     * @param from The first cell.
+     * @param to The second cell.
+     * @return A number of steps that is never more than the real number.
+     */
+    public int distanceEstimate(int from, int to) {
+        double step = maxStep;
+        if (step == 0) {
+            step = findMaxStep();
+            maxStep = step;
+        }
+        double[] a = new double[2];
+        double[] b = new double[2];
+        getCenter(from, a);
+        getCenter(to, b);
+        return (int) (Math.hypot(a[0] - b[0], a[1] - b[1]) / step);
+    }
+
+    /**
+     * Finds the largest distance between the centers of two neighbouring cells.
+     * @return The longest step.
+     */
+    private double findMaxStep() {
+        double[] a = new double[2];
+        double[] b = new double[2];
+        double max = 1e-9;
+        for (int cell = 0; cell < getCellCount(); cell++) {
+            getCenter(cell, a);
+            for (int side = 0; side < getSides(); side++) {
+                int next = neighbor(cell, side);
+                if (next >= 0) {
+                    getCenter(next, b);
+                    max = Math.max(max, Math.hypot(a[0] - b[0], a[1] - b[1]));
+                }
+            }
+        }
+        return max;
+    }
+}
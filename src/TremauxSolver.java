@@ -0,0 +1,148 @@
+/*
+ * File:     TremauxSolver.java
+ * Author:   Taylor Ecton
+ * Purpose:  Solves the maze with Tremaux's algorithm, which marks every passage each time it walks along it.
+ *           It never takes a passage marked twice, turns back when a new passage leads to a cell it has
+ *           seen before, and otherwise prefers passages it hasn't taken. The marks are two bits per
+ *           passage, packed 32 to a long, and are all the memory it needs. It finds the end in any maze,
+ *           with or without loops, and the passages marked once are then a path from the start to the end.
+ */
+
+public class TremauxSolver implements MazeSolver {
+    // the maze being solved and the cells the solver starts and ends at
+    private MazeGrid grid;
+    private int start, end;
+
+    // number of times each passage has been walked, two bits for each side of each cell; a passage uses
+    // the bits of the side of its lower numbered cell
+    private long[] marks;
+
+    // the current cell, or -1 if the end can't be reached, and the side it came in through, or -1 at first
+    private int curr = -1;
+    private int entrySide;
+
+    // number of cells reached for the first time
+    private int cellsVisited;
+
+    /**
+     * Initializes variables when solving the maze.
+     * @param grid The maze to solve.
+     * @param start The cell to start from.
+     * @param end The cell to find.
+     */
+    @Override
+    public void init(MazeGrid grid, int start, int end) {
+        this.grid = grid;
+        this.start = start;
+        this.end = end;
+
+        // nothing is marked yet
+        marks = new long[(int) (((long) grid.getCellCount() * grid.getSides() + 31) >>> 5)];
+        curr = start;
+        entrySide = -1;
+        cellsVisited = 1;
+    }
+
+    /**
+     * Walks along a single passage.
+     */
+    @Override
+    public void step() {
+        if (isFinished())
+            return;
+
+        // the least marked passage other than the way in, and whether this cell has been seen before
+        int best = -1, bestMarks = 2;
+        boolean seenBefore = false;
+        for (int side = 0; side < grid.getSides(); side++) {
+            if (side == entrySide || grid.passage(curr, side) < 0)
+                continue;
+            int count = getMarks(curr, side);
+            if (count > 0)
+                seenBefore = true;
+            if (count < bestMarks) {
+                best = side;
+                bestMarks = count;
+            }
+        }
+
+        // turn back at a dead end, or when a new passage led to a cell that has been seen before
+        int side = best;
+        if (entrySide >= 0 && (best < 0 || (seenBefore && getMarks(curr, entrySide) == 1))) {
+            side = entrySide;
+        }
+        if (side < 0 || getMarks(curr, side) == 2) {
+            // every passage that can be reached has been walked both ways
+            curr = -1;
+            return;
+        }
+
+        int next = grid.passage(curr, side);
+        addMark(curr, side);
+        if (grid.getState(next) == MazeCell.UNVISITED)
+            cellsVisited++;
+
+        // cells with a passage marked once are on the way back to the start
+        updateState(curr);
+        updateState(next);
+
+        entrySide = grid.getTopology().backSide(curr, side);
+        curr = next;
+    }
+
+    @Override
+    public boolean isFinished() { return curr < 0 || curr == end; }
+
+    @Override
+    public int getCellsVisited() { return cellsVisited; }
+
+    /**
+     * Finds where the marks of a passage are kept.
+     * @param cell A cell on one side of the passage.
+     * @param side The side of the cell the passage goes through.
+     * @return The index of the passage in the marks.
+     */
+    private int markIndex(int cell, int side) {
+        int next = grid.neighbor(cell, side);
+        return cell < next ? cell * grid.getSides() + side
+                : next * grid.getSides() + grid.getTopology().backSide(cell, side);
+    }
+
+    /**
+     * Gets the number of times a passage has been walked.
+     * @param cell A cell on one side of the passage.
+     * @param side The side of the cell the passage goes through.
+     * @return 0, 1 or 2.
+     */
+    private int getMarks(int cell, int side) {
+        int index = markIndex(cell, side);
+        return (int) (marks[index >>> 5] >>> ((index & 31) << 1)) & 3;
+    }
+
+    /**
+     * Adds a mark to a passage.
+     * @param cell A cell on one side of the passage.
+     * @param side The side of the cell the passage goes through.
+     */
+    private void addMark(int cell, int side) {
+        int index = markIndex(cell, side);
+        marks[index >>> 5] += 1L << ((index & 31) << 1);
+    }
+
+    /**
+     * Marks a cell as visited if one of its passages is marked once, which means it is on the path back to
+     * the start, or as backtracked otherwise. The start and end keep their states.
+     * @param cell The cell to mark.
+     */
+    private void updateState(int cell) {
+        if (cell == start || cell == end)
+            return;
+        for (int side = 0; side < grid.getSides(); side++) {
+            if (grid.passage(cell, side) >= 0 && getMarks(cell, side) == 1) {
+                grid.setState(cell, MazeCell.VISITED);
+                return;
+            }
+        }
+        grid.setState(cell, MazeCell.BACKTRACKED);
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * File:     TriangleTopology.java
+ * Author:   Taylor Ecton
+ * Purpose:  Grid of equilateral triangles one unit wide that alternately point up and down along each
+ *           row. A triangle points up when its row plus column is even. Every triangle has a neighbour to
+ *           the left and right, and a third one below it (pointing up) or above it (pointing down).
+ */
+
+public class TriangleTopology extends LatticeTopology {
+    // sides of a triangle
+    public static final int LEFT = 0;
+    public static final int RIGHT = 1;
+    public static final int BASE = 2;
+
+    // height of a triangle
+    private static final double HEIGHT = Math.sqrt(3.0) / 2;
+
+    /**
+     * Constructor for TriangleTopology class.
+     * @param rows Number of rows in the grid.
+     * @param columns Number of columns in the grid.
+     */
+    public TriangleTopology(int rows, int columns) {
+        super(rows, columns, new int[] {RIGHT, LEFT, BASE}, 0.5, HEIGHT);
+    }
+
+    @Override
+    protected int rowStep(boolean oddRow, boolean oddColumn, int side) {
+        if (side != BASE)
+            return 0;
+        return oddRow == oddColumn ? 1 : -1;
+    }
+
+    @Override
+    protected int columnStep(boolean oddRow, boolean oddColumn, int side) {
+        return side == LEFT ? -1 : side == RIGHT ? 1 : 0;
+    }
+
+    @Override
+    public double getWidth() { return (columns + 1) * 0.5; }
+
+    @Override
+    public double getHeight() { return rows * HEIGHT; }
+
+    @Override
+    public void getCenter(int cell, double[] xy) {
+        int row = row(cell);
+        int col = column(cell);
+        xy[0] = col * 0.5 + 0.5;
+        xy[1] = (row + (pointsUp(row, col) ? 2.0 / 3 : 1.0 / 3)) * HEIGHT;
+    }
+
+    @Override
+    public int getOutline(int cell, double[] xs, double[] ys) {
+        int row = row(cell);
+        int col = column(cell);
+        double left = col * 0.5;
+        double top = row * HEIGHT;
+        double bottom = top + HEIGHT;
+        if (pointsUp(row, col)) {
+            xs[0] = left + 0.5;
+            ys[0] = top;
+            xs[1] = left + 1;
+            ys[1] = bottom;
+            xs[2] = left;
+            ys[2] = bottom;
+        } else {
+            xs[0] = left;
+            ys[0] = top;
+            xs[1] = left + 1;
+            ys[1] = top;
+            xs[2] = left + 0.5;
+            ys[2] = bottom;
+        }
+        return 3;
+    }
+
+    @Override
+    public boolean getSide(int cell, int side, double[] segment) {
+        int row = row(cell);
+        int col = column(cell);
+        double left = col * 0.5;
+        double top = row * HEIGHT;
+        double bottom = top + HEIGHT;
+        boolean up = pointsUp(row, col);
+
+        // the left and right sides share the point, and the base is the opposite edge
+        double pointY = up ? top : bottom;
+        double baseY = up ? bottom : top;
+        switch (side) {
+            case LEFT:
+                setSegment(segment, left + 0.5, pointY, left, baseY);
+                break;
+            case RIGHT:
+                setSegment(segment, left + 0.5, pointY, left + 1, baseY);
+                break;
+            default:
+                setSegment(segment, left, baseY, left + 1, baseY);
+                break;
+        }
+        return true;
+    }
+
+    /**
+     * Gets a lower bound on the number of steps between two cells. Every step moves the center by the
+     * same distance, so the longest step doesn't need to be searched for.
+     * @param from The first cell.
+     * @param to The second cell.
+     * @return A number of steps that is never more than the real number.
+     */
+    @Override
+    public int distanceEstimate(int from, int to) {
+        double[] a = new double[2];
+        double[] b = new double[2];
+        getCenter(from, a);
+        getCenter(to, b);
+        return (int) (Math.hypot(a[0] - b[0], a[1] - b[1]) * Math.sqrt(3.0) + 1e-9);
+    }
+
+    /**
+     * Gets the next side clockwise. The sides of a triangle pointing up are numbered clockwise, and those
+     * of a triangle pointing down counterclockwise.
+     */
+    @Override
+    public int nextSideClockwise(int cell, int side) {
+        return pointsUp(row(cell), column(cell)) ? super.nextSideClockwise(cell, side)
+                : super.nextSideCounterclockwise(cell, side);
+    }
+
+    @Override
+    public int nextSideCounterclockwise(int cell, int side) {
+        return pointsUp(row(cell), column(cell)) ? super.nextSideCounterclockwise(cell, side)
+                : super.nextSideClockwise(cell, side);
+    }
+
+    /**
+     * Tells whether a triangle points up.
+     * @param row The row of the triangle.
+     * @param col The column of the triangle.
+     * @return True if the triangle points up.
+     */
+    private static boolean pointsUp(int row, int col) {
+        return ((row + col) & 1) == 0;
+    }
+
+    /**
+     * Stores the ends of a line segment.
+     */
+    private static void setSegment(double[] segment, double x1, double y1, double x2, double y2) {
+        segment[0] = x1;
+        segment[1] = y1;
+        segment[2] = x2;
+        segment[3] = y2;
+    }
+}
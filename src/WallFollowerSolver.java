@@ -0,0 +1,117 @@
+/*
+ * File:     WallFollowerSolver.java
+ * Author:   Taylor Ecton
+ * Purpose:  Solves the maze by keeping one hand on the wall: at every cell it turns as far towards that hand
+ *           as the passages allow. Apart from the cell states of the grid it only remembers the current cell and
+ *           the side it came in through, so it can run on mazes far too large for a visited array. In a
+ *           perfect maze it always reaches the end and the cells left colored as visited are exactly the
+ *           path. In a maze with loops it only reaches the end for sure when the start and end are both on
+ *           the outside edge of a single floor; otherwise it can circle back to where it began.
+ */
+
+public class WallFollowerSolver implements MazeSolver {
+    // whether the left hand is kept on the wall rather than the right
+    private final boolean leftHand;
+
+    // the maze being solved and the cells the solver starts and ends at
+    private MazeGrid grid;
+    private int start, end;
+
+    // the current cell, or -1 if the end can't be reached, and the side of it the solver came in through
+    private int curr = -1;
+    private int entrySide;
+
+    // the side of the start cell the solver acts as if it came in through when it begins
+    private int firstSide;
+
+    // number of cells reached for the first time
+    private int cellsVisited;
+
+    /**
+     * Constructor for WallFollowerSolver class.
+     * @param leftHand True to follow the wall on the left, false to follow the wall on the right.
+     */
+    public WallFollowerSolver(boolean leftHand) {
+        this.leftHand = leftHand;
+    }
+
+    /**
+     * Initializes variables when solving the maze.
+     * @param grid The maze to solve.
+     * @param start The cell to start from.
+     * @param end The cell to find.
+     */
+    @Override
+    public void init(MazeGrid grid, int start, int end) {
+        this.grid = grid;
+        this.start = start;
+        this.end = end;
+
+        // put the hand on the outside wall of the maze if the start is on the edge, so mazes with loops
+        // can still be solved when the end is on the edge too
+        Topology topology = grid.getTopology();
+        int outside = 0;
+        for (int side = grid.getSides() - 1; side >= 0; side--) {
+            if (grid.neighbor(start, side) < 0)
+                outside = side;
+        }
+
+        // the open side just before it would be left for last anyway, so start as if coming in through that
+        cellsVisited = 1;
+        curr = -1;
+        int side = outside;
+        for (int i = 0; i < grid.getSides() && curr < 0; i++) {
+            if (grid.passage(start, side) >= 0) {
+                curr = start;
+                firstSide = side;
+            }
+            side = leftHand ? topology.nextSideCounterclockwise(start, side)
+                    : topology.nextSideClockwise(start, side);
+        }
+        entrySide = firstSide;
+    }
+
+    /**
+     * Moves to the next cell along the wall.
+     */
+    @Override
+    public void step() {
+        if (isFinished())
+            return;
+
+        // turn towards the hand on the wall first and away from it last; the way back in comes last of all
+        Topology topology = grid.getTopology();
+        int side = entrySide;
+        int next = -1;
+        for (int i = 0; i < grid.getSides() && next < 0; i++) {
+            side = leftHand ? topology.nextSideClockwise(curr, side)
+                    : topology.nextSideCounterclockwise(curr, side);
+            next = grid.passage(curr, side);
+        }
+
+        // stepping back onto the path means the current cell was a dead end or led to one
+        if (next == start || grid.getState(next) == MazeCell.VISITED) {
+            if (curr != start)
+                grid.setState(curr, MazeCell.BACKTRACKED);
+        } else {
+            if (grid.getState(next) == MazeCell.UNVISITED)
+                cellsVisited++;
+            if (next != end)
+                grid.setState(next, MazeCell.VISITED);
+        }
+
+        entrySide = topology.backSide(curr, side);
+        curr = next;
+
+        // coming back in the way it first started means every cell it can reach has been seen
+        if (curr == start && entrySide == firstSide) {
+            curr = -1;
+        }
+    }
+
+    @Override
+    public boolean isFinished() { return curr < 0 || curr == end; }
+
+    @Override
+    public int getCellsVisited() { return cellsVisited; }
+}
@@ -0,0 +1,71 @@
+/*
+ * File:     WallStore.java
+ * Author:   Taylor Ecton
+ * Purpose:  Storage for the wall bits of every cell of a MazeGrid, one byte per cell. The generator and
+ *           solvers only see MazeGrid, so the bytes can live in a plain array on the Java heap or outside
+ *           it in a direct or memory-mapped buffer without changing any of them.
+ */
+
+public interface WallStore {
+    /**
+     * Gets the number of cells stored.
+     * @return The number of cells.
+     */
+    int getCellCount();
+
+    /**
+     * Gets the wall bits of a cell.
+     * @param cell The cell index.
+     * @return The wall bits; bit i is set when wall i is present.
+     */
+    int get(int cell);
+
+    /**
+     * Sets the wall bits of a cell.
+     * @param cell The cell index.
+     * @param walls The wall bits; only the low 8 bits are stored.
+     */
+    void set(int cell, int walls);
+
+    /**
+     * Sets every cell to the same wall bits.
+     * @param walls The wall bits.
+     */
+    void fill(int walls);
+
+    /**
+     * Copies the wall bits of a run of cells into an array.
+     * @param firstCell The first cell to copy.
+     * @param dst The array to copy into.
+     * @param offset Where in dst to put the first cell.
+     * @param count The number of cells to copy.
+     */
+    void copyTo(int firstCell, byte[] dst, int offset, int count);
+
+    /**
+     * Replaces the wall bits of a run of cells from an array.
+     * @param firstCell The first cell to replace.
+     * @param src The array to copy from.
+     * @param offset Where in src the first cell is.
+     * @param count The number of cells to replace.
+     */
+    void copyFrom(int firstCell, byte[] src, int offset, int count);
+
+    /**
+     * Finds the first cell at or after a given one with at least a number of walls.
+     * @param fromCell The first cell to look at.
+     * @param minWalls The number of walls, from 1 to 8.
+     * @return The cell index, or -1 if no later cell has that many walls.
+     */
+    int find(int fromCell, int minWalls);
+
+    /**
+     * Finds the first cell of a run whose wall bits differ from those in an array.
+     * @param firstCell The first cell to compare.
+     * @param other The array to compare with.
+     * @param offset Where in other the first cell is.
+     * @param count The number of cells to compare.
+     * @return The first cell that differs, or -1 if they are all the same.
+     */
+    int mismatch(int firstCell, byte[] other, int offset, int count);
+}